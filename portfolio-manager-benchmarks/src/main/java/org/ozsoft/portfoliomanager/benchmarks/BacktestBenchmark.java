@@ -0,0 +1,84 @@
+// This file is part of the 'portfolio-manager' (Portfolio Manager)
+// project, an open source stock portfolio manager application
+// written in Java.
+//
+// Copyright 2015 Oscar Stigter
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.ozsoft.portfoliomanager.benchmarks;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.ozsoft.portfoliomanager.domain.Backtest;
+import org.ozsoft.portfoliomanager.domain.PriceSeries;
+import org.ozsoft.portfoliomanager.domain.Stock;
+import org.ozsoft.portfoliomanager.domain.Transaction;
+
+/**
+ * Benchmarks of the portfolio {@link Backtest}.
+ *
+ * @author Oscar Stigter
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BacktestBenchmark {
+
+    @Param({ "100" })
+    public int noOfStocks;
+
+    @Param({ "20" })
+    public int noOfYears;
+
+    private List<Transaction> transactions;
+
+    private Map<String, PriceSeries> prices;
+
+    @Setup
+    public void setup() {
+        List<Stock> stocks = BenchmarkData.createStocks(noOfStocks);
+        transactions = BenchmarkData.createTransactions(stocks, noOfYears);
+        PriceSeries priceSeries = PriceSeries.fromQuotes(BenchmarkData.createPrices(noOfYears));
+        prices = new HashMap<String, PriceSeries>();
+        for (Stock stock : stocks) {
+            prices.put(stock.getSymbol(), priceSeries);
+        }
+    }
+
+    /**
+     * Benchmarks a full backtest (daily NAV, cash flows and income).
+     */
+    @Benchmark
+    public double run() {
+        Backtest backtest = Backtest.run(transactions, prices, 0.15, BenchmarkData.getEndDate());
+        return backtest.getValue(backtest.getLastDay());
+    }
+}
@@ -0,0 +1,224 @@
+// This file is part of the 'portfolio-manager' (Portfolio Manager)
+// project, an open source stock portfolio manager application
+// written in Java.
+//
+// Copyright 2015 Oscar Stigter
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.ozsoft.portfoliomanager.benchmarks;
+
+import java.io.StringReader;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
+
+import org.ozsoft.portfoliomanager.domain.Configuration;
+import org.ozsoft.portfoliomanager.domain.CreditRating;
+import org.ozsoft.portfoliomanager.domain.Quote;
+import org.ozsoft.portfoliomanager.domain.Stock;
+import org.ozsoft.portfoliomanager.domain.Transaction;
+import org.ozsoft.portfoliomanager.domain.TransactionType;
+
+/**
+ * Generators of synthetic (but realistic) benchmark data. <br />
+ * <br />
+ *
+ * All data is generated with a fixed random seed, so every run benchmarks exactly the same data and results are comparable across runs.
+ *
+ * @author Oscar Stigter
+ */
+public final class BenchmarkData {
+
+    /** Fixed random seed. */
+    private static final long SEED = 20150101L;
+
+    private static final long DAY = 24L * 60L * 60L * 1000L;
+
+    /**
+     * End date of all generated data (start of the current day, so the data always falls within the time ranges used by the analyses; only
+     * the dates shift between runs, not the values).
+     */
+    private static final long END_DATE = System.currentTimeMillis() / DAY * DAY;
+
+    private static final CreditRating[] CREDIT_RATINGS = CreditRating.values();
+
+    /**
+     * Private constructor to deny instantiation.
+     */
+    private BenchmarkData() {
+        // Empty implementation.
+    }
+
+    /**
+     * Returns the end date of all generated data.
+     *
+     * @return The end date as timestamp in milliseconds.
+     */
+    public static long getEndDate() {
+        return END_DATE;
+    }
+
+    /**
+     * Creates a (non-singleton) configuration with stocks and transactions.
+     *
+     * @param noOfStocks
+     *            The number of stocks.
+     * @param noOfYears
+     *            The number of years of transactions per stock (a buy, quarterly dividends and an occasional buy or sell per year).
+     *
+     * @return The configuration.
+     */
+    public static Configuration createConfiguration(int noOfStocks, int noOfYears) {
+        Configuration config = Configuration.fromJson(new StringReader("{}"));
+        List<Stock> stocks = createStocks(noOfStocks);
+        for (Stock stock : stocks) {
+            config.addStock(stock);
+        }
+        for (Transaction tx : createTransactions(stocks, noOfYears)) {
+            config.addTransaction(tx);
+        }
+        return config;
+    }
+
+    /**
+     * Creates stocks with random prices and dividend data.
+     *
+     * @param noOfStocks
+     *            The number of stocks.
+     *
+     * @return The stocks.
+     */
+    public static List<Stock> createStocks(int noOfStocks) {
+        Random random = new Random(SEED);
+        List<Stock> stocks = new ArrayList<Stock>(noOfStocks);
+        for (int i = 0; i < noOfStocks; i++) {
+            String symbol = String.format("S%04d", i);
+            Stock stock = new Stock(symbol, "Stock " + symbol);
+            double price = 10.0 + random.nextDouble() * 190.0;
+            stock.setPrice(money(price));
+            stock.setChangePerc(money(random.nextGaussian()));
+            stock.setTargetPrice(money(price * (0.8 + random.nextDouble() * 0.4)));
+            stock.setDivRate(money(price * random.nextDouble() * 0.06));
+            stock.setDivGrowth(money(random.nextDouble() * 15.0));
+            stock.setYearsDivGrowth(random.nextInt(60));
+            stock.setCreditRating(CREDIT_RATINGS[random.nextInt(CREDIT_RATINGS.length)]);
+            stock.setComment("Synthetic stock");
+            stocks.add(stock);
+        }
+        return stocks;
+    }
+
+    /**
+     * Creates transactions for stocks: per year an initial or additional buy, quarterly dividends and an occasional partial sell.
+     *
+     * @param stocks
+     *            The stocks.
+     * @param noOfYears
+     *            The number of years.
+     *
+     * @return The transactions (in random order).
+     */
+    public static List<Transaction> createTransactions(List<Stock> stocks, int noOfYears) {
+        Random random = new Random(SEED);
+        List<Transaction> transactions = new ArrayList<Transaction>();
+        long startDate = END_DATE - noOfYears * 365L * DAY;
+        int id = 1;
+        for (Stock stock : stocks) {
+            String symbol = stock.getSymbol();
+            double price = stock.getPrice().doubleValue();
+            int noOfShares = 0;
+            // Unique dates per stock (transactions are equal if they have the same symbol and date).
+            long date = startDate + random.nextInt(30) * DAY;
+            for (int year = 0; year < noOfYears; year++) {
+                int shares = 10 + random.nextInt(90);
+                transactions.add(createTransaction(id++, date, TransactionType.BUY, symbol, shares, price, 5.0));
+                noOfShares += shares;
+                for (int quarter = 0; quarter < 4; quarter++) {
+                    date += 90L * DAY;
+                    transactions.add(createTransaction(id++, date, TransactionType.DIVIDEND, symbol, noOfShares, price * 0.01, 0.0));
+                }
+                if (random.nextInt(5) == 0) {
+                    int sharesSold = noOfShares / 2;
+                    transactions.add(createTransaction(id++, date + DAY, TransactionType.SELL, symbol, sharesSold, price * 1.1, 5.0));
+                    noOfShares -= sharesSold;
+                }
+                date += 5L * DAY;
+                price *= 1.0 + random.nextGaussian() * 0.1;
+            }
+        }
+        // Transactions are entered in any order.
+        Collections.shuffle(transactions, random);
+        return transactions;
+    }
+
+    /**
+     * Creates historic daily closing prices (random walk, weekdays only).
+     *
+     * @param noOfYears
+     *            The number of years.
+     *
+     * @return The prices (sorted by date).
+     */
+    public static List<Quote> createPrices(int noOfYears) {
+        Random random = new Random(SEED);
+        List<Quote> prices = new ArrayList<Quote>();
+        double price = 10.0;
+        for (long date = END_DATE - noOfYears * 365L * DAY; date <= END_DATE; date += DAY) {
+            if ((date / DAY + 4L) % 7L < 5L) {
+                price *= 1.0 + random.nextGaussian() * 0.015 + 0.0003;
+                prices.add(new Quote(new Date(date), money(price)));
+            }
+        }
+        return prices;
+    }
+
+    /**
+     * Creates historic quarterly dividend payouts.
+     *
+     * @param noOfYears
+     *            The number of years.
+     *
+     * @return The dividend payouts (sorted by date).
+     */
+    public static List<Quote> createDividends(int noOfYears) {
+        List<Quote> dividends = new ArrayList<Quote>();
+        double dividend = 0.10;
+        for (long date = END_DATE - noOfYears * 365L * DAY; date <= END_DATE; date += 91L * DAY) {
+            dividends.add(new Quote(new Date(date), money(dividend)));
+            dividend *= 1.015;
+        }
+        return dividends;
+    }
+
+    private static Transaction createTransaction(int id, long date, TransactionType type, String symbol, int noOfShares, double price,
+            double cost) {
+        Transaction tx = new Transaction();
+        tx.setId(id);
+        tx.setDate(date);
+        tx.setType(type);
+        tx.setSymbol(symbol);
+        tx.setNoOfShares(new BigDecimal(noOfShares));
+        tx.setPrice(money(price));
+        tx.setCost(money(cost));
+        return tx;
+    }
+
+    private static BigDecimal money(double value) {
+        return new BigDecimal(value).setScale(2, RoundingMode.HALF_UP);
+    }
+}
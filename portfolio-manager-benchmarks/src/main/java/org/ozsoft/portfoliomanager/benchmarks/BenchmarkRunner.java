@@ -0,0 +1,170 @@
+// This file is part of the 'portfolio-manager' (Portfolio Manager)
+// project, an open source stock portfolio manager application
+// written in Java.
+//
+// Copyright 2015 Oscar Stigter
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.ozsoft.portfoliomanager.benchmarks;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+/**
+ * Runs the benchmarks and publishes the results as a timestamped JSON file (JMH format), optionally comparing them with the results of a
+ * previous (baseline) run. <br />
+ * <br />
+ *
+ * Usage: {@code java -jar benchmarks.jar [JMH options] [--baseline <results file>]} <br />
+ * <br />
+ *
+ * All benchmarks use fixed synthetic data and fixed warmup, measurement and fork settings, so results of runs on the same hardware are
+ * directly comparable. The JSON file also records the JVM and JMH settings of the run.
+ *
+ * @author Oscar Stigter
+ */
+public class BenchmarkRunner {
+
+    private static final File RESULTS_DIR = new File("results");
+
+    /** Relative score change considered a regression or improvement. */
+    private static final double SIGNIFICANT_CHANGE = 0.10;
+
+    public static void main(String[] args) throws RunnerException, IOException, CommandLineOptionException {
+        File baselineFile = null;
+        List<String> jmhArgs = new ArrayList<String>();
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("--baseline") && i + 1 < args.length) {
+                baselineFile = new File(args[++i]);
+            } else {
+                jmhArgs.add(args[i]);
+            }
+        }
+        CommandLineOptions commandLineOptions = new CommandLineOptions(jmhArgs.toArray(new String[jmhArgs.size()]));
+
+        if (!RESULTS_DIR.exists()) {
+            RESULTS_DIR.mkdirs();
+        }
+        String timestamp = new SimpleDateFormat("yyyyMMdd-HHmmss").format(new Date());
+        File resultFile = new File(RESULTS_DIR, String.format("jmh-%s.json", timestamp));
+
+        ChainedOptionsBuilder builder = new OptionsBuilder().parent(commandLineOptions).resultFormat(ResultFormatType.JSON)
+                .result(resultFile.getPath());
+        if (commandLineOptions.getIncludes().isEmpty()) {
+            builder.include(BenchmarkRunner.class.getPackage().getName() + ".*Benchmark");
+        }
+        Options options = builder.build();
+        Collection<RunResult> results = new Runner(options).run();
+        System.out.format("%nResults written to '%s'%n", resultFile.getAbsolutePath());
+
+        if (baselineFile != null) {
+            compare(readScores(baselineFile), results);
+        }
+    }
+
+    /**
+     * Prints the relative change of each benchmark's score compared to the baseline.
+     *
+     * @param baseline
+     *            The baseline scores by benchmark key.
+     * @param results
+     *            The current results.
+     */
+    private static void compare(Map<String, Double> baseline, Collection<RunResult> results) {
+        Map<String, Double> scores = new TreeMap<String, Double>();
+        for (RunResult result : results) {
+            scores.put(getKey(result.getParams().getBenchmark(), result.getParams().getParamsKeys().isEmpty() ? null : toMap(result)),
+                    result.getPrimaryResult().getScore());
+        }
+
+        System.out.format("%nComparison with baseline (lower is better):%n");
+        for (Map.Entry<String, Double> score : scores.entrySet()) {
+            Double baselineScore = baseline.get(score.getKey());
+            if (baselineScore == null) {
+                System.out.format("  %-80s %12.3f  (new)%n", score.getKey(), score.getValue());
+            } else {
+                double change = (score.getValue() - baselineScore) / baselineScore;
+                String verdict = (change > SIGNIFICANT_CHANGE) ? "REGRESSION" : (change < -SIGNIFICANT_CHANGE) ? "improvement" : "";
+                System.out.format("  %-80s %12.3f %+8.1f %%  %s%n", score.getKey(), score.getValue(), change * 100.0, verdict);
+            }
+        }
+    }
+
+    /**
+     * Reads the scores from a JMH results file (JSON format).
+     *
+     * @param file
+     *            The results file.
+     *
+     * @return The scores by benchmark key.
+     */
+    private static Map<String, Double> readScores(File file) throws IOException {
+        Map<String, Double> scores = new HashMap<String, Double>();
+        try (Reader reader = new BufferedReader(new FileReader(file))) {
+            JsonArray results = JsonParser.parseReader(reader).getAsJsonArray();
+            for (JsonElement element : results) {
+                JsonObject result = element.getAsJsonObject();
+                Map<String, String> params = null;
+                if (result.has("params")) {
+                    params = new TreeMap<String, String>();
+                    for (Map.Entry<String, JsonElement> param : result.getAsJsonObject("params").entrySet()) {
+                        params.put(param.getKey(), param.getValue().getAsString());
+                    }
+                }
+                double score = result.getAsJsonObject("primaryMetric").get("score").getAsDouble();
+                scores.put(getKey(result.get("benchmark").getAsString(), params), score);
+            }
+        }
+        return scores;
+    }
+
+    private static Map<String, String> toMap(RunResult result) {
+        Map<String, String> params = new TreeMap<String, String>();
+        for (String key : result.getParams().getParamsKeys()) {
+            params.put(key, result.getParams().getParam(key));
+        }
+        return params;
+    }
+
+    private static String getKey(String benchmark, Map<String, String> params) {
+        String name = benchmark.substring(BenchmarkRunner.class.getPackage().getName().length() + 1);
+        return (params != null) ? name + " " + params : name;
+    }
+}
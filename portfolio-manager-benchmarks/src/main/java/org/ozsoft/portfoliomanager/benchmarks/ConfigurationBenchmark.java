@@ -0,0 +1,99 @@
+// This file is part of the 'portfolio-manager' (Portfolio Manager)
+// project, an open source stock portfolio manager application
+// written in Java.
+//
+// Copyright 2015 Oscar Stigter
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.ozsoft.portfoliomanager.benchmarks;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.ozsoft.portfoliomanager.domain.Configuration;
+
+/**
+ * Benchmarks of loading and saving the configuration (JSON file), as done on startup and after every change.
+ *
+ * @author Oscar Stigter
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ConfigurationBenchmark {
+
+    @Param({ "50", "500" })
+    public int noOfStocks;
+
+    @Param({ "10" })
+    public int noOfYears;
+
+    private Configuration config;
+
+    private File file;
+
+    @Setup
+    public void setup() throws IOException {
+        config = BenchmarkData.createConfiguration(noOfStocks, noOfYears);
+        file = File.createTempFile("portfolio-", ".json");
+        save();
+    }
+
+    @TearDown
+    public void tearDown() {
+        file.delete();
+    }
+
+    /**
+     * Benchmarks loading the configuration from file.
+     */
+    @Benchmark
+    public Configuration load() throws IOException {
+        try (Reader reader = new BufferedReader(new FileReader(file))) {
+            return Configuration.fromJson(reader);
+        }
+    }
+
+    /**
+     * Benchmarks saving the configuration to file.
+     */
+    @Benchmark
+    public void save() throws IOException {
+        try (Writer writer = new BufferedWriter(new FileWriter(file))) {
+            config.toJson(writer);
+        }
+    }
+}
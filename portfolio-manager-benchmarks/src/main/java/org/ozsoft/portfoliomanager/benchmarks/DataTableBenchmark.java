@@ -0,0 +1,78 @@
+// This file is part of the 'portfolio-manager' (Portfolio Manager)
+// project, an open source stock portfolio manager application
+// written in Java.
+//
+// Copyright 2015 Oscar Stigter
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.ozsoft.portfoliomanager.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.ozsoft.datatable.DataTable;
+import org.ozsoft.portfoliomanager.domain.Configuration;
+import org.ozsoft.portfoliomanager.domain.Portfolio;
+import org.ozsoft.portfoliomanager.ui.table.OwnedTable;
+
+/**
+ * Benchmarks of populating a {@link DataTable} with the portfolio's positions, using the same columns and rows as the 'Owned' table
+ * on every refresh (runs headless).
+ *
+ * @author Oscar Stigter
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+@State(Scope.Benchmark)
+public class DataTableBenchmark {
+
+    @Param({ "50", "500" })
+    public int noOfStocks;
+
+    private Portfolio portfolio;
+
+    private DataTable table;
+
+    @Setup
+    public void setup() {
+        Configuration config = BenchmarkData.createConfiguration(noOfStocks, 10);
+        portfolio = config.getPortfolio();
+
+        table = new DataTable();
+        table.setColumns(OwnedTable.createColumns(true));
+    }
+
+    /**
+     * Benchmarks populating the table with all positions and the totals, and updating it (resizing and sorting).
+     */
+    @Benchmark
+    public int populate() {
+        OwnedTable.populate(table, portfolio, true);
+        table.update();
+        return table.getRowCount();
+    }
+}
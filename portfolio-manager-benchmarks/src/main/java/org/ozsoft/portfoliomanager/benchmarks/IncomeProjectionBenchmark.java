@@ -0,0 +1,89 @@
+// This file is part of the 'portfolio-manager' (Portfolio Manager)
+// project, an open source stock portfolio manager application
+// written in Java.
+//
+// Copyright 2015 Oscar Stigter
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.ozsoft.portfoliomanager.benchmarks;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.ozsoft.portfoliomanager.domain.IncomeProjection;
+
+/**
+ * Benchmarks of the Monte Carlo {@link IncomeProjection}.
+ *
+ * @author Oscar Stigter
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class IncomeProjectionBenchmark {
+
+    private static final long SEED = 20150101L;
+
+    @Param({ "50" })
+    public int noOfPositions;
+
+    @Param({ "100000" })
+    public int noOfPaths;
+
+    private double[] values;
+
+    private double[] incomes;
+
+    private double[] divGrowths;
+
+    private double[] volatilities;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(SEED);
+        values = new double[noOfPositions];
+        incomes = new double[noOfPositions];
+        divGrowths = new double[noOfPositions];
+        volatilities = new double[noOfPositions];
+        for (int i = 0; i < noOfPositions; i++) {
+            values[i] = 1000.0 + random.nextInt(10000);
+            incomes[i] = values[i] * (0.01 + 0.04 * random.nextDouble());
+            divGrowths[i] = 2.0 + 8.0 * random.nextDouble();
+            volatilities[i] = 15.0 + 20.0 * random.nextDouble();
+        }
+    }
+
+    /**
+     * Benchmarks a 30-year projection with reinvested dividends.
+     */
+    @Benchmark
+    public double project() {
+        IncomeProjection projection = IncomeProjection.run(values, incomes, divGrowths, volatilities, true, 30, noOfPaths, 1L);
+        return projection.getIncome(2, 30);
+    }
+}
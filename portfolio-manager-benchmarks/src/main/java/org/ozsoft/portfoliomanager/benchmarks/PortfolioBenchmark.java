@@ -0,0 +1,117 @@
+// This file is part of the 'portfolio-manager' (Portfolio Manager)
+// project, an open source stock portfolio manager application
+// written in Java.
+//
+// Copyright 2015 Oscar Stigter
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.ozsoft.portfoliomanager.benchmarks;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.ozsoft.portfoliomanager.domain.Configuration;
+import org.ozsoft.portfoliomanager.domain.Portfolio;
+import org.ozsoft.portfoliomanager.domain.Position;
+import org.ozsoft.portfoliomanager.domain.Stock;
+import org.ozsoft.portfoliomanager.domain.Transaction;
+
+/**
+ * Benchmarks of building the portfolio (positions and totals) from the transactions.
+ *
+ * @author Oscar Stigter
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PortfolioBenchmark {
+
+    @Param({ "50", "500" })
+    public int noOfStocks;
+
+    @Param({ "10" })
+    public int noOfYears;
+
+    private Configuration config;
+
+    private Portfolio portfolio;
+
+    private Stock stock;
+
+    private List<Transaction> stockTransactions;
+
+    @Setup
+    public void setup() {
+        config = BenchmarkData.createConfiguration(noOfStocks, noOfYears);
+
+        portfolio = new Portfolio();
+        for (Transaction tx : config.getTransactions()) {
+            portfolio.addTransaction(tx);
+        }
+
+        stock = config.getStocks().iterator().next();
+        stockTransactions = new ArrayList<Transaction>();
+        for (Transaction tx : config.getTransactions()) {
+            if (tx.getSymbol().equals(stock.getSymbol())) {
+                stockTransactions.add(tx);
+            }
+        }
+        Collections.sort(stockTransactions);
+    }
+
+    /**
+     * Benchmarks {@link Configuration#getPortfolio()} (sorting the transactions and building the portfolio from scratch).
+     */
+    @Benchmark
+    public Portfolio getPortfolio() {
+        return config.getPortfolio();
+    }
+
+    /**
+     * Benchmarks {@link Portfolio#update(Configuration)} with a fixed set of transactions.
+     */
+    @Benchmark
+    public Portfolio updatePortfolio() {
+        portfolio.update(config);
+        return portfolio;
+    }
+
+    /**
+     * Benchmarks {@link Position#addTransaction(Transaction)} for all transactions of a single stock.
+     */
+    @Benchmark
+    public Position addTransactions() {
+        Position position = new Position(stock);
+        for (Transaction tx : stockTransactions) {
+            position.addTransaction(tx);
+        }
+        return position;
+    }
+}
@@ -0,0 +1,101 @@
+// This file is part of the 'portfolio-manager' (Portfolio Manager)
+// project, an open source stock portfolio manager application
+// written in Java.
+//
+// Copyright 2015 Oscar Stigter
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.ozsoft.portfoliomanager.benchmarks;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.ozsoft.portfoliomanager.domain.PriceSeries;
+import org.ozsoft.portfoliomanager.domain.RiskAnalysis;
+
+/**
+ * Benchmarks of the portfolio {@link RiskAnalysis}.
+ *
+ * @author Oscar Stigter
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RiskAnalysisBenchmark {
+
+    private static final long SEED = 20150101L;
+
+    @Param({ "500" })
+    public int noOfStocks;
+
+    @Param({ "20" })
+    public int noOfYears;
+
+    private String[] symbols;
+
+    private double[] values;
+
+    private Map<String, PriceSeries> prices;
+
+    @Setup
+    public void setup() {
+        // Random walks on the same trading days as the benchmark price history.
+        PriceSeries basePrices = PriceSeries.fromQuotes(BenchmarkData.createPrices(noOfYears));
+        int noOfDays = basePrices.size();
+        long[] timestamps = new long[noOfDays];
+        for (int d = 0; d < noOfDays; d++) {
+            timestamps[d] = basePrices.getTimestamp(d);
+        }
+        Random random = new Random(SEED);
+        symbols = new String[noOfStocks];
+        values = new double[noOfStocks];
+        prices = new HashMap<String, PriceSeries>();
+        for (int i = 0; i < noOfStocks; i++) {
+            symbols[i] = String.format("S%03d", i);
+            values[i] = 1000.0 + random.nextInt(10000);
+            double[] closes = new double[noOfDays];
+            double price = 10.0 + random.nextInt(100);
+            for (int d = 0; d < noOfDays; d++) {
+                price *= 1.0 + 0.015 * random.nextGaussian();
+                closes[d] = price;
+            }
+            prices.put(symbols[i], new PriceSeries(timestamps, closes));
+        }
+    }
+
+    /**
+     * Benchmarks a full risk analysis (return matrix, covariance matrix, volatility, VaR and CVaR).
+     */
+    @Benchmark
+    public double analyze() {
+        RiskAnalysis risk = new RiskAnalysis(symbols, values, prices, 0L, BenchmarkData.getEndDate(), 0.95);
+        return risk.getHistoricalCvar();
+    }
+}
@@ -0,0 +1,91 @@
+// This file is part of the 'portfolio-manager' (Portfolio Manager)
+// project, an open source stock portfolio manager application
+// written in Java.
+//
+// Copyright 2015 Oscar Stigter
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.ozsoft.portfoliomanager.benchmarks;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.ozsoft.portfoliomanager.domain.PriceSeries;
+import org.ozsoft.portfoliomanager.domain.Quote;
+import org.ozsoft.portfoliomanager.domain.StockPerformance;
+import org.ozsoft.portfoliomanager.domain.TimeRange;
+
+/**
+ * Benchmarks of the {@link StockPerformance} construction, as used by the stock analysis.
+ *
+ * @author Oscar Stigter
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class StockPerformanceBenchmark {
+
+    /** Years of price history. */
+    @Param({ "10", "50" })
+    public int noOfYears;
+
+    @Param({ "TEN_YEAR", "ONE_YEAR" })
+    public TimeRange timeRange;
+
+    private List<Quote> prices;
+
+    private List<Quote> dividends;
+
+    private PriceSeries priceSeries;
+
+    private PriceSeries dividendSeries;
+
+    @Setup
+    public void setup() {
+        prices = BenchmarkData.createPrices(noOfYears);
+        dividends = BenchmarkData.createDividends(noOfYears);
+        priceSeries = PriceSeries.fromQuotes(prices);
+        dividendSeries = PriceSeries.fromQuotes(dividends);
+    }
+
+    /**
+     * Benchmarks the construction from quotes (including the conversion to price series).
+     */
+    @Benchmark
+    public double fromQuotes() {
+        return new StockPerformance(prices, dividends, timeRange).getCagr();
+    }
+
+    /**
+     * Benchmarks the construction from (cached) price series.
+     */
+    @Benchmark
+    public double fromPriceSeries() {
+        return new StockPerformance(priceSeries, dividendSeries, timeRange).getCagr();
+    }
+}
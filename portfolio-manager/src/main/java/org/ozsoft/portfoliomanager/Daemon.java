@@ -0,0 +1,377 @@
+// This file is part of the 'portfolio-manager' (Portfolio Manager)
+// project, an open source stock portfolio manager application
+// written in Java.
+//
+// Copyright 2015 Oscar Stigter
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.ozsoft.portfoliomanager;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.ozsoft.portfoliomanager.api.ApiServer;
+import org.ozsoft.portfoliomanager.domain.Backtest;
+import org.ozsoft.portfoliomanager.domain.Configuration;
+import org.ozsoft.portfoliomanager.domain.IncomeProjection;
+import org.ozsoft.portfoliomanager.domain.PeriodStatistics;
+import org.ozsoft.portfoliomanager.domain.PortfolioStatistics;
+import org.ozsoft.portfoliomanager.domain.RiskAnalysis;
+import org.ozsoft.portfoliomanager.services.AnalyzeService;
+import org.ozsoft.portfoliomanager.services.BacktestService;
+import org.ozsoft.portfoliomanager.services.ProjectionService;
+import org.ozsoft.portfoliomanager.services.RiskService;
+import org.ozsoft.portfoliomanager.services.StatisticsService;
+import org.ozsoft.portfoliomanager.services.UpdateReport;
+import org.ozsoft.portfoliomanager.services.UpdateScheduler;
+import org.ozsoft.portfoliomanager.services.UpdateService;
+
+/**
+ * Headless mode, running the updates and analysis on a schedule without any UI (e.g. as a long-running service on a server without
+ * display). <br />
+ * <br />
+ *
+ * The prices of stale stocks are updated frequently (see {@link UpdateScheduler}), and all stock data is updated, analyzed and the
+ * portfolio statistics are logged periodically (by default daily). The configuration is saved after every run that changed any data, and
+ * on shutdown. <br />
+ * <br />
+ *
+ * All tasks run on a single thread, so they never overlap. No Swing or AWT classes are loaded.
+ *
+ * @author Oscar Stigter
+ */
+public class Daemon {
+
+    /** Default interval between price updates of stale stocks, in minutes. */
+    private static final long DEFAULT_UPDATE_INTERVAL = 1L;
+
+    /** Default interval between full updates and analyses, in hours. */
+    private static final long DEFAULT_ANALYSIS_INTERVAL = 24L;
+
+    /** Years of the portfolio projection to log. */
+    private static final int[] PROJECTION_YEARS = { 1, 5, 10, 20, 30 };
+
+    /** Command line usage of the headless mode. */
+    static final String USAGE = "Usage: java -jar portfolio-manager.jar --headless [--once] [--update-interval <minutes>] "
+            + "[--analysis-interval <hours>] [--api-port <port> [--api-host <host>]]";
+
+    private static final Logger LOGGER = LogManager.getLogger(Daemon.class);
+
+    private final UpdateService updateService = new UpdateService();
+
+    private final UpdateScheduler updateScheduler = new UpdateScheduler(updateService);
+
+    private final AnalyzeService analyzeService = new AnalyzeService();
+
+    private final StatisticsService statisticsService = new StatisticsService();
+
+    private final RiskService riskService = new RiskService();
+
+    private final BacktestService backtestService = new BacktestService();
+
+    private final ProjectionService projectionService = new ProjectionService();
+
+    private final long updateInterval;
+
+    private final long analysisInterval;
+
+    private ScheduledExecutorService executor;
+
+    private volatile ApiServer apiServer;
+
+    /**
+     * Constructor.
+     *
+     * @param updateInterval
+     *            The interval between price updates of stale stocks, in milliseconds.
+     * @param analysisInterval
+     *            The interval between full updates and analyses, in milliseconds.
+     */
+    public Daemon(long updateInterval, long analysisInterval) {
+        this.updateInterval = updateInterval;
+        this.analysisInterval = analysisInterval;
+    }
+
+    /**
+     * Runs in headless mode.
+     *
+     * @param options
+     *            The (validated) command line options.
+     * @param apiServer
+     *            The API server to publish the snapshots to, or {@code null} if none.
+     *
+     * @return The daemon.
+     */
+    public static Daemon run(Options options, ApiServer apiServer) {
+        Daemon daemon = new Daemon(options.getUpdateInterval(), options.getAnalysisInterval());
+        daemon.setApiServer(apiServer);
+        if (options.isRunOnce()) {
+            daemon.runAll();
+        } else {
+            daemon.start();
+        }
+        return daemon;
+    }
+
+    /**
+     * Starts the scheduled tasks, until the JVM is shut down (e.g. with SIGTERM).
+     */
+    public synchronized void start() {
+        if (executor != null) {
+            return;
+        }
+
+        executor = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable r) {
+                // Non-daemon thread, keeping the JVM alive.
+                return new Thread(r, "Daemon");
+            }
+        });
+        // The first API snapshot is published before the first (long running) full update.
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                publishSnapshot();
+            }
+        });
+        executor.scheduleWithFixedDelay(new Runnable() {
+            @Override
+            public void run() {
+                runAll();
+            }
+        }, 0L, analysisInterval, TimeUnit.MILLISECONDS);
+        executor.scheduleWithFixedDelay(new Runnable() {
+            @Override
+            public void run() {
+                updateStaleStocks();
+            }
+        }, updateInterval, updateInterval, TimeUnit.MILLISECONDS);
+
+        Runtime.getRuntime().addShutdownHook(new Thread("DaemonShutdown") {
+            @Override
+            public void run() {
+                Daemon.this.stop();
+                // Log4j's own shutdown hook is disabled (see log4j2.xml).
+                LogManager.shutdown();
+            }
+        });
+
+        LOGGER.info(String.format("Running headless (updating stale stocks every %,d s, full update and analysis every %,d min)",
+                updateInterval / 1000L, analysisInterval / 60000L));
+    }
+
+    /**
+     * Sets the API server to publish a new snapshot to after every task (the daemon thread owns the configuration).
+     *
+     * @param apiServer
+     *            The API server, or {@code null} if none.
+     */
+    public void setApiServer(ApiServer apiServer) {
+        this.apiServer = apiServer;
+    }
+
+    /**
+     * Stops the scheduled tasks (waiting for a running task to finish) and saves the configuration.
+     */
+    public synchronized void stop() {
+        if (executor != null) {
+            executor.shutdown();
+            try {
+                if (!executor.awaitTermination(1L, TimeUnit.MINUTES)) {
+                    executor.shutdownNow();
+                }
+            } catch (InterruptedException e) {
+                executor.shutdownNow();
+                Thread.currentThread().interrupt();
+            }
+            executor = null;
+            Configuration.save();
+            LOGGER.info("Stopped");
+        }
+    }
+
+    /**
+     * Updates all stock data, analyzes all stocks and logs the portfolio statistics, then saves the configuration.
+     */
+    public void runAll() {
+        try {
+            LOGGER.info("Updating all stock data");
+            UpdateReport report = updateService.updateAllStockData();
+            Configuration.save();
+            if (report.getNoOfStocks() > report.getFailedSymbols().size()) {
+                LOGGER.info(analyzeService.analyzeAllStocks());
+            }
+            logStatistics();
+            logProjection();
+        } catch (RuntimeException e) {
+            // Keep the daemon running.
+            LOGGER.error("Failed to update and analyze stocks", e);
+        }
+        publishSnapshot();
+    }
+
+    /**
+     * Updates the prices of the stale stocks, saving the configuration if any stock was updated.
+     */
+    private void updateStaleStocks() {
+        UpdateReport report = updateScheduler.updateStaleStocks();
+        if (report != null && report.getNoOfUpdatedStocks() > 0) {
+            Configuration.save();
+            publishSnapshot();
+        }
+    }
+
+    /**
+     * Publishes a new snapshot to the API server, if any.
+     */
+    private void publishSnapshot() {
+        ApiServer server = apiServer;
+        if (server != null) {
+            server.updateSnapshot();
+        }
+    }
+
+    /**
+     * Logs the portfolio statistics (per year and overall), backtested returns and risk.
+     */
+    private void logStatistics() {
+        PortfolioStatistics stats = statisticsService.getStatistics();
+        Backtest backtest = backtestService.run();
+        StringBuilder sb = new StringBuilder("Portfolio statistics:");
+        for (PeriodStatistics year : stats.getYears()) {
+            sb.append(String.format("%n  %d: Average costbase: $%,.0f, Income: $%,.0f (%.2f %%), TWR: %.2f %%", year.getYear(),
+                    year.getAverageCost(), year.getIncome(), year.getIncomeReturn(),
+                    backtest.getTimeWeightedReturn(year.getFromDay(), year.getToDay())));
+        }
+        sb.append(String.format("%n  Total: Average costbase: $%,.0f, Income: $%,.0f, Return: $%,.0f, CAGR: %.2f %%, XIRR: %.2f %%",
+                stats.getAverageCost(), stats.getTotalIncome(), stats.getTotalReturn(), stats.getCagr(),
+                statisticsService.getAnnualizedReturn()));
+        sb.append(String.format("%n  Backtest: Market value: $%,.0f, Net investment: $%,.0f, Annualized TWR: %.2f %%",
+                backtest.getValue(backtest.getLastDay()), backtest.getNetInvestment(backtest.getLastDay()),
+                backtest.getAnnualizedTimeWeightedReturn()));
+        Map<String, Double> xirrs = statisticsService.getAnnualizedReturns();
+        for (Map.Entry<String, Backtest> entry : backtestService.runPositions().entrySet()) {
+            String symbol = entry.getKey();
+            sb.append(String.format("%n  %s: XIRR: %.2f %%, Annualized TWR: %.2f %%", symbol, xirrs.get(symbol),
+                    entry.getValue().getAnnualizedTimeWeightedReturn()));
+        }
+        RiskAnalysis risk = riskService.analyze();
+        sb.append(String.format("%n  Risk: Volatility: %.2f %%, 1-day VaR (%.0f %%): %.2f %% historical, %.2f %% parametric, CVaR: %.2f %%",
+                risk.getVolatility(), risk.getConfidence() * 100.0, risk.getHistoricalVar(), risk.getParametricVar(),
+                risk.getHistoricalCvar()));
+        LOGGER.info(sb.toString());
+    }
+
+    /**
+     * Logs the projected portfolio value and income (lowest, median and highest percentile) at a few points in time.
+     */
+    private void logProjection() {
+        IncomeProjection projection = projectionService.project();
+        int low = 0;
+        int median = IncomeProjection.getNoOfPercentiles() / 2;
+        int high = IncomeProjection.getNoOfPercentiles() - 1;
+        StringBuilder sb = new StringBuilder(String.format("Portfolio projection (%.0f %% / %.0f %% / %.0f %%, dividends reinvested):",
+                IncomeProjection.getPercentile(low), IncomeProjection.getPercentile(median), IncomeProjection.getPercentile(high)));
+        for (int year : PROJECTION_YEARS) {
+            if (year <= projection.getNoOfYears()) {
+                sb.append(String.format("%n  Year %d: Value: $%,.0f / $%,.0f / $%,.0f, Income: $%,.0f / $%,.0f / $%,.0f", year,
+                        projection.getValue(low, year), projection.getValue(median, year), projection.getValue(high, year),
+                        projection.getIncome(low, year), projection.getIncome(median, year), projection.getIncome(high, year)));
+            }
+        }
+        LOGGER.info(sb.toString());
+    }
+
+    /**
+     * Command line options of the headless mode.
+     *
+     * @author Oscar Stigter
+     */
+    public static class Options {
+
+        private final boolean runOnce;
+
+        private final long updateInterval;
+
+        private final long analysisInterval;
+
+        private Options(boolean runOnce, long updateInterval, long analysisInterval) {
+            this.runOnce = runOnce;
+            this.updateInterval = updateInterval;
+            this.analysisInterval = analysisInterval;
+        }
+
+        /**
+         * Parses and validates the command line options (without loading anything).
+         *
+         * @param args
+         *            The command line arguments (excluding the options handled by {@link Main}).
+         *
+         * @return The options.
+         *
+         * @throws IllegalArgumentException
+         *             If an argument is invalid (including a {@link NumberFormatException}).
+         */
+        public static Options parse(List<String> args) {
+            boolean runOnce = false;
+            long updateInterval = DEFAULT_UPDATE_INTERVAL;
+            long analysisInterval = DEFAULT_ANALYSIS_INTERVAL;
+            for (int i = 0; i < args.size(); i++) {
+                String arg = args.get(i);
+                if (arg.equals("--once")) {
+                    runOnce = true;
+                } else if (arg.equals("--update-interval") && i + 1 < args.size()) {
+                    updateInterval = Long.parseLong(args.get(++i));
+                } else if (arg.equals("--analysis-interval") && i + 1 < args.size()) {
+                    analysisInterval = Long.parseLong(args.get(++i));
+                } else {
+                    throw new IllegalArgumentException("Invalid argument: " + arg);
+                }
+            }
+            if (updateInterval < 1L || analysisInterval < 1L) {
+                throw new IllegalArgumentException("Intervals must be positive");
+            }
+            return new Options(runOnce, TimeUnit.MINUTES.toMillis(updateInterval), TimeUnit.HOURS.toMillis(analysisInterval));
+        }
+
+        public boolean isRunOnce() {
+            return runOnce;
+        }
+
+        /**
+         * Returns the interval between price updates of stale stocks.
+         *
+         * @return The interval in milliseconds.
+         */
+        public long getUpdateInterval() {
+            return updateInterval;
+        }
+
+        /**
+         * Returns the interval between full updates and analyses.
+         *
+         * @return The interval in milliseconds.
+         */
+        public long getAnalysisInterval() {
+            return analysisInterval;
+        }
+    }
+}
@@ -18,18 +18,119 @@
 
 package org.ozsoft.portfoliomanager;
 
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+
 import javax.swing.SwingUtilities;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.ozsoft.portfoliomanager.api.ApiServer;
+import org.ozsoft.portfoliomanager.domain.Configuration;
+import org.ozsoft.portfoliomanager.metrics.Gauge;
+import org.ozsoft.portfoliomanager.metrics.MetricsRegistry;
+import org.ozsoft.portfoliomanager.metrics.MetricsReporter;
+import org.ozsoft.portfoliomanager.services.HistoryCache;
 import org.ozsoft.portfoliomanager.ui.MainFrame;
+import org.ozsoft.portfoliomanager.util.HttpCache;
+import org.ozsoft.portfoliomanager.util.HttpPageReader;
 
 public class Main {
 
+    /** Interval between metrics reports in the log, in milliseconds. */
+    private static final long METRICS_REPORT_INTERVAL = 15 * 60 * 1000L; // 15 minutes
+
+    /** Command line option to run without UI (see {@link Daemon}). */
+    private static final String HEADLESS_OPTION = "--headless";
+
+    /** Command line option to start the embedded API server on the specified port (see {@link ApiServer}). */
+    private static final String API_PORT_OPTION = "--api-port";
+
+    /** Command line option with the host name or address to bind the API server to (default: localhost only). */
+    private static final String API_HOST_OPTION = "--api-host";
+
+    /** Highest valid port number. */
+    private static final int MAX_PORT = 65535;
+
+    private static final String USAGE = "Usage: java -jar portfolio-manager.jar [--api-port <port> [--api-host <host>]]\n"
+            + "   or: java -jar portfolio-manager.jar --headless [options] (see below)\n" + Daemon.USAGE;
+
     private static final Logger LOGGER = LogManager.getLogger(Main.class);
 
     public static void main(String[] args) {
+        // Validate all options before loading anything; the API server options are handled here, any other options are for the daemon.
+        List<String> otherArgs = new ArrayList<String>();
+        boolean isHeadless = false;
+        String apiHost = "localhost";
+        int apiPort = -1;
+        Daemon.Options daemonOptions = null;
+        try {
+            for (int i = 0; i < args.length; i++) {
+                if (args[i].equals(HEADLESS_OPTION)) {
+                    isHeadless = true;
+                } else if (args[i].equals(API_PORT_OPTION) && i + 1 < args.length) {
+                    apiPort = Integer.parseInt(args[++i]);
+                    if (apiPort < 0 || apiPort > MAX_PORT) {
+                        throw new IllegalArgumentException("Invalid API port: " + apiPort);
+                    }
+                } else if (args[i].equals(API_HOST_OPTION) && i + 1 < args.length) {
+                    apiHost = args[++i];
+                } else {
+                    otherArgs.add(args[i]);
+                }
+            }
+            if (isHeadless) {
+                daemonOptions = Daemon.Options.parse(otherArgs);
+                if (daemonOptions.isRunOnce() && apiPort >= 0) {
+                    throw new IllegalArgumentException("The API server cannot be combined with --once");
+                }
+            } else if (!otherArgs.isEmpty()) {
+                throw new IllegalArgumentException("Invalid argument: " + otherArgs.get(0));
+            }
+        } catch (IllegalArgumentException e) {
+            // Also covers NumberFormatException.
+            System.err.println(e.getMessage());
+            System.err.println(USAGE);
+            System.exit(1);
+        }
+
+        if (isHeadless) {
+            // Never initialize AWT.
+            System.setProperty("java.awt.headless", "true");
+        }
+
         LOGGER.debug("Starting application");
+        HttpPageReader.setDefault(new HttpPageReader(new HttpCache(Configuration.getInstance().getHttpCacheDir())));
+        startMetrics();
+
+        if (isHeadless) {
+            // Snapshots are published by the daemon thread, between its tasks.
+            ApiServer apiServer = (apiPort >= 0) ? startApiServer(new ApiServer(new InetSocketAddress(apiHost, apiPort))) : null;
+            Daemon.run(daemonOptions, apiServer);
+            return;
+        }
+
+        if (apiPort >= 0) {
+            // Snapshots are built on the Event Dispatch Thread.
+            startApiServer(new ApiServer(new InetSocketAddress(apiHost, apiPort), new Executor() {
+                @Override
+                public void execute(Runnable task) {
+                    SwingUtilities.invokeLater(task);
+                }
+            }));
+        }
+
+        Runtime.getRuntime().addShutdownHook(new Thread("LogShutdown") {
+            @Override
+            public void run() {
+                // Log4j's own shutdown hook is disabled (see log4j2.xml).
+                LogManager.shutdown();
+            }
+        });
+
         SwingUtilities.invokeLater(new Runnable() {
             @Override
             public void run() {
@@ -55,4 +156,49 @@ public class Main {
 
 //      new AnalyzeService().analyzeAllStocks();
     }
+
+    /**
+     * Starts the embedded API server.
+     *
+     * @param apiServer
+     *            The API server.
+     *
+     * @return The API server if started, otherwise {@code null}.
+     */
+    private static ApiServer startApiServer(ApiServer apiServer) {
+        try {
+            apiServer.start();
+            return apiServer;
+        } catch (IOException e) {
+            LOGGER.error(String.format("Could not start API server on port %d: %s", apiServer.getPort(), e.getMessage()));
+            return null;
+        }
+    }
+
+    /**
+     * Exposes the application metrics through JMX and periodically writes them to the log.
+     */
+    private static void startMetrics() {
+        MetricsRegistry metrics = MetricsRegistry.getInstance();
+        metrics.addGauge("stocks.count", new Gauge() {
+            @Override
+            public double getValue() {
+                return Configuration.getInstance().getStocks().size();
+            }
+        });
+        metrics.addGauge("historyCache.count", new Gauge() {
+            @Override
+            public double getValue() {
+                return HistoryCache.getInstance().getCount();
+            }
+        });
+        metrics.addGauge("historyCache.size", new Gauge() {
+            @Override
+            public double getValue() {
+                return HistoryCache.getInstance().getSize();
+            }
+        });
+        metrics.enableJmx();
+        new MetricsReporter(metrics, METRICS_REPORT_INTERVAL).start();
+    }
 }
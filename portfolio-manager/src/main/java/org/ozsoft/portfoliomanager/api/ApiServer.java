@@ -0,0 +1,387 @@
+// This file is part of the 'portfolio-manager' (Portfolio Manager)
+// project, an open source stock portfolio manager application
+// written in Java.
+//
+// Copyright 2015 Oscar Stigter
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.ozsoft.portfoliomanager.api;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.ozsoft.portfoliomanager.domain.Configuration;
+import org.ozsoft.portfoliomanager.metrics.MetricsRegistry;
+import org.ozsoft.portfoliomanager.services.AnalyzeService;
+
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Embedded, read-only HTTP server exposing the portfolio, stocks and stock analyses as JSON. <br />
+ * <br />
+ *
+ * Resources:
+ * <ul>
+ * <li>{@code GET /api/portfolio} - portfolio totals and positions</li>
+ * <li>{@code GET /api/stocks} - all stocks</li>
+ * <li>{@code GET /api/stocks/<symbol>} - a single stock</li>
+ * <li>{@code GET /api/analysis} - results of the latest stock analysis</li>
+ * </ul>
+ *
+ * All requests are served from an immutable, pre-serialized {@link ApiSnapshot}, which is rebuilt at most once per refresh interval (while
+ * the requests are still served from the previous snapshot), so the portfolio is never calculated per request. The configuration is not
+ * thread-safe, so the snapshot is never built by the request threads, but by the thread owning the configuration: either on request,
+ * through the snapshot executor (the Event Dispatch Thread), or pushed by the owner between its tasks with {@link #updateSnapshot()} (the
+ * daemon thread in headless mode, of which the tasks may run for minutes). <br />
+ * <br />
+ *
+ * Responses carry a content-based ETag (conditional requests with If-None-Match are answered with '304 Not Modified') and are gzip
+ * compressed if the client accepts it (with a separate ETag for the compressed representation).
+ *
+ * @author Oscar Stigter
+ */
+public class ApiServer {
+
+    /** Default maximum age of a snapshot in milliseconds. */
+    private static final long DEFAULT_REFRESH_INTERVAL = 1000L;
+
+    /** Number of request handler threads. */
+    private static final int THREAD_COUNT = 4;
+
+    /** Maximum time to wait for the first snapshot, in milliseconds. */
+    private static final long FIRST_SNAPSHOT_TIMEOUT = 10000L;
+
+    /** Minimum body size in bytes to compress. */
+    private static final int MIN_GZIP_SIZE = 1024;
+
+    private static final String CONTEXT_PATH = "/api/";
+
+    private static final String STOCKS_PATH = "stocks/";
+
+    private static final String NODELAY_PROPERTY = "sun.net.httpserver.nodelay";
+
+    private static final String JSON_CONTENT_TYPE = "application/json; charset=utf-8";
+
+    private static final Logger LOGGER = LogManager.getLogger(ApiServer.class);
+
+    private final Configuration config = Configuration.getInstance();
+
+    private final MetricsRegistry metrics = MetricsRegistry.getInstance();
+
+    private final InetSocketAddress address;
+
+    private final Executor snapshotExecutor;
+
+    private final long refreshInterval;
+
+    private final AtomicBoolean isRebuilding = new AtomicBoolean();
+
+    private volatile ApiSnapshot snapshot;
+
+    private HttpServer server;
+
+    private ExecutorService executor;
+
+    /**
+     * Constructor for snapshots pushed by the owner of the configuration (see {@link #updateSnapshot()}).
+     *
+     * @param address
+     *            The address to listen on.
+     */
+    public ApiServer(InetSocketAddress address) {
+        this(address, null, DEFAULT_REFRESH_INTERVAL);
+    }
+
+    /**
+     * Constructor with the default refresh interval.
+     *
+     * @param address
+     *            The address to listen on.
+     * @param snapshotExecutor
+     *            The executor running on the thread owning the configuration, to build the snapshots with.
+     */
+    public ApiServer(InetSocketAddress address, Executor snapshotExecutor) {
+        this(address, snapshotExecutor, DEFAULT_REFRESH_INTERVAL);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param address
+     *            The address to listen on.
+     * @param snapshotExecutor
+     *            The executor running on the thread owning the configuration, to build the snapshots with (or {@code null} if the
+     *            snapshots are pushed).
+     * @param refreshInterval
+     *            The maximum age of the served data in milliseconds.
+     */
+    public ApiServer(InetSocketAddress address, Executor snapshotExecutor, long refreshInterval) {
+        this.address = address;
+        this.snapshotExecutor = snapshotExecutor;
+        this.refreshInterval = refreshInterval;
+    }
+
+    /**
+     * Starts the server.
+     *
+     * @throws IOException
+     *             If the server could not be started (e.g. port already in use).
+     */
+    public synchronized void start() throws IOException {
+        if (server != null) {
+            return;
+        }
+
+        final AtomicInteger threadCount = new AtomicInteger();
+        executor = Executors.newFixedThreadPool(THREAD_COUNT, new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, "ApiServer-" + threadCount.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        // Disable Nagle's algorithm, which delays small responses (headers and body are written separately) by up to 40 ms.
+        if (System.getProperty(NODELAY_PROPERTY) == null) {
+            System.setProperty(NODELAY_PROPERTY, "true");
+        }
+        server = HttpServer.create(address, 0);
+        server.setExecutor(executor);
+        server.createContext(CONTEXT_PATH, new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                handleRequest(exchange);
+            }
+        });
+        server.start();
+        LOGGER.info(String.format("API server listening on http://%s:%d%s", address.getHostString(), getPort(), CONTEXT_PATH));
+    }
+
+    /**
+     * Stops the server.
+     */
+    public synchronized void stop() {
+        if (server != null) {
+            server.stop(0);
+            server = null;
+            executor.shutdownNow();
+            executor = null;
+            LOGGER.info("API server stopped");
+        }
+    }
+
+    /**
+     * Returns the port the server listens on (useful if started on an ephemeral port).
+     *
+     * @return The port.
+     */
+    public synchronized int getPort() {
+        return (server != null) ? server.getAddress().getPort() : address.getPort();
+    }
+
+    /**
+     * Returns the current snapshot, requesting a new one if expired. <br />
+     * <br />
+     *
+     * Only the first request(s) wait for a snapshot to be built.
+     *
+     * @return The snapshot, or {@code null} if no snapshot is available yet.
+     */
+    ApiSnapshot getSnapshot() {
+        ApiSnapshot current = snapshot;
+        if (snapshotExecutor != null && (current == null || System.currentTimeMillis() - current.getTimestamp() >= refreshInterval)
+                && isRebuilding.compareAndSet(false, true)) {
+            try {
+                snapshotExecutor.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        updateSnapshot();
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                // Shutting down; keep serving the last snapshot.
+                isRebuilding.set(false);
+            }
+        }
+        if (current == null) {
+            current = awaitSnapshot();
+        }
+        return current;
+    }
+
+    /**
+     * Builds and publishes a new snapshot. <br />
+     * <br />
+     *
+     * Must be called on the thread owning the configuration.
+     */
+    public void updateSnapshot() {
+        try {
+            long startTime = System.nanoTime();
+            ApiSnapshot newSnapshot = new ApiSnapshot(config, AnalyzeService.getLatestAnalyses());
+            metrics.getHistogram("api.snapshot").recordSince(startTime);
+            synchronized (this) {
+                snapshot = newSnapshot;
+                notifyAll();
+            }
+        } catch (RuntimeException e) {
+            LOGGER.error("Failed to build API snapshot", e);
+        } finally {
+            isRebuilding.set(false);
+        }
+    }
+
+    /**
+     * Waits for the first snapshot to be published.
+     *
+     * @return The snapshot, or {@code null} if not published within the timeout.
+     */
+    private synchronized ApiSnapshot awaitSnapshot() {
+        long deadline = System.currentTimeMillis() + FIRST_SNAPSHOT_TIMEOUT;
+        while (snapshot == null) {
+            long timeout = deadline - System.currentTimeMillis();
+            if (timeout <= 0L) {
+                break;
+            }
+            try {
+                wait(timeout);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        return snapshot;
+    }
+
+    /**
+     * Handles a request.
+     *
+     * @param exchange
+     *            The HTTP exchange.
+     */
+    private void handleRequest(HttpExchange exchange) throws IOException {
+        long startTime = System.nanoTime();
+        try {
+            String method = exchange.getRequestMethod();
+            if (!method.equals("GET") && !method.equals("HEAD")) {
+                exchange.getResponseHeaders().set("Allow", "GET, HEAD");
+                sendError(exchange, 405, "Method not allowed");
+                return;
+            }
+
+            ApiSnapshot current = getSnapshot();
+            if (current == null) {
+                sendError(exchange, 503, "Service unavailable");
+                return;
+            }
+            JsonResource resource = getResource(current, exchange.getRequestURI().getPath().substring(CONTEXT_PATH.length()));
+            if (resource == null) {
+                sendError(exchange, 404, "Resource not found");
+                return;
+            }
+            sendResource(exchange, resource, method.equals("HEAD"));
+
+        } catch (RuntimeException e) {
+            LOGGER.error("Failed to handle API request " + exchange.getRequestURI(), e);
+            sendError(exchange, 500, "Internal server error");
+        } finally {
+            exchange.close();
+            metrics.getHistogram("api.requests").recordSince(startTime);
+        }
+    }
+
+    /**
+     * Returns the resource for a path.
+     *
+     * @param snapshot
+     *            The snapshot to serve the resource from.
+     * @param path
+     *            The path, relative to the context path.
+     *
+     * @return The resource, or {@code null} if not found.
+     */
+    private static JsonResource getResource(ApiSnapshot snapshot, String path) {
+        if (path.endsWith("/")) {
+            path = path.substring(0, path.length() - 1);
+        }
+        if (path.equals("portfolio")) {
+            return snapshot.getPortfolio();
+        } else if (path.equals("stocks")) {
+            return snapshot.getStocks();
+        } else if (path.equals("analysis")) {
+            return snapshot.getAnalysis();
+        } else if (path.startsWith(STOCKS_PATH)) {
+            return snapshot.getStock(path.substring(STOCKS_PATH.length()));
+        } else {
+            return null;
+        }
+    }
+
+    private static void sendResource(HttpExchange exchange, JsonResource resource, boolean isHead) throws IOException {
+        Headers requestHeaders = exchange.getRequestHeaders();
+        Headers responseHeaders = exchange.getResponseHeaders();
+        String acceptEncoding = requestHeaders.getFirst("Accept-Encoding");
+        boolean isGzipped = resource.getBody().length >= MIN_GZIP_SIZE && acceptEncoding != null && acceptEncoding.contains("gzip");
+        responseHeaders.set("ETag", isGzipped ? resource.getGzippedETag() : resource.getETag());
+        responseHeaders.set("Cache-Control", "no-cache");
+        responseHeaders.set("Vary", "Accept-Encoding");
+
+        if (resource.matches(requestHeaders.getFirst("If-None-Match"))) {
+            exchange.sendResponseHeaders(304, -1L);
+            return;
+        }
+
+        byte[] body;
+        if (isGzipped) {
+            body = resource.getGzippedBody();
+            responseHeaders.set("Content-Encoding", "gzip");
+        } else {
+            body = resource.getBody();
+        }
+        responseHeaders.set("Content-Type", JSON_CONTENT_TYPE);
+
+        if (isHead) {
+            responseHeaders.set("Content-Length", String.valueOf(body.length));
+            exchange.sendResponseHeaders(200, -1L);
+        } else {
+            exchange.sendResponseHeaders(200, body.length);
+            OutputStream os = exchange.getResponseBody();
+            os.write(body);
+            os.flush();
+        }
+    }
+
+    private static void sendError(HttpExchange exchange, int status, String message) throws IOException {
+        byte[] body = String.format("{\"status\":%d,\"error\":\"%s\"}", status, message).getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", JSON_CONTENT_TYPE);
+        exchange.sendResponseHeaders(status, body.length);
+        OutputStream os = exchange.getResponseBody();
+        os.write(body);
+        os.flush();
+    }
+}
@@ -0,0 +1,257 @@
+// This file is part of the 'portfolio-manager' (Portfolio Manager)
+// project, an open source stock portfolio manager application
+// written in Java.
+//
+// Copyright 2015 Oscar Stigter
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.ozsoft.portfoliomanager.api;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.ozsoft.portfoliomanager.domain.Configuration;
+import org.ozsoft.portfoliomanager.domain.Portfolio;
+import org.ozsoft.portfoliomanager.domain.Position;
+import org.ozsoft.portfoliomanager.domain.Stock;
+import org.ozsoft.portfoliomanager.domain.StockAnalysis;
+
+import com.google.gson.stream.JsonWriter;
+
+/**
+ * Immutable snapshot of all API resources, serialized once when the snapshot is built. <br />
+ * <br />
+ *
+ * The portfolio is calculated only once per snapshot, and the JSON is streamed directly into the resources' buffers (without building an
+ * intermediate object tree), so serving a request is only a lookup and a copy of bytes. <br />
+ * <br />
+ *
+ * The configuration is not thread-safe (e.g. calculating the portfolio sorts the transactions), so a snapshot must be built on the thread
+ * owning the configuration.
+ *
+ * @author Oscar Stigter
+ */
+public class ApiSnapshot {
+
+    private final long timestamp;
+
+    private final JsonResource portfolioResource;
+
+    private final JsonResource stocksResource;
+
+    private final JsonResource analysisResource;
+
+    private final Map<String, JsonResource> stockResources = new HashMap<String, JsonResource>();
+
+    /**
+     * Builds a snapshot of the current data.
+     *
+     * @param config
+     *            The configuration.
+     * @param analyses
+     *            The latest stock analyses.
+     */
+    public ApiSnapshot(Configuration config, List<StockAnalysis> analyses) {
+        timestamp = System.currentTimeMillis();
+        Portfolio portfolio = config.getPortfolio();
+        Collection<Stock> stocks = config.getStocks();
+        try {
+            portfolioResource = writePortfolio(portfolio);
+            stocksResource = writeStocks(stocks);
+            analysisResource = writeAnalyses(analyses);
+            for (Stock stock : stocks) {
+                stockResources.put(stock.getSymbol(), writeStock(stock));
+            }
+        } catch (IOException e) {
+            // Cannot happen with an in-memory stream.
+            throw new IllegalStateException("Could not serialize API snapshot", e);
+        }
+    }
+
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    public JsonResource getPortfolio() {
+        return portfolioResource;
+    }
+
+    public JsonResource getStocks() {
+        return stocksResource;
+    }
+
+    public JsonResource getAnalysis() {
+        return analysisResource;
+    }
+
+    /**
+     * Returns a single stock.
+     *
+     * @param symbol
+     *            The stock's symbol.
+     *
+     * @return The stock, or {@code null} if not found.
+     */
+    public JsonResource getStock(String symbol) {
+        return stockResources.get(symbol);
+    }
+
+    private JsonResource writePortfolio(Portfolio portfolio) throws IOException {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream(8192);
+        JsonWriter writer = createWriter(baos);
+        writer.beginObject();
+        writer.name("lastUpdated").value(getLastUpdated(portfolio));
+        writer.name("currentCost").value(portfolio.getCurrentCost());
+        writer.name("currentValue").value(portfolio.getCurrentValue());
+        writer.name("currentResult").value(portfolio.getCurrentResult());
+        writer.name("currentResultPercentage").value(portfolio.getCurrentResultPercentage());
+        writer.name("annualIncome").value(portfolio.getAnnualIncome());
+        writer.name("yieldOnCost").value(portfolio.getYieldOnCost());
+        writer.name("totalIncome").value(portfolio.getTotalIncome());
+        writer.name("realizedResult").value(portfolio.getRealizedResult());
+        writer.name("totalReturn").value(portfolio.getTotalReturn());
+        writer.name("totalReturnPercentage").value(portfolio.getTotalReturnPercentage());
+        writer.name("positions").beginArray();
+        BigDecimal currentPortfolioValue = portfolio.getCurrentValue();
+        for (Position position : portfolio.getPositions()) {
+            writePosition(writer, position, currentPortfolioValue);
+        }
+        writer.endArray();
+        writer.endObject();
+        writer.close();
+        return new JsonResource(baos.toByteArray());
+    }
+
+    private static void writePosition(JsonWriter writer, Position p, BigDecimal currentPortfolioValue) throws IOException {
+        Stock stock = p.getStock();
+        writer.beginObject();
+        writer.name("symbol").value(stock.getSymbol());
+        writer.name("name").value(stock.getName());
+        writer.name("price").value(stock.getPrice());
+        writer.name("noOfShares").value(p.getNoOfShares());
+        writer.name("currentCost").value(p.getCurrentCost());
+        writer.name("costPerShare").value(p.getCostPerShare());
+        writer.name("currentValue").value(p.getCurrentValue());
+        if (currentPortfolioValue.signum() > 0) {
+            writer.name("weight").value(p.getCurrentValue().doubleValue() / currentPortfolioValue.doubleValue() * 100.0);
+        }
+        writer.name("currentResult").value(p.getCurrentResult());
+        writer.name("currentResultPercentage").value(p.getCurrentResultPercentage());
+        writer.name("annualIncome").value(p.getAnnualIncome());
+        writer.name("yieldOnCost").value(p.getYieldOnCost());
+        writer.name("totalIncome").value(p.getTotalIncome());
+        writer.name("realizedResult").value(p.getRealizedResult());
+        writer.name("totalReturn").value(p.getTotalReturn());
+        writer.name("totalReturnPercentage").value(p.getTotalReturnPercentage());
+        writer.endObject();
+    }
+
+    private JsonResource writeStocks(Collection<Stock> stocks) throws IOException {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream(stocks.size() * 256 + 64);
+        JsonWriter writer = createWriter(baos);
+        writer.beginArray();
+        for (Stock stock : stocks) {
+            writeStock(writer, stock);
+        }
+        writer.endArray();
+        writer.close();
+        return new JsonResource(baos.toByteArray());
+    }
+
+    private JsonResource writeStock(Stock stock) throws IOException {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream(256);
+        JsonWriter writer = createWriter(baos);
+        writeStock(writer, stock);
+        writer.close();
+        return new JsonResource(baos.toByteArray());
+    }
+
+    private static void writeStock(JsonWriter writer, Stock stock) throws IOException {
+        writer.beginObject();
+        writer.name("symbol").value(stock.getSymbol());
+        writer.name("name").value(stock.getName());
+        writer.name("level").value(stock.getLevel().name());
+        writer.name("price").value(stock.getPrice());
+        writer.name("changePerc").value(stock.getChangePerc());
+        writer.name("lastUpdated").value(stock.getLastUpdated());
+        writer.name("targetPrice").value(stock.getTargetPrice());
+        writer.name("divRate").value(stock.getDivRate());
+        writeDouble(writer, "yield", stock.getYield());
+        writer.name("divGrowth").value(stock.getDivGrowth());
+        writer.name("yearsDivGrowth").value(stock.getYearsDivGrowth());
+        writer.name("creditRating").value(stock.getCreditRating().getText());
+        writer.endObject();
+    }
+
+    private JsonResource writeAnalyses(List<StockAnalysis> analyses) throws IOException {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream(analyses.size() * 256 + 64);
+        JsonWriter writer = createWriter(baos);
+        writer.beginArray();
+        for (StockAnalysis analysis : analyses) {
+            writer.beginObject();
+            writer.name("symbol").value(analysis.getStock().getSymbol());
+            writeDouble(writer, "cagr10yr", analysis.getCagr10yr());
+            writeDouble(writer, "cagr5yr", analysis.getCagr5yr());
+            writeDouble(writer, "change1yr", analysis.getChange1yr());
+            writeDouble(writer, "volatility", analysis.getVolatility());
+            writeDouble(writer, "high52wk", analysis.getHigh52wk());
+            writeDouble(writer, "low52wk", analysis.getLow52wk());
+            writeDouble(writer, "currentPrice", analysis.getCurrentPrice());
+            writeDouble(writer, "discount5yr", analysis.getDiscount5yr());
+            writeDouble(writer, "discount1yr", analysis.getDiscount1yr());
+            if (analysis.getScore() != null) {
+                writeDouble(writer, "score", analysis.getScore());
+            }
+            writer.endObject();
+        }
+        writer.endArray();
+        writer.close();
+        return new JsonResource(baos.toByteArray());
+    }
+
+    /**
+     * Returns the latest update time of the portfolio's stocks (rather than the time of the snapshot, so the content and ETag only change
+     * if the data has changed).
+     */
+    private static long getLastUpdated(Portfolio portfolio) {
+        long lastUpdated = 0L;
+        for (Position position : portfolio.getPositions()) {
+            lastUpdated = Math.max(lastUpdated, position.getStock().getLastUpdated());
+        }
+        return lastUpdated;
+    }
+
+    /**
+     * Writes a double value, as {@code null} if not a (finite) number.
+     */
+    private static void writeDouble(JsonWriter writer, String name, double value) throws IOException {
+        writer.name(name);
+        if (Double.isNaN(value) || Double.isInfinite(value)) {
+            writer.nullValue();
+        } else {
+            writer.value(value);
+        }
+    }
+
+    private static JsonWriter createWriter(ByteArrayOutputStream baos) {
+        return new JsonWriter(new OutputStreamWriter(baos, StandardCharsets.UTF_8));
+    }
+}
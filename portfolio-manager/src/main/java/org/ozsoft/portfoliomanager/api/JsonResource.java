@@ -0,0 +1,116 @@
+// This file is part of the 'portfolio-manager' (Portfolio Manager)
+// project, an open source stock portfolio manager application
+// written in Java.
+//
+// Copyright 2015 Oscar Stigter
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.ozsoft.portfoliomanager.api;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.zip.CRC32;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Immutable, pre-serialized JSON resource served by the {@link ApiServer}. <br />
+ * <br />
+ *
+ * Holds the UTF-8 encoded JSON body, its gzip compressed form (created on first request) and an entity tag based on the content, so
+ * unchanged content always has the same ETag, even after the snapshot it is part of has been rebuilt. The gzip compressed form is a
+ * different representation with a different body, so it has its own (strong) ETag, with a '-gz' suffix.
+ *
+ * @author Oscar Stigter
+ */
+public class JsonResource {
+
+    private final byte[] body;
+
+    private final String eTag;
+
+    private final String gzippedETag;
+
+    private volatile byte[] gzippedBody;
+
+    /**
+     * Constructor.
+     *
+     * @param body
+     *            The UTF-8 encoded JSON body.
+     */
+    public JsonResource(byte[] body) {
+        this.body = body;
+        CRC32 crc = new CRC32();
+        crc.update(body, 0, body.length);
+        eTag = String.format("\"%x-%08x\"", body.length, crc.getValue());
+        gzippedETag = String.format("\"%x-%08x-gz\"", body.length, crc.getValue());
+    }
+
+    public byte[] getBody() {
+        return body;
+    }
+
+    public String getETag() {
+        return eTag;
+    }
+
+    public String getGzippedETag() {
+        return gzippedETag;
+    }
+
+    /**
+     * Returns the gzip compressed body, compressing it on first use.
+     *
+     * @return The gzip compressed body.
+     */
+    public byte[] getGzippedBody() {
+        byte[] bytes = gzippedBody;
+        if (bytes == null) {
+            ByteArrayOutputStream baos = new ByteArrayOutputStream(body.length / 4 + 64);
+            try (GZIPOutputStream gzos = new GZIPOutputStream(baos)) {
+                gzos.write(body);
+            } catch (IOException e) {
+                // Cannot happen with an in-memory stream.
+                throw new IllegalStateException("Could not compress JSON resource", e);
+            }
+            bytes = baos.toByteArray();
+            gzippedBody = bytes;
+        }
+        return bytes;
+    }
+
+    /**
+     * Returns whether this resource matches an If-None-Match request header, in either representation (both have the same content).
+     *
+     * @param ifNoneMatch
+     *            The header value (may be {@code null}).
+     *
+     * @return {@code true} if the resource matches (not modified), otherwise {@code false}.
+     */
+    public boolean matches(String ifNoneMatch) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String tag : ifNoneMatch.split(",")) {
+            tag = tag.trim();
+            if (tag.startsWith("W/")) {
+                tag = tag.substring(2);
+            }
+            if (tag.equals("*") || tag.equals(eTag) || tag.equals(gzippedETag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
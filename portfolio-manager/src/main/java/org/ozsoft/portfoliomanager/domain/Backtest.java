@@ -0,0 +1,412 @@
+// This file is part of the 'portfolio-manager' (Portfolio Manager)
+// project, an open source stock portfolio manager application
+// written in Java.
+//
+// Copyright 2015 Oscar Stigter
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.ozsoft.portfoliomanager.domain;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.ozsoft.portfoliomanager.util.DateUtils;
+
+/**
+ * Backtest of the portfolio, replaying the transactions against historic daily prices. <br />
+ * <br />
+ *
+ * Holds dense, daily series (every calendar day from the first transaction up to and including the end date) of:
+ * <ul>
+ * <li>the market value (NAV) of all positions at the end of the day</li>
+ * <li>the net cash flow into the portfolio (buys including costs are positive, sales minus costs are negative)</li>
+ * <li>the received income (dividends, after income tax)</li>
+ * </ul>
+ *
+ * The backtest is calculated column-wise over primitive arrays: the transactions are scattered into a daily array of share changes per
+ * stock, which is prefix-summed to the number of shares owned, multiplied with the stock's (forward filled) daily closing prices and
+ * accumulated into the NAV series. The per-stock arrays are reused, so memory use is independent of the number of stocks. <br />
+ * <br />
+ *
+ * Stock prices are taken from the stock's price history; days before the first known price (or stocks without price history) use the
+ * price of the latest transaction. <br />
+ * <br />
+ *
+ * The time-weighted return (TWR) over any date range is calculated in constant time, from the prefix products of the daily returns. The
+ * daily return excludes the day's cash flow, which is assumed to take place at the start of the day.
+ *
+ * @author Oscar Stigter
+ */
+public class Backtest {
+
+    private final int firstDay;
+
+    private final double[] values;
+
+    private final double[] cashFlows;
+
+    private final double[] incomes;
+
+    /** Prefix sums of the cash flows; element i holds the sum of the first i days. */
+    private final double[] netInvestments;
+
+    /** Prefix sums of the income; element i holds the sum of the first i days. */
+    private final double[] totalIncomes;
+
+    /** Prefix products of the daily growth factors (1 + daily return); element i holds the product of the first i days. */
+    private final double[] growthFactors;
+
+    /**
+     * Constructor.
+     *
+     * @param firstDay
+     *            The first day number.
+     * @param values
+     *            The market value at the end of every day.
+     * @param cashFlows
+     *            The net cash flow of every day.
+     * @param incomes
+     *            The income of every day.
+     */
+    private Backtest(int firstDay, double[] values, double[] cashFlows, double[] incomes) {
+        this.firstDay = firstDay;
+        this.values = values;
+        this.cashFlows = cashFlows;
+        this.incomes = incomes;
+        netInvestments = prefixSums(cashFlows);
+        totalIncomes = prefixSums(incomes);
+        growthFactors = linkReturns(values, cashFlows, incomes);
+    }
+
+    /**
+     * Runs a backtest, up to and including the specified end date. <br />
+     * <br />
+     *
+     * Transactions after the end date are ignored.
+     *
+     * @param transactions
+     *            The transactions (in any order).
+     * @param prices
+     *            The historic daily closing prices by stock symbol (stocks without prices are valued at their transaction prices).
+     * @param incomeTaxRate
+     *            The income tax rate to deduct from dividends (0.0 for none).
+     * @param endDate
+     *            The end date as timestamp in milliseconds.
+     *
+     * @return The backtest (empty if there are no transactions).
+     *
+     * @throws IllegalArgumentException
+     *             If more shares are sold than owned.
+     */
+    public static Backtest run(List<Transaction> transactions, Map<String, PriceSeries> prices, double incomeTaxRate, long endDate) {
+        int lastDay = DateUtils.toDay(endDate);
+        List<Transaction> sortedTransactions = new ArrayList<Transaction>(transactions.size());
+        for (Transaction tx : transactions) {
+            if (DateUtils.toDay(tx.getDate()) <= lastDay) {
+                sortedTransactions.add(tx);
+            }
+        }
+        if (sortedTransactions.isEmpty()) {
+            return new Backtest(lastDay, new double[0], new double[0], new double[0]);
+        }
+        Collections.sort(sortedTransactions);
+
+        int firstDay = DateUtils.toDay(sortedTransactions.get(0).getDate());
+        int noOfDays = lastDay - firstDay + 1;
+        double[] values = new double[noOfDays];
+        double[] cashFlows = new double[noOfDays];
+        double[] incomes = new double[noOfDays];
+
+        // Group transactions by stock (keeping date order), and calculate cash flows and income.
+        Map<String, List<Transaction>> stockTransactions = new HashMap<String, List<Transaction>>();
+        for (Transaction tx : sortedTransactions) {
+            int index = DateUtils.toDay(tx.getDate()) - firstDay;
+            double amount = tx.getNoOfShares().doubleValue() * tx.getPrice().doubleValue();
+            switch (tx.getType()) {
+                case BUY:
+                    cashFlows[index] += amount + tx.getCost().doubleValue();
+                    break;
+                case SELL:
+                    cashFlows[index] -= amount - tx.getCost().doubleValue();
+                    break;
+                case DIVIDEND:
+                    incomes[index] += amount * (1.0 - incomeTaxRate);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Invalid transaction type");
+            }
+            if (tx.getType() != TransactionType.DIVIDEND) {
+                List<Transaction> txs = stockTransactions.get(tx.getSymbol());
+                if (txs == null) {
+                    txs = new ArrayList<Transaction>();
+                    stockTransactions.put(tx.getSymbol(), txs);
+                }
+                txs.add(tx);
+            }
+        }
+
+        // Accumulate the daily market value of each stock into the NAV, reusing the per-stock columns.
+        double[] shares = new double[noOfDays];
+        double[] stockPrices = new double[noOfDays];
+        for (Map.Entry<String, List<Transaction>> entry : stockTransactions.entrySet()) {
+            String symbol = entry.getKey();
+            List<Transaction> txs = entry.getValue();
+
+            // Scatter share changes and transaction prices.
+            Arrays.fill(shares, 0.0);
+            Arrays.fill(stockPrices, Double.NaN);
+            double noOfShares = 0.0;
+            for (Transaction tx : txs) {
+                int index = DateUtils.toDay(tx.getDate()) - firstDay;
+                double delta = tx.getNoOfShares().doubleValue();
+                if (tx.getType() == TransactionType.SELL) {
+                    if (delta > noOfShares + 1e-9) {
+                        throw new IllegalArgumentException(String.format("Cannot sell more shares of %s than owned", symbol));
+                    }
+                    delta = -delta;
+                }
+                noOfShares += delta;
+                shares[index] += delta;
+                stockPrices[index] = tx.getPrice().doubleValue();
+            }
+            int fromIndex = DateUtils.toDay(txs.get(0).getDate()) - firstDay;
+            for (int i = fromIndex + 1; i < noOfDays; i++) {
+                shares[i] += shares[i - 1];
+            }
+
+            // Overlay historic closing prices (from the first transaction day), then forward fill.
+            PriceSeries series = prices.get(symbol);
+            if (series != null) {
+                scatterPrices(series, firstDay + fromIndex, lastDay, stockPrices, firstDay);
+            }
+            double price = stockPrices[fromIndex];
+            for (int i = fromIndex; i < noOfDays; i++) {
+                double p = stockPrices[i];
+                if (p == p) {
+                    // Not NaN.
+                    price = p;
+                }
+                values[i] += shares[i] * price;
+            }
+        }
+
+        return new Backtest(firstDay, values, cashFlows, incomes);
+    }
+
+    /**
+     * Writes the closing prices of a price series into a dense daily array (only the days within a date range).
+     */
+    private static void scatterPrices(PriceSeries series, int fromDay, int toDay, double[] dailyPrices, int firstDay) {
+        int size = series.size();
+        // Skip prices before the date range (binary search, with a day of margin for the timestamps' time of day).
+        for (int i = series.indexOf(DateUtils.toTimestamp(fromDay - 1)); i < size; i++) {
+            int day = DateUtils.toDay(series.getTimestamp(i));
+            if (day > toDay) {
+                break;
+            }
+            if (day >= fromDay) {
+                dailyPrices[day - firstDay] = series.getValue(i);
+            }
+        }
+    }
+
+    private static double[] prefixSums(double[] values) {
+        double[] prefixSums = new double[values.length + 1];
+        for (int i = 0; i < values.length; i++) {
+            prefixSums[i + 1] = prefixSums[i] + values[i];
+        }
+        return prefixSums;
+    }
+
+    /**
+     * Links the daily returns into prefix products of the growth factors. <br />
+     * <br />
+     *
+     * The daily return is the gain (value change plus income minus cash flow) relative to the previous value plus any new investment; days
+     * without invested capital have a return of 0.
+     */
+    private static double[] linkReturns(double[] values, double[] cashFlows, double[] incomes) {
+        double[] growthFactors = new double[values.length + 1];
+        growthFactors[0] = 1.0;
+        double previousValue = 0.0;
+        for (int i = 0; i < values.length; i++) {
+            double capital = previousValue + Math.max(cashFlows[i], 0.0);
+            double dailyReturn = 0.0;
+            if (capital > 0.0) {
+                dailyReturn = (values[i] + incomes[i] - previousValue - cashFlows[i]) / capital;
+            }
+            growthFactors[i + 1] = growthFactors[i] * (1.0 + dailyReturn);
+            previousValue = values[i];
+        }
+        return growthFactors;
+    }
+
+    /**
+     * Returns the first day number.
+     *
+     * @return The first day number.
+     */
+    public int getFirstDay() {
+        return firstDay;
+    }
+
+    /**
+     * Returns the last day number.
+     *
+     * @return The last day number.
+     */
+    public int getLastDay() {
+        return firstDay + values.length - 1;
+    }
+
+    /**
+     * Returns the number of days in this backtest.
+     *
+     * @return The number of days.
+     */
+    public int getNoOfDays() {
+        return values.length;
+    }
+
+    /**
+     * Returns the market value (NAV) of the portfolio at the end of a day.
+     *
+     * @param day
+     *            The day number.
+     *
+     * @return The market value (0 outside this backtest).
+     */
+    public double getValue(int day) {
+        return get(values, day);
+    }
+
+    /**
+     * Returns the net cash flow into the portfolio on a day (positive for buys, negative for sales).
+     *
+     * @param day
+     *            The day number.
+     *
+     * @return The net cash flow (0 outside this backtest).
+     */
+    public double getCashFlow(int day) {
+        return get(cashFlows, day);
+    }
+
+    /**
+     * Returns the income (dividends after tax) received on a day.
+     *
+     * @param day
+     *            The day number.
+     *
+     * @return The income (0 outside this backtest).
+     */
+    public double getIncome(int day) {
+        return get(incomes, day);
+    }
+
+    /**
+     * Returns the net investment (sum of all cash flows) up to and including a day.
+     *
+     * @param day
+     *            The day number.
+     *
+     * @return The net investment.
+     */
+    public double getNetInvestment(int day) {
+        return netInvestments[clip(day) + 1];
+    }
+
+    /**
+     * Returns the total income received over a date range (clipped to this backtest).
+     *
+     * @param fromDay
+     *            The first day number (inclusive).
+     * @param toDay
+     *            The last day number (inclusive).
+     *
+     * @return The total income.
+     */
+    public double getTotalIncome(int fromDay, int toDay) {
+        int from = Math.max(fromDay - firstDay, 0);
+        int to = Math.min(toDay - firstDay + 1, values.length);
+        return (from < to) ? totalIncomes[to] - totalIncomes[from] : 0.0;
+    }
+
+    /**
+     * Returns the time-weighted return (TWR) over a date range (clipped to this backtest), independent of the timing and size of the cash
+     * flows.
+     *
+     * @param fromDay
+     *            The first day number (inclusive).
+     * @param toDay
+     *            The last day number (inclusive).
+     *
+     * @return The time-weighted return as percentage.
+     */
+    public double getTimeWeightedReturn(int fromDay, int toDay) {
+        int from = Math.max(fromDay - firstDay, 0);
+        int to = Math.min(toDay - firstDay + 1, values.length);
+        if (from >= to) {
+            return 0.0;
+        }
+        if (growthFactors[from] == 0.0) {
+            // Total loss before the date range.
+            return 0.0;
+        }
+        return (growthFactors[to] / growthFactors[from] - 1.0) * 100.0;
+    }
+
+    /**
+     * Returns the annualized time-weighted return over the whole backtest. <br />
+     * <br />
+     *
+     * Periods shorter than a year are not extrapolated.
+     *
+     * @return The annualized time-weighted return as percentage.
+     */
+    public double getAnnualizedTimeWeightedReturn() {
+        double growthFactor = growthFactors[values.length];
+        double years = Math.max(values.length / 365.0, 1.0);
+        return (Math.pow(growthFactor, 1.0 / years) - 1.0) * 100.0;
+    }
+
+    /**
+     * Returns the daily market values as price series (e.g. for charting or rolling statistics).
+     *
+     * @return The market values.
+     */
+    public PriceSeries getValueSeries() {
+        long[] timestamps = new long[values.length];
+        for (int i = 0; i < values.length; i++) {
+            timestamps[i] = DateUtils.toTimestamp(firstDay + i);
+        }
+        return new PriceSeries(timestamps, values.clone());
+    }
+
+    private double get(double[] series, int day) {
+        int index = day - firstDay;
+        return (index >= 0 && index < series.length) ? series[index] : 0.0;
+    }
+
+    /**
+     * Returns the index of a day, clipped to [-1, last index].
+     */
+    private int clip(int day) {
+        return Math.max(-1, Math.min(day - firstDay, values.length - 1));
+    }
+}
@@ -0,0 +1,254 @@
+// This file is part of the 'portfolio-manager' (Portfolio Manager)
+// project, an open source stock portfolio manager application
+// written in Java.
+//
+// Copyright 2015 Oscar Stigter
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.ozsoft.portfoliomanager.domain;
+
+import java.util.Arrays;
+
+/**
+ * Series of dated cash flows (from the investor's perspective: investments are negative, proceeds and income are positive), with the
+ * money-weighted return (XIRR). <br />
+ * <br />
+ *
+ * Cash flows are stored in growable primitive arrays, sorted by date; appending a cash flow is an amortized constant time operation. <br />
+ * <br />
+ *
+ * The XIRR is solved with Newton's method, warm-started from the previous solution (so after appending a cash flow it typically converges
+ * in a few iterations), falling back to bisection if Newton's method does not converge.
+ *
+ * @author Oscar Stigter
+ */
+public class CashFlows {
+
+    private static final double MILLISECONDS_PER_YEAR = 365.0 * 24.0 * 60.0 * 60.0 * 1000.0;
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    private static final int MAX_NEWTON_ITERATIONS = 50;
+
+    private static final int MAX_BISECTION_ITERATIONS = 200;
+
+    /** Required precision of the rate. */
+    private static final double TOLERANCE = 1e-10;
+
+    /** Lowest possible rate (a total loss). */
+    private static final double MIN_RATE = -0.999999;
+
+    /** Highest rate to search for (bisection only). */
+    private static final double MAX_RATE = 1e6;
+
+    private long[] dates = new long[INITIAL_CAPACITY];
+
+    private double[] amounts = new double[INITIAL_CAPACITY];
+
+    private int size;
+
+    /** Last solved rate, as initial guess for the next solve. */
+    private double lastRate = 0.1;
+
+    /**
+     * Adds a cash flow.
+     *
+     * @param date
+     *            The date as timestamp in milliseconds.
+     * @param amount
+     *            The amount (negative for investments, positive for proceeds).
+     */
+    public void add(long date, double amount) {
+        if (size == dates.length) {
+            dates = Arrays.copyOf(dates, size * 2);
+            amounts = Arrays.copyOf(amounts, size * 2);
+        }
+        // Usually appended in date order; otherwise shift the later cash flows.
+        int index = size;
+        while (index > 0 && dates[index - 1] > date) {
+            index--;
+        }
+        if (index < size) {
+            System.arraycopy(dates, index, dates, index + 1, size - index);
+            System.arraycopy(amounts, index, amounts, index + 1, size - index);
+        }
+        dates[index] = date;
+        amounts[index] = amount;
+        size++;
+    }
+
+    /**
+     * Adds all cash flows of another series.
+     *
+     * @param other
+     *            The other cash flows.
+     */
+    public void addAll(CashFlows other) {
+        // Merge the two sorted series in linear time.
+        int newSize = size + other.size;
+        long[] newDates = new long[Math.max(INITIAL_CAPACITY, newSize)];
+        double[] newAmounts = new double[newDates.length];
+        int i = 0;
+        int j = 0;
+        for (int k = 0; k < newSize; k++) {
+            if (j >= other.size || (i < size && dates[i] <= other.dates[j])) {
+                newDates[k] = dates[i];
+                newAmounts[k] = amounts[i++];
+            } else {
+                newDates[k] = other.dates[j];
+                newAmounts[k] = other.amounts[j++];
+            }
+        }
+        dates = newDates;
+        amounts = newAmounts;
+        size = newSize;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public long getDate(int index) {
+        return dates[index];
+    }
+
+    public double getAmount(int index) {
+        return amounts[index];
+    }
+
+    /**
+     * Returns the sum of all cash flows.
+     *
+     * @return The sum.
+     */
+    public double getTotal() {
+        double total = 0.0;
+        for (int i = 0; i < size; i++) {
+            total += amounts[i];
+        }
+        return total;
+    }
+
+    /**
+     * Returns the money-weighted, annualized return (XIRR), valuing the remaining holdings at a specific date.
+     *
+     * @param endDate
+     *            The end date as timestamp in milliseconds.
+     * @param endValue
+     *            The value of the holdings at the end date (treated as final proceeds).
+     *
+     * @return The annualized return as percentage, or {@code Double.NaN} if not defined (e.g. no investments or no proceeds).
+     */
+    public double getXirr(long endDate, double endValue) {
+        if (size == 0) {
+            return Double.NaN;
+        }
+
+        // Cash flows (including the end value) with their times in years since the first cash flow.
+        int n = size + 1;
+        double[] times = new double[n];
+        double[] values = new double[n];
+        boolean hasNegative = false;
+        boolean hasPositive = false;
+        for (int i = 0; i < n; i++) {
+            long date = (i < size) ? dates[i] : Math.max(endDate, dates[size - 1]);
+            times[i] = (date - dates[0]) / MILLISECONDS_PER_YEAR;
+            values[i] = (i < size) ? amounts[i] : endValue;
+            hasNegative |= values[i] < 0.0;
+            hasPositive |= values[i] > 0.0;
+        }
+        if (!hasNegative || !hasPositive) {
+            return Double.NaN;
+        }
+
+        double rate = solveNewton(times, values, lastRate);
+        if (Double.isNaN(rate)) {
+            rate = solveBisection(times, values);
+        }
+        if (!Double.isNaN(rate)) {
+            lastRate = rate;
+        }
+        return rate * 100.0;
+    }
+
+    /**
+     * Solves the XIRR with Newton's method.
+     *
+     * @return The rate, or {@code Double.NaN} if not converged.
+     */
+    private static double solveNewton(double[] times, double[] values, double guess) {
+        double rate = guess;
+        for (int iteration = 0; iteration < MAX_NEWTON_ITERATIONS; iteration++) {
+            double logBase = Math.log1p(rate);
+            double npv = 0.0;
+            double derivative = 0.0;
+            for (int i = 0; i < times.length; i++) {
+                double discounted = values[i] * Math.exp(-times[i] * logBase);
+                npv += discounted;
+                derivative -= times[i] * discounted / (1.0 + rate);
+            }
+            if (derivative == 0.0 || Double.isNaN(npv) || Double.isInfinite(npv)) {
+                return Double.NaN;
+            }
+            double newRate = rate - npv / derivative;
+            if (newRate <= MIN_RATE || Double.isNaN(newRate) || Double.isInfinite(newRate)) {
+                return Double.NaN;
+            }
+            if (Math.abs(newRate - rate) < TOLERANCE) {
+                return newRate;
+            }
+            rate = newRate;
+        }
+        return Double.NaN;
+    }
+
+    /**
+     * Solves the XIRR with bisection, after bracketing the root.
+     *
+     * @return The rate, or {@code Double.NaN} if no root was found.
+     */
+    private static double solveBisection(double[] times, double[] values) {
+        double low = MIN_RATE;
+        double high = 1.0;
+        double npvLow = getNpv(times, values, low);
+        double npvHigh = getNpv(times, values, high);
+        while (npvLow * npvHigh > 0.0 && high < MAX_RATE) {
+            high *= 10.0;
+            npvHigh = getNpv(times, values, high);
+        }
+        if (npvLow * npvHigh > 0.0) {
+            return Double.NaN;
+        }
+        for (int iteration = 0; iteration < MAX_BISECTION_ITERATIONS && high - low > TOLERANCE; iteration++) {
+            double mid = (low + high) / 2.0;
+            double npvMid = getNpv(times, values, mid);
+            if (npvMid * npvLow > 0.0) {
+                low = mid;
+                npvLow = npvMid;
+            } else {
+                high = mid;
+            }
+        }
+        return (low + high) / 2.0;
+    }
+
+    private static double getNpv(double[] times, double[] values, double rate) {
+        double logBase = Math.log1p(rate);
+        double npv = 0.0;
+        for (int i = 0; i < times.length; i++) {
+            npv += values[i] * Math.exp(-times[i] * logBase);
+        }
+        return npv;
+    }
+}
@@ -35,12 +35,14 @@ import java.util.Collections;
 import java.util.Date;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
 import java.util.Set;
 import java.util.TreeMap;
 import java.util.TreeSet;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.ozsoft.portfoliomanager.metrics.MetricsRegistry;
 
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
@@ -59,6 +61,10 @@ public class Configuration {
 
     private static final File CCC_LIST_FILE = new File(DATA_DIR, "CCC_list.xls");
 
+    private static final File CCC_INDEX_FILE = new File(DATA_DIR, "CCC_list.idx");
+
+    private static final File HTTP_CACHE_DIR = new File(DATA_DIR, "http-cache");
+
     private static final File PORTFOLIO_FILE = new File(DATA_DIR, "portfolio.json");
 
     private static final File ANALYSIS_RESULT_FILE = new File(DATA_DIR, "stock_analysis.csv");
@@ -83,12 +89,16 @@ public class Configuration {
 
     private final List<Transaction> transactions;
 
+    /** Saved stock screens (expressions by name). */
+    private TreeMap<String, String> screens;
+
     /**
      * Constructor.
      */
     private Configuration() {
         stocks = new TreeMap<String, Stock>();
         transactions = new ArrayList<Transaction>();
+        screens = new TreeMap<String, String>();
 
         Locale.setDefault(Locale.US);
     }
@@ -115,6 +125,24 @@ public class Configuration {
         return CCC_LIST_FILE;
     }
 
+    /**
+     * Returns the index file with the parsed contents of the CCC list.
+     *
+     * @return The CCC index file.
+     */
+    public File getCCCIndexFile() {
+        return CCC_INDEX_FILE;
+    }
+
+    /**
+     * Returns the directory with cached HTTP responses.
+     *
+     * @return The HTTP cache directory.
+     */
+    public File getHttpCacheDir() {
+        return HTTP_CACHE_DIR;
+    }
+
     /**
      * Returns the latest generated analysis result file, or {@code null} if not present (analysis has never been run).
      *
@@ -245,11 +273,13 @@ public class Configuration {
      * @return The portfolio.
      */
     public Portfolio getPortfolio() {
+        long startTime = System.nanoTime();
         Portfolio portfolio = new Portfolio();
         for (Transaction transaction : getTransactions()) {
             portfolio.addTransaction(transaction);
         }
         portfolio.update(this);
+        MetricsRegistry.getInstance().getHistogram("portfolio.rebuild").recordSince(startTime);
         return portfolio;
     }
 
@@ -338,6 +368,68 @@ public class Configuration {
         this.deductIncomeTax = deductIncomeTax;
     }
 
+    /**
+     * Returns the saved stock screens.
+     *
+     * @return The screen expressions by name.
+     */
+    public Map<String, String> getScreens() {
+        if (screens == null) {
+            screens = new TreeMap<String, String>();
+        }
+        return Collections.unmodifiableMap(screens);
+    }
+
+    /**
+     * Saves a stock screen (replacing any existing screen with the same name).
+     *
+     * @param name
+     *            The screen's name.
+     * @param expression
+     *            The screen expression.
+     */
+    public void setScreen(String name, String expression) {
+        getScreens();
+        screens.put(name, expression);
+    }
+
+    /**
+     * Deletes a saved stock screen.
+     *
+     * @param name
+     *            The screen's name.
+     */
+    public void deleteScreen(String name) {
+        getScreens();
+        screens.remove(name);
+    }
+
+    /**
+     * Reads a configuration from JSON. <br />
+     * <br />
+     *
+     * Does not affect the singleton instance.
+     *
+     * @param reader
+     *            The reader to read the JSON from.
+     *
+     * @return The configuration, or {@code null} if the JSON is empty.
+     */
+    public static Configuration fromJson(Reader reader) {
+        return new GsonBuilder().create().fromJson(reader, Configuration.class);
+    }
+
+    /**
+     * Writes this configuration as (pretty printed) JSON.
+     *
+     * @param writer
+     *            The writer to write the JSON to.
+     */
+    public void toJson(Writer writer) {
+        Gson gson = new GsonBuilder().setPrettyPrinting().create();
+        gson.toJson(this, writer);
+    }
+
     /**
      * Loads the configuration from file.
      *
@@ -345,11 +437,12 @@ public class Configuration {
      */
     private static Configuration load() {
         if (DATA_DIR.isDirectory()) {
-            Gson gson = new GsonBuilder().create();
             if (PORTFOLIO_FILE.isFile()) {
+                long startTime = System.nanoTime();
                 try (Reader reader = new BufferedReader(new FileReader(PORTFOLIO_FILE))) {
-                    config = gson.fromJson(reader, Configuration.class);
-                    LOGGER.debug("Configuration loaded");
+                    config = fromJson(reader);
+                    long duration = MetricsRegistry.getInstance().getHistogram("config.load").recordSince(startTime);
+                    LOGGER.debug(String.format("Configuration loaded in %,d ms", duration / 1000000L));
                 } catch (IOException e) {
                     LOGGER.error("Could not read data file: " + PORTFOLIO_FILE.getAbsolutePath(), e);
                 }
@@ -372,10 +465,11 @@ public class Configuration {
             DATA_DIR.mkdirs();
         }
 
-        Gson gson = new GsonBuilder().setPrettyPrinting().create();
+        long startTime = System.nanoTime();
         try (Writer writer = new BufferedWriter(new FileWriter(PORTFOLIO_FILE))) {
-            gson.toJson(config, writer);
-            LOGGER.debug("Configuration saved");
+            config.toJson(writer);
+            long duration = MetricsRegistry.getInstance().getHistogram("config.save").recordSince(startTime);
+            LOGGER.debug(String.format("Configuration saved in %,d ms", duration / 1000000L));
         } catch (IOException e) {
             LOGGER.error("Could not write data file: " + PORTFOLIO_FILE.getAbsolutePath(), e);
         }
@@ -0,0 +1,248 @@
+// This file is part of the 'portfolio-manager' (Portfolio Manager)
+// project, an open source stock portfolio manager application
+// written in Java.
+//
+// Copyright 2015 Oscar Stigter
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.ozsoft.portfoliomanager.domain;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.ozsoft.portfoliomanager.util.DateUtils;
+
+/**
+ * Dense, daily series of the portfolio's costbase (open positions only). <br />
+ * <br />
+ *
+ * Holds the costbase at the end of every day from the first transaction up to and including the last day, together with the prefix sums of
+ * these values, so the total and average costbase over any date range can be calculated in constant time. <br />
+ * <br />
+ *
+ * The costbase is calculated the same way as in {@link Position}: a BUY adds the shares' price plus transaction costs, and a SELL removes the
+ * average costbase of the sold shares.
+ *
+ * @author Oscar Stigter
+ */
+public class CostBasisSeries {
+
+    private final int firstDay;
+
+    private final double[] costs;
+
+    /** Prefix sums of the daily costbase; element i holds the sum of the first i days. */
+    private final double[] prefixSums;
+
+    /**
+     * Constructor.
+     *
+     * @param firstDay
+     *            The first day number.
+     * @param costs
+     *            The costbase at the end of every day.
+     */
+    private CostBasisSeries(int firstDay, double[] costs) {
+        this.firstDay = firstDay;
+        this.costs = costs;
+        prefixSums = new double[costs.length + 1];
+        for (int i = 0; i < costs.length; i++) {
+            prefixSums[i + 1] = prefixSums[i] + costs[i];
+        }
+    }
+
+    /**
+     * Builds the costbase series from a set of transactions, up to and including the specified end date. <br />
+     * <br />
+     *
+     * Transactions after the end date are ignored.
+     *
+     * @param transactions
+     *            The transactions (in any order).
+     * @param endDate
+     *            The end date as timestamp in milliseconds.
+     *
+     * @return The costbase series (empty if there are no transactions).
+     */
+    public static CostBasisSeries build(List<Transaction> transactions, long endDate) {
+        if (transactions.isEmpty()) {
+            return new CostBasisSeries(DateUtils.toDay(endDate), new double[0]);
+        }
+
+        List<Transaction> sortedTransactions = new ArrayList<Transaction>(transactions);
+        Collections.sort(sortedTransactions);
+
+        int firstDay = DateUtils.toDay(sortedTransactions.get(0).getDate());
+        int lastDay = Math.max(firstDay, DateUtils.toDay(endDate));
+        double[] costs = new double[lastDay - firstDay + 1];
+
+        // Costbase and number of shares per stock.
+        Map<String, double[]> positions = new HashMap<String, double[]>();
+
+        double currentCost = 0.0;
+        int txIndex = 0;
+        int txCount = sortedTransactions.size();
+        for (int i = 0; i < costs.length; i++) {
+            int day = firstDay + i;
+            while (txIndex < txCount) {
+                Transaction tx = sortedTransactions.get(txIndex);
+                if (DateUtils.toDay(tx.getDate()) > day) {
+                    break;
+                }
+                currentCost += getCostDelta(tx, positions);
+                txIndex++;
+            }
+            costs[i] = currentCost;
+        }
+
+        return new CostBasisSeries(firstDay, costs);
+    }
+
+    /**
+     * Returns the first day number.
+     *
+     * @return The first day number.
+     */
+    public int getFirstDay() {
+        return firstDay;
+    }
+
+    /**
+     * Returns the last day number.
+     *
+     * @return The last day number.
+     */
+    public int getLastDay() {
+        return firstDay + costs.length - 1;
+    }
+
+    /**
+     * Returns the number of days in this series.
+     *
+     * @return The number of days.
+     */
+    public int getNoOfDays() {
+        return costs.length;
+    }
+
+    /**
+     * Returns the costbase at the end of a specific day. <br />
+     * <br />
+     *
+     * Days before the first day have a costbase of 0, and days after the last day have the costbase of the last day.
+     *
+     * @param day
+     *            The day number.
+     *
+     * @return The costbase.
+     */
+    public double getCost(int day) {
+        if (costs.length == 0 || day < firstDay) {
+            return 0.0;
+        } else if (day > getLastDay()) {
+            return costs[costs.length - 1];
+        } else {
+            return costs[day - firstDay];
+        }
+    }
+
+    /**
+     * Returns the sum of the daily costbase over a date range (clipped to this series).
+     *
+     * @param fromDay
+     *            The first day number (inclusive).
+     * @param toDay
+     *            The last day number (inclusive).
+     *
+     * @return The sum of the daily costbase.
+     */
+    public double getTotalCost(int fromDay, int toDay) {
+        int from = Math.max(fromDay - firstDay, 0);
+        int to = Math.min(toDay - firstDay + 1, costs.length);
+        if (from >= to) {
+            return 0.0;
+        } else {
+            return prefixSums[to] - prefixSums[from];
+        }
+    }
+
+    /**
+     * Returns the average costbase over a date range (clipped to this series).
+     *
+     * @param fromDay
+     *            The first day number (inclusive).
+     * @param toDay
+     *            The last day number (inclusive).
+     *
+     * @return The average costbase, or 0 if the date range does not overlap with this series.
+     */
+    public double getAverageCost(int fromDay, int toDay) {
+        int from = Math.max(fromDay - firstDay, 0);
+        int to = Math.min(toDay - firstDay + 1, costs.length);
+        if (from >= to) {
+            return 0.0;
+        } else {
+            return (prefixSums[to] - prefixSums[from]) / (to - from);
+        }
+    }
+
+    /**
+     * Returns the average costbase over the whole series.
+     *
+     * @return The average costbase.
+     */
+    public double getAverageCost() {
+        return getAverageCost(firstDay, getLastDay());
+    }
+
+    /**
+     * Returns the change in costbase caused by a single transaction, and updates the affected position.
+     *
+     * @param tx
+     *            The transaction.
+     * @param positions
+     *            The costbase and number of shares per stock.
+     *
+     * @return The change in costbase.
+     */
+    private static double getCostDelta(Transaction tx, Map<String, double[]> positions) {
+        double[] position = positions.get(tx.getSymbol());
+        if (position == null) {
+            position = new double[2];
+            positions.put(tx.getSymbol(), position);
+        }
+        double noOfShares = tx.getNoOfShares().doubleValue();
+        switch (tx.getType()) {
+            case BUY:
+                double cost = noOfShares * tx.getPrice().doubleValue() + tx.getCost().doubleValue();
+                position[0] += cost;
+                position[1] += noOfShares;
+                return cost;
+            case SELL:
+                if (position[1] <= 0.0) {
+                    throw new IllegalStateException(
+                            String.format("Invalid SELL transaction for stock '%s': non-existing position", tx.getSymbol()));
+                }
+                double soldCost = noOfShares * position[0] / position[1];
+                position[0] -= soldCost;
+                position[1] -= noOfShares;
+                return -soldCost;
+            default:
+                return 0.0;
+        }
+    }
+}
@@ -0,0 +1,272 @@
+// This file is part of the 'portfolio-manager' (Portfolio Manager)
+// project, an open source stock portfolio manager application
+// written in Java.
+//
+// Copyright 2015 Oscar Stigter
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.ozsoft.portfoliomanager.domain;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+
+/**
+ * Dividend payment schedule of a stock, inferred from its dividend history. <br />
+ * <br />
+ *
+ * The schedule is based on the ex-dividend dates and amounts from the stock's payout history and, if that is not available, on the dates
+ * and amounts per share of the received dividends (DIVIDEND transactions). The payout frequency (monthly, quarterly, semi-annual or annual)
+ * is inferred from the median interval between the most recent payouts, and future payouts are projected on the same day of the month as
+ * the latest payout. The delay between the ex-dividend date and the payment date is learned from the received dividends (so the payout
+ * history should be added before the received dividends). <br />
+ * <br />
+ *
+ * Payouts and payments are added incrementally (in any order, but usually as the latest); the schedule is inferred again from only the
+ * most recent payouts, in constant time.
+ *
+ * @author Oscar Stigter
+ */
+public class DividendSchedule {
+
+    /** Number of most recent payout intervals to infer the frequency from. */
+    private static final int MAX_INTERVALS = 8;
+
+    /** Payment delay in days after the ex-dividend date, if not learned yet. */
+    private static final int DEFAULT_PAYMENT_DELAY = 21;
+
+    /** Maximum payment delay in days (for matching received dividends to ex-dividend dates). */
+    private static final int MAX_PAYMENT_DELAY = 90;
+
+    /** Ex-dividend dates (day numbers) and amounts per share, from the payout history. */
+    private final Payouts exDividends = new Payouts();
+
+    /** Payment dates (day numbers) and amounts per share, from the received dividends. */
+    private final Payouts payments = new Payouts();
+
+    /** Learned payment delays in days (most recent ones, circular). */
+    private final int[] paymentDelays = new int[MAX_INTERVALS];
+
+    private int noOfPaymentDelays;
+
+    private int paymentDelayIndex;
+
+    /** Inferred number of payouts per year (0 if unknown). */
+    private int frequency;
+
+    /** Payment delay in days after the ex-dividend date. */
+    private int paymentDelay = DEFAULT_PAYMENT_DELAY;
+
+    /**
+     * Adds a payout from the payout history.
+     *
+     * @param exDividendDay
+     *            The ex-dividend date as day number.
+     * @param amount
+     *            The amount per share.
+     */
+    public void addPayout(int exDividendDay, double amount) {
+        if (exDividends.add(exDividendDay, amount)) {
+            infer();
+        }
+    }
+
+    /**
+     * Adds a received dividend payment.
+     *
+     * @param paymentDay
+     *            The payment date as day number.
+     * @param amount
+     *            The amount per share.
+     */
+    public void addPayment(int paymentDay, double amount) {
+        if (payments.add(paymentDay, amount)) {
+            // Learn the payment delay, matching the payment with the preceding ex-dividend date.
+            int index = exDividends.indexOf(paymentDay);
+            if (index >= 0) {
+                int delay = paymentDay - exDividends.days[index];
+                if (delay <= MAX_PAYMENT_DELAY) {
+                    paymentDelays[paymentDelayIndex] = delay;
+                    paymentDelayIndex = (paymentDelayIndex + 1) % paymentDelays.length;
+                    noOfPaymentDelays = Math.min(noOfPaymentDelays + 1, paymentDelays.length);
+                    paymentDelay = median(paymentDelays, noOfPaymentDelays);
+                }
+            }
+            infer();
+        }
+    }
+
+    /**
+     * Returns the ex-dividend date of the latest payout from the payout history.
+     *
+     * @return The day number, or {@code Integer.MIN_VALUE} if none.
+     */
+    public int getLastPayoutDay() {
+        return (exDividends.count > 0) ? exDividends.days[exDividends.count - 1] : Integer.MIN_VALUE;
+    }
+
+    /**
+     * Returns the inferred number of payouts per year.
+     *
+     * @return The frequency (12, 4, 2 or 1), or 0 if the schedule could not be inferred.
+     */
+    public int getFrequency() {
+        return frequency;
+    }
+
+    /**
+     * Returns the delay between the ex-dividend date and the payment date.
+     *
+     * @return The payment delay in days.
+     */
+    public int getPaymentDelay() {
+        return paymentDelay;
+    }
+
+    /**
+     * Projects the dividend payments per share into a monthly calendar.
+     *
+     * @param fromDay
+     *            The first day to project (as day number); earlier payments are skipped.
+     * @param firstMonth
+     *            The month of the first element of the calendar (see {@link #toMonth(int)}).
+     * @param incomes
+     *            The monthly calendar to add the projected payments per share to.
+     * @param divGrowth
+     *            The annual dividend growth rate (e.g. 0.05 for 5 %), applied once per year after the latest payout.
+     *
+     * @return True if projected, or false if the schedule is unknown.
+     */
+    public boolean project(int fromDay, int firstMonth, double[] incomes, double divGrowth) {
+        if (frequency == 0) {
+            return false;
+        }
+        boolean isExDividend = exDividends.count >= 2;
+        Payouts payouts = isExDividend ? exDividends : payments;
+        int delay = isExDividend ? paymentDelay : 0;
+        LocalDate lastDate = LocalDate.ofEpochDay(payouts.days[payouts.count - 1]);
+        double lastAmount = payouts.amounts[payouts.count - 1];
+        int step = 12 / frequency;
+        // The latest payout itself may not be paid yet (known ex-dividend date).
+        for (int k = isExDividend ? 0 : 1;; k++) {
+            int months = k * step;
+            int paymentDay = (int) lastDate.plusMonths(months).toEpochDay() + delay;
+            int index = toMonth(paymentDay) - firstMonth;
+            if (index >= incomes.length) {
+                break;
+            }
+            if (paymentDay >= fromDay && index >= 0) {
+                incomes[index] += lastAmount * Math.pow(1.0 + divGrowth, months / 12);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the month number of a day (months since the year 0).
+     *
+     * @param day
+     *            The day number.
+     *
+     * @return The month number.
+     */
+    public static int toMonth(int day) {
+        LocalDate date = LocalDate.ofEpochDay(day);
+        return date.getYear() * 12 + date.getMonthValue() - 1;
+    }
+
+    /**
+     * Infers the payout frequency from the most recent payouts.
+     */
+    private void infer() {
+        Payouts payouts = (exDividends.count >= 2) ? exDividends : payments;
+        int noOfIntervals = Math.min(payouts.count - 1, MAX_INTERVALS);
+        if (noOfIntervals < 1) {
+            frequency = 0;
+            return;
+        }
+        int[] intervals = new int[noOfIntervals];
+        for (int i = 0; i < noOfIntervals; i++) {
+            int index = payouts.count - 1 - i;
+            intervals[i] = payouts.days[index] - payouts.days[index - 1];
+        }
+        int interval = median(intervals, noOfIntervals);
+        if (interval <= 45) {
+            frequency = 12;
+        } else if (interval <= 135) {
+            frequency = 4;
+        } else if (interval <= 270) {
+            frequency = 2;
+        } else {
+            frequency = 1;
+        }
+    }
+
+    private static int median(int[] values, int count) {
+        int[] sorted = Arrays.copyOf(values, count);
+        Arrays.sort(sorted);
+        return sorted[count / 2];
+    }
+
+    /**
+     * Growable series of dated amounts, sorted by date.
+     *
+     * @author Oscar Stigter
+     */
+    private static class Payouts {
+
+        private int[] days = new int[16];
+
+        private double[] amounts = new double[16];
+
+        private int count;
+
+        /**
+         * Adds a payout, unless a payout on the same day is already present.
+         *
+         * @return True if added, otherwise false.
+         */
+        public boolean add(int day, double amount) {
+            int index = count;
+            while (index > 0 && days[index - 1] > day) {
+                index--;
+            }
+            if (index > 0 && days[index - 1] == day) {
+                return false;
+            }
+            if (count == days.length) {
+                days = Arrays.copyOf(days, count * 2);
+                amounts = Arrays.copyOf(amounts, count * 2);
+            }
+            System.arraycopy(days, index, days, index + 1, count - index);
+            System.arraycopy(amounts, index, amounts, index + 1, count - index);
+            days[index] = day;
+            amounts[index] = amount;
+            count++;
+            return true;
+        }
+
+        /**
+         * Returns the index of the latest payout on or before a day.
+         *
+         * @return The index, or -1 if none.
+         */
+        public int indexOf(int day) {
+            int index = count - 1;
+            while (index >= 0 && days[index] > day) {
+                index--;
+            }
+            return index;
+        }
+    }
+}
@@ -0,0 +1,121 @@
+// This file is part of the 'portfolio-manager' (Portfolio Manager)
+// project, an open source stock portfolio manager application
+// written in Java.
+//
+// Copyright 2015 Oscar Stigter
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.ozsoft.portfoliomanager.domain;
+
+import java.math.BigDecimal;
+
+/**
+ * Dividend statistics of a single stock, as listed in David Fish' CCC list. <br />
+ * <br />
+ *
+ * Values that are not available are set to -1.
+ *
+ * @author Oscar Stigter
+ */
+public class DividendStatistics {
+
+    private final String symbol;
+
+    private final int yearsDivGrowth;
+
+    private final double divRate;
+
+    private final double divGrowth1y;
+
+    private final double divGrowth3y;
+
+    private final double divGrowth5y;
+
+    /**
+     * Constructor.
+     *
+     * @param symbol
+     *            The stock's symbol.
+     * @param yearsDivGrowth
+     *            The number of consecutive years of dividend growth.
+     * @param divRate
+     *            The current, annual dividend rate per share.
+     * @param divGrowth1y
+     *            The dividend growth rate over the last year.
+     * @param divGrowth3y
+     *            The annualized dividend growth rate over the last 3 years.
+     * @param divGrowth5y
+     *            The annualized dividend growth rate over the last 5 years.
+     */
+    public DividendStatistics(String symbol, int yearsDivGrowth, double divRate, double divGrowth1y, double divGrowth3y,
+            double divGrowth5y) {
+        this.symbol = symbol;
+        this.yearsDivGrowth = yearsDivGrowth;
+        this.divRate = divRate;
+        this.divGrowth1y = divGrowth1y;
+        this.divGrowth3y = divGrowth3y;
+        this.divGrowth5y = divGrowth5y;
+    }
+
+    public String getSymbol() {
+        return symbol;
+    }
+
+    public int getYearsDivGrowth() {
+        return yearsDivGrowth;
+    }
+
+    public double getDivRate() {
+        return divRate;
+    }
+
+    public double getDivGrowth1y() {
+        return divGrowth1y;
+    }
+
+    public double getDivGrowth3y() {
+        return divGrowth3y;
+    }
+
+    public double getDivGrowth5y() {
+        return divGrowth5y;
+    }
+
+    /**
+     * Returns the annualized dividend growth rate over the longest available period (5, 3 or 1 year).
+     *
+     * @return The dividend growth rate, or -1 if not available.
+     */
+    public double getDivGrowth() {
+        if (divGrowth5y != -1.0) {
+            return divGrowth5y;
+        } else if (divGrowth3y != -1.0) {
+            return divGrowth3y;
+        } else {
+            return divGrowth1y;
+        }
+    }
+
+    /**
+     * Updates a stock with these statistics.
+     *
+     * @param stock
+     *            The stock.
+     */
+    public void apply(Stock stock) {
+        stock.setYearsDivGrowth(yearsDivGrowth);
+        stock.setDivRate(new BigDecimal(divRate).setScale(2, BigDecimal.ROUND_HALF_UP));
+        stock.setDivGrowth(new BigDecimal(getDivGrowth()).setScale(2, BigDecimal.ROUND_HALF_UP));
+    }
+}
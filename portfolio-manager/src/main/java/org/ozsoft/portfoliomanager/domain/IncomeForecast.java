@@ -0,0 +1,168 @@
+// This file is part of the 'portfolio-manager' (Portfolio Manager)
+// project, an open source stock portfolio manager application
+// written in Java.
+//
+// Copyright 2015 Oscar Stigter
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.ozsoft.portfoliomanager.domain;
+
+import java.time.YearMonth;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Month-by-month calendar of the forecasted dividend income of the portfolio. <br />
+ * <br />
+ *
+ * Holds a row of monthly income per stock (based on its {@link DividendSchedule}) and the monthly totals. A row can be updated separately
+ * (e.g. after a transaction or a new payout), adjusting the totals in O(months) time without recalculating the other rows.
+ *
+ * @author Oscar Stigter
+ */
+public class IncomeForecast {
+
+    private final int fromDay;
+
+    private final int firstMonth;
+
+    private final int noOfMonths;
+
+    /** Monthly income per stock symbol. */
+    private final Map<String, double[]> rows = new HashMap<String, double[]>();
+
+    /** Total monthly income. */
+    private final double[] totals;
+
+    /**
+     * Constructor.
+     *
+     * @param fromDay
+     *            The first day of the forecast as day number (the calendar starts with its month).
+     * @param noOfMonths
+     *            The number of months to forecast.
+     */
+    public IncomeForecast(int fromDay, int noOfMonths) {
+        if (noOfMonths < 1) {
+            throw new IllegalArgumentException("Invalid number of months: " + noOfMonths);
+        }
+        this.fromDay = fromDay;
+        this.noOfMonths = noOfMonths;
+        firstMonth = DividendSchedule.toMonth(fromDay);
+        totals = new double[noOfMonths];
+    }
+
+    /**
+     * Updates the forecasted income of a position.
+     *
+     * @param symbol
+     *            The stock symbol.
+     * @param noOfShares
+     *            The number of shares owned.
+     * @param schedule
+     *            The stock's dividend schedule (may be {@code null}).
+     * @param divRate
+     *            The current annual dividend per share, used if the schedule is unknown (spread evenly over the months).
+     * @param divGrowth
+     *            The annual dividend growth rate, in percent.
+     * @param incomeTaxRate
+     *            The income tax rate to deduct (0.0 for none).
+     */
+    public void update(String symbol, double noOfShares, DividendSchedule schedule, double divRate, double divGrowth,
+            double incomeTaxRate) {
+        double[] row = rows.get(symbol);
+        if (row == null) {
+            row = new double[noOfMonths];
+            rows.put(symbol, row);
+        }
+        for (int i = 0; i < noOfMonths; i++) {
+            totals[i] -= row[i];
+            row[i] = 0.0;
+        }
+
+        if (noOfShares > 0.0) {
+            if (schedule == null || !schedule.project(fromDay, firstMonth, row, divGrowth / 100.0)) {
+                for (int i = 0; i < noOfMonths; i++) {
+                    row[i] = divRate / 12.0;
+                }
+            }
+            double factor = noOfShares * (1.0 - incomeTaxRate);
+            for (int i = 0; i < noOfMonths; i++) {
+                row[i] *= factor;
+                totals[i] += row[i];
+            }
+        }
+    }
+
+    public int getFromDay() {
+        return fromDay;
+    }
+
+    public int getNoOfMonths() {
+        return noOfMonths;
+    }
+
+    /**
+     * Returns a month of the calendar.
+     *
+     * @param index
+     *            The month index (0 for the current month).
+     *
+     * @return The month.
+     */
+    public YearMonth getMonth(int index) {
+        int month = firstMonth + index;
+        return YearMonth.of(month / 12, month % 12 + 1);
+    }
+
+    /**
+     * Returns the forecasted income of the portfolio in a month.
+     *
+     * @param index
+     *            The month index (0 for the current month).
+     *
+     * @return The income.
+     */
+    public double getIncome(int index) {
+        return totals[index];
+    }
+
+    /**
+     * Returns the forecasted income of a position in a month.
+     *
+     * @param symbol
+     *            The stock symbol.
+     * @param index
+     *            The month index (0 for the current month).
+     *
+     * @return The income (0 if the position is not part of the forecast).
+     */
+    public double getIncome(String symbol, int index) {
+        double[] row = rows.get(symbol);
+        return (row != null) ? row[index] : 0.0;
+    }
+
+    /**
+     * Returns the total forecasted income over all months.
+     *
+     * @return The total income.
+     */
+    public double getTotalIncome() {
+        double total = 0.0;
+        for (double income : totals) {
+            total += income;
+        }
+        return total;
+    }
+}
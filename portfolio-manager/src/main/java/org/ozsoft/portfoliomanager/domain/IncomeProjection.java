@@ -0,0 +1,294 @@
+// This file is part of the 'portfolio-manager' (Portfolio Manager)
+// project, an open source stock portfolio manager application
+// written in Java.
+//
+// Copyright 2015 Oscar Stigter
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.ozsoft.portfoliomanager.domain;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
+
+/**
+ * Forward-looking Monte Carlo projection of the portfolio value and dividend income. <br />
+ * <br />
+ *
+ * Every path simulates the positions year by year: the stock prices follow a geometric Brownian motion with the dividend growth rate as
+ * expected price growth (a constant expected yield) and the stock's historic volatility, and the dividends grow with the dividend growth
+ * rate plus a (smaller) share of the stock's price shock, so dividends are cut in bad years. The shocks of all stocks share a common market
+ * factor. Optionally, the received dividends are reinvested in the paying stock. <br />
+ * <br />
+ *
+ * The paths are simulated in parallel (parallel stream over blocks of paths), each block with its own random number generator split off
+ * from a single seeded generator, so the results are reproducible regardless of the number of cores. The inner loops do not allocate
+ * objects. The results are the percentile bands of the portfolio value and income per year.
+ *
+ * @author Oscar Stigter
+ */
+public class IncomeProjection {
+
+    /** Percentiles of the bands. */
+    private static final double[] PERCENTILES = { 5.0, 25.0, 50.0, 75.0, 95.0 };
+
+    /** Number of paths simulated per task. */
+    private static final int BLOCK_SIZE = 1024;
+
+    /** Correlation of each stock's shocks with the common market factor. */
+    private static final double MARKET_CORRELATION = 0.5;
+
+    /** Share of the stock's price shock applied to its dividend growth. */
+    private static final double DIVIDEND_SENSITIVITY = 0.25;
+
+    private final int noOfYears;
+
+    private final int noOfPaths;
+
+    /** Portfolio value per percentile and year. */
+    private final double[][] values;
+
+    /** Income per percentile and year. */
+    private final double[][] incomes;
+
+    /**
+     * Constructor.
+     */
+    private IncomeProjection(int noOfYears, int noOfPaths, double[][] values, double[][] incomes) {
+        this.noOfYears = noOfYears;
+        this.noOfPaths = noOfPaths;
+        this.values = values;
+        this.incomes = incomes;
+    }
+
+    /**
+     * Runs a projection.
+     *
+     * @param startValues
+     *            The current market value per position.
+     * @param startIncomes
+     *            The current annual income per position (after tax, if applicable).
+     * @param divGrowths
+     *            The expected annual dividend growth rate per position, in percent.
+     * @param volatilities
+     *            The annualized price volatility per position, in percent.
+     * @param isReinvesting
+     *            Whether to reinvest the received dividends.
+     * @param noOfYears
+     *            The number of years to project.
+     * @param noOfPaths
+     *            The number of paths to simulate.
+     * @param seed
+     *            The seed of the random number generator.
+     *
+     * @return The projection.
+     */
+    public static IncomeProjection run(final double[] startValues, final double[] startIncomes, double[] divGrowths, double[] volatilities,
+            final boolean isReinvesting, final int noOfYears, final int noOfPaths, long seed) {
+        final int noOfPositions = startValues.length;
+        if (startIncomes.length != noOfPositions || divGrowths.length != noOfPositions || volatilities.length != noOfPositions) {
+            throw new IllegalArgumentException("Inconsistent number of positions");
+        }
+        if (noOfYears < 1 || noOfPaths < 1) {
+            throw new IllegalArgumentException("Invalid number of years or paths");
+        }
+
+        // Per-position model parameters.
+        final double[] growths = new double[noOfPositions];
+        final double[] drifts = new double[noOfPositions];
+        final double[] sigmas = new double[noOfPositions];
+        for (int i = 0; i < noOfPositions; i++) {
+            growths[i] = divGrowths[i] / 100.0;
+            sigmas[i] = volatilities[i] / 100.0;
+            drifts[i] = Math.log1p(Math.max(growths[i], -0.99)) - 0.5 * sigmas[i] * sigmas[i];
+        }
+        final double idiosyncraticWeight = Math.sqrt(1.0 - MARKET_CORRELATION * MARKET_CORRELATION);
+
+        // Simulated value and income per year (row) and path (column).
+        final float[][] pathValues = new float[noOfYears][noOfPaths];
+        final float[][] pathIncomes = new float[noOfYears][noOfPaths];
+
+        // Split the random number generators up front, so the results do not depend on the scheduling of the blocks.
+        int noOfBlocks = (noOfPaths + BLOCK_SIZE - 1) / BLOCK_SIZE;
+        final SplittableRandom[] randoms = new SplittableRandom[noOfBlocks];
+        SplittableRandom random = new SplittableRandom(seed);
+        for (int i = 0; i < noOfBlocks; i++) {
+            randoms[i] = random.split();
+        }
+
+        IntStream.range(0, noOfBlocks).parallel().forEach(new IntConsumer() {
+            @Override
+            public void accept(int block) {
+                GaussianRandom gaussian = new GaussianRandom(randoms[block]);
+                double[] value = new double[noOfPositions];
+                double[] income = new double[noOfPositions];
+                int fromPath = block * BLOCK_SIZE;
+                int toPath = Math.min(fromPath + BLOCK_SIZE, noOfPaths);
+                for (int path = fromPath; path < toPath; path++) {
+                    System.arraycopy(startValues, 0, value, 0, noOfPositions);
+                    System.arraycopy(startIncomes, 0, income, 0, noOfPositions);
+                    for (int year = 0; year < noOfYears; year++) {
+                        double market = gaussian.next();
+                        double totalValue = 0.0;
+                        double totalIncome = 0.0;
+                        for (int i = 0; i < noOfPositions; i++) {
+                            double shock = MARKET_CORRELATION * market + idiosyncraticWeight * gaussian.next();
+                            double received = income[i];
+                            value[i] *= Math.exp(drifts[i] + sigmas[i] * shock);
+                            income[i] *= Math.max(1.0 + growths[i] + DIVIDEND_SENSITIVITY * sigmas[i] * shock, 0.0);
+                            if (isReinvesting && value[i] > 0.0) {
+                                // Buy additional shares at the end of the year.
+                                income[i] *= 1.0 + received / value[i];
+                                value[i] += received;
+                            }
+                            totalValue += value[i];
+                            totalIncome += received;
+                        }
+                        pathValues[year][path] = (float) totalValue;
+                        pathIncomes[year][path] = (float) totalIncome;
+                    }
+                }
+            }
+        });
+
+        // Percentiles per year (year 0 is the current situation).
+        double startValue = 0.0;
+        double startIncome = 0.0;
+        for (int i = 0; i < noOfPositions; i++) {
+            startValue += startValues[i];
+            startIncome += startIncomes[i];
+        }
+        final double[][] values = new double[PERCENTILES.length][noOfYears + 1];
+        final double[][] incomes = new double[PERCENTILES.length][noOfYears + 1];
+        for (int p = 0; p < PERCENTILES.length; p++) {
+            values[p][0] = startValue;
+            incomes[p][0] = startIncome;
+        }
+        IntStream.range(0, noOfYears).parallel().forEach(new IntConsumer() {
+            @Override
+            public void accept(int year) {
+                setPercentiles(pathValues[year], values, year + 1);
+                setPercentiles(pathIncomes[year], incomes, year + 1);
+            }
+        });
+
+        return new IncomeProjection(noOfYears, noOfPaths, values, incomes);
+    }
+
+    /**
+     * Sorts the simulated results of a year and stores their percentiles (nearest rank).
+     */
+    private static void setPercentiles(float[] results, double[][] bands, int year) {
+        Arrays.sort(results);
+        for (int p = 0; p < PERCENTILES.length; p++) {
+            int rank = (int) Math.ceil(PERCENTILES[p] / 100.0 * results.length) - 1;
+            bands[p][year] = results[Math.max(0, Math.min(results.length - 1, rank))];
+        }
+    }
+
+    /**
+     * Returns the number of percentiles per band.
+     *
+     * @return The number of percentiles.
+     */
+    public static int getNoOfPercentiles() {
+        return PERCENTILES.length;
+    }
+
+    /**
+     * Returns a percentile of the bands.
+     *
+     * @param index
+     *            The percentile index (0 for the lowest percentile).
+     *
+     * @return The percentile (e.g. 50.0 for the median).
+     */
+    public static double getPercentile(int index) {
+        return PERCENTILES[index];
+    }
+
+    public int getNoOfYears() {
+        return noOfYears;
+    }
+
+    public int getNoOfPaths() {
+        return noOfPaths;
+    }
+
+    /**
+     * Returns a percentile of the projected portfolio value at the end of a year.
+     *
+     * @param index
+     *            The percentile index (see {@link #getPercentile(int)}).
+     * @param year
+     *            The year (0 for the current value).
+     *
+     * @return The portfolio value.
+     */
+    public double getValue(int index, int year) {
+        return values[index][year];
+    }
+
+    /**
+     * Returns a percentile of the projected income received during a year.
+     *
+     * @param index
+     *            The percentile index (see {@link #getPercentile(int)}).
+     * @param year
+     *            The year (0 for the current annual income).
+     *
+     * @return The income.
+     */
+    public double getIncome(int index, int year) {
+        return incomes[index][year];
+    }
+
+    /**
+     * Standard normally distributed random numbers (Marsaglia's polar method), without allocating objects.
+     *
+     * @author Oscar Stigter
+     */
+    private static class GaussianRandom {
+
+        private final SplittableRandom random;
+
+        private double spare;
+
+        private boolean hasSpare;
+
+        public GaussianRandom(SplittableRandom random) {
+            this.random = random;
+        }
+
+        public double next() {
+            if (hasSpare) {
+                hasSpare = false;
+                return spare;
+            }
+            double u;
+            double v;
+            double s;
+            do {
+                u = 2.0 * random.nextDouble() - 1.0;
+                v = 2.0 * random.nextDouble() - 1.0;
+                s = u * u + v * v;
+            } while (s >= 1.0 || s == 0.0);
+            double factor = Math.sqrt(-2.0 * Math.log(s) / s);
+            spare = v * factor;
+            hasSpare = true;
+            return u * factor;
+        }
+    }
+}
@@ -0,0 +1,300 @@
+// This file is part of the 'portfolio-manager' (Portfolio Manager)
+// project, an open source stock portfolio manager application
+// written in Java.
+//
+// Copyright 2015 Oscar Stigter
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.ozsoft.portfoliomanager.domain;
+
+import java.time.DayOfWeek;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.Month;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.time.temporal.TemporalAdjusters;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Trading calendar of a stock exchange (trading hours, holidays and early closes). <br />
+ * <br />
+ *
+ * The holidays and early closes of the US exchanges (NYSE and NASDAQ) are calculated according to the NYSE rules, so no yearly maintenance
+ * is required. Ad-hoc closures (e.g. national days of mourning) are not included.
+ *
+ * @author Oscar Stigter
+ */
+public class MarketCalendar {
+
+    /** Calendar of the US stock exchanges (NYSE and NASDAQ). */
+    public static final MarketCalendar US = new MarketCalendar(ZoneId.of("America/New_York"), LocalTime.of(9, 30), LocalTime.of(16, 0),
+            LocalTime.of(13, 0));
+
+    private final ZoneId zone;
+
+    private final LocalTime openTime;
+
+    private final LocalTime closeTime;
+
+    private final LocalTime earlyCloseTime;
+
+    private final ConcurrentMap<Integer, Set<LocalDate>> holidays = new ConcurrentHashMap<Integer, Set<LocalDate>>();
+
+    private final ConcurrentMap<Integer, Set<LocalDate>> earlyCloses = new ConcurrentHashMap<Integer, Set<LocalDate>>();
+
+    /**
+     * Constructor.
+     *
+     * @param zone
+     *            The exchange's time zone.
+     * @param openTime
+     *            The opening time.
+     * @param closeTime
+     *            The regular closing time.
+     * @param earlyCloseTime
+     *            The closing time on early close days.
+     */
+    private MarketCalendar(ZoneId zone, LocalTime openTime, LocalTime closeTime, LocalTime earlyCloseTime) {
+        this.zone = zone;
+        this.openTime = openTime;
+        this.closeTime = closeTime;
+        this.earlyCloseTime = earlyCloseTime;
+    }
+
+    public ZoneId getZone() {
+        return zone;
+    }
+
+    /**
+     * Returns whether a date is a trading day (a weekday, but not a holiday).
+     *
+     * @param date
+     *            The date.
+     *
+     * @return True if a trading day, otherwise false.
+     */
+    public boolean isTradingDay(LocalDate date) {
+        DayOfWeek day = date.getDayOfWeek();
+        return day != DayOfWeek.SATURDAY && day != DayOfWeek.SUNDAY && !getHolidays(date.getYear()).contains(date);
+    }
+
+    /**
+     * Returns the closing time of a trading day.
+     *
+     * @param date
+     *            The date.
+     *
+     * @return The closing time.
+     */
+    public LocalTime getCloseTime(LocalDate date) {
+        return getEarlyCloses(date.getYear()).contains(date) ? earlyCloseTime : closeTime;
+    }
+
+    /**
+     * Returns whether the exchange is open at a specific moment.
+     *
+     * @param timestamp
+     *            The moment as timestamp in milliseconds.
+     *
+     * @return True if open, otherwise false.
+     */
+    public boolean isOpen(long timestamp) {
+        ZonedDateTime dateTime = Instant.ofEpochMilli(timestamp).atZone(zone);
+        LocalDate date = dateTime.toLocalDate();
+        LocalTime time = dateTime.toLocalTime();
+        return isTradingDay(date) && !time.isBefore(openTime) && time.isBefore(getCloseTime(date));
+    }
+
+    /**
+     * Returns the last close of the exchange at or before a specific moment.
+     *
+     * @param timestamp
+     *            The moment as timestamp in milliseconds.
+     *
+     * @return The last close as timestamp in milliseconds.
+     */
+    public long getLastClose(long timestamp) {
+        ZonedDateTime dateTime = Instant.ofEpochMilli(timestamp).atZone(zone);
+        LocalDate date = dateTime.toLocalDate();
+        if (!isTradingDay(date) || dateTime.toLocalTime().isBefore(getCloseTime(date))) {
+            do {
+                date = date.minusDays(1L);
+            } while (!isTradingDay(date));
+        }
+        return date.atTime(getCloseTime(date)).atZone(zone).toInstant().toEpochMilli();
+    }
+
+    /**
+     * Returns the next opening of the exchange after a specific moment.
+     *
+     * @param timestamp
+     *            The moment as timestamp in milliseconds.
+     *
+     * @return The next opening as timestamp in milliseconds.
+     */
+    public long getNextOpen(long timestamp) {
+        ZonedDateTime dateTime = Instant.ofEpochMilli(timestamp).atZone(zone);
+        LocalDate date = dateTime.toLocalDate();
+        if (!isTradingDay(date) || !dateTime.toLocalTime().isBefore(openTime)) {
+            do {
+                date = date.plusDays(1L);
+            } while (!isTradingDay(date));
+        }
+        return date.atTime(openTime).atZone(zone).toInstant().toEpochMilli();
+    }
+
+    private Set<LocalDate> getHolidays(int year) {
+        Set<LocalDate> dates = holidays.get(year);
+        if (dates == null) {
+            dates = calculateHolidays(year);
+            holidays.putIfAbsent(year, dates);
+        }
+        return dates;
+    }
+
+    private Set<LocalDate> getEarlyCloses(int year) {
+        Set<LocalDate> dates = earlyCloses.get(year);
+        if (dates == null) {
+            dates = calculateEarlyCloses(year);
+            earlyCloses.putIfAbsent(year, dates);
+        }
+        return dates;
+    }
+
+    /**
+     * Calculates the full-day holidays of a year, according to the NYSE rules.
+     *
+     * @param year
+     *            The year.
+     *
+     * @return The holidays.
+     */
+    private static Set<LocalDate> calculateHolidays(int year) {
+        Set<LocalDate> dates = new HashSet<LocalDate>();
+
+        // New Year's Day (not observed on the preceding Friday if on a Saturday).
+        LocalDate newYear = LocalDate.of(year, Month.JANUARY, 1);
+        if (newYear.getDayOfWeek() == DayOfWeek.SUNDAY) {
+            dates.add(newYear.plusDays(1L));
+        } else if (newYear.getDayOfWeek() != DayOfWeek.SATURDAY) {
+            dates.add(newYear);
+        }
+
+        // Martin Luther King, Jr. Day (3rd Monday in January).
+        dates.add(LocalDate.of(year, Month.JANUARY, 1).with(TemporalAdjusters.dayOfWeekInMonth(3, DayOfWeek.MONDAY)));
+
+        // Washington's Birthday (3rd Monday in February).
+        dates.add(LocalDate.of(year, Month.FEBRUARY, 1).with(TemporalAdjusters.dayOfWeekInMonth(3, DayOfWeek.MONDAY)));
+
+        // Good Friday.
+        dates.add(getEasterSunday(year).minusDays(2L));
+
+        // Memorial Day (last Monday in May).
+        dates.add(LocalDate.of(year, Month.MAY, 1).with(TemporalAdjusters.lastInMonth(DayOfWeek.MONDAY)));
+
+        // Juneteenth National Independence Day (since 2022).
+        if (year >= 2022) {
+            dates.add(getObservedDate(LocalDate.of(year, Month.JUNE, 19)));
+        }
+
+        // Independence Day.
+        dates.add(getObservedDate(LocalDate.of(year, Month.JULY, 4)));
+
+        // Labor Day (1st Monday in September).
+        dates.add(LocalDate.of(year, Month.SEPTEMBER, 1).with(TemporalAdjusters.firstInMonth(DayOfWeek.MONDAY)));
+
+        // Thanksgiving Day (4th Thursday in November).
+        dates.add(getThanksgivingDay(year));
+
+        // Christmas Day.
+        dates.add(getObservedDate(LocalDate.of(year, Month.DECEMBER, 25)));
+
+        return dates;
+    }
+
+    /**
+     * Calculates the early close days of a year (closing at 1:00 PM).
+     *
+     * @param year
+     *            The year.
+     *
+     * @return The early close days.
+     */
+    private static Set<LocalDate> calculateEarlyCloses(int year) {
+        Set<LocalDate> holidays = calculateHolidays(year);
+        Set<LocalDate> dates = new HashSet<LocalDate>();
+        for (LocalDate date : new LocalDate[] { LocalDate.of(year, Month.JULY, 3), getThanksgivingDay(year).plusDays(1L),
+                LocalDate.of(year, Month.DECEMBER, 24) }) {
+            DayOfWeek day = date.getDayOfWeek();
+            if (day != DayOfWeek.SATURDAY && day != DayOfWeek.SUNDAY && !holidays.contains(date)) {
+                dates.add(date);
+            }
+        }
+        return dates;
+    }
+
+    /**
+     * Returns the observed date of a holiday: the preceding Friday if on a Saturday, or the following Monday if on a Sunday.
+     *
+     * @param date
+     *            The holiday's date.
+     *
+     * @return The observed date.
+     */
+    private static LocalDate getObservedDate(LocalDate date) {
+        switch (date.getDayOfWeek()) {
+            case SATURDAY:
+                return date.minusDays(1L);
+            case SUNDAY:
+                return date.plusDays(1L);
+            default:
+                return date;
+        }
+    }
+
+    private static LocalDate getThanksgivingDay(int year) {
+        return LocalDate.of(year, Month.NOVEMBER, 1).with(TemporalAdjusters.dayOfWeekInMonth(4, DayOfWeek.THURSDAY));
+    }
+
+    /**
+     * Returns the date of Easter Sunday (anonymous Gregorian algorithm).
+     *
+     * @param year
+     *            The year.
+     *
+     * @return The date of Easter Sunday.
+     */
+    private static LocalDate getEasterSunday(int year) {
+        int a = year % 19;
+        int b = year / 100;
+        int c = year % 100;
+        int d = b / 4;
+        int e = b % 4;
+        int f = (b + 8) / 25;
+        int g = (b - f + 1) / 3;
+        int h = (19 * a + b - d - g + 15) % 30;
+        int i = c / 4;
+        int k = c % 4;
+        int l = (32 + 2 * e + 2 * i - h - k) % 7;
+        int m = (a + 11 * h + 22 * l) / 451;
+        int month = (h + l - 7 * m + 114) / 31;
+        int day = ((h + l - 7 * m + 114) % 31) + 1;
+        return LocalDate.of(year, month, day);
+    }
+}
@@ -0,0 +1,155 @@
+// This file is part of the 'portfolio-manager' (Portfolio Manager)
+// project, an open source stock portfolio manager application
+// written in Java.
+//
+// Copyright 2015 Oscar Stigter
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.ozsoft.portfoliomanager.domain;
+
+import java.util.Arrays;
+
+/**
+ * Growable series of OHLC (open, high, low, close) price bars, stored in primitive arrays. <br />
+ * <br />
+ *
+ * Each bar is timestamped with the time of its last (closing) price. Bars are appended or the last bar is updated by a single writer (see
+ * {@link PricePyramid}), while readers may access the series concurrently: a reader only sees bars up to the size it read, and the arrays
+ * are never shrunk.
+ *
+ * @author Oscar Stigter
+ */
+public class OhlcSeries {
+
+    private static final int INITIAL_CAPACITY = 64;
+
+    private long[] timestamps = new long[INITIAL_CAPACITY];
+
+    private double[] opens = new double[INITIAL_CAPACITY];
+
+    private double[] highs = new double[INITIAL_CAPACITY];
+
+    private double[] lows = new double[INITIAL_CAPACITY];
+
+    private double[] closes = new double[INITIAL_CAPACITY];
+
+    private volatile int size;
+
+    /**
+     * Returns the number of bars.
+     *
+     * @return The number of bars.
+     */
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public long getTimestamp(int index) {
+        return timestamps[index];
+    }
+
+    public double getOpen(int index) {
+        return opens[index];
+    }
+
+    public double getHigh(int index) {
+        return highs[index];
+    }
+
+    public double getLow(int index) {
+        return lows[index];
+    }
+
+    public double getClose(int index) {
+        return closes[index];
+    }
+
+    /**
+     * Returns the index of the first bar at or after a timestamp.
+     *
+     * @param timestamp
+     *            The timestamp.
+     *
+     * @return The index, or the number of bars if all bars are before the timestamp.
+     */
+    public int indexOf(long timestamp) {
+        int index = Arrays.binarySearch(timestamps, 0, size, timestamp);
+        return (index < 0) ? -index - 1 : index;
+    }
+
+    /**
+     * Returns the closing prices as a price series.
+     *
+     * @return The closing prices.
+     */
+    public PriceSeries getCloses() {
+        int count = size;
+        return new PriceSeries(Arrays.copyOf(timestamps, count), Arrays.copyOf(closes, count));
+    }
+
+    /**
+     * Returns the (estimated) memory size of this series.
+     *
+     * @return The memory size in bytes.
+     */
+    public long getMemorySize() {
+        return 64L + 40L * timestamps.length;
+    }
+
+    /**
+     * Appends a new bar.
+     *
+     * @param timestamp
+     *            The timestamp of the price.
+     * @param price
+     *            The price.
+     */
+    void add(long timestamp, double price) {
+        int index = size;
+        if (index == timestamps.length) {
+            int capacity = index * 2;
+            timestamps = Arrays.copyOf(timestamps, capacity);
+            opens = Arrays.copyOf(opens, capacity);
+            highs = Arrays.copyOf(highs, capacity);
+            lows = Arrays.copyOf(lows, capacity);
+            closes = Arrays.copyOf(closes, capacity);
+        }
+        timestamps[index] = timestamp;
+        opens[index] = price;
+        highs[index] = price;
+        lows[index] = price;
+        closes[index] = price;
+        size = index + 1;
+    }
+
+    /**
+     * Updates the last bar with a newer price.
+     *
+     * @param timestamp
+     *            The timestamp of the price.
+     * @param price
+     *            The price.
+     */
+    void update(long timestamp, double price) {
+        int index = size - 1;
+        highs[index] = Math.max(highs[index], price);
+        lows[index] = Math.min(lows[index], price);
+        closes[index] = price;
+        timestamps[index] = timestamp;
+    }
+}
@@ -0,0 +1,119 @@
+// This file is part of the 'portfolio-manager' (Portfolio Manager)
+// project, an open source stock portfolio manager application
+// written in Java.
+//
+// Copyright 2015 Oscar Stigter
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.ozsoft.portfoliomanager.domain;
+
+/**
+ * Portfolio statistics of a single calendar period (month, quarter or year).
+ *
+ * @author Oscar Stigter
+ */
+public class PeriodStatistics {
+
+    private final PeriodType type;
+
+    private final int year;
+
+    private final int number;
+
+    private final int fromDay;
+
+    private final int toDay;
+
+    private final double averageCost;
+
+    private final double income;
+
+    /**
+     * Constructor.
+     *
+     * @param type
+     *            The period type.
+     * @param year
+     *            The year.
+     * @param number
+     *            The period number within the year (month 1-12, quarter 1-4 or 1 for a year).
+     * @param fromDay
+     *            The first day number (inclusive).
+     * @param toDay
+     *            The last day number (inclusive).
+     * @param averageCost
+     *            The average costbase.
+     * @param income
+     *            The received income.
+     */
+    public PeriodStatistics(PeriodType type, int year, int number, int fromDay, int toDay, double averageCost, double income) {
+        this.type = type;
+        this.year = year;
+        this.number = number;
+        this.fromDay = fromDay;
+        this.toDay = toDay;
+        this.averageCost = averageCost;
+        this.income = income;
+    }
+
+    public PeriodType getType() {
+        return type;
+    }
+
+    public int getYear() {
+        return year;
+    }
+
+    public int getNumber() {
+        return number;
+    }
+
+    public int getFromDay() {
+        return fromDay;
+    }
+
+    public int getToDay() {
+        return toDay;
+    }
+
+    public int getNoOfDays() {
+        return toDay - fromDay + 1;
+    }
+
+    public double getAverageCost() {
+        return averageCost;
+    }
+
+    public double getIncome() {
+        return income;
+    }
+
+    /**
+     * Returns the income return over this period (received income divided by average costbase), in percentage.
+     *
+     * @return The income return percentage.
+     */
+    public double getIncomeReturn() {
+        if (averageCost > 0.0) {
+            return income / averageCost * 100.0;
+        } else {
+            return 0.0;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s %d-%d: Average Costbase: $%,.0f, Income: $%,.0f", type, year, number, averageCost, income);
+    }
+}
@@ -0,0 +1,59 @@
+// This file is part of the 'portfolio-manager' (Portfolio Manager)
+// project, an open source stock portfolio manager application
+// written in Java.
+//
+// Copyright 2015 Oscar Stigter
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.ozsoft.portfoliomanager.domain;
+
+/**
+ * Type of calendar period for portfolio statistics.
+ *
+ * @author Oscar Stigter
+ */
+public enum PeriodType {
+
+    /** Calendar month. */
+    MONTH(1),
+
+    /** Calendar quarter. */
+    QUARTER(3),
+
+    /** Calendar year. */
+    YEAR(12),
+
+    ;
+
+    private final int noOfMonths;
+
+    /**
+     * Constructor.
+     *
+     * @param noOfMonths
+     *            The number of months in the period.
+     */
+    private PeriodType(int noOfMonths) {
+        this.noOfMonths = noOfMonths;
+    }
+
+    /**
+     * Returns the number of months in the period.
+     *
+     * @return The number of months.
+     */
+    public int getNoOfMonths() {
+        return noOfMonths;
+    }
+}
@@ -53,6 +53,8 @@ public class Portfolio {
 
     private BigDecimal totalReturn;
 
+    private CashFlows cashFlows;
+
     /**
      * Constructor.
      */
@@ -196,15 +198,35 @@ public class Portfolio {
     }
 
     /**
-     * Returns the all-time total return percentage (total return divided by total costbase).
+     * Returns the all-time total return percentage (total return divided by total costbase). <br />
+     * <br />
+     *
+     * This is a simple measure, ignoring when money was invested; see {@link #getAnnualizedReturn()} for the money-weighted return.
      *
      * @return The total return percentage.
      */
     public BigDecimal getTotalReturnPercentage() {
-        // FIXME: Total return based on average costbase instead of total costbase.
         return MathUtils.perc(getTotalReturn(), totalCost);
     }
 
+    /**
+     * Returns the cash flows of all positions (investments negative, proceeds and income positive).
+     *
+     * @return The cash flows.
+     */
+    public CashFlows getCashFlows() {
+        return cashFlows;
+    }
+
+    /**
+     * Returns the money-weighted, annualized return (XIRR) of the portfolio, valuing the open positions at the current stock prices.
+     *
+     * @return The annualized return percentage, or {@code Double.NaN} if not defined.
+     */
+    public double getAnnualizedReturn() {
+        return cashFlows.getXirr(System.currentTimeMillis(), currentValue.doubleValue());
+    }
+
     /**
      * Updates the portfolio based on the specified configuration (stocks and positions).
      *
@@ -237,6 +259,7 @@ public class Portfolio {
             totalIncome = totalIncome.add(pos.getTotalIncome());
             realizedResult = realizedResult.add(pos.getRealizedResult());
             totalReturn = totalReturn.add(pos.getTotalReturn());
+            cashFlows.addAll(pos.getCashFlows());
         }
     }
 
@@ -252,5 +275,6 @@ public class Portfolio {
         totalIncome = BigDecimal.ZERO;
         realizedResult = BigDecimal.ZERO;
         totalReturn = BigDecimal.ZERO;
+        cashFlows = new CashFlows();
     }
 }
@@ -0,0 +1,120 @@
+// This file is part of the 'portfolio-manager' (Portfolio Manager)
+// project, an open source stock portfolio manager application
+// written in Java.
+//
+// Copyright 2015 Oscar Stigter
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.ozsoft.portfoliomanager.domain;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Portfolio statistics over time (costbase, income and total return), per month, quarter, year and overall.
+ *
+ * @author Oscar Stigter
+ */
+public class PortfolioStatistics {
+
+    private final List<PeriodStatistics> months;
+
+    private final List<PeriodStatistics> quarters;
+
+    private final List<PeriodStatistics> years;
+
+    private final CostBasisSeries costBasis;
+
+    private final double totalIncome;
+
+    private final double totalReturn;
+
+    /**
+     * Constructor.
+     *
+     * @param months
+     *            The monthly statistics, sorted by date.
+     * @param quarters
+     *            The quarterly statistics, sorted by date.
+     * @param years
+     *            The annual statistics, sorted by date.
+     * @param costBasis
+     *            The daily costbase series.
+     * @param totalIncome
+     *            The total received income.
+     * @param totalReturn
+     *            The total return.
+     */
+    public PortfolioStatistics(List<PeriodStatistics> months, List<PeriodStatistics> quarters, List<PeriodStatistics> years,
+            CostBasisSeries costBasis, double totalIncome, double totalReturn) {
+        this.months = Collections.unmodifiableList(months);
+        this.quarters = Collections.unmodifiableList(quarters);
+        this.years = Collections.unmodifiableList(years);
+        this.costBasis = costBasis;
+        this.totalIncome = totalIncome;
+        this.totalReturn = totalReturn;
+    }
+
+    public List<PeriodStatistics> getMonths() {
+        return months;
+    }
+
+    public List<PeriodStatistics> getQuarters() {
+        return quarters;
+    }
+
+    public List<PeriodStatistics> getYears() {
+        return years;
+    }
+
+    public CostBasisSeries getCostBasis() {
+        return costBasis;
+    }
+
+    public int getNoOfDays() {
+        return costBasis.getNoOfDays();
+    }
+
+    public double getAverageCost() {
+        return costBasis.getAverageCost();
+    }
+
+    public double getTotalIncome() {
+        return totalIncome;
+    }
+
+    public double getTotalReturn() {
+        return totalReturn;
+    }
+
+    /**
+     * Returns the compounded annual growth rate (CAGR) of the total return, based on the overall average costbase. <br />
+     * <br />
+     *
+     * Periods shorter than a year are not extrapolated.
+     *
+     * @return The CAGR in percentage.
+     */
+    public double getCagr() {
+        double averageCost = getAverageCost();
+        if (averageCost <= 0.0) {
+            return 0.0;
+        }
+        double years = getNoOfDays() / 365.0;
+        if (years < 1.0) {
+            years = 1.0;
+        }
+        return (Math.pow(totalReturn / averageCost + 1.0, 1.0 / years) - 1.0) * 100.0;
+    }
+}
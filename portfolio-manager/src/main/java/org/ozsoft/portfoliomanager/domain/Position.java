@@ -48,6 +48,8 @@ public class Position implements Comparable<Position> {
 
     private BigDecimal totalReturn = BigDecimal.ZERO;
 
+    private final CashFlows cashFlows = new CashFlows();
+
     /**
      * Constructor.
      *
@@ -173,15 +175,40 @@ public class Position implements Comparable<Position> {
         return getCurrentResult().add(totalReturn);
     }
 
+    /**
+     * Returns the all-time total return percentage (total return divided by total costbase). <br />
+     * <br />
+     *
+     * This is a simple measure, ignoring when money was invested; see {@link #getAnnualizedReturn()} for the money-weighted return.
+     *
+     * @return The total return percentage.
+     */
     public BigDecimal getTotalReturnPercentage() {
         if (totalCost.signum() > 0) {
-            // FIXME: Total return based on average costbase instead of total costbase.
             return MathUtils.perc(getTotalReturn(), totalCost);
         } else {
             return BigDecimal.ZERO;
         }
     }
 
+    /**
+     * Returns the cash flows of this position (investments negative, proceeds and income positive).
+     *
+     * @return The cash flows.
+     */
+    public CashFlows getCashFlows() {
+        return cashFlows;
+    }
+
+    /**
+     * Returns the money-weighted, annualized return (XIRR) of this position, valuing the open shares at the current stock price.
+     *
+     * @return The annualized return percentage, or {@code Double.NaN} if not defined.
+     */
+    public double getAnnualizedReturn() {
+        return cashFlows.getXirr(System.currentTimeMillis(), getCurrentValue().doubleValue());
+    }
+
     /**
      * Adds a transaction.
      *
@@ -195,6 +222,7 @@ public class Position implements Comparable<Position> {
                 BigDecimal cost = tx.getNoOfShares().multiply(tx.getPrice()).add(tx.getCost());
                 currentCost = currentCost.add(cost);
                 totalCost = totalCost.add(cost);
+                cashFlows.add(tx.getDate(), -cost.doubleValue());
                 break;
             case SELL:
                 if (tx.getNoOfShares().compareTo(noOfShares) > 0) {
@@ -211,6 +239,7 @@ public class Position implements Comparable<Position> {
                 BigDecimal profit = tx.getNoOfShares().multiply(tx.getPrice().subtract(avgPrice)).subtract(tx.getCost());
                 realizedResult = realizedResult.add(profit);
                 totalReturn = totalReturn.add(profit);
+                cashFlows.add(tx.getDate(), tx.getNoOfShares().multiply(tx.getPrice()).subtract(tx.getCost()).doubleValue());
                 noOfShares = noOfShares.subtract(tx.getNoOfShares());
                 break;
             case DIVIDEND:
@@ -220,6 +249,7 @@ public class Position implements Comparable<Position> {
                 }
                 totalIncome = totalIncome.add(income);
                 totalReturn = totalReturn.add(income);
+                cashFlows.add(tx.getDate(), income.doubleValue());
                 break;
             default:
                 throw new IllegalArgumentException("Invalid transaction type");
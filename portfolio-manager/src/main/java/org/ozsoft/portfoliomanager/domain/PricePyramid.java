@@ -0,0 +1,161 @@
+// This file is part of the 'portfolio-manager' (Portfolio Manager)
+// project, an open source stock portfolio manager application
+// written in Java.
+//
+// Copyright 2015 Oscar Stigter
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.ozsoft.portfoliomanager.domain;
+
+import java.time.ZoneId;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Multi-resolution store of a stock's prices, with daily, weekly and monthly OHLC bars. <br />
+ * <br />
+ *
+ * All levels are built incrementally as prices arrive: a price either updates the current bar of a level or starts a new one. Analyses and
+ * charts that only need a coarse granularity can read the weekly or monthly level, with about 5 or 20 times fewer bars than the daily
+ * level.
+ *
+ * @author Oscar Stigter
+ */
+public class PricePyramid {
+
+    private final ZoneId zone;
+
+    private final Map<PriceResolution, OhlcSeries> levels = new EnumMap<PriceResolution, OhlcSeries>(PriceResolution.class);
+
+    /** End (exclusive) of the current bar period per level. */
+    private final Map<PriceResolution, Long> periodEnds = new EnumMap<PriceResolution, Long>(PriceResolution.class);
+
+    private long lastTimestamp = Long.MIN_VALUE;
+
+    /**
+     * Constructor for an empty pyramid, using the system's default time zone for the bar periods.
+     */
+    public PricePyramid() {
+        this(ZoneId.systemDefault());
+    }
+
+    /**
+     * Constructor for an empty pyramid.
+     *
+     * @param zone
+     *            The time zone defining the bar periods.
+     */
+    public PricePyramid(ZoneId zone) {
+        this.zone = zone;
+        for (PriceResolution resolution : PriceResolution.values()) {
+            levels.put(resolution, new OhlcSeries());
+            periodEnds.put(resolution, Long.MIN_VALUE);
+        }
+    }
+
+    /**
+     * Creates a pyramid from a series of (daily) prices.
+     *
+     * @param prices
+     *            The prices.
+     *
+     * @return The pyramid.
+     */
+    public static PricePyramid fromSeries(PriceSeries prices) {
+        PricePyramid pyramid = new PricePyramid();
+        for (int i = 0; i < prices.size(); i++) {
+            pyramid.add(prices.getTimestamp(i), prices.getValue(i));
+        }
+        return pyramid;
+    }
+
+    /**
+     * Adds a price, newer than all previously added prices.
+     *
+     * @param timestamp
+     *            The timestamp of the price.
+     * @param price
+     *            The price.
+     *
+     * @throws IllegalArgumentException
+     *             If the price is older than the last added price.
+     */
+    public synchronized void add(long timestamp, double price) {
+        if (timestamp < lastTimestamp) {
+            throw new IllegalArgumentException("Price older than last price");
+        }
+        for (PriceResolution resolution : PriceResolution.values()) {
+            OhlcSeries level = levels.get(resolution);
+            if (timestamp < periodEnds.get(resolution)) {
+                level.update(timestamp, price);
+            } else {
+                level.add(timestamp, price);
+                periodEnds.put(resolution, resolution.getPeriodEnd(timestamp, zone));
+            }
+        }
+        lastTimestamp = timestamp;
+    }
+
+    /**
+     * Returns the timestamp of the last added price.
+     *
+     * @return The timestamp, or {@link Long#MIN_VALUE} if empty.
+     */
+    public synchronized long getLastTimestamp() {
+        return lastTimestamp;
+    }
+
+    /**
+     * Returns the bars of a specific resolution.
+     *
+     * @param resolution
+     *            The resolution.
+     *
+     * @return The bars.
+     */
+    public OhlcSeries getLevel(PriceResolution resolution) {
+        return levels.get(resolution);
+    }
+
+    /**
+     * Returns the bars of the coarsest resolution with bars no longer than a specific duration, e.g. the time per pixel of a chart.
+     *
+     * @param maxDuration
+     *            The maximum bar duration in milliseconds.
+     *
+     * @return The bars.
+     */
+    public OhlcSeries getLevel(long maxDuration) {
+        PriceResolution result = PriceResolution.DAILY;
+        for (PriceResolution resolution : PriceResolution.values()) {
+            if (resolution.getDuration() <= maxDuration) {
+                result = resolution;
+            }
+        }
+        return levels.get(result);
+    }
+
+    /**
+     * Returns the (estimated) memory size of this pyramid.
+     *
+     * @return The memory size in bytes.
+     */
+    public long getMemorySize() {
+        long memorySize = 0L;
+        for (OhlcSeries level : levels.values()) {
+            memorySize += level.getMemorySize();
+        }
+        return memorySize;
+    }
+}
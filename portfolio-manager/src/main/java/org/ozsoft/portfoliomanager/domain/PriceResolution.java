@@ -0,0 +1,85 @@
+// This file is part of the 'portfolio-manager' (Portfolio Manager)
+// project, an open source stock portfolio manager application
+// written in Java.
+//
+// Copyright 2015 Oscar Stigter
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.ozsoft.portfoliomanager.domain;
+
+import java.time.DayOfWeek;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.temporal.TemporalAdjusters;
+
+/**
+ * Resolution (bar period) of aggregated price bars.
+ *
+ * @author Oscar Stigter
+ */
+public enum PriceResolution {
+
+    /** Daily bars. */
+    DAILY(24L * 60L * 60L * 1000L),
+
+    /** Weekly bars (Monday to Sunday). */
+    WEEKLY(7L * 24L * 60L * 60L * 1000L),
+
+    /** Monthly bars. */
+    MONTHLY(30L * 24L * 60L * 60L * 1000L),
+
+    ;
+
+    private final long duration;
+
+    private PriceResolution(long duration) {
+        this.duration = duration;
+    }
+
+    /**
+     * Returns the nominal duration of a bar.
+     *
+     * @return The duration in milliseconds.
+     */
+    public long getDuration() {
+        return duration;
+    }
+
+    /**
+     * Returns the end (exclusive) of the bar period containing a timestamp.
+     *
+     * @param timestamp
+     *            The timestamp.
+     * @param zone
+     *            The time zone defining the calendar days.
+     *
+     * @return The end of the period as timestamp.
+     */
+    public long getPeriodEnd(long timestamp, ZoneId zone) {
+        LocalDate date = Instant.ofEpochMilli(timestamp).atZone(zone).toLocalDate();
+        LocalDate endDate;
+        switch (this) {
+            case WEEKLY:
+                endDate = date.with(TemporalAdjusters.next(DayOfWeek.MONDAY));
+                break;
+            case MONTHLY:
+                endDate = date.with(TemporalAdjusters.firstDayOfNextMonth());
+                break;
+            default:
+                endDate = date.plusDays(1);
+        }
+        return endDate.atStartOfDay(zone).toInstant().toEpochMilli();
+    }
+}
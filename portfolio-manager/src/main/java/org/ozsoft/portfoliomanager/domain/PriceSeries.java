@@ -0,0 +1,175 @@
+// This file is part of the 'portfolio-manager' (Portfolio Manager)
+// project, an open source stock portfolio manager application
+// written in Java.
+//
+// Copyright 2015 Oscar Stigter
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.ozsoft.portfoliomanager.domain;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Immutable, compact time series of prices (e.g. historic closing prices or dividend payouts), sorted by date. <br />
+ * <br />
+ *
+ * Stores the timestamps and values in primitive arrays, taking 16 bytes per entry instead of a {@link Quote} object with its date and
+ * decimal value, and allowing fast (binary) searches by date.
+ *
+ * @author Oscar Stigter
+ */
+public class PriceSeries {
+
+    /** Empty series. */
+    public static final PriceSeries EMPTY = new PriceSeries(new long[0], new double[0]);
+
+    /** Estimated memory overhead of a series (object header and array headers) in bytes. */
+    private static final int OVERHEAD = 64;
+
+    private final long[] timestamps;
+
+    private final double[] values;
+
+    /**
+     * Constructor.
+     *
+     * @param timestamps
+     *            The timestamps, in ascending order.
+     * @param values
+     *            The values.
+     */
+    public PriceSeries(long[] timestamps, double[] values) {
+        if (timestamps.length != values.length) {
+            throw new IllegalArgumentException("Number of timestamps and values differ");
+        }
+        this.timestamps = timestamps;
+        this.values = values;
+    }
+
+    /**
+     * Creates a series from quotes.
+     *
+     * @param quotes
+     *            The quotes (in any order).
+     *
+     * @return The series.
+     */
+    public static PriceSeries fromQuotes(List<Quote> quotes) {
+        List<Quote> sortedQuotes = new ArrayList<Quote>(quotes);
+        Collections.sort(sortedQuotes);
+        int count = sortedQuotes.size();
+        long[] timestamps = new long[count];
+        double[] values = new double[count];
+        for (int i = 0; i < count; i++) {
+            Quote quote = sortedQuotes.get(i);
+            timestamps[i] = quote.getDate().getTime();
+            values[i] = quote.getPrice().doubleValue();
+        }
+        return new PriceSeries(timestamps, values);
+    }
+
+    /**
+     * Returns the series as quotes.
+     *
+     * @return The quotes.
+     */
+    public List<Quote> toQuotes() {
+        List<Quote> quotes = new ArrayList<Quote>(timestamps.length);
+        for (int i = 0; i < timestamps.length; i++) {
+            quotes.add(new Quote(new Date(timestamps[i]), BigDecimal.valueOf(values[i])));
+        }
+        return quotes;
+    }
+
+    /**
+     * Returns the number of entries.
+     *
+     * @return The number of entries.
+     */
+    public int size() {
+        return timestamps.length;
+    }
+
+    /**
+     * Returns whether the series is empty.
+     *
+     * @return True if empty, otherwise false.
+     */
+    public boolean isEmpty() {
+        return timestamps.length == 0;
+    }
+
+    /**
+     * Returns the timestamp of an entry.
+     *
+     * @param index
+     *            The index of the entry.
+     *
+     * @return The timestamp.
+     */
+    public long getTimestamp(int index) {
+        return timestamps[index];
+    }
+
+    /**
+     * Returns the value of an entry.
+     *
+     * @param index
+     *            The index of the entry.
+     *
+     * @return The value.
+     */
+    public double getValue(int index) {
+        return values[index];
+    }
+
+    /**
+     * Returns the index of the first entry at or after a timestamp.
+     *
+     * @param timestamp
+     *            The timestamp.
+     *
+     * @return The index, or the size of the series if all entries are before the timestamp.
+     */
+    public int indexOf(long timestamp) {
+        int index = Arrays.binarySearch(timestamps, timestamp);
+        if (index < 0) {
+            return -index - 1;
+        }
+        // Skip back over any entries with the same timestamp.
+        while (index > 0 && timestamps[index - 1] == timestamp) {
+            index--;
+        }
+        return index;
+    }
+
+    /**
+     * Returns the (estimated) memory size of this series.
+     *
+     * @return The memory size in bytes.
+     */
+    public long getMemorySize() {
+        return OVERHEAD + 16L * timestamps.length;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("PriceSeries[size=%d]", timestamps.length);
+    }
+}
@@ -0,0 +1,181 @@
+// This file is part of the 'portfolio-manager' (Portfolio Manager)
+// project, an open source stock portfolio manager application
+// written in Java.
+//
+// Copyright 2015 Oscar Stigter
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.ozsoft.portfoliomanager.domain;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Result of the {@link Rebalancer}: the shares to buy per stock, and the resulting weights.
+ *
+ * @author Oscar Stigter
+ */
+public class RebalancePlan {
+
+    private final String[] symbols;
+
+    private final double[] targetWeights;
+
+    private final double[] prices;
+
+    private final double[] currentValues;
+
+    private final int[] shares;
+
+    private final double remainingCash;
+
+    private final double totalValue;
+
+    /**
+     * Constructor.
+     *
+     * @param symbols
+     *            The stock symbols.
+     * @param targetWeights
+     *            The (normalized) target weights.
+     * @param prices
+     *            The prices per share.
+     * @param currentValues
+     *            The market values before rebalancing.
+     * @param shares
+     *            The number of shares to buy.
+     * @param remainingCash
+     *            The cash left after buying.
+     */
+    RebalancePlan(String[] symbols, double[] targetWeights, double[] prices, double[] currentValues, int[] shares, double remainingCash) {
+        this.symbols = symbols;
+        this.targetWeights = targetWeights;
+        this.prices = prices;
+        this.currentValues = currentValues;
+        this.shares = shares;
+        this.remainingCash = remainingCash;
+        double total = 0.0;
+        for (int i = 0; i < symbols.length; i++) {
+            total += getNewValue(i);
+        }
+        totalValue = total;
+    }
+
+    public int getNoOfStocks() {
+        return symbols.length;
+    }
+
+    public String getSymbol(int index) {
+        return symbols[index];
+    }
+
+    public double getPrice(int index) {
+        return prices[index];
+    }
+
+    /**
+     * Returns the number of shares to buy of a stock.
+     *
+     * @param index
+     *            The stock index.
+     *
+     * @return The number of shares (0 if not to be bought).
+     */
+    public int getShares(int index) {
+        return shares[index];
+    }
+
+    /**
+     * Returns the amount to invest in a stock.
+     *
+     * @param index
+     *            The stock index.
+     *
+     * @return The amount.
+     */
+    public double getAmount(int index) {
+        return shares[index] * prices[index];
+    }
+
+    /**
+     * Returns the market value of a position after buying.
+     *
+     * @param index
+     *            The stock index.
+     *
+     * @return The market value.
+     */
+    public double getNewValue(int index) {
+        return currentValues[index] + getAmount(index);
+    }
+
+    /**
+     * Returns the target weight of a stock.
+     *
+     * @param index
+     *            The stock index.
+     *
+     * @return The target weight in percent.
+     */
+    public double getTargetWeight(int index) {
+        return targetWeights[index] * 100.0;
+    }
+
+    /**
+     * Returns the weight of a stock after buying (relative to the invested value, excluding the remaining cash).
+     *
+     * @param index
+     *            The stock index.
+     *
+     * @return The weight in percent.
+     */
+    public double getNewWeight(int index) {
+        return (totalValue > 0.0) ? getNewValue(index) / totalValue * 100.0 : 0.0;
+    }
+
+    /**
+     * Returns the cash left after buying.
+     *
+     * @return The remaining cash.
+     */
+    public double getRemainingCash() {
+        return remainingCash;
+    }
+
+    /**
+     * Returns the BUY transactions of this plan (only for the stocks to buy, without transaction costs).
+     *
+     * @param date
+     *            The transaction date as timestamp in milliseconds.
+     *
+     * @return The transactions.
+     */
+    public List<Transaction> getTransactions(long date) {
+        List<Transaction> transactions = new ArrayList<Transaction>();
+        for (int i = 0; i < symbols.length; i++) {
+            if (shares[i] > 0) {
+                Transaction tx = new Transaction();
+                tx.setDate(date);
+                tx.setSymbol(symbols[i]);
+                tx.setType(TransactionType.BUY);
+                tx.setNoOfShares(new BigDecimal(shares[i]));
+                tx.setPrice(BigDecimal.valueOf(prices[i]));
+                tx.setCost(BigDecimal.ZERO);
+                transactions.add(tx);
+            }
+        }
+        return transactions;
+    }
+}
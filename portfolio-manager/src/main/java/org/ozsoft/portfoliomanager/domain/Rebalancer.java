@@ -0,0 +1,194 @@
+// This file is part of the 'portfolio-manager' (Portfolio Manager)
+// project, an open source stock portfolio manager application
+// written in Java.
+//
+// Copyright 2015 Oscar Stigter
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.ozsoft.portfoliomanager.domain;
+
+import java.util.Arrays;
+
+/**
+ * Rebalancer calculating the shares to buy to bring the portfolio as close as possible to its target weights, by deploying cash (without
+ * selling). <br />
+ * <br />
+ *
+ * The optimal (continuous) amounts are calculated by water-filling: the cash goes to the most underweight stocks, bringing their shortfall
+ * down to the same level, which minimizes the sum of squared deviations from the target values. The amounts are then rounded down to whole
+ * lots, and the remaining cash is spent greedily, one lot at a time, on the stock for which that lot reduces the squared deviation most.
+ * Overweight stocks are never bought, so the plan contains only the stocks that actually need to be bought. <br />
+ * <br />
+ *
+ * Solving takes O(n log n) time for n stocks, and the work arrays are reused, so the plan can be recalculated whenever prices change.
+ *
+ * @author Oscar Stigter
+ */
+public class Rebalancer {
+
+    private final String[] symbols;
+
+    private final double[] targetWeights;
+
+    private final int lotSize;
+
+    /** Work array: shortfall of each stock (target value minus current value and planned amount). */
+    private final double[] deficits;
+
+    /** Work array: sorted shortfalls. */
+    private final double[] sortedDeficits;
+
+    /**
+     * Constructor.
+     *
+     * @param symbols
+     *            The stock symbols.
+     * @param targetWeights
+     *            The target weight of each stock (relative; normalized to a total of 1).
+     * @param lotSize
+     *            The number of shares per lot (the shares to buy are rounded down to whole lots).
+     *
+     * @throws IllegalArgumentException
+     *             If the number of symbols and weights differ, a weight is negative, or the lot size is not positive.
+     */
+    public Rebalancer(String[] symbols, double[] targetWeights, int lotSize) {
+        int noOfStocks = symbols.length;
+        if (targetWeights.length != noOfStocks) {
+            throw new IllegalArgumentException("Inconsistent number of stocks");
+        }
+        if (lotSize < 1) {
+            throw new IllegalArgumentException("Invalid lot size: " + lotSize);
+        }
+        double totalWeight = 0.0;
+        for (double weight : targetWeights) {
+            if (weight < 0.0) {
+                throw new IllegalArgumentException("Negative target weight");
+            }
+            totalWeight += weight;
+        }
+        this.symbols = symbols.clone();
+        this.targetWeights = new double[noOfStocks];
+        for (int i = 0; i < noOfStocks; i++) {
+            this.targetWeights[i] = (totalWeight > 0.0) ? targetWeights[i] / totalWeight : 0.0;
+        }
+        this.lotSize = lotSize;
+        deficits = new double[noOfStocks];
+        sortedDeficits = new double[noOfStocks];
+    }
+
+    public int getNoOfStocks() {
+        return symbols.length;
+    }
+
+    public String getSymbol(int index) {
+        return symbols[index];
+    }
+
+    /**
+     * Calculates the shares to buy.
+     *
+     * @param prices
+     *            The current price per share of each stock (stocks without a valid price are not bought).
+     * @param currentValues
+     *            The current market value of each position (0 if not owned).
+     * @param cash
+     *            The cash to deploy.
+     *
+     * @return The plan.
+     */
+    public synchronized RebalancePlan solve(double[] prices, double[] currentValues, double cash) {
+        int noOfStocks = symbols.length;
+        if (prices.length != noOfStocks || currentValues.length != noOfStocks) {
+            throw new IllegalArgumentException("Inconsistent number of stocks");
+        }
+
+        double totalValue = cash;
+        for (int i = 0; i < noOfStocks; i++) {
+            totalValue += currentValues[i];
+        }
+        int noOfCandidates = 0;
+        for (int i = 0; i < noOfStocks; i++) {
+            if (prices[i] > 0.0) {
+                deficits[i] = targetWeights[i] * totalValue - currentValues[i];
+                if (deficits[i] > 0.0) {
+                    sortedDeficits[noOfCandidates++] = deficits[i];
+                }
+            } else {
+                deficits[i] = 0.0;
+            }
+        }
+
+        // Water-filling: find the common shortfall level, so that the amounts above that level add up to the cash.
+        double level = 0.0;
+        if (noOfCandidates > 0 && cash > 0.0) {
+            Arrays.sort(sortedDeficits, 0, noOfCandidates);
+            double sum = 0.0;
+            for (int k = 1; k <= noOfCandidates; k++) {
+                double deficit = sortedDeficits[noOfCandidates - k];
+                sum += deficit;
+                double candidateLevel = (sum - cash) / k;
+                if (candidateLevel >= deficit) {
+                    break;
+                }
+                level = Math.max(candidateLevel, 0.0);
+            }
+        } else {
+            level = Double.MAX_VALUE;
+        }
+
+        // Round the amounts down to whole lots.
+        int[] shares = new int[noOfStocks];
+        double remainingCash = cash;
+        for (int i = 0; i < noOfStocks; i++) {
+            if (deficits[i] > level) {
+                double lotCost = prices[i] * lotSize;
+                int lots = (int) Math.floor((deficits[i] - level) / lotCost);
+                if (lots * lotCost > remainingCash) {
+                    lots = (int) Math.floor(remainingCash / lotCost);
+                }
+                if (lots > 0) {
+                    shares[i] = lots * lotSize;
+                    remainingCash -= lots * lotCost;
+                    deficits[i] -= lots * lotCost;
+                }
+            }
+        }
+
+        // Spend the remaining cash greedily, one lot at a time.
+        while (true) {
+            int best = -1;
+            double bestGain = 0.0;
+            for (int i = 0; i < noOfStocks; i++) {
+                double lotCost = prices[i] * lotSize;
+                if (lotCost > 0.0 && lotCost <= remainingCash) {
+                    // Reduction of the squared deviation: d^2 - (d - c)^2.
+                    double gain = lotCost * (2.0 * deficits[i] - lotCost);
+                    if (gain > bestGain) {
+                        best = i;
+                        bestGain = gain;
+                    }
+                }
+            }
+            if (best < 0) {
+                break;
+            }
+            double lotCost = prices[best] * lotSize;
+            shares[best] += lotSize;
+            remainingCash -= lotCost;
+            deficits[best] -= lotCost;
+        }
+
+        return new RebalancePlan(symbols, targetWeights, prices.clone(), currentValues.clone(), shares, remainingCash);
+    }
+}
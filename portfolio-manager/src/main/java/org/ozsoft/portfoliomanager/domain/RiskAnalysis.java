@@ -0,0 +1,491 @@
+// This file is part of the 'portfolio-manager' (Portfolio Manager)
+// project, an open source stock portfolio manager application
+// written in Java.
+//
+// Copyright 2015 Oscar Stigter
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.ozsoft.portfoliomanager.domain;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
+
+import org.ozsoft.portfoliomanager.util.DateUtils;
+
+/**
+ * Risk analysis of a portfolio, based on the historic daily returns of its positions. <br />
+ * <br />
+ *
+ * The closing prices of all stocks are aligned on the trading days (the days on which any of the stocks has a price, with missing prices
+ * forward filled) into a return matrix with one contiguous row of daily returns per stock. From this matrix, the covariance and correlation
+ * matrices are calculated, and based on the position weights, the portfolio volatility, the 1-day Value at Risk (VaR) and Conditional
+ * Value at Risk (CVaR, expected shortfall), both historical and parametric (normal distribution), and the contribution of each position to
+ * the portfolio risk. <br />
+ * <br />
+ *
+ * The covariance matrix is calculated in square tiles of stocks, each tile accumulating its dot products over blocks of days that fit in
+ * the CPU cache, with the tiles calculated in parallel.
+ *
+ * @author Oscar Stigter
+ */
+public class RiskAnalysis {
+
+    private static final int TRADING_DAYS_PER_YEAR = 252;
+
+    /** Number of stocks per tile of the covariance matrix. */
+    private static final int TILE_SIZE = 32;
+
+    /** Number of days per block of returns (a block of a tile's rows fits in the L2 cache). */
+    private static final int BLOCK_SIZE = 2048;
+
+    /** Coefficients of the rational approximations of the inverse normal distribution (central region and tails). */
+    private static final double[] A = { -3.969683028665376e+01, 2.209460984245205e+02, -2.759285104469687e+02, 1.383577518672690e+02,
+            -3.066479806614716e+01, 2.506628277459239e+00 };
+
+    private static final double[] B = { -5.447609879822406e+01, 1.615858368580409e+02, -1.556989798598866e+02, 6.680131188771972e+01,
+            -1.328068155288572e+01 };
+
+    private static final double[] C = { -7.784894002430293e-03, -3.223964580411365e-01, -2.400758277161838e+00, -2.549732539343734e+00,
+            4.374664141464968e+00, 2.938163982698783e+00 };
+
+    private static final double[] D = { 7.784695709041462e-03, 3.224671290700398e-01, 2.445134137142996e+00, 3.754408661907416e+00 };
+
+    /** Probability below which the tail approximation is used. */
+    private static final double P_LOW = 0.02425;
+
+    private final String[] symbols;
+
+    private final double[] weights;
+
+    private final int noOfReturns;
+
+    private final double confidence;
+
+    /** Covariance matrix of the daily returns. */
+    private final double[][] covariances;
+
+    /** Contribution of each position to the portfolio variance, in percent. */
+    private final double[] riskContributions;
+
+    /** Variance of the daily portfolio returns. */
+    private final double variance;
+
+    private final double historicalVar;
+
+    private final double historicalCvar;
+
+    private final double parametricVar;
+
+    private final double parametricCvar;
+
+    /**
+     * Runs a risk analysis.
+     *
+     * @param symbols
+     *            The stock symbols of the positions.
+     * @param values
+     *            The current market value of each position.
+     * @param prices
+     *            The historic daily closing prices by stock symbol (stocks without prices have no risk).
+     * @param fromDate
+     *            The start date of the price history to use, as timestamp in milliseconds.
+     * @param toDate
+     *            The end date of the price history to use, as timestamp in milliseconds.
+     * @param confidence
+     *            The confidence level of the VaR and CVaR (e.g. 0.95).
+     *
+     * @throws IllegalArgumentException
+     *             If the number of symbols and values differ, or the confidence level is invalid.
+     */
+    public RiskAnalysis(String[] symbols, double[] values, Map<String, PriceSeries> prices, long fromDate, long toDate, double confidence) {
+        int noOfStocks = symbols.length;
+        if (values.length != noOfStocks) {
+            throw new IllegalArgumentException("Inconsistent number of positions");
+        }
+        if (confidence <= 0.5 || confidence >= 1.0) {
+            throw new IllegalArgumentException("Invalid confidence level: " + confidence);
+        }
+        this.symbols = symbols.clone();
+        this.confidence = confidence;
+
+        double totalValue = 0.0;
+        for (double value : values) {
+            totalValue += value;
+        }
+        weights = new double[noOfStocks];
+        for (int i = 0; i < noOfStocks; i++) {
+            weights[i] = (totalValue > 0.0) ? values[i] / totalValue : 0.0;
+        }
+
+        // Align the prices on the trading days, and calculate the return matrix.
+        int[] tradingDays = getTradingDays(symbols, prices, DateUtils.toDay(fromDate), DateUtils.toDay(toDate));
+        noOfReturns = Math.max(tradingDays.length - 1, 0);
+        double[][] returns = new double[noOfStocks][];
+        double[] closes = new double[tradingDays.length];
+        for (int i = 0; i < noOfStocks; i++) {
+            returns[i] = getReturns(prices.get(symbols[i]), tradingDays, closes);
+        }
+
+        // Portfolio returns and their distribution.
+        double[] portfolioReturns = new double[noOfReturns];
+        for (int i = 0; i < noOfStocks; i++) {
+            double weight = weights[i];
+            double[] row = returns[i];
+            for (int t = 0; t < noOfReturns; t++) {
+                portfolioReturns[t] += weight * row[t];
+            }
+        }
+        double mean = 0.0;
+        for (double r : portfolioReturns) {
+            mean += r;
+        }
+        mean = (noOfReturns > 0) ? mean / noOfReturns : 0.0;
+
+        // Demean the returns in place, then calculate the covariance matrix.
+        for (int i = 0; i < noOfStocks; i++) {
+            double[] row = returns[i];
+            double sum = 0.0;
+            for (int t = 0; t < noOfReturns; t++) {
+                sum += row[t];
+            }
+            double rowMean = (noOfReturns > 0) ? sum / noOfReturns : 0.0;
+            for (int t = 0; t < noOfReturns; t++) {
+                row[t] -= rowMean;
+            }
+        }
+        covariances = calculateCovariances(returns, noOfReturns);
+
+        // Portfolio variance (w' * C * w) and the contribution of each position (w_i * (C * w)_i).
+        double[] marginals = new double[noOfStocks];
+        double portfolioVariance = 0.0;
+        for (int i = 0; i < noOfStocks; i++) {
+            double sum = 0.0;
+            double[] row = covariances[i];
+            for (int j = 0; j < noOfStocks; j++) {
+                sum += row[j] * weights[j];
+            }
+            marginals[i] = sum;
+            portfolioVariance += weights[i] * sum;
+        }
+        variance = Math.max(portfolioVariance, 0.0);
+        riskContributions = new double[noOfStocks];
+        for (int i = 0; i < noOfStocks; i++) {
+            riskContributions[i] = (variance > 0.0) ? weights[i] * marginals[i] / variance * 100.0 : 0.0;
+        }
+
+        // Historical VaR and CVaR (tail of the sorted portfolio returns).
+        if (noOfReturns > 0) {
+            Arrays.sort(portfolioReturns);
+            int tailSize = Math.max((int) Math.floor((1.0 - confidence) * noOfReturns), 1);
+            double tailSum = 0.0;
+            for (int t = 0; t < tailSize; t++) {
+                tailSum += portfolioReturns[t];
+            }
+            historicalVar = -portfolioReturns[tailSize - 1] * 100.0;
+            historicalCvar = -tailSum / tailSize * 100.0;
+        } else {
+            historicalVar = 0.0;
+            historicalCvar = 0.0;
+        }
+
+        // Parametric VaR and CVaR (normally distributed returns).
+        double z = inverseNormal(confidence);
+        double sigma = Math.sqrt(variance);
+        parametricVar = (z * sigma - mean) * 100.0;
+        parametricCvar = (sigma * Math.exp(-0.5 * z * z) / Math.sqrt(2.0 * Math.PI) / (1.0 - confidence) - mean) * 100.0;
+    }
+
+    /**
+     * Returns the sorted trading days within a date range, being the days on which any of the stocks has a price.
+     */
+    private static int[] getTradingDays(String[] symbols, Map<String, PriceSeries> prices, int fromDay, int toDay) {
+        if (toDay < fromDay) {
+            return new int[0];
+        }
+        boolean[] isTradingDay = new boolean[toDay - fromDay + 1];
+        int count = 0;
+        for (String symbol : symbols) {
+            PriceSeries series = prices.get(symbol);
+            if (series != null) {
+                for (int i = series.indexOf(DateUtils.toTimestamp(fromDay)); i < series.size(); i++) {
+                    int day = DateUtils.toDay(series.getTimestamp(i));
+                    if (day > toDay) {
+                        break;
+                    }
+                    if (day >= fromDay && !isTradingDay[day - fromDay]) {
+                        isTradingDay[day - fromDay] = true;
+                        count++;
+                    }
+                }
+            }
+        }
+        int[] tradingDays = new int[count];
+        int index = 0;
+        for (int i = 0; i < isTradingDay.length; i++) {
+            if (isTradingDay[i]) {
+                tradingDays[index++] = fromDay + i;
+            }
+        }
+        return tradingDays;
+    }
+
+    /**
+     * Returns the daily returns of a stock on the trading days (0 before its first and without any price).
+     */
+    private static double[] getReturns(PriceSeries series, int[] tradingDays, double[] closes) {
+        int noOfDays = tradingDays.length;
+        double[] returns = new double[Math.max(noOfDays - 1, 0)];
+        if (series == null || noOfDays == 0) {
+            return returns;
+        }
+
+        // Scatter the closing prices on the trading days (merge of two sorted sequences), forward filled.
+        Arrays.fill(closes, Double.NaN);
+        int i = series.indexOf(DateUtils.toTimestamp(tradingDays[0]));
+        double close = Double.NaN;
+        for (int d = 0; d < noOfDays; d++) {
+            while (i < series.size() && DateUtils.toDay(series.getTimestamp(i)) <= tradingDays[d]) {
+                close = series.getValue(i++);
+            }
+            closes[d] = close;
+        }
+
+        for (int d = 1; d < noOfDays; d++) {
+            double previous = closes[d - 1];
+            // Also 0 if either price is NaN.
+            returns[d - 1] = (previous > 0.0) ? closes[d] / previous - 1.0 : 0.0;
+            if (returns[d - 1] != returns[d - 1]) {
+                returns[d - 1] = 0.0;
+            }
+        }
+        return returns;
+    }
+
+    /**
+     * Calculates the (sample) covariance matrix of demeaned return rows, in parallel tiles.
+     */
+    private static double[][] calculateCovariances(final double[][] returns, final int noOfReturns) {
+        final int noOfStocks = returns.length;
+        final double[][] covariances = new double[noOfStocks][noOfStocks];
+        final int noOfTiles = (noOfStocks + TILE_SIZE - 1) / TILE_SIZE;
+
+        // Tiles on and above the diagonal, as (row tile, column tile) pairs.
+        final int[] tilePairs = new int[noOfTiles * (noOfTiles + 1)];
+        int noOfPairs = 0;
+        for (int ti = 0; ti < noOfTiles; ti++) {
+            for (int tj = ti; tj < noOfTiles; tj++) {
+                tilePairs[2 * noOfPairs] = ti;
+                tilePairs[2 * noOfPairs + 1] = tj;
+                noOfPairs++;
+            }
+        }
+
+        final double divisor = Math.max(noOfReturns - 1, 1);
+        IntStream.range(0, noOfPairs).parallel().forEach(new IntConsumer() {
+            @Override
+            public void accept(int pair) {
+                int fromI = tilePairs[2 * pair] * TILE_SIZE;
+                int toI = Math.min(fromI + TILE_SIZE, noOfStocks);
+                int fromJ = tilePairs[2 * pair + 1] * TILE_SIZE;
+                int toJ = Math.min(fromJ + TILE_SIZE, noOfStocks);
+                double[] sums = new double[TILE_SIZE * TILE_SIZE];
+                for (int fromT = 0; fromT < noOfReturns; fromT += BLOCK_SIZE) {
+                    int toT = Math.min(fromT + BLOCK_SIZE, noOfReturns);
+                    for (int i = fromI; i < toI; i++) {
+                        double[] rowI = returns[i];
+                        for (int j = Math.max(fromJ, i); j < toJ; j++) {
+                            double[] rowJ = returns[j];
+                            double sum = 0.0;
+                            for (int t = fromT; t < toT; t++) {
+                                sum += rowI[t] * rowJ[t];
+                            }
+                            sums[(i - fromI) * TILE_SIZE + (j - fromJ)] += sum;
+                        }
+                    }
+                }
+                // Each tile writes its own cells (and their mirrors), so no synchronization is needed.
+                for (int i = fromI; i < toI; i++) {
+                    for (int j = Math.max(fromJ, i); j < toJ; j++) {
+                        double covariance = sums[(i - fromI) * TILE_SIZE + (j - fromJ)] / divisor;
+                        covariances[i][j] = covariance;
+                        covariances[j][i] = covariance;
+                    }
+                }
+            }
+        });
+        return covariances;
+    }
+
+    /**
+     * Returns the inverse of the standard normal cumulative distribution function (Acklam's rational approximation, relative error below
+     * 1.2e-9).
+     *
+     * @param p
+     *            The probability (between 0 and 1, exclusive).
+     *
+     * @return The quantile.
+     */
+    static double inverseNormal(double p) {
+        if (p < P_LOW) {
+            double q = Math.sqrt(-2.0 * Math.log(p));
+            return tail(q);
+        } else if (p <= 1.0 - P_LOW) {
+            double q = p - 0.5;
+            double r = q * q;
+            return (((((A[0] * r + A[1]) * r + A[2]) * r + A[3]) * r + A[4]) * r + A[5]) * q
+                    / (((((B[0] * r + B[1]) * r + B[2]) * r + B[3]) * r + B[4]) * r + 1.0);
+        } else {
+            double q = Math.sqrt(-2.0 * Math.log(1.0 - p));
+            return -tail(q);
+        }
+    }
+
+    private static double tail(double q) {
+        return (((((C[0] * q + C[1]) * q + C[2]) * q + C[3]) * q + C[4]) * q + C[5])
+                / ((((D[0] * q + D[1]) * q + D[2]) * q + D[3]) * q + 1.0);
+    }
+
+    public int getNoOfStocks() {
+        return symbols.length;
+    }
+
+    public String getSymbol(int index) {
+        return symbols[index];
+    }
+
+    /**
+     * Returns the weight of a position in the portfolio (based on its market value).
+     *
+     * @param index
+     *            The position index.
+     *
+     * @return The weight (between 0 and 1).
+     */
+    public double getWeight(int index) {
+        return weights[index];
+    }
+
+    /**
+     * Returns the number of daily returns the analysis is based on.
+     *
+     * @return The number of daily returns.
+     */
+    public int getNoOfReturns() {
+        return noOfReturns;
+    }
+
+    public double getConfidence() {
+        return confidence;
+    }
+
+    /**
+     * Returns the covariance of the daily returns of two stocks.
+     *
+     * @param i
+     *            The index of the first stock.
+     * @param j
+     *            The index of the second stock.
+     *
+     * @return The covariance.
+     */
+    public double getCovariance(int i, int j) {
+        return covariances[i][j];
+    }
+
+    /**
+     * Returns the correlation of the daily returns of two stocks.
+     *
+     * @param i
+     *            The index of the first stock.
+     * @param j
+     *            The index of the second stock.
+     *
+     * @return The correlation (between -1 and 1), or 0 if either stock has no price changes.
+     */
+    public double getCorrelation(int i, int j) {
+        double denominator = Math.sqrt(covariances[i][i] * covariances[j][j]);
+        return (denominator > 0.0) ? covariances[i][j] / denominator : 0.0;
+    }
+
+    /**
+     * Returns the annualized volatility of a stock.
+     *
+     * @param index
+     *            The stock index.
+     *
+     * @return The volatility in percent.
+     */
+    public double getVolatility(int index) {
+        return Math.sqrt(covariances[index][index] * TRADING_DAYS_PER_YEAR) * 100.0;
+    }
+
+    /**
+     * Returns the annualized volatility of the portfolio.
+     *
+     * @return The volatility in percent.
+     */
+    public double getVolatility() {
+        return Math.sqrt(variance * TRADING_DAYS_PER_YEAR) * 100.0;
+    }
+
+    /**
+     * Returns the contribution of a position to the portfolio risk (variance). The contributions of all positions add up to 100 %.
+     *
+     * @param index
+     *            The position index.
+     *
+     * @return The risk contribution in percent (negative for positions reducing the risk).
+     */
+    public double getRiskContribution(int index) {
+        return riskContributions[index];
+    }
+
+    /**
+     * Returns the 1-day historical Value at Risk: the loss that was not exceeded on the confidence level's share of the days.
+     *
+     * @return The VaR in percent of the portfolio value.
+     */
+    public double getHistoricalVar() {
+        return historicalVar;
+    }
+
+    /**
+     * Returns the 1-day historical Conditional Value at Risk: the average loss on the days beyond the VaR.
+     *
+     * @return The CVaR in percent of the portfolio value.
+     */
+    public double getHistoricalCvar() {
+        return historicalCvar;
+    }
+
+    /**
+     * Returns the 1-day parametric Value at Risk, assuming normally distributed portfolio returns.
+     *
+     * @return The VaR in percent of the portfolio value.
+     */
+    public double getParametricVar() {
+        return parametricVar;
+    }
+
+    /**
+     * Returns the 1-day parametric Conditional Value at Risk, assuming normally distributed portfolio returns.
+     *
+     * @return The CVaR in percent of the portfolio value.
+     */
+    public double getParametricCvar() {
+        return parametricCvar;
+    }
+}
@@ -0,0 +1,267 @@
+// This file is part of the 'portfolio-manager' (Portfolio Manager)
+// project, an open source stock portfolio manager application
+// written in Java.
+//
+// Copyright 2015 Oscar Stigter
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.ozsoft.portfoliomanager.domain;
+
+import java.util.Arrays;
+
+/**
+ * Streaming statistics over a rolling time window of prices. <br />
+ * <br />
+ *
+ * Prices are added in chronological order; after each price, the statistics of the window ending at that price are available in constant
+ * time: mean price, standard deviation and (annualized) volatility of the returns, highest and lowest price, drawdown, maximum drawdown
+ * and CAGR. Computing these for every day of a price history therefore takes O(n) time instead of O(n × window). <br />
+ * <br />
+ *
+ * The return statistics use Welford's online algorithm (adding and removing returns as the window slides), and the highest and lowest
+ * prices are tracked with monotonic deques of indices.
+ *
+ * @author Oscar Stigter
+ */
+public class RollingStatistics {
+
+    private static final double MILLISECONDS_PER_YEAR = 365.0 * 24.0 * 60.0 * 60.0 * 1000.0;
+
+    private static final int INITIAL_CAPACITY = 256;
+
+    /** Window length in milliseconds. */
+    private final long windowLength;
+
+    private long[] timestamps = new long[INITIAL_CAPACITY];
+
+    private double[] prices = new double[INITIAL_CAPACITY];
+
+    /** Number of added prices. */
+    private int count;
+
+    /** Index of the first price in the window. */
+    private int start;
+
+    /** Sum of the prices in the window. */
+    private double priceSum;
+
+    /** Number of returns in the window. */
+    private int returnCount;
+
+    /** Mean of the returns in the window. */
+    private double returnMean;
+
+    /** Sum of squared deviations from the mean of the returns in the window (Welford). */
+    private double returnM2;
+
+    /** Indices of prices in the window with decreasing prices (head is the highest price). */
+    private int[] maxDeque = new int[INITIAL_CAPACITY];
+
+    private int maxHead;
+
+    private int maxTail;
+
+    /** Indices of prices in the window with increasing prices (head is the lowest price). */
+    private int[] minDeque = new int[INITIAL_CAPACITY];
+
+    private int minHead;
+
+    private int minTail;
+
+    /** Maximum drawdown of all prices within their window so far. */
+    private double maxDrawdown;
+
+    /**
+     * Constructor.
+     *
+     * @param windowLength
+     *            The window length in milliseconds (e.g. one year).
+     */
+    public RollingStatistics(long windowLength) {
+        if (windowLength <= 0L) {
+            throw new IllegalArgumentException("Invalid window length: " + windowLength);
+        }
+        this.windowLength = windowLength;
+    }
+
+    /**
+     * Adds the next price, sliding the window to end at that price.
+     *
+     * @param timestamp
+     *            The timestamp of the price (not before the previous price).
+     * @param price
+     *            The price.
+     */
+    public void add(long timestamp, double price) {
+        if (count > 0 && timestamp < timestamps[count - 1]) {
+            throw new IllegalArgumentException("Price older than previous price");
+        }
+        if (count == timestamps.length) {
+            int capacity = count * 2;
+            timestamps = Arrays.copyOf(timestamps, capacity);
+            prices = Arrays.copyOf(prices, capacity);
+            maxDeque = Arrays.copyOf(maxDeque, capacity);
+            minDeque = Arrays.copyOf(minDeque, capacity);
+        }
+        int index = count++;
+        timestamps[index] = timestamp;
+        prices[index] = price;
+
+        // Add the price and its return.
+        priceSum += price;
+        if (index > start) {
+            addReturn(price / prices[index - 1] - 1.0);
+        }
+        while (maxTail > maxHead && prices[maxDeque[maxTail - 1]] <= price) {
+            maxTail--;
+        }
+        maxDeque[maxTail++] = index;
+        while (minTail > minHead && prices[minDeque[minTail - 1]] >= price) {
+            minTail--;
+        }
+        minDeque[minTail++] = index;
+
+        // Remove the prices that fell out of the window (and the returns into the next price).
+        long windowStart = timestamp - windowLength;
+        while (timestamps[start] <= windowStart) {
+            priceSum -= prices[start];
+            removeReturn(prices[start + 1] / prices[start] - 1.0);
+            if (maxDeque[maxHead] == start) {
+                maxHead++;
+            }
+            if (minDeque[minHead] == start) {
+                minHead++;
+            }
+            start++;
+        }
+
+        maxDrawdown = Math.max(maxDrawdown, getDrawdown());
+    }
+
+    /**
+     * Returns the number of prices in the window.
+     *
+     * @return The number of prices.
+     */
+    public int getCount() {
+        return count - start;
+    }
+
+    /**
+     * Returns the mean price in the window.
+     *
+     * @return The mean price.
+     */
+    public double getMean() {
+        return (count > start) ? priceSum / (count - start) : 0.0;
+    }
+
+    /**
+     * Returns the (sample) standard deviation of the returns between consecutive prices in the window.
+     *
+     * @return The standard deviation as percentage.
+     */
+    public double getStdDev() {
+        return (returnCount > 1) ? Math.sqrt(Math.max(returnM2, 0.0) / (returnCount - 1)) * 100.0 : 0.0;
+    }
+
+    /**
+     * Returns the annualized volatility, based on the standard deviation of the returns and the number of returns per year in the window.
+     *
+     * @return The annualized volatility as percentage.
+     */
+    public double getVolatility() {
+        double years = getYears();
+        return (years > 0.0) ? getStdDev() * Math.sqrt(returnCount / years) : 0.0;
+    }
+
+    /**
+     * Returns the highest price in the window.
+     *
+     * @return The highest price.
+     */
+    public double getHigh() {
+        return (maxTail > maxHead) ? prices[maxDeque[maxHead]] : 0.0;
+    }
+
+    /**
+     * Returns the lowest price in the window.
+     *
+     * @return The lowest price.
+     */
+    public double getLow() {
+        return (minTail > minHead) ? prices[minDeque[minHead]] : 0.0;
+    }
+
+    /**
+     * Returns the drawdown of the last price from the highest price in the window.
+     *
+     * @return The drawdown as (positive) percentage.
+     */
+    public double getDrawdown() {
+        double high = getHigh();
+        return (high > 0.0) ? (1.0 - prices[count - 1] / high) * 100.0 : 0.0;
+    }
+
+    /**
+     * Returns the maximum drawdown so far, i.e. the largest drawdown of any added price from the highest price in its window.
+     *
+     * @return The maximum drawdown as (positive) percentage.
+     */
+    public double getMaxDrawdown() {
+        return maxDrawdown;
+    }
+
+    /**
+     * Returns the compound annual growth rate (CAGR) from the first to the last price in the window.
+     *
+     * @return The CAGR as percentage.
+     */
+    public double getCagr() {
+        double years = getYears();
+        if (years <= 0.0 || prices[start] <= 0.0) {
+            return 0.0;
+        }
+        return (Math.pow(prices[count - 1] / prices[start], 1.0 / years) - 1.0) * 100.0;
+    }
+
+    /**
+     * Returns the duration of the window, from the first to the last price.
+     *
+     * @return The duration in years.
+     */
+    private double getYears() {
+        return (count > start) ? (timestamps[count - 1] - timestamps[start]) / MILLISECONDS_PER_YEAR : 0.0;
+    }
+
+    private void addReturn(double value) {
+        returnCount++;
+        double delta = value - returnMean;
+        returnMean += delta / returnCount;
+        returnM2 += delta * (value - returnMean);
+    }
+
+    private void removeReturn(double value) {
+        if (returnCount <= 1) {
+            returnCount = 0;
+            returnMean = 0.0;
+            returnM2 = 0.0;
+        } else {
+            double oldMean = returnMean;
+            returnCount--;
+            returnMean = (oldMean * (returnCount + 1) - value) / returnCount;
+            returnM2 -= (value - returnMean) * (value - oldMean);
+        }
+    }
+}
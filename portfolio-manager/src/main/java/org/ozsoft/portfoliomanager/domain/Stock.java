@@ -51,6 +51,8 @@ public class Stock implements Comparable<Stock> {
 
     private StockLevel level = StockLevel.WATCH;
 
+    private long lastUpdated;
+
     /**
      * Constructor.
      *
@@ -232,6 +234,25 @@ public class Stock implements Comparable<Stock> {
         this.level = level;
     }
 
+    /**
+     * Returns the time the price was last retrieved.
+     *
+     * @return The time as timestamp in milliseconds, or 0 if never retrieved.
+     */
+    public long getLastUpdated() {
+        return lastUpdated;
+    }
+
+    /**
+     * Sets the time the price was last retrieved.
+     *
+     * @param lastUpdated
+     *                        The time as timestamp in milliseconds.
+     */
+    public void setLastUpdated(long lastUpdated) {
+        this.lastUpdated = lastUpdated;
+    }
+
     /**
      * Returns the number of consecutive years of dividend growth.
      *
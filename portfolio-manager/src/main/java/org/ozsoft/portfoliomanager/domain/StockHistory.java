@@ -0,0 +1,107 @@
+// This file is part of the 'portfolio-manager' (Portfolio Manager)
+// project, an open source stock portfolio manager application
+// written in Java.
+//
+// Copyright 2015 Oscar Stigter
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.ozsoft.portfoliomanager.domain;
+
+/**
+ * Historic prices and dividend payouts of a stock. <br />
+ * <br />
+ *
+ * The prices are also kept in a {@link PricePyramid} with daily, weekly and monthly bars, to which newer (live) prices can be added. The
+ * monthly closing prices of the historic prices only are kept separately.
+ *
+ * @author Oscar Stigter
+ */
+public class StockHistory {
+
+    private final String symbol;
+
+    private final PriceSeries prices;
+
+    private final PriceSeries dividends;
+
+    private final PricePyramid pyramid;
+
+    private final PriceSeries monthlyPrices;
+
+    private final long timestamp;
+
+    /**
+     * Constructor.
+     *
+     * @param symbol
+     *            The stock's symbol.
+     * @param prices
+     *            The historic (adjusted) closing prices.
+     * @param dividends
+     *            The historic (adjusted) dividend payouts.
+     * @param timestamp
+     *            The time the history was retrieved.
+     */
+    public StockHistory(String symbol, PriceSeries prices, PriceSeries dividends, long timestamp) {
+        this.symbol = symbol;
+        this.prices = prices;
+        this.dividends = dividends;
+        this.pyramid = PricePyramid.fromSeries(prices);
+        this.monthlyPrices = pyramid.getLevel(PriceResolution.MONTHLY).getCloses();
+        this.timestamp = timestamp;
+    }
+
+    public String getSymbol() {
+        return symbol;
+    }
+
+    public PriceSeries getPrices() {
+        return prices;
+    }
+
+    public PriceSeries getDividends() {
+        return dividends;
+    }
+
+    public PricePyramid getPyramid() {
+        return pyramid;
+    }
+
+    /**
+     * Returns the monthly closing prices of the historic prices, excluding any live prices added to the pyramid.
+     *
+     * @return The monthly closing prices.
+     */
+    public PriceSeries getMonthlyPrices() {
+        return monthlyPrices;
+    }
+
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    /**
+     * Returns the (estimated) memory size of this history.
+     *
+     * @return The memory size in bytes.
+     */
+    public long getMemorySize() {
+        return prices.getMemorySize() + dividends.getMemorySize() + pyramid.getMemorySize() + monthlyPrices.getMemorySize();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("StockHistory[symbol=%s, prices=%d, dividends=%d]", symbol, prices.size(), dividends.size());
+    }
+}
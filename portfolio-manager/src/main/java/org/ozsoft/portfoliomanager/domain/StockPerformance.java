@@ -18,15 +18,8 @@
 
 package org.ozsoft.portfoliomanager.domain;
 
-import java.math.BigDecimal;
-import java.math.MathContext;
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.Date;
 import java.util.List;
 
-import org.ozsoft.portfoliomanager.util.MathUtils;
-
 /**
  * Stock performance during a specific time range.
  *
@@ -36,115 +29,116 @@ public class StockPerformance {
 
     private static final double MILLISECONDS_PER_YEAR = 365.0 * 24.0 * 60.0 * 60.0 * 1000.0;
 
-    private BigDecimal startPrice;
+    private final double startPrice;
 
-    private BigDecimal endPrice;
+    private final double endPrice;
 
-    private BigDecimal lowPrice;
+    private double lowPrice;
 
-    private BigDecimal highPrice;
+    private double highPrice;
 
-    private BigDecimal change;
+    private final double change;
 
-    private BigDecimal changePerc;
+    private final double changePerc;
 
-    private BigDecimal volatility;
+    private double volatility;
 
-    private BigDecimal totalDividends;
+    private double totalDividends;
 
-    private double years;
+    private final double years;
 
     public StockPerformance(List<Quote> allPrices, List<Quote> dividends, TimeRange dateFilter) {
-        // Find closing prices during specified period.
-        List<Quote> prices = new ArrayList<Quote>();
-        Date fromDate = dateFilter.getFromDate();
-        for (Quote price : allPrices) {
-            if (price.getDate().after(fromDate)) {
-                prices.add(price);
-            }
-        }
-        Collections.sort(prices);
+        this(PriceSeries.fromQuotes(allPrices), PriceSeries.fromQuotes(dividends), dateFilter);
+    }
+
+    public StockPerformance(PriceSeries allPrices, PriceSeries dividends, TimeRange dateFilter) {
+        // Find closing prices during specified period (series are sorted by date).
+        long fromTime = dateFilter.getFromDate().getTime() + 1L;
+        int from = allPrices.indexOf(fromTime);
+        int count = allPrices.size() - from;
 
         // Calculate total amount of received dividend payments during period.
-        totalDividends = BigDecimal.ZERO;
-        for (Quote payment : dividends) {
-            if (payment.getDate().after(fromDate)) {
-                totalDividends = totalDividends.add(payment.getPrice());
-            }
+        totalDividends = 0.0;
+        for (int i = dividends.indexOf(fromTime); i < dividends.size(); i++) {
+            totalDividends += dividends.getValue(i);
         }
 
         // Calculate price statisics.
-        int count = prices.size();
-        startPrice = prices.get(0).getPrice();
-        endPrice = prices.get(count - 1).getPrice();
-        lowPrice = new BigDecimal(99999);
-        highPrice = BigDecimal.ZERO;
-        change = endPrice.subtract(startPrice);
-        changePerc = MathUtils.perc(change, startPrice);
-        volatility = BigDecimal.ZERO;
-        BigDecimal slope = MathUtils.divide(change, new BigDecimal(count));
+        startPrice = allPrices.getValue(from);
+        endPrice = allPrices.getValue(from + count - 1);
+        lowPrice = 99999.0;
+        highPrice = 0.0;
+        change = endPrice - startPrice;
+        changePerc = perc(change, startPrice);
+        volatility = 0.0;
+        double slope = divide(change, count);
         for (int i = 0; i < count; i++) {
-            BigDecimal p = prices.get(i).getPrice();
-            if (p.compareTo(lowPrice) < 0) {
+            double p = allPrices.getValue(from + i);
+            if (p < lowPrice) {
                 lowPrice = p;
             }
-            if (p.compareTo(highPrice) > 0) {
+            if (p > highPrice) {
                 highPrice = p;
             }
-            BigDecimal avg = startPrice.add(new BigDecimal(i).multiply(slope));
-            volatility = volatility.add(MathUtils.divide(MathUtils.abs(p, avg), p).multiply(MathUtils.HUNDRED));
+            double avg = startPrice + i * slope;
+            volatility += divide(Math.abs(p - avg), p) * 100.0;
         }
-        volatility = MathUtils.divide(volatility, new BigDecimal(count));
+        volatility = divide(volatility, count);
 
         // Determine actual duration based on the stock's history.
-        Date firstDate = prices.get(0).getDate();
-        Date lastDate = prices.get(count - 1).getDate();
-        years = (lastDate.getTime() - firstDate.getTime()) / MILLISECONDS_PER_YEAR;
+        years = (allPrices.getTimestamp(from + count - 1) - allPrices.getTimestamp(from)) / MILLISECONDS_PER_YEAR;
     }
 
     public double getStartPrice() {
-        return startPrice.doubleValue();
+        return startPrice;
     }
 
     public double getEndPrice() {
-        return endPrice.doubleValue();
+        return endPrice;
     }
 
     public double getLowPrice() {
-        return lowPrice.doubleValue();
+        return lowPrice;
     }
 
     public double getHighPrice() {
-        return highPrice.doubleValue();
+        return highPrice;
     }
 
     public double getChange() {
-        return change.doubleValue();
+        return change;
     }
 
     public double getChangePerc() {
-        return changePerc.doubleValue();
+        return changePerc;
     }
 
     public double getVolatility() {
-        return volatility.doubleValue();
+        return volatility;
     }
 
     public double getCagr() {
         if (years < 1.0) {
-            return MathUtils.divide(endPrice.add(totalDividends), startPrice).doubleValue();
+            return divide(endPrice + totalDividends, startPrice);
         } else {
-            return (Math.pow(MathUtils.divide(endPrice.add(totalDividends), startPrice).doubleValue(), 1.0 / years) - 1.0) * 100.0;
+            return (Math.pow(divide(endPrice + totalDividends, startPrice), 1.0 / years) - 1.0) * 100.0;
         }
     }
 
     public double getDiscount() {
-        BigDecimal discount = MathUtils.perc(highPrice.subtract(endPrice, MathContext.DECIMAL64),
-                highPrice.subtract(lowPrice, MathContext.DECIMAL64));
-        if (discount.signum() < 0) {
+        double discount = perc(highPrice - endPrice, highPrice - lowPrice);
+        if (discount < 0.0) {
             return 0.0;
         } else {
-            return discount.doubleValue();
+            return discount;
         }
     }
+
+    private static double divide(double arg1, double arg2) {
+        return (arg2 == 0.0) ? 0.0 : arg1 / arg2;
+    }
+
+    private static double perc(double arg1, double arg2) {
+        return divide(arg1, arg2) * 100.0;
+    }
 }
@@ -0,0 +1,52 @@
+// This file is part of the 'portfolio-manager' (Portfolio Manager)
+// project, an open source stock portfolio manager application
+// written in Java.
+//
+// Copyright 2015 Oscar Stigter
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.ozsoft.portfoliomanager.domain;
+
+/**
+ * Rule to determine the target weights of the stocks in the portfolio when rebalancing.
+ *
+ * @author Oscar Stigter
+ */
+public enum WeightRule {
+
+    /** All stocks have the same weight. */
+    EQUAL("Equal weight"),
+
+    /** Stocks are weighted by their current dividend yield. */
+    INCOME("Income weight"),
+
+    ;
+
+    private final String name;
+
+    /**
+     * Constructor.
+     *
+     * @param name
+     *            The name.
+     */
+    private WeightRule(String name) {
+        this.name = name;
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
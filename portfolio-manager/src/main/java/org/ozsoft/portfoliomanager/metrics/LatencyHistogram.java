@@ -0,0 +1,201 @@
+// This file is part of the 'portfolio-manager' (Portfolio Manager)
+// project, an open source stock portfolio manager application
+// written in Java.
+//
+// Copyright 2015 Oscar Stigter
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.ozsoft.portfoliomanager.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Histogram of latencies (durations), with a fixed relative precision in the style of an HDR histogram. <br />
+ * <br />
+ *
+ * Durations are recorded in nanoseconds into log-linear buckets: each power of two is divided into 32 linear sub-buckets, so any recorded
+ * value (from 1 ns up to centuries) is stored with a relative error of at most about 3 %, using a fixed amount of memory (about 15 KB) and
+ * without any allocation or locking when recording. <br />
+ * <br />
+ *
+ * Percentiles are calculated over all values recorded since creation (or the last reset).
+ *
+ * @author Oscar Stigter
+ */
+public class LatencyHistogram implements LatencyHistogramMBean {
+
+    /** Number of bits of the sub-bucket index (32 sub-buckets per power of two). */
+    private static final int SUB_BUCKET_BITS = 5;
+
+    private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+
+    private static final int BUCKET_COUNT = (64 - SUB_BUCKET_BITS) << SUB_BUCKET_BITS;
+
+    private static final double NANOS_PER_MILLI = 1000000.0;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+
+    private final LongAdder count = new LongAdder();
+
+    private final LongAdder sum = new LongAdder();
+
+    private final AtomicLong max = new AtomicLong();
+
+    /**
+     * Records a duration.
+     *
+     * @param nanos
+     *            The duration in nanoseconds (negative values are recorded as 0).
+     */
+    public void record(long nanos) {
+        long value = Math.max(0L, nanos);
+        counts.incrementAndGet(getIndex(value));
+        count.increment();
+        sum.add(value);
+        long currentMax = max.get();
+        while (value > currentMax && !max.compareAndSet(currentMax, value)) {
+            currentMax = max.get();
+        }
+    }
+
+    /**
+     * Records the duration since a start time.
+     *
+     * @param startTime
+     *            The start time, as returned by {@link System#nanoTime()}.
+     *
+     * @return The duration in nanoseconds.
+     */
+    public long recordSince(long startTime) {
+        long duration = System.nanoTime() - startTime;
+        record(duration);
+        return duration;
+    }
+
+    @Override
+    public long getCount() {
+        return count.sum();
+    }
+
+    @Override
+    public double getMean() {
+        long n = count.sum();
+        return (n > 0L) ? sum.sum() / NANOS_PER_MILLI / n : 0.0;
+    }
+
+    @Override
+    public double getMax() {
+        return max.get() / NANOS_PER_MILLI;
+    }
+
+    @Override
+    public double get50thPercentile() {
+        return getPercentile(50.0);
+    }
+
+    @Override
+    public double get95thPercentile() {
+        return getPercentile(95.0);
+    }
+
+    @Override
+    public double get99thPercentile() {
+        return getPercentile(99.0);
+    }
+
+    /**
+     * Returns a percentile of the recorded durations.
+     *
+     * @param percentile
+     *            The percentile (0 to 100).
+     *
+     * @return The duration in milliseconds (or 0 if nothing has been recorded).
+     */
+    public double getPercentile(double percentile) {
+        long total = 0L;
+        long[] snapshot = new long[BUCKET_COUNT];
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            snapshot[i] = counts.get(i);
+            total += snapshot[i];
+        }
+        if (total == 0L) {
+            return 0.0;
+        }
+
+        long rank = Math.max(1L, (long) Math.ceil(percentile / 100.0 * total));
+        long cumulative = 0L;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            cumulative += snapshot[i];
+            if (cumulative >= rank) {
+                // Middle of the bucket, but never beyond the actual maximum.
+                return Math.min(getMidValue(i), max.get()) / NANOS_PER_MILLI;
+            }
+        }
+        return getMax();
+    }
+
+    /**
+     * Clears all recorded durations.
+     */
+    public void reset() {
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            counts.set(i, 0L);
+        }
+        count.reset();
+        sum.reset();
+        max.set(0L);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("count = %,d, mean = %,.3f ms, p50 = %,.3f ms, p95 = %,.3f ms, p99 = %,.3f ms, max = %,.3f ms", getCount(),
+                getMean(), get50thPercentile(), get95thPercentile(), get99thPercentile(), getMax());
+    }
+
+    /**
+     * Returns the index of the bucket of a value.
+     *
+     * @param value
+     *            The (non-negative) value.
+     *
+     * @return The bucket index.
+     */
+    static int getIndex(long value) {
+        if (value < SUB_BUCKET_COUNT) {
+            return (int) value;
+        }
+        int shift = (63 - Long.numberOfLeadingZeros(value)) - SUB_BUCKET_BITS;
+        int subBucket = (int) (value >>> shift) - SUB_BUCKET_COUNT;
+        return ((shift + 1) << SUB_BUCKET_BITS) + subBucket;
+    }
+
+    /**
+     * Returns the (rounded) middle value of a bucket.
+     *
+     * @param index
+     *            The bucket index.
+     *
+     * @return The middle value.
+     */
+    static long getMidValue(int index) {
+        if (index < SUB_BUCKET_COUNT) {
+            return index;
+        }
+        int shift = (index >> SUB_BUCKET_BITS) - 1;
+        long lowerBound = (long) (SUB_BUCKET_COUNT + (index & (SUB_BUCKET_COUNT - 1))) << shift;
+        return lowerBound + ((1L << shift) >> 1);
+    }
+}
@@ -0,0 +1,198 @@
+// This file is part of the 'portfolio-manager' (Portfolio Manager)
+// project, an open source stock portfolio manager application
+// written in Java.
+//
+// Copyright 2015 Oscar Stigter
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.ozsoft.portfoliomanager.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.StandardMBean;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Registry of named metrics (counters, latency histograms and gauges). <br />
+ * <br />
+ *
+ * Metrics are created on first use and shared by name, so code can simply look up a metric where it is updated, e.g.
+ * {@code MetricsRegistry.getInstance().getHistogram("config.save").recordSince(startTime)}. <br />
+ * <br />
+ *
+ * Once JMX is enabled, all metrics (including those created later) are registered as MBeans under the domain
+ * {@value #JMX_DOMAIN}, so they can be inspected with e.g. JConsole or VisualVM.
+ *
+ * @author Oscar Stigter
+ */
+public class MetricsRegistry {
+
+    public static final String JMX_DOMAIN = "org.ozsoft.portfoliomanager";
+
+    private static final Logger LOGGER = LogManager.getLogger(MetricsRegistry.class);
+
+    private static final MetricsRegistry INSTANCE = new MetricsRegistry();
+
+    private final ConcurrentMap<String, Counter> counters = new ConcurrentHashMap<String, Counter>();
+
+    private final ConcurrentMap<String, LatencyHistogram> histograms = new ConcurrentHashMap<String, LatencyHistogram>();
+
+    private final ConcurrentMap<String, Gauge> gauges = new ConcurrentHashMap<String, Gauge>();
+
+    private MBeanServer mbeanServer;
+
+    /**
+     * Returns the shared instance.
+     *
+     * @return The shared instance.
+     */
+    public static MetricsRegistry getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Returns a counter, creating it if not existing.
+     *
+     * @param name
+     *            The counter's name.
+     *
+     * @return The counter.
+     */
+    public Counter getCounter(String name) {
+        Counter counter = counters.get(name);
+        if (counter == null) {
+            Counter newCounter = new Counter();
+            counter = counters.putIfAbsent(name, newCounter);
+            if (counter == null) {
+                counter = newCounter;
+                register("Counter", name, counter, CounterMBean.class);
+            }
+        }
+        return counter;
+    }
+
+    /**
+     * Returns a latency histogram, creating it if not existing.
+     *
+     * @param name
+     *            The histogram's name.
+     *
+     * @return The histogram.
+     */
+    public LatencyHistogram getHistogram(String name) {
+        LatencyHistogram histogram = histograms.get(name);
+        if (histogram == null) {
+            LatencyHistogram newHistogram = new LatencyHistogram();
+            histogram = histograms.putIfAbsent(name, newHistogram);
+            if (histogram == null) {
+                histogram = newHistogram;
+                register("Histogram", name, histogram, LatencyHistogramMBean.class);
+            }
+        }
+        return histogram;
+    }
+
+    /**
+     * Registers a gauge (replacing any gauge with the same name).
+     *
+     * @param name
+     *            The gauge's name.
+     * @param gauge
+     *            The gauge.
+     */
+    public void addGauge(String name, Gauge gauge) {
+        if (gauges.put(name, gauge) != null) {
+            unregister("Gauge", name);
+        }
+        register("Gauge", name, gauge, GaugeMBean.class);
+    }
+
+    /**
+     * Returns all metrics, sorted by name.
+     *
+     * @return The metrics by name.
+     */
+    public SortedMap<String, Object> getMetrics() {
+        SortedMap<String, Object> metrics = new TreeMap<String, Object>();
+        metrics.putAll(counters);
+        metrics.putAll(histograms);
+        metrics.putAll(gauges);
+        return metrics;
+    }
+
+    /**
+     * Enables JMX, registering all current and future metrics with the platform MBean server.
+     */
+    public synchronized void enableJmx() {
+        if (mbeanServer == null) {
+            mbeanServer = ManagementFactory.getPlatformMBeanServer();
+            for (Map.Entry<String, Counter> counter : counters.entrySet()) {
+                register("Counter", counter.getKey(), counter.getValue(), CounterMBean.class);
+            }
+            for (Map.Entry<String, LatencyHistogram> histogram : histograms.entrySet()) {
+                register("Histogram", histogram.getKey(), histogram.getValue(), LatencyHistogramMBean.class);
+            }
+            for (Map.Entry<String, Gauge> gauge : gauges.entrySet()) {
+                register("Gauge", gauge.getKey(), gauge.getValue(), GaugeMBean.class);
+            }
+            LOGGER.debug(String.format("Metrics registered as MBeans under '%s'", JMX_DOMAIN));
+        }
+    }
+
+    /**
+     * Registers a metric as MBean (if JMX is enabled).
+     */
+    private synchronized <T> void register(String type, String name, T metric, Class<T> mbeanInterface) {
+        if (mbeanServer != null) {
+            try {
+                ObjectName objectName = getObjectName(type, name);
+                if (!mbeanServer.isRegistered(objectName)) {
+                    mbeanServer.registerMBean(new StandardMBean(metric, mbeanInterface), objectName);
+                }
+            } catch (JMException e) {
+                LOGGER.warn(String.format("Could not register metric '%s' as MBean: %s", name, e.getMessage()));
+            }
+        }
+    }
+
+    /**
+     * Unregisters the MBean of a metric (if JMX is enabled).
+     */
+    private synchronized void unregister(String type, String name) {
+        if (mbeanServer != null) {
+            try {
+                ObjectName objectName = getObjectName(type, name);
+                if (mbeanServer.isRegistered(objectName)) {
+                    mbeanServer.unregisterMBean(objectName);
+                }
+            } catch (JMException e) {
+                LOGGER.warn(String.format("Could not unregister metric '%s' as MBean: %s", name, e.getMessage()));
+            }
+        }
+    }
+
+    private static ObjectName getObjectName(String type, String name) throws JMException {
+        return new ObjectName(String.format("%s:type=%s,name=%s", JMX_DOMAIN, type, ObjectName.quote(name)));
+    }
+}
@@ -0,0 +1,110 @@
+// This file is part of the 'portfolio-manager' (Portfolio Manager)
+// project, an open source stock portfolio manager application
+// written in Java.
+//
+// Copyright 2015 Oscar Stigter
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.ozsoft.portfoliomanager.metrics;
+
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Periodically writes all (used) metrics to the application log.
+ *
+ * @author Oscar Stigter
+ */
+public class MetricsReporter {
+
+    private static final Logger LOGGER = LogManager.getLogger(MetricsReporter.class);
+
+    private final MetricsRegistry registry;
+
+    private final long interval;
+
+    private ScheduledExecutorService executor;
+
+    /**
+     * Constructor.
+     *
+     * @param registry
+     *            The metrics registry.
+     * @param interval
+     *            The interval between reports in milliseconds.
+     */
+    public MetricsReporter(MetricsRegistry registry, long interval) {
+        this.registry = registry;
+        this.interval = interval;
+    }
+
+    /**
+     * Starts reporting (first report after one interval).
+     */
+    public synchronized void start() {
+        if (executor == null) {
+            executor = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+                @Override
+                public Thread newThread(Runnable r) {
+                    Thread thread = new Thread(r, "MetricsReporter");
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+            executor.scheduleAtFixedRate(new Runnable() {
+                @Override
+                public void run() {
+                    report();
+                }
+            }, interval, interval, TimeUnit.MILLISECONDS);
+            LOGGER.debug(String.format("Reporting metrics every %,d ms", interval));
+        }
+    }
+
+    /**
+     * Stops reporting.
+     */
+    public synchronized void stop() {
+        if (executor != null) {
+            executor.shutdownNow();
+            executor = null;
+        }
+    }
+
+    /**
+     * Writes all metrics to the log, skipping unused counters and histograms.
+     */
+    public void report() {
+        if (LOGGER.isInfoEnabled()) {
+            StringBuilder sb = new StringBuilder("Metrics:");
+            for (Map.Entry<String, Object> metric : registry.getMetrics().entrySet()) {
+                Object value = metric.getValue();
+                if (value instanceof Counter && ((Counter) value).getCount() == 0L) {
+                    continue;
+                }
+                if (value instanceof LatencyHistogram && ((LatencyHistogram) value).getCount() == 0L) {
+                    continue;
+                }
+                sb.append(String.format("%n  %s: %s", metric.getKey(), value));
+            }
+            LOGGER.info(sb.toString());
+        }
+    }
+}
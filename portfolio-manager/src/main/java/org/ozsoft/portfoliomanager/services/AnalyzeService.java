@@ -11,12 +11,11 @@ import java.util.List;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.ozsoft.portfoliomanager.domain.Configuration;
-import org.ozsoft.portfoliomanager.domain.Quote;
 import org.ozsoft.portfoliomanager.domain.Stock;
 import org.ozsoft.portfoliomanager.domain.StockAnalysis;
+import org.ozsoft.portfoliomanager.domain.StockHistory;
 import org.ozsoft.portfoliomanager.domain.StockPerformance;
 import org.ozsoft.portfoliomanager.domain.TimeRange;
-import org.ozsoft.portfoliomanager.services.downloader.YahooFinanceQuoteDownloader;
 
 /**
  * Service for analyzing stocks.
@@ -27,10 +26,37 @@ public class AnalyzeService {
 
     private static final Logger LOGGER = LogManager.getLogger(UpdateService.class);
 
+    /** Results of the latest analysis of all stocks (shared by all instances). */
+    private static volatile List<StockAnalysis> latestAnalyses = Collections.emptyList();
+
     private final Configuration config;
 
+    private final HistoryCache historyCache;
+
     public AnalyzeService() {
-        config = Configuration.getInstance();
+        this(Configuration.getInstance(), HistoryCache.getInstance());
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param config
+     *                         The configuration with the stocks.
+     * @param historyCache
+     *                         The history cache with the price histories.
+     */
+    public AnalyzeService(Configuration config, HistoryCache historyCache) {
+        this.config = config;
+        this.historyCache = historyCache;
+    }
+
+    /**
+     * Returns the results of the latest analysis of all stocks (see {@link #analyzeAllStocks()}).
+     *
+     * @return The stock analyses, sorted by score (empty if no analysis has been performed yet).
+     */
+    public static List<StockAnalysis> getLatestAnalyses() {
+        return latestAnalyses;
     }
 
     /**
@@ -43,14 +69,12 @@ public class AnalyzeService {
     public StockAnalysis analyzeStock(Stock stock) {
         LOGGER.debug(String.format("Analyzing %s", stock));
 
-        YahooFinanceQuoteDownloader downloader = new YahooFinanceQuoteDownloader();
-
-        List<Quote> prices = downloader.getHistoricPrices(stock);
-        List<Quote> dividends = downloader.getDividendPayouts(stock);
+        StockHistory history = historyCache.getHistory(stock);
 
-        StockPerformance perf10yr = new StockPerformance(prices, dividends, TimeRange.TEN_YEAR);
-        StockPerformance perf5yr = new StockPerformance(prices, dividends, TimeRange.FIVE_YEAR);
-        StockPerformance perf1yr = new StockPerformance(prices, dividends, TimeRange.ONE_YEAR);
+        // The 10-year performance only needs monthly granularity; like the other periods, it excludes the live prices.
+        StockPerformance perf10yr = new StockPerformance(history.getMonthlyPrices(), history.getDividends(), TimeRange.TEN_YEAR);
+        StockPerformance perf5yr = new StockPerformance(history.getPrices(), history.getDividends(), TimeRange.FIVE_YEAR);
+        StockPerformance perf1yr = new StockPerformance(history.getPrices(), history.getDividends(), TimeRange.ONE_YEAR);
 
         double score = 20.0 + perf10yr.getCagr() + perf5yr.getCagr() - 12.0 + 2.0 * (perf5yr.getCagr() - perf10yr.getCagr())
                 - 0.5 * (perf10yr.getVolatility() - 10.0) + 0.5 * perf1yr.getDiscount();
@@ -72,6 +96,7 @@ public class AnalyzeService {
             analyses.add(analyzeStock(stock));
         }
         Collections.sort(analyses);
+        latestAnalyses = Collections.unmodifiableList(analyses);
 
         String resultMessage = null;
 
@@ -0,0 +1,157 @@
+// This file is part of the 'portfolio-manager' (Portfolio Manager)
+// project, an open source stock portfolio manager application
+// written in Java.
+//
+// Copyright 2015 Oscar Stigter
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.ozsoft.portfoliomanager.services;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.ozsoft.portfoliomanager.domain.Backtest;
+import org.ozsoft.portfoliomanager.domain.Configuration;
+import org.ozsoft.portfoliomanager.domain.Position;
+import org.ozsoft.portfoliomanager.domain.PriceSeries;
+import org.ozsoft.portfoliomanager.domain.Stock;
+import org.ozsoft.portfoliomanager.domain.Transaction;
+
+/**
+ * Service to backtest the portfolio, replaying its transactions against the stocks' historic prices (see {@link Backtest}).
+ *
+ * @author Oscar Stigter
+ */
+public class BacktestService {
+
+    private static final Logger LOGGER = LogManager.getLogger(BacktestService.class);
+
+    private final Configuration config;
+
+    private final HistoryCache historyCache;
+
+    public BacktestService() {
+        config = Configuration.getInstance();
+        historyCache = HistoryCache.getInstance();
+    }
+
+    /**
+     * Backtests the portfolio up to and including today.
+     *
+     * @return The backtest.
+     */
+    public Backtest run() {
+        return run(System.currentTimeMillis());
+    }
+
+    /**
+     * Backtests the portfolio up to and including the specified end date.
+     *
+     * @param endDate
+     *            The end date as timestamp in milliseconds.
+     *
+     * @return The backtest.
+     */
+    public Backtest run(long endDate) {
+        List<Transaction> transactions = config.getTransactions();
+
+        // Historic prices of all traded stocks (served from the history cache if possible).
+        Map<String, PriceSeries> prices = new HashMap<String, PriceSeries>();
+        for (Stock stock : getStocks()) {
+            prices.put(stock.getSymbol(), historyCache.getPrices(stock));
+        }
+
+        long startTime = System.currentTimeMillis();
+        Backtest backtest = Backtest.run(transactions, prices, getIncomeTaxRate(), endDate);
+        long duration = System.currentTimeMillis() - startTime;
+        LOGGER.debug(String.format("Backtested %d transactions of %d stocks over %,d days in %,d ms", transactions.size(), prices.size(),
+                backtest.getNoOfDays(), duration));
+        return backtest;
+    }
+
+    /**
+     * Backtests each position separately, up to and including today (e.g. for the time-weighted return per position). <br />
+     * <br />
+     *
+     * Closed positions are backtested up to their last transaction, so their annualized returns only cover the period invested.
+     *
+     * @return The backtests by stock symbol, sorted by symbol.
+     */
+    public Map<String, Backtest> runPositions() {
+        return runPositions(System.currentTimeMillis());
+    }
+
+    /**
+     * Backtests each position separately, up to and including the specified end date.
+     *
+     * @param endDate
+     *            The end date as timestamp in milliseconds.
+     *
+     * @return The backtests by stock symbol, sorted by symbol.
+     */
+    public Map<String, Backtest> runPositions(long endDate) {
+        Map<String, List<Transaction>> transactionsBySymbol = new TreeMap<String, List<Transaction>>();
+        for (Transaction tx : config.getTransactions()) {
+            List<Transaction> transactions = transactionsBySymbol.get(tx.getSymbol());
+            if (transactions == null) {
+                transactions = new ArrayList<Transaction>();
+                transactionsBySymbol.put(tx.getSymbol(), transactions);
+            }
+            transactions.add(tx);
+        }
+
+        double incomeTaxRate = getIncomeTaxRate();
+        Map<String, Backtest> backtests = new TreeMap<String, Backtest>();
+        for (Position position : config.getPortfolio().getPositions()) {
+            Stock stock = position.getStock();
+            String symbol = stock.getSymbol();
+            List<Transaction> transactions = transactionsBySymbol.get(symbol);
+            long positionEndDate = endDate;
+            if (position.getNoOfShares().signum() == 0) {
+                positionEndDate = Math.min(endDate, transactions.get(transactions.size() - 1).getDate());
+            }
+            Map<String, PriceSeries> prices = new HashMap<String, PriceSeries>();
+            prices.put(symbol, historyCache.getPrices(stock));
+            backtests.put(symbol, Backtest.run(transactions, prices, incomeTaxRate, positionEndDate));
+        }
+        return backtests;
+    }
+
+    /**
+     * Returns the traded stocks, of which the historic prices are used (e.g. to download them in advance).
+     *
+     * @return The traded stocks.
+     */
+    public Set<Stock> getStocks() {
+        Set<Stock> stocks = new HashSet<Stock>();
+        for (Transaction tx : config.getTransactions()) {
+            Stock stock = config.getStock(tx.getSymbol());
+            if (stock != null) {
+                stocks.add(stock);
+            }
+        }
+        return stocks;
+    }
+
+    private double getIncomeTaxRate() {
+        return config.isDeductIncomeTax() ? Configuration.getIncomeTaxRate().doubleValue() : 0.0;
+    }
+}
@@ -0,0 +1,164 @@
+// This file is part of the 'portfolio-manager' (Portfolio Manager)
+// project, an open source stock portfolio manager application
+// written in Java.
+//
+// Copyright 2015 Oscar Stigter
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.ozsoft.portfoliomanager.services;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.ozsoft.portfoliomanager.domain.DividendStatistics;
+
+/**
+ * Compact, binary index of the parsed CCC list, stored next to the CCC list file. <br />
+ * <br />
+ *
+ * The index is keyed by the last modified timestamp of the CCC list file, so the (relatively expensive) parsing of the Excel sheet is only
+ * performed once per version of the CCC list. The last read index is also kept in memory, so subsequent updates with an unchanged CCC list
+ * do not touch the disk at all.
+ *
+ * @author Oscar Stigter
+ */
+public class CCCListIndex {
+
+    /** Magic number and version of the index file format. */
+    private static final int MAGIC = 0x43434302;
+
+    private static final Logger LOGGER = LogManager.getLogger(CCCListIndex.class);
+
+    private final File indexFile;
+
+    private final CCCListParser parser = new CCCListParser();
+
+    private long cachedTimestamp = -1L;
+
+    private Map<String, DividendStatistics> cachedStatistics;
+
+    /**
+     * Constructor.
+     *
+     * @param indexFile
+     *            The index file.
+     */
+    public CCCListIndex(File indexFile) {
+        this.indexFile = indexFile;
+    }
+
+    /**
+     * Returns the dividend statistics of a CCC list file, from the index if up-to-date, otherwise by parsing the CCC list and rebuilding the
+     * index.
+     *
+     * @param cccListFile
+     *            The CCC list file.
+     *
+     * @return The dividend statistics per stock symbol.
+     *
+     * @throws IOException
+     *             If the CCC list file could not be parsed.
+     */
+    public synchronized Map<String, DividendStatistics> getStatistics(File cccListFile) throws IOException {
+        long lastModified = cccListFile.lastModified();
+        if (cachedStatistics != null && lastModified == cachedTimestamp) {
+            return cachedStatistics;
+        }
+
+        Map<String, DividendStatistics> statistics = read(lastModified);
+        if (statistics == null) {
+            long startTime = System.currentTimeMillis();
+            statistics = parser.parse(cccListFile);
+            long duration = System.currentTimeMillis() - startTime;
+            LOGGER.debug(String.format("Parsed CCC list with %d stocks in %,d ms", statistics.size(), duration));
+            write(lastModified, statistics);
+        }
+        cachedTimestamp = lastModified;
+        cachedStatistics = Collections.unmodifiableMap(statistics);
+        return cachedStatistics;
+    }
+
+    /**
+     * Reads the index file, if it matches the specified timestamp.
+     *
+     * @param lastModified
+     *            The last modified timestamp of the CCC list file.
+     *
+     * @return The dividend statistics per stock symbol, or {@code null} if the index is missing, outdated or invalid.
+     */
+    private Map<String, DividendStatistics> read(long lastModified) {
+        if (!indexFile.isFile()) {
+            return null;
+        }
+
+        try (DataInputStream dis = new DataInputStream(new BufferedInputStream(new FileInputStream(indexFile)))) {
+            if (dis.readInt() != MAGIC || dis.readLong() != lastModified) {
+                return null;
+            }
+            int count = dis.readInt();
+            Map<String, DividendStatistics> statistics = new HashMap<String, DividendStatistics>(count * 2);
+            for (int i = 0; i < count; i++) {
+                String symbol = dis.readUTF();
+                int yearsDivGrowth = dis.readShort();
+                double divRate = dis.readDouble();
+                double divGrowth1y = dis.readDouble();
+                double divGrowth3y = dis.readDouble();
+                double divGrowth5y = dis.readDouble();
+                statistics.put(symbol, new DividendStatistics(symbol, yearsDivGrowth, divRate, divGrowth1y, divGrowth3y, divGrowth5y));
+            }
+            return statistics;
+        } catch (IOException e) {
+            LOGGER.warn("Could not read CCC list index file: " + indexFile.getAbsolutePath(), e);
+            return null;
+        }
+    }
+
+    /**
+     * Writes the index file.
+     *
+     * @param lastModified
+     *            The last modified timestamp of the CCC list file.
+     * @param statistics
+     *            The dividend statistics per stock symbol.
+     */
+    private void write(long lastModified, Map<String, DividendStatistics> statistics) {
+        try (DataOutputStream dos = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(indexFile)))) {
+            dos.writeInt(MAGIC);
+            dos.writeLong(lastModified);
+            dos.writeInt(statistics.size());
+            for (DividendStatistics stats : statistics.values()) {
+                dos.writeUTF(stats.getSymbol());
+                dos.writeShort(stats.getYearsDivGrowth());
+                dos.writeDouble(stats.getDivRate());
+                dos.writeDouble(stats.getDivGrowth1y());
+                dos.writeDouble(stats.getDivGrowth3y());
+                dos.writeDouble(stats.getDivGrowth5y());
+            }
+        } catch (IOException e) {
+            LOGGER.warn("Could not write CCC list index file: " + indexFile.getAbsolutePath(), e);
+            indexFile.delete();
+        }
+    }
+}
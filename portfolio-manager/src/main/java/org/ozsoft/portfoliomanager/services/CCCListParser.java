@@ -0,0 +1,256 @@
+// This file is part of the 'portfolio-manager' (Portfolio Manager)
+// project, an open source stock portfolio manager application
+// written in Java.
+//
+// Copyright 2015 Oscar Stigter
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.ozsoft.portfoliomanager.services;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.xml.parsers.ParserConfigurationException;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.poi.openxml4j.exceptions.OpenXML4JException;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackageAccess;
+import org.apache.poi.ss.util.CellReference;
+import org.apache.poi.util.SAXHelper;
+import org.apache.poi.xssf.eventusermodel.ReadOnlySharedStringsTable;
+import org.apache.poi.xssf.eventusermodel.XSSFReader;
+import org.ozsoft.portfoliomanager.domain.DividendStatistics;
+import org.xml.sax.Attributes;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.XMLReader;
+import org.xml.sax.helpers.DefaultHandler;
+
+/**
+ * Streaming parser for David Fish' CCC list (Excel sheet in Office Open XML format). <br />
+ * <br />
+ *
+ * Uses the SAX-based event model of Apache POI to read only the required columns of the 'All CCC' sheet, one row at a time, instead of
+ * building the full object model of the workbook in memory. Only the workbook's shared strings table is kept in memory during parsing.
+ *
+ * @author Oscar Stigter
+ */
+public class CCCListParser {
+
+    private static final String SHEET_NAME = "All CCC";
+
+    /** Number of header rows (1-based row numbers up to and including this number are skipped). */
+    private static final int HEADER_ROWS = 6;
+
+    private static final int SYMBOL_COLUMN_INDEX = CellReference.convertColStringToIndex("B");
+
+    private static final int YEARS_GROWTH_COLUMN_INDEX = CellReference.convertColStringToIndex("E");
+
+    private static final int DIV_RATE_COLUMN_INDEX = CellReference.convertColStringToIndex("M");
+
+    private static final int DIV_GROWTH_1Y_COLUMN_INDEX = CellReference.convertColStringToIndex("S");
+
+    private static final int DIV_GROWTH_3Y_COLUMN_INDEX = CellReference.convertColStringToIndex("T");
+
+    private static final int DIV_GROWTH_5Y_COLUMN_INDEX = CellReference.convertColStringToIndex("U");
+
+    /**
+     * Parses the CCC list.
+     *
+     * @param file
+     *            The CCC list file.
+     *
+     * @return The dividend statistics per stock symbol.
+     *
+     * @throws IOException
+     *             If the file could not be read or is not a valid CCC list.
+     */
+    public Map<String, DividendStatistics> parse(File file) throws IOException {
+        OPCPackage pkg = null;
+        InputStream sheetData = null;
+        try {
+            pkg = OPCPackage.open(file.getPath(), PackageAccess.READ);
+            ReadOnlySharedStringsTable sharedStrings = new ReadOnlySharedStringsTable(pkg);
+            XSSFReader reader = new XSSFReader(pkg);
+            XSSFReader.SheetIterator sheets = (XSSFReader.SheetIterator) reader.getSheetsData();
+            while (sheets.hasNext()) {
+                InputStream is = sheets.next();
+                if (SHEET_NAME.equals(sheets.getSheetName())) {
+                    sheetData = is;
+                    break;
+                } else {
+                    IOUtils.closeQuietly(is);
+                }
+            }
+            if (sheetData == null) {
+                throw new IOException(String.format("Sheet '%s' not found in CCC list", SHEET_NAME));
+            }
+
+            SheetHandler handler = new SheetHandler(sharedStrings);
+            XMLReader xmlReader = SAXHelper.newXMLReader();
+            xmlReader.setContentHandler(handler);
+            xmlReader.parse(new InputSource(sheetData));
+            return handler.getStatistics();
+
+        } catch (OpenXML4JException | SAXException | ParserConfigurationException e) {
+            throw new IOException("Invalid CCC list file: " + file.getAbsolutePath(), e);
+        } finally {
+            IOUtils.closeQuietly(sheetData);
+            if (pkg != null) {
+                pkg.revert();
+            }
+        }
+    }
+
+    /**
+     * Returns the numerical value of a raw cell value, or -1.0 if not a valid number (e.g. "n/a").
+     *
+     * @param value
+     *            The raw cell value, or {@code null} if not set or not numeric.
+     *
+     * @return The numerical value.
+     */
+    private static double toNumber(String value) {
+        if (value != null) {
+            try {
+                return Double.parseDouble(value);
+            } catch (NumberFormatException e) {
+                // Interpret as "n/a"
+            }
+        }
+        return -1.0;
+    }
+
+    /**
+     * SAX handler for a worksheet, collecting the raw values of the required columns per row.
+     *
+     * @author Oscar Stigter
+     */
+    private static class SheetHandler extends DefaultHandler {
+
+        private final ReadOnlySharedStringsTable sharedStrings;
+
+        private final Map<String, DividendStatistics> statistics = new HashMap<String, DividendStatistics>();
+
+        private final StringBuilder text = new StringBuilder();
+
+        private int rowNr;
+
+        private int columnIndex;
+
+        private String cellType;
+
+        private boolean isValue;
+
+        private String symbol;
+
+        private String yearsGrowth;
+
+        private String divRate;
+
+        private String divGrowth1y;
+
+        private String divGrowth3y;
+
+        private String divGrowth5y;
+
+        public SheetHandler(ReadOnlySharedStringsTable sharedStrings) {
+            this.sharedStrings = sharedStrings;
+        }
+
+        public Map<String, DividendStatistics> getStatistics() {
+            return statistics;
+        }
+
+        @Override
+        public void startElement(String uri, String localName, String qName, Attributes attributes) {
+            if ("row".equals(localName)) {
+                String ref = attributes.getValue("r");
+                rowNr = (ref != null) ? Integer.parseInt(ref) : rowNr + 1;
+                columnIndex = -1;
+                symbol = null;
+                yearsGrowth = null;
+                divRate = null;
+                divGrowth1y = null;
+                divGrowth3y = null;
+                divGrowth5y = null;
+            } else if ("c".equals(localName)) {
+                String ref = attributes.getValue("r");
+                columnIndex = (ref != null) ? new CellReference(ref).getCol() : columnIndex + 1;
+                cellType = attributes.getValue("t");
+            } else if (("v".equals(localName) || "t".equals(localName)) && rowNr > HEADER_ROWS && isRequiredColumn(columnIndex)) {
+                isValue = true;
+                text.setLength(0);
+            }
+        }
+
+        @Override
+        public void characters(char[] ch, int start, int length) {
+            if (isValue) {
+                text.append(ch, start, length);
+            }
+        }
+
+        @Override
+        public void endElement(String uri, String localName, String qName) {
+            if (isValue && ("v".equals(localName) || "t".equals(localName))) {
+                isValue = false;
+                setValue(text.toString());
+            } else if ("row".equals(localName) && symbol != null) {
+                int yearsDivGrowth = (int) Math.floor(toNumber(yearsGrowth));
+                statistics.put(symbol, new DividendStatistics(symbol, yearsDivGrowth, toNumber(divRate), toNumber(divGrowth1y),
+                        toNumber(divGrowth3y), toNumber(divGrowth5y)));
+            }
+        }
+
+        /**
+         * Stores the raw value of the current cell.
+         *
+         * @param value
+         *            The raw value.
+         */
+        private void setValue(String value) {
+            if (columnIndex == SYMBOL_COLUMN_INDEX) {
+                if ("s".equals(cellType)) {
+                    symbol = sharedStrings.getEntryAt(Integer.parseInt(value));
+                } else if ("inlineStr".equals(cellType) || "str".equals(cellType)) {
+                    symbol = value;
+                }
+            } else if (cellType == null || "n".equals(cellType)) {
+                // Numeric value (possibly the cached result of a formula).
+                if (columnIndex == YEARS_GROWTH_COLUMN_INDEX) {
+                    yearsGrowth = value;
+                } else if (columnIndex == DIV_RATE_COLUMN_INDEX) {
+                    divRate = value;
+                } else if (columnIndex == DIV_GROWTH_1Y_COLUMN_INDEX) {
+                    divGrowth1y = value;
+                } else if (columnIndex == DIV_GROWTH_3Y_COLUMN_INDEX) {
+                    divGrowth3y = value;
+                } else if (columnIndex == DIV_GROWTH_5Y_COLUMN_INDEX) {
+                    divGrowth5y = value;
+                }
+            }
+        }
+
+        private static boolean isRequiredColumn(int columnIndex) {
+            return columnIndex == SYMBOL_COLUMN_INDEX || columnIndex == YEARS_GROWTH_COLUMN_INDEX || columnIndex == DIV_RATE_COLUMN_INDEX
+                    || columnIndex == DIV_GROWTH_1Y_COLUMN_INDEX || columnIndex == DIV_GROWTH_3Y_COLUMN_INDEX
+                    || columnIndex == DIV_GROWTH_5Y_COLUMN_INDEX;
+        }
+    }
+}
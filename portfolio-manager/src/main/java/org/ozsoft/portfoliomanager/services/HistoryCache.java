@@ -0,0 +1,311 @@
+// This file is part of the 'portfolio-manager' (Portfolio Manager)
+// project, an open source stock portfolio manager application
+// written in Java.
+//
+// Copyright 2015 Oscar Stigter
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.ozsoft.portfoliomanager.services;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.ozsoft.portfoliomanager.domain.PricePyramid;
+import org.ozsoft.portfoliomanager.domain.PriceSeries;
+import org.ozsoft.portfoliomanager.domain.Stock;
+import org.ozsoft.portfoliomanager.domain.StockHistory;
+import org.ozsoft.portfoliomanager.metrics.MetricsRegistry;
+import org.ozsoft.portfoliomanager.services.downloader.QuoteDownloader;
+
+/**
+ * In-memory cache of stock histories (historic prices and dividend payouts), shared by the analysis and charting. <br />
+ * <br />
+ *
+ * Least recently used histories are evicted once the total size exceeds the maximum size, and histories older than the TTL are
+ * downloaded again. Concurrent requests for the same stock share a single download. <br />
+ * <br />
+ *
+ * The size charged for each history is recorded, and updated when live prices are added to it, so the total size always equals the sum of
+ * the cached histories.
+ *
+ * @author Oscar Stigter
+ */
+public class HistoryCache {
+
+    /** Default maximum total size in bytes. */
+    private static final long DEFAULT_MAX_SIZE = 64L * 1024L * 1024L; // 64 MB
+
+    /** Default time-to-live in milliseconds. */
+    private static final long DEFAULT_TTL = 12L * 60L * 60L * 1000L; // 12 hours
+
+    private static final Logger LOGGER = LogManager.getLogger(HistoryCache.class);
+
+    private static HistoryCache instance;
+
+    private final QuoteDownloader downloader;
+
+    private final long maxSize;
+
+    private final long ttl;
+
+    /** Cached histories by symbol, in access order (least recently used first). */
+    private final LinkedHashMap<String, StockHistory> histories = new LinkedHashMap<String, StockHistory>(16, 0.75f, true);
+
+    /** Size charged per cached history by symbol. */
+    private final Map<String, Long> historySizes = new HashMap<String, Long>();
+
+    /** Running downloads by symbol. */
+    private final ConcurrentHashMap<String, FutureTask<StockHistory>> downloads = new ConcurrentHashMap<String, FutureTask<StockHistory>>();
+
+    private long size;
+
+    /**
+     * Constructor.
+     *
+     * @param downloader
+     *            The quote downloader to retrieve the histories with.
+     * @param maxSize
+     *            The maximum total size in bytes.
+     * @param ttl
+     *            The time-to-live in milliseconds.
+     */
+    public HistoryCache(QuoteDownloader downloader, long maxSize, long ttl) {
+        this.downloader = downloader;
+        this.maxSize = maxSize;
+        this.ttl = ttl;
+    }
+
+    /**
+     * Returns the shared instance, using the shared quote downloader.
+     *
+     * @return The shared instance.
+     */
+    public static synchronized HistoryCache getInstance() {
+        if (instance == null) {
+            instance = new HistoryCache(UpdateService.getDefaultQuoteDownloader(), DEFAULT_MAX_SIZE, DEFAULT_TTL);
+        }
+        return instance;
+    }
+
+    /**
+     * Returns the history of a stock, downloading it if not cached or expired.
+     *
+     * @param stock
+     *            The stock.
+     *
+     * @return The stock history (with empty series if the history could not be retrieved).
+     */
+    public StockHistory getHistory(final Stock stock) {
+        String symbol = stock.getSymbol();
+        StockHistory history = getCachedHistory(symbol);
+        if (history != null) {
+            LOGGER.trace(String.format("History of %s served from cache", stock));
+            MetricsRegistry.getInstance().getCounter("historyCache.hits").increment();
+            return history;
+        }
+        MetricsRegistry.getInstance().getCounter("historyCache.misses").increment();
+
+        FutureTask<StockHistory> download = new FutureTask<StockHistory>(new Callable<StockHistory>() {
+            @Override
+            public StockHistory call() {
+                return download(stock);
+            }
+        });
+        FutureTask<StockHistory> runningDownload = downloads.putIfAbsent(symbol, download);
+        if (runningDownload == null) {
+            try {
+                download.run();
+            } finally {
+                downloads.remove(symbol);
+            }
+            runningDownload = download;
+        }
+
+        try {
+            return runningDownload.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return new StockHistory(symbol, PriceSeries.EMPTY, PriceSeries.EMPTY, System.currentTimeMillis());
+        } catch (ExecutionException e) {
+            LOGGER.error(String.format("Failed to retrieve history of %s", stock), e.getCause());
+            return new StockHistory(symbol, PriceSeries.EMPTY, PriceSeries.EMPTY, System.currentTimeMillis());
+        }
+    }
+
+    /**
+     * Returns the historic prices of a stock.
+     *
+     * @param stock
+     *            The stock.
+     *
+     * @return The historic prices.
+     */
+    public PriceSeries getPrices(Stock stock) {
+        return getHistory(stock).getPrices();
+    }
+
+    /**
+     * Returns the historic dividend payouts of a stock.
+     *
+     * @param stock
+     *            The stock.
+     *
+     * @return The historic dividend payouts.
+     */
+    public PriceSeries getDividends(Stock stock) {
+        return getHistory(stock).getDividends();
+    }
+
+    /**
+     * Adds a newer (live) price to the cached history of a stock, if present. <br />
+     * <br />
+     *
+     * Only the history's price pyramid is updated; prices older than its last price are ignored.
+     *
+     * @param symbol
+     *            The stock's symbol.
+     * @param timestamp
+     *            The timestamp of the price.
+     * @param price
+     *            The price.
+     */
+    public synchronized void addPrice(String symbol, long timestamp, double price) {
+        StockHistory history = histories.get(symbol);
+        if (history != null) {
+            PricePyramid pyramid = history.getPyramid();
+            long historySize;
+            synchronized (pyramid) {
+                if (timestamp <= pyramid.getLastTimestamp()) {
+                    return;
+                }
+                pyramid.add(timestamp, price);
+                historySize = history.getMemorySize();
+            }
+            size += historySize - historySizes.put(symbol, historySize);
+            evict();
+        }
+    }
+
+    /**
+     * Removes the history of a stock from the cache, so it is downloaded again on next access.
+     *
+     * @param symbol
+     *            The stock's symbol.
+     */
+    public synchronized void invalidate(String symbol) {
+        if (histories.remove(symbol) != null) {
+            size -= historySizes.remove(symbol);
+        }
+    }
+
+    /**
+     * Removes all histories from the cache.
+     */
+    public synchronized void clear() {
+        histories.clear();
+        historySizes.clear();
+        size = 0L;
+    }
+
+    /**
+     * Returns the number of cached histories.
+     *
+     * @return The number of cached histories.
+     */
+    public synchronized int getCount() {
+        return histories.size();
+    }
+
+    /**
+     * Returns the total (estimated) memory size of the cached histories.
+     *
+     * @return The total size in bytes.
+     */
+    public synchronized long getSize() {
+        return size;
+    }
+
+    /**
+     * Returns the cached history of a stock, if present and not expired.
+     *
+     * @param symbol
+     *            The stock's symbol.
+     *
+     * @return The history, or {@code null} if not cached or expired.
+     */
+    private synchronized StockHistory getCachedHistory(String symbol) {
+        StockHistory history = histories.get(symbol);
+        if (history != null && System.currentTimeMillis() - history.getTimestamp() > ttl) {
+            invalidate(symbol);
+            history = null;
+        }
+        return history;
+    }
+
+    /**
+     * Downloads the history of a stock and caches it (only if the prices could be retrieved).
+     *
+     * @param stock
+     *            The stock.
+     *
+     * @return The history.
+     */
+    private StockHistory download(Stock stock) {
+        long startTime = System.currentTimeMillis();
+        PriceSeries prices = PriceSeries.fromQuotes(downloader.getHistoricPrices(stock));
+        PriceSeries dividends = PriceSeries.fromQuotes(downloader.getDividendPayouts(stock));
+        StockHistory history = new StockHistory(stock.getSymbol(), prices, dividends, startTime);
+        if (!prices.isEmpty()) {
+            put(history);
+        }
+        return history;
+    }
+
+    /**
+     * Adds a history to the cache, evicting least recently used histories until the total size is within the maximum size.
+     *
+     * @param history
+     *            The history.
+     */
+    private synchronized void put(StockHistory history) {
+        String symbol = history.getSymbol();
+        invalidate(symbol);
+        long historySize = history.getMemorySize();
+        histories.put(symbol, history);
+        historySizes.put(symbol, historySize);
+        size += historySize;
+        evict();
+    }
+
+    /**
+     * Evicts least recently used histories until the total size is within the maximum size (always keeping the most recently used one).
+     */
+    private synchronized void evict() {
+        Iterator<StockHistory> it = histories.values().iterator();
+        while (size > maxSize && histories.size() > 1 && it.hasNext()) {
+            StockHistory eldest = it.next();
+            it.remove();
+            size -= historySizes.remove(eldest.getSymbol());
+            LOGGER.debug(String.format("Evicted history of %s from cache", eldest.getSymbol()));
+        }
+    }
+}
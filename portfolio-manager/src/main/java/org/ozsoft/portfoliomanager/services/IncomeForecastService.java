@@ -0,0 +1,260 @@
+// This file is part of the 'portfolio-manager' (Portfolio Manager)
+// project, an open source stock portfolio manager application
+// written in Java.
+//
+// Copyright 2015 Oscar Stigter
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.ozsoft.portfoliomanager.services;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.ozsoft.portfoliomanager.domain.Configuration;
+import org.ozsoft.portfoliomanager.domain.DividendSchedule;
+import org.ozsoft.portfoliomanager.domain.IncomeForecast;
+import org.ozsoft.portfoliomanager.domain.Portfolio;
+import org.ozsoft.portfoliomanager.domain.Position;
+import org.ozsoft.portfoliomanager.domain.PriceSeries;
+import org.ozsoft.portfoliomanager.domain.Stock;
+import org.ozsoft.portfoliomanager.domain.Transaction;
+import org.ozsoft.portfoliomanager.domain.TransactionType;
+import org.ozsoft.portfoliomanager.util.DateUtils;
+
+/**
+ * Service forecasting the monthly dividend income of the portfolio (see {@link IncomeForecast}). <br />
+ * <br />
+ *
+ * The dividend schedules of the stocks are kept and updated incrementally: new payouts in the stocks' (cached) payout history and new
+ * DIVIDEND transactions are added to the schedules, and only the forecast rows of the affected positions are recalculated. The schedule
+ * of a stock with a changed or deleted transaction is rebuilt on the next forecast.
+ *
+ * @author Oscar Stigter
+ */
+public class IncomeForecastService {
+
+    /** Default number of months to forecast. */
+    public static final int DEFAULT_MONTHS = 12;
+
+    private static final Logger LOGGER = LogManager.getLogger(IncomeForecastService.class);
+
+    private static IncomeForecastService instance;
+
+    private final Configuration config;
+
+    private final HistoryCache historyCache;
+
+    /** Dividend schedules by stock symbol. */
+    private final Map<String, DividendSchedule> schedules = new HashMap<String, DividendSchedule>();
+
+    /** Number of shares per stock symbol in the current forecast. */
+    private final Map<String, Double> forecastShares = new HashMap<String, Double>();
+
+    /** Stock symbols of which the forecast must be recalculated. */
+    private final Set<String> changedSymbols = new HashSet<String>();
+
+    private IncomeForecast forecast;
+
+    private boolean isDeductingIncomeTax;
+
+    /**
+     * Constructor.
+     *
+     * @param config
+     *            The configuration with the stocks and transactions.
+     * @param historyCache
+     *            The history cache with the payout histories.
+     */
+    public IncomeForecastService(Configuration config, HistoryCache historyCache) {
+        this.config = config;
+        this.historyCache = historyCache;
+    }
+
+    /**
+     * Returns the shared instance.
+     *
+     * @return The shared instance.
+     */
+    public static synchronized IncomeForecastService getInstance() {
+        if (instance == null) {
+            instance = new IncomeForecastService(Configuration.getInstance(), HistoryCache.getInstance());
+        }
+        return instance;
+    }
+
+    /**
+     * Returns the income forecast for the default number of months, starting with the current month.
+     *
+     * @return The income forecast.
+     */
+    public IncomeForecast getForecast() {
+        return getForecast(DEFAULT_MONTHS);
+    }
+
+    /**
+     * Returns the income forecast, starting with the current month. <br />
+     * <br />
+     *
+     * The returned forecast is updated by later calls, and should only be used by one thread.
+     *
+     * @param noOfMonths
+     *            The number of months to forecast.
+     *
+     * @return The income forecast.
+     */
+    public synchronized IncomeForecast getForecast(int noOfMonths) {
+        long startTime = System.currentTimeMillis();
+        int today = DateUtils.toDay(startTime);
+        boolean isRebuild = forecast == null || forecast.getNoOfMonths() != noOfMonths || forecast.getFromDay() != today
+                || config.isDeductIncomeTax() != isDeductingIncomeTax;
+        if (isRebuild) {
+            forecast = new IncomeForecast(today, noOfMonths);
+            forecastShares.clear();
+            isDeductingIncomeTax = config.isDeductIncomeTax();
+        }
+        double incomeTaxRate = isDeductingIncomeTax ? Configuration.getIncomeTaxRate().doubleValue() : 0.0;
+
+        // Add new payouts from the payout histories, and the received dividends to new schedules (matching payments to ex-dividend dates).
+        Portfolio portfolio = config.getPortfolio();
+        Set<String> newSymbols = new HashSet<String>();
+        for (Position position : portfolio.getPositions()) {
+            Stock stock = position.getStock();
+            String symbol = stock.getSymbol();
+            DividendSchedule schedule = schedules.get(symbol);
+            if (schedule == null) {
+                schedule = new DividendSchedule();
+                schedules.put(symbol, schedule);
+                newSymbols.add(symbol);
+            }
+            if (addNewPayouts(schedule, historyCache.getDividends(stock))) {
+                changedSymbols.add(symbol);
+            }
+        }
+        if (!newSymbols.isEmpty()) {
+            for (Transaction tx : config.getTransactions()) {
+                if (tx.getType() == TransactionType.DIVIDEND && newSymbols.contains(tx.getSymbol())) {
+                    schedules.get(tx.getSymbol()).addPayment(DateUtils.toDay(tx.getDate()), tx.getPrice().doubleValue());
+                }
+            }
+            changedSymbols.addAll(newSymbols);
+        }
+
+        // Recalculate the forecast of the changed positions only.
+        int count = 0;
+        for (Position position : portfolio.getPositions()) {
+            Stock stock = position.getStock();
+            String symbol = stock.getSymbol();
+            double noOfShares = position.getNoOfShares().doubleValue();
+            Double previousShares = forecastShares.get(symbol);
+            boolean isChanged = changedSymbols.remove(symbol);
+            if (isChanged || previousShares == null || previousShares != noOfShares) {
+                forecast.update(symbol, noOfShares, schedules.get(symbol), stock.getDivRate().doubleValue(),
+                        stock.getDivGrowth().doubleValue(), incomeTaxRate);
+                forecastShares.put(symbol, noOfShares);
+                count++;
+            }
+        }
+
+        // Remove the forecast of positions without any transactions left.
+        for (String symbol : changedSymbols) {
+            if (forecastShares.remove(symbol) != null) {
+                forecast.update(symbol, 0.0, null, 0.0, 0.0, 0.0);
+                count++;
+            }
+        }
+        changedSymbols.clear();
+
+        LOGGER.debug(String.format("Updated income forecast of %d positions in %,d ms", count, System.currentTimeMillis() - startTime));
+        return forecast;
+    }
+
+    /**
+     * Updates the dividend schedule and forecast after a transaction has been added.
+     *
+     * @param tx
+     *            The transaction.
+     */
+    public synchronized void transactionAdded(Transaction tx) {
+        String symbol = tx.getSymbol();
+        DividendSchedule schedule = schedules.get(symbol);
+        if (schedule != null && tx.getType() == TransactionType.DIVIDEND) {
+            schedule.addPayment(DateUtils.toDay(tx.getDate()), tx.getPrice().doubleValue());
+        }
+        // Otherwise the schedule is built on the next forecast, including this transaction.
+        changedSymbols.add(symbol);
+    }
+
+    /**
+     * Updates the dividend schedule and forecast after a transaction has been deleted.
+     *
+     * @param tx
+     *            The transaction.
+     */
+    public synchronized void transactionRemoved(Transaction tx) {
+        rebuildSchedule(tx.getSymbol());
+    }
+
+    /**
+     * Updates the dividend schedules and forecast after a transaction has been changed.
+     *
+     * @param tx
+     *            The (changed) transaction.
+     * @param previousSymbol
+     *            The stock symbol of the transaction before the change.
+     */
+    public synchronized void transactionChanged(Transaction tx, String previousSymbol) {
+        rebuildSchedule(previousSymbol);
+        rebuildSchedule(tx.getSymbol());
+    }
+
+    /**
+     * Discards the dividend schedule of a stock, so it is rebuilt (from its payout history and the remaining DIVIDEND transactions) on the
+     * next forecast.
+     *
+     * @param symbol
+     *            The stock symbol.
+     */
+    private void rebuildSchedule(String symbol) {
+        schedules.remove(symbol);
+        changedSymbols.add(symbol);
+    }
+
+    /**
+     * Adds the payouts after the latest known payout to a dividend schedule.
+     *
+     * @return True if any payout was added, otherwise false.
+     */
+    private static boolean addNewPayouts(DividendSchedule schedule, PriceSeries dividends) {
+        int lastPayoutDay = schedule.getLastPayoutDay();
+        boolean isAdded = false;
+        for (int i = dividends.size() - 1; i >= 0; i--) {
+            int day = DateUtils.toDay(dividends.getTimestamp(i));
+            if (day <= lastPayoutDay) {
+                break;
+            }
+            isAdded = true;
+        }
+        if (isAdded) {
+            // Add in chronological order.
+            for (int i = dividends.indexOf(DateUtils.toTimestamp(lastPayoutDay + 1)); i < dividends.size(); i++) {
+                schedule.addPayout(DateUtils.toDay(dividends.getTimestamp(i)), dividends.getValue(i));
+            }
+        }
+        return isAdded;
+    }
+}
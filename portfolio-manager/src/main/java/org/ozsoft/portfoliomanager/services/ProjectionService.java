@@ -0,0 +1,138 @@
+// This file is part of the 'portfolio-manager' (Portfolio Manager)
+// project, an open source stock portfolio manager application
+// written in Java.
+//
+// Copyright 2015 Oscar Stigter
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.ozsoft.portfoliomanager.services;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.ozsoft.portfoliomanager.domain.Configuration;
+import org.ozsoft.portfoliomanager.domain.IncomeProjection;
+import org.ozsoft.portfoliomanager.domain.Position;
+import org.ozsoft.portfoliomanager.domain.PriceResolution;
+import org.ozsoft.portfoliomanager.domain.PriceSeries;
+import org.ozsoft.portfoliomanager.domain.RollingStatistics;
+import org.ozsoft.portfoliomanager.domain.Stock;
+
+/**
+ * Service to project the portfolio value and dividend income of the current positions (see {@link IncomeProjection}).
+ *
+ * @author Oscar Stigter
+ */
+public class ProjectionService {
+
+    /** Default number of years to project. */
+    public static final int DEFAULT_YEARS = 30;
+
+    /** Default number of simulated paths. */
+    public static final int DEFAULT_PATHS = 100000;
+
+    /** Volatility for stocks with too little price history, in percent. */
+    private static final double DEFAULT_VOLATILITY = 20.0;
+
+    /** Period of price history to base the volatility on. */
+    private static final long VOLATILITY_PERIOD = 10L * 365L * 24L * 60L * 60L * 1000L; // 10 years
+
+    /** Minimum number of monthly prices to base the volatility on. */
+    private static final int MIN_PRICES = 24;
+
+    private static final Logger LOGGER = LogManager.getLogger(ProjectionService.class);
+
+    private final Configuration config;
+
+    private final HistoryCache historyCache;
+
+    public ProjectionService() {
+        config = Configuration.getInstance();
+        historyCache = HistoryCache.getInstance();
+    }
+
+    /**
+     * Projects the current positions with the default number of years and paths, reinvesting the dividends.
+     *
+     * @return The projection.
+     */
+    public IncomeProjection project() {
+        return project(DEFAULT_YEARS, DEFAULT_PATHS, true);
+    }
+
+    /**
+     * Projects the current positions.
+     *
+     * @param noOfYears
+     *            The number of years to project.
+     * @param noOfPaths
+     *            The number of paths to simulate.
+     * @param isReinvesting
+     *            Whether to reinvest the received dividends.
+     *
+     * @return The projection.
+     */
+    public IncomeProjection project(int noOfYears, int noOfPaths, boolean isReinvesting) {
+        List<Position> positions = new ArrayList<Position>();
+        for (Position position : config.getPortfolio().getPositions()) {
+            if (position.getNoOfShares().signum() > 0) {
+                positions.add(position);
+            }
+        }
+
+        int noOfPositions = positions.size();
+        double[] values = new double[noOfPositions];
+        double[] incomes = new double[noOfPositions];
+        double[] divGrowths = new double[noOfPositions];
+        double[] volatilities = new double[noOfPositions];
+        for (int i = 0; i < noOfPositions; i++) {
+            Position position = positions.get(i);
+            Stock stock = position.getStock();
+            values[i] = position.getCurrentValue().doubleValue();
+            incomes[i] = position.getAnnualIncome().doubleValue();
+            divGrowths[i] = stock.getDivGrowth().doubleValue();
+            volatilities[i] = getVolatility(stock);
+        }
+
+        long startTime = System.currentTimeMillis();
+        IncomeProjection projection = IncomeProjection.run(values, incomes, divGrowths, volatilities, isReinvesting, noOfYears, noOfPaths,
+                System.nanoTime());
+        long duration = System.currentTimeMillis() - startTime;
+        LOGGER.debug(String.format("Projected %d positions over %d years with %,d paths in %,d ms", noOfPositions, noOfYears, noOfPaths,
+                duration));
+        return projection;
+    }
+
+    /**
+     * Returns the annualized volatility of a stock over the last 10 years (based on monthly closing prices).
+     *
+     * @param stock
+     *            The stock.
+     *
+     * @return The volatility in percent.
+     */
+    private double getVolatility(Stock stock) {
+        PriceSeries prices = historyCache.getHistory(stock).getPyramid().getLevel(PriceResolution.MONTHLY).getCloses();
+        if (prices.size() < MIN_PRICES) {
+            return DEFAULT_VOLATILITY;
+        }
+        RollingStatistics statistics = new RollingStatistics(VOLATILITY_PERIOD);
+        for (int i = 0; i < prices.size(); i++) {
+            statistics.add(prices.getTimestamp(i), prices.getValue(i));
+        }
+        return statistics.getVolatility();
+    }
+}
@@ -0,0 +1,204 @@
+// This file is part of the 'portfolio-manager' (Portfolio Manager)
+// project, an open source stock portfolio manager application
+// written in Java.
+//
+// Copyright 2015 Oscar Stigter
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.ozsoft.portfoliomanager.services;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.swing.SwingUtilities;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.ozsoft.portfoliomanager.domain.Configuration;
+import org.ozsoft.portfoliomanager.domain.Stock;
+import org.ozsoft.portfoliomanager.services.downloader.LiveQuote;
+import org.ozsoft.portfoliomanager.services.downloader.QuoteDownloader;
+import org.ozsoft.portfoliomanager.services.downloader.QuoteListener;
+import org.ozsoft.portfoliomanager.services.screening.ScreeningService;
+
+/**
+ * Service streaming real-time quotes into the stocks. <br />
+ * <br />
+ *
+ * Subscribes to the quotes of a set of stocks. Received quotes (ticks) are put on a bounded queue; if the queue is full, the oldest tick is
+ * dropped, so a slow consumer never blocks the quote feed. A single dispatcher thread takes the ticks from the queue in batches and adds
+ * them to the cached price histories (which are thread-safe). The stocks are part of the configuration, which is only accessed on the
+ * Event Dispatch Thread, so the collected ticks are handed over to the EDT (at most a few times per second), which updates the stocks and
+ * screen results and then notifies the UI.
+ *
+ * @author Oscar Stigter
+ */
+public class QuoteStreamService implements QuoteListener {
+
+    /** Maximum number of queued ticks. */
+    private static final int QUEUE_CAPACITY = 1024;
+
+    /** Minimum interval between stock (and UI) updates in milliseconds. */
+    private static final long UPDATE_INTERVAL = 500L;
+
+    private static final Logger LOGGER = LogManager.getLogger(QuoteStreamService.class);
+
+    private final Configuration config = Configuration.getInstance();
+
+    private final HistoryCache historyCache = HistoryCache.getInstance();
+
+    private final ScreeningService screeningService = ScreeningService.getInstance();
+
+    private final QuoteDownloader downloader;
+
+    private final Runnable updateCallback;
+
+    private final BlockingQueue<LiveQuote> queue = new ArrayBlockingQueue<LiveQuote>(QUEUE_CAPACITY);
+
+    private final AtomicLong droppedTicks = new AtomicLong();
+
+    private final Set<String> symbols = new HashSet<String>();
+
+    private Thread dispatcher;
+
+    /**
+     * Constructor.
+     *
+     * @param downloader
+     *            The quote downloader to subscribe to.
+     * @param updateCallback
+     *            The callback to run on the Event Dispatch Thread after stocks have been updated, or {@code null} for none.
+     */
+    public QuoteStreamService(QuoteDownloader downloader, Runnable updateCallback) {
+        this.downloader = downloader;
+        this.updateCallback = updateCallback;
+    }
+
+    /**
+     * Starts streaming the quotes of a set of stocks (replacing any previous set).
+     *
+     * @param stocks
+     *            The stocks.
+     */
+    public synchronized void start(Set<Stock> stocks) {
+        stop();
+
+        dispatcher = new Thread("QuoteDispatcher") {
+            @Override
+            public void run() {
+                dispatch();
+            }
+        };
+        dispatcher.setDaemon(true);
+        dispatcher.start();
+
+        for (Stock stock : stocks) {
+            symbols.add(stock.getSymbol());
+            downloader.subscribe(stock.getSymbol(), this);
+        }
+        LOGGER.info(String.format("Streaming quotes for %d stocks from %s", symbols.size(), downloader.getName()));
+    }
+
+    /**
+     * Stops streaming quotes.
+     */
+    public synchronized void stop() {
+        if (dispatcher != null) {
+            for (String symbol : symbols) {
+                downloader.unsubscribe(symbol, this);
+            }
+            symbols.clear();
+            dispatcher.interrupt();
+            dispatcher = null;
+            queue.clear();
+            LOGGER.info(String.format("Stopped streaming quotes (%d ticks dropped)", droppedTicks.getAndSet(0L)));
+        }
+    }
+
+    public synchronized boolean isRunning() {
+        return dispatcher != null;
+    }
+
+    @Override
+    public void quoteReceived(LiveQuote quote) {
+        while (!queue.offer(quote)) {
+            if (queue.poll() != null) {
+                droppedTicks.incrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * Dispatches the queued ticks to the cached price histories and (on the Event Dispatch Thread) the stocks, until interrupted.
+     */
+    private void dispatch() {
+        List<LiveQuote> ticks = new ArrayList<LiveQuote>();
+        long lastUpdateTime = 0L;
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                LiveQuote quote = queue.poll(UPDATE_INTERVAL, TimeUnit.MILLISECONDS);
+                if (quote != null) {
+                    int offset = ticks.size();
+                    ticks.add(quote);
+                    queue.drainTo(ticks);
+                    for (int i = offset; i < ticks.size(); i++) {
+                        LiveQuote tick = ticks.get(i);
+                        historyCache.addPrice(tick.getSymbol(), tick.getTimestamp(), tick.getPrice().doubleValue());
+                    }
+                }
+
+                long now = System.currentTimeMillis();
+                if (!ticks.isEmpty() && now - lastUpdateTime >= UPDATE_INTERVAL) {
+                    final List<LiveQuote> batch = ticks;
+                    SwingUtilities.invokeLater(new Runnable() {
+                        @Override
+                        public void run() {
+                            updateStocks(batch);
+                        }
+                    });
+                    ticks = new ArrayList<LiveQuote>();
+                    lastUpdateTime = now;
+                }
+            }
+        } catch (InterruptedException e) {
+            // Stopped.
+        }
+    }
+
+    /**
+     * Updates the stocks with a batch of ticks (on the Event Dispatch Thread).
+     *
+     * @param batch
+     *            The ticks, in order of arrival.
+     */
+    private void updateStocks(List<LiveQuote> batch) {
+        boolean isUpdated = false;
+        for (LiveQuote tick : batch) {
+            Stock stock = config.getStock(tick.getSymbol());
+            if (stock != null && downloader.update(stock, tick)) {
+                screeningService.stockUpdated(stock);
+                isUpdated = true;
+            }
+        }
+        if (isUpdated && updateCallback != null) {
+            updateCallback.run();
+        }
+    }
+}
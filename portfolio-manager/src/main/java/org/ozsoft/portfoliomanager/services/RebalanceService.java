@@ -0,0 +1,170 @@
+// This file is part of the 'portfolio-manager' (Portfolio Manager)
+// project, an open source stock portfolio manager application
+// written in Java.
+//
+// Copyright 2015 Oscar Stigter
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.ozsoft.portfoliomanager.services;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.ozsoft.portfoliomanager.domain.Configuration;
+import org.ozsoft.portfoliomanager.domain.Portfolio;
+import org.ozsoft.portfoliomanager.domain.Position;
+import org.ozsoft.portfoliomanager.domain.RebalancePlan;
+import org.ozsoft.portfoliomanager.domain.Rebalancer;
+import org.ozsoft.portfoliomanager.domain.Stock;
+import org.ozsoft.portfoliomanager.domain.StockLevel;
+import org.ozsoft.portfoliomanager.domain.WeightRule;
+
+/**
+ * Service to rebalance the portfolio towards target weights for the owned and goal stocks, by deploying cash (see {@link Rebalancer}). <br />
+ * <br />
+ *
+ * A rebalancer can be created once and re-solved with the latest prices (e.g. with every price update).
+ *
+ * @author Oscar Stigter
+ */
+public class RebalanceService {
+
+    /** Number of shares per lot. */
+    private static final int LOT_SIZE = 1;
+
+    private static final Logger LOGGER = LogManager.getLogger(RebalanceService.class);
+
+    private final Configuration config;
+
+    public RebalanceService() {
+        config = Configuration.getInstance();
+    }
+
+    /**
+     * Creates a rebalancer for the owned and goal stocks, with their target weights based on a rule.
+     *
+     * @param rule
+     *            The weight rule.
+     *
+     * @return The rebalancer.
+     */
+    public Rebalancer createRebalancer(WeightRule rule) {
+        List<Stock> stocks = getStocks();
+        int noOfStocks = stocks.size();
+        String[] symbols = new String[noOfStocks];
+        double[] weights = new double[noOfStocks];
+        double totalWeight = 0.0;
+        for (int i = 0; i < noOfStocks; i++) {
+            Stock stock = stocks.get(i);
+            symbols[i] = stock.getSymbol();
+            weights[i] = (rule == WeightRule.INCOME) ? stock.getYield() : 1.0;
+            totalWeight += weights[i];
+        }
+        if (totalWeight <= 0.0) {
+            // No dividend yields known; fall back to equal weights.
+            for (int i = 0; i < noOfStocks; i++) {
+                weights[i] = 1.0;
+            }
+        }
+        return new Rebalancer(symbols, weights, LOT_SIZE);
+    }
+
+    /**
+     * Creates a rebalancer for the owned and goal stocks, with explicit target weights.
+     *
+     * @param targetWeights
+     *            The target weights by stock symbol (relative; stocks without target weight are not bought).
+     *
+     * @return The rebalancer.
+     */
+    public Rebalancer createRebalancer(Map<String, Double> targetWeights) {
+        List<Stock> stocks = getStocks();
+        int noOfStocks = stocks.size();
+        String[] symbols = new String[noOfStocks];
+        double[] weights = new double[noOfStocks];
+        for (int i = 0; i < noOfStocks; i++) {
+            symbols[i] = stocks.get(i).getSymbol();
+            Double weight = targetWeights.get(symbols[i]);
+            weights[i] = (weight != null) ? weight : 0.0;
+        }
+        return new Rebalancer(symbols, weights, LOT_SIZE);
+    }
+
+    /**
+     * Calculates the shares to buy to rebalance the portfolio based on a rule, deploying cash.
+     *
+     * @param rule
+     *            The weight rule.
+     * @param cash
+     *            The cash to deploy.
+     *
+     * @return The plan.
+     */
+    public RebalancePlan plan(WeightRule rule, double cash) {
+        return plan(createRebalancer(rule), cash);
+    }
+
+    /**
+     * Calculates the shares to buy with an existing rebalancer, based on the current stock prices and positions.
+     *
+     * @param rebalancer
+     *            The rebalancer.
+     * @param cash
+     *            The cash to deploy.
+     *
+     * @return The plan.
+     */
+    public RebalancePlan plan(Rebalancer rebalancer, double cash) {
+        Portfolio portfolio = config.getPortfolio();
+        int noOfStocks = rebalancer.getNoOfStocks();
+        double[] prices = new double[noOfStocks];
+        double[] values = new double[noOfStocks];
+        for (int i = 0; i < noOfStocks; i++) {
+            Stock stock = config.getStock(rebalancer.getSymbol(i));
+            if (stock != null) {
+                prices[i] = stock.getPrice().doubleValue();
+                Position position = portfolio.getPosition(stock);
+                if (position != null) {
+                    values[i] = position.getCurrentValue().doubleValue();
+                }
+            }
+        }
+
+        long startTime = System.nanoTime();
+        RebalancePlan plan = rebalancer.solve(prices, values, cash);
+        LOGGER.debug(String.format("Rebalanced %d stocks in %,d us", noOfStocks, (System.nanoTime() - startTime) / 1000L));
+        return plan;
+    }
+
+    /**
+     * Returns the owned and goal stocks, sorted.
+     *
+     * @return The stocks.
+     */
+    private List<Stock> getStocks() {
+        Set<Stock> stocks = new TreeSet<Stock>();
+        for (Stock stock : config.getStocks()) {
+            StockLevel level = stock.getLevel();
+            if (level == StockLevel.GOAL || level == StockLevel.OWNED) {
+                stocks.add(stock);
+            }
+        }
+        return new ArrayList<Stock>(stocks);
+    }
+}
@@ -0,0 +1,108 @@
+// This file is part of the 'portfolio-manager' (Portfolio Manager)
+// project, an open source stock portfolio manager application
+// written in Java.
+//
+// Copyright 2015 Oscar Stigter
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.ozsoft.portfoliomanager.services;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.ozsoft.portfoliomanager.domain.Configuration;
+import org.ozsoft.portfoliomanager.domain.Position;
+import org.ozsoft.portfoliomanager.domain.PriceSeries;
+import org.ozsoft.portfoliomanager.domain.RiskAnalysis;
+import org.ozsoft.portfoliomanager.domain.Stock;
+
+/**
+ * Service to analyze the risk of the current positions (see {@link RiskAnalysis}).
+ *
+ * @author Oscar Stigter
+ */
+public class RiskService {
+
+    /** Default number of years of price history to base the risk on. */
+    public static final int DEFAULT_YEARS = 5;
+
+    /** Default confidence level of the VaR and CVaR. */
+    public static final double DEFAULT_CONFIDENCE = 0.95;
+
+    private static final long MILLISECONDS_PER_YEAR = 365L * 24L * 60L * 60L * 1000L;
+
+    private static final Logger LOGGER = LogManager.getLogger(RiskService.class);
+
+    private final Configuration config;
+
+    private final HistoryCache historyCache;
+
+    public RiskService() {
+        config = Configuration.getInstance();
+        historyCache = HistoryCache.getInstance();
+    }
+
+    /**
+     * Analyzes the risk of the current positions, based on the default number of years of price history and confidence level.
+     *
+     * @return The risk analysis.
+     */
+    public RiskAnalysis analyze() {
+        return analyze(DEFAULT_YEARS, DEFAULT_CONFIDENCE);
+    }
+
+    /**
+     * Analyzes the risk of the current positions.
+     *
+     * @param noOfYears
+     *            The number of years of price history to base the risk on.
+     * @param confidence
+     *            The confidence level of the VaR and CVaR (e.g. 0.95).
+     *
+     * @return The risk analysis.
+     */
+    public RiskAnalysis analyze(int noOfYears, double confidence) {
+        List<Position> positions = new ArrayList<Position>();
+        for (Position position : config.getPortfolio().getPositions()) {
+            if (position.getNoOfShares().signum() > 0) {
+                positions.add(position);
+            }
+        }
+
+        int noOfPositions = positions.size();
+        String[] symbols = new String[noOfPositions];
+        double[] values = new double[noOfPositions];
+        Map<String, PriceSeries> prices = new HashMap<String, PriceSeries>();
+        for (int i = 0; i < noOfPositions; i++) {
+            Position position = positions.get(i);
+            Stock stock = position.getStock();
+            symbols[i] = stock.getSymbol();
+            values[i] = position.getCurrentValue().doubleValue();
+            prices.put(stock.getSymbol(), historyCache.getPrices(stock));
+        }
+
+        long toDate = System.currentTimeMillis();
+        long fromDate = toDate - noOfYears * MILLISECONDS_PER_YEAR;
+        long startTime = System.currentTimeMillis();
+        RiskAnalysis risk = new RiskAnalysis(symbols, values, prices, fromDate, toDate, confidence);
+        long duration = System.currentTimeMillis() - startTime;
+        LOGGER.debug(String.format("Analyzed risk of %d positions over %,d daily returns in %,d ms", noOfPositions, risk.getNoOfReturns(),
+                duration));
+        return risk;
+    }
+}
@@ -0,0 +1,126 @@
+// This file is part of the 'portfolio-manager' (Portfolio Manager)
+// project, an open source stock portfolio manager application
+// written in Java.
+//
+// Copyright 2015 Oscar Stigter
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.ozsoft.portfoliomanager.services;
+
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import org.ozsoft.portfoliomanager.domain.MarketCalendar;
+import org.ozsoft.portfoliomanager.domain.Stock;
+import org.ozsoft.portfoliomanager.domain.StockLevel;
+
+/**
+ * Policy determining whether a stock's price is stale (needs to be updated). <br />
+ * <br />
+ *
+ * Each {@link StockLevel} has a staleness budget: the maximum age of the price while the market is open. While the market is closed, a
+ * price retrieved after the last close is final and never stale; a price retrieved before the last close is stale once it exceeds its
+ * budget. <br />
+ * <br />
+ *
+ * All stocks are assumed to be traded on a US exchange (see {@link MarketCalendar#US}).
+ *
+ * @author Oscar Stigter
+ */
+public class StalenessPolicy {
+
+    private static final long MINUTE = 60L * 1000L;
+
+    private final Map<StockLevel, Long> budgets = new EnumMap<StockLevel, Long>(StockLevel.class);
+
+    /**
+     * Constructor with the default staleness budgets.
+     */
+    public StalenessPolicy() {
+        budgets.put(StockLevel.OWNED, 5L * MINUTE);
+        budgets.put(StockLevel.GOAL, 15L * MINUTE);
+        budgets.put(StockLevel.WATCH, 30L * MINUTE);
+        budgets.put(StockLevel.BENCH, 24L * 60L * MINUTE);
+    }
+
+    /**
+     * Returns the staleness budget of a stock level.
+     *
+     * @param level
+     *            The stock level.
+     *
+     * @return The staleness budget in milliseconds.
+     */
+    public synchronized long getBudget(StockLevel level) {
+        return budgets.get(level);
+    }
+
+    /**
+     * Sets the staleness budget of a stock level.
+     *
+     * @param level
+     *            The stock level.
+     * @param budget
+     *            The staleness budget in milliseconds.
+     */
+    public synchronized void setBudget(StockLevel level, long budget) {
+        budgets.put(level, budget);
+    }
+
+    /**
+     * Returns whether the price of a stock is stale.
+     *
+     * @param stock
+     *            The stock.
+     * @param now
+     *            The current time as timestamp in milliseconds.
+     *
+     * @return True if stale, otherwise false.
+     */
+    public boolean isStale(Stock stock, long now) {
+        long lastUpdated = stock.getLastUpdated();
+        if (lastUpdated <= 0L) {
+            return true;
+        }
+        StockLevel level = (stock.getLevel() != null) ? stock.getLevel() : StockLevel.WATCH;
+        if (now - lastUpdated <= getBudget(level)) {
+            return false;
+        }
+        MarketCalendar calendar = MarketCalendar.US;
+        return calendar.isOpen(now) || lastUpdated < calendar.getLastClose(now);
+    }
+
+    /**
+     * Returns the stocks with a stale price.
+     *
+     * @param stocks
+     *            The stocks.
+     * @param now
+     *            The current time as timestamp in milliseconds.
+     *
+     * @return The stale stocks.
+     */
+    public Set<Stock> getStaleStocks(Collection<Stock> stocks, long now) {
+        Set<Stock> staleStocks = new HashSet<Stock>();
+        for (Stock stock : stocks) {
+            if (isStale(stock, now)) {
+                staleStocks.add(stock);
+            }
+        }
+        return staleStocks;
+    }
+}
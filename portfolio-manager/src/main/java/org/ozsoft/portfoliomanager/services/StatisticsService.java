@@ -0,0 +1,186 @@
+// This file is part of the 'portfolio-manager' (Portfolio Manager)
+// project, an open source stock portfolio manager application
+// written in Java.
+//
+// Copyright 2015 Oscar Stigter
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.ozsoft.portfoliomanager.services;
+
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.ozsoft.portfoliomanager.domain.Configuration;
+import org.ozsoft.portfoliomanager.domain.CostBasisSeries;
+import org.ozsoft.portfoliomanager.domain.PeriodStatistics;
+import org.ozsoft.portfoliomanager.domain.PeriodType;
+import org.ozsoft.portfoliomanager.domain.Portfolio;
+import org.ozsoft.portfoliomanager.domain.PortfolioStatistics;
+import org.ozsoft.portfoliomanager.domain.Position;
+import org.ozsoft.portfoliomanager.domain.Transaction;
+import org.ozsoft.portfoliomanager.domain.TransactionType;
+import org.ozsoft.portfoliomanager.util.DateUtils;
+
+/**
+ * Service for calculating portfolio statistics (costbase, income and total return) over time. <br />
+ * <br />
+ *
+ * Has no UI dependencies, so it can be used in a headless environment.
+ *
+ * @author Oscar Stigter
+ */
+public class StatisticsService {
+
+    private final Configuration config;
+
+    public StatisticsService() {
+        config = Configuration.getInstance();
+    }
+
+    /**
+     * Returns the current portfolio statistics, up to and including today.
+     *
+     * @return The portfolio statistics.
+     */
+    public PortfolioStatistics getStatistics() {
+        Portfolio portfolio = config.getPortfolio();
+        return calculate(config.getTransactions(), portfolio.getTotalIncome().doubleValue(), portfolio.getTotalReturn().doubleValue(),
+                new Date().getTime());
+    }
+
+    /**
+     * Returns the current money-weighted, annualized return (XIRR) of the portfolio.
+     *
+     * @return The annualized return percentage, or {@code Double.NaN} if not defined.
+     */
+    public double getAnnualizedReturn() {
+        return config.getPortfolio().getAnnualizedReturn();
+    }
+
+    /**
+     * Returns the current money-weighted, annualized return (XIRR) of each position.
+     *
+     * @return The annualized return percentages by stock symbol, sorted by symbol ({@code Double.NaN} if not defined).
+     */
+    public Map<String, Double> getAnnualizedReturns() {
+        Map<String, Double> returns = new TreeMap<String, Double>();
+        for (Position position : config.getPortfolio().getPositions()) {
+            returns.put(position.getStock().getSymbol(), position.getAnnualizedReturn());
+        }
+        return returns;
+    }
+
+    /**
+     * Calculates the portfolio statistics based on a set of transactions. <br />
+     * <br />
+     *
+     * Does not depend on the application's configuration.
+     *
+     * @param transactions
+     *            The transactions (in any order).
+     * @param totalIncome
+     *            The total received income.
+     * @param totalReturn
+     *            The total return.
+     * @param endDate
+     *            The end date as timestamp in milliseconds.
+     *
+     * @return The portfolio statistics.
+     */
+    public static PortfolioStatistics calculate(List<Transaction> transactions, double totalIncome, double totalReturn, long endDate) {
+        CostBasisSeries costBasis = CostBasisSeries.build(transactions, endDate);
+
+        List<PeriodStatistics> months = new ArrayList<PeriodStatistics>();
+        List<PeriodStatistics> quarters = new ArrayList<PeriodStatistics>();
+        List<PeriodStatistics> years = new ArrayList<PeriodStatistics>();
+        int noOfDays = costBasis.getNoOfDays();
+        if (noOfDays > 0) {
+            double[] incomePrefixSums = getIncomePrefixSums(transactions, costBasis.getFirstDay(), noOfDays);
+            addPeriods(PeriodType.MONTH, costBasis, incomePrefixSums, months);
+            addPeriods(PeriodType.QUARTER, costBasis, incomePrefixSums, quarters);
+            addPeriods(PeriodType.YEAR, costBasis, incomePrefixSums, years);
+        }
+
+        return new PortfolioStatistics(months, quarters, years, costBasis, totalIncome, totalReturn);
+    }
+
+    /**
+     * Returns the prefix sums of the daily received income (dividend payments minus costs).
+     *
+     * @param transactions
+     *            The transactions.
+     * @param firstDay
+     *            The first day number.
+     * @param noOfDays
+     *            The number of days.
+     *
+     * @return The prefix sums; element i holds the income received during the first i days.
+     */
+    private static double[] getIncomePrefixSums(List<Transaction> transactions, int firstDay, int noOfDays) {
+        double[] prefixSums = new double[noOfDays + 1];
+        for (Transaction tx : transactions) {
+            if (tx.getType() == TransactionType.DIVIDEND) {
+                int index = DateUtils.toDay(tx.getDate()) - firstDay;
+                if (index >= 0 && index < noOfDays) {
+                    prefixSums[index + 1] += tx.getNoOfShares().doubleValue() * tx.getPrice().doubleValue() - tx.getCost().doubleValue();
+                }
+            }
+        }
+        for (int i = 1; i <= noOfDays; i++) {
+            prefixSums[i] += prefixSums[i - 1];
+        }
+        return prefixSums;
+    }
+
+    /**
+     * Adds the statistics of all calendar periods of a specific type overlapping with the costbase series.
+     *
+     * @param type
+     *            The period type.
+     * @param costBasis
+     *            The costbase series.
+     * @param incomePrefixSums
+     *            The prefix sums of the daily income.
+     * @param periods
+     *            The list to add the period statistics to.
+     */
+    private static void addPeriods(PeriodType type, CostBasisSeries costBasis, double[] incomePrefixSums, List<PeriodStatistics> periods) {
+        int firstDay = costBasis.getFirstDay();
+        int lastDay = costBasis.getLastDay();
+        int noOfMonths = type.getNoOfMonths();
+
+        // Start at the beginning of the period containing the first day.
+        Calendar cal = Calendar.getInstance();
+        cal.setTimeInMillis(DateUtils.toTimestamp(firstDay));
+        cal.set(Calendar.MONTH, cal.get(Calendar.MONTH) / noOfMonths * noOfMonths);
+        cal.set(Calendar.DAY_OF_MONTH, 1);
+
+        int periodStart = DateUtils.toDay(cal.getTimeInMillis());
+        while (periodStart <= lastDay) {
+            int year = cal.get(Calendar.YEAR);
+            int number = 1 + cal.get(Calendar.MONTH) / noOfMonths;
+            cal.add(Calendar.MONTH, noOfMonths);
+            int nextPeriodStart = DateUtils.toDay(cal.getTimeInMillis());
+            int fromDay = Math.max(periodStart, firstDay);
+            int toDay = Math.min(nextPeriodStart - 1, lastDay);
+            double income = incomePrefixSums[toDay - firstDay + 1] - incomePrefixSums[fromDay - firstDay];
+            periods.add(new PeriodStatistics(type, year, number, fromDay, toDay, costBasis.getAverageCost(fromDay, toDay), income));
+            periodStart = nextPeriodStart;
+        }
+    }
+}
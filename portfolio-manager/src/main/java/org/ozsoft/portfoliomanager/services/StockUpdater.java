@@ -18,65 +18,53 @@
 
 package org.ozsoft.portfoliomanager.services;
 
+import java.util.concurrent.Callable;
+
 import org.ozsoft.portfoliomanager.domain.Stock;
 import org.ozsoft.portfoliomanager.services.downloader.QuoteDownloader;
-import org.ozsoft.portfoliomanager.services.downloader.YahooFinanceQuoteDownloader;
-import org.ozsoft.portfoliomanager.util.HttpPageReader;
 
 /**
- * Thread that updates a single stock. <br />
+ * Task that updates the price of a single stock, to be executed by a (bounded) thread pool. <br />
  * <br />
  *
- * Gets the current stock quote from the MarketWatch and Morningstar's value rating.
+ * Throttling and retries are handled by the quote downloader; if the quote could still not be retrieved, the task fails with the last
+ * {@link java.io.IOException}.
  *
  * @author Oscar Stigter
  */
-public class StockUpdater extends Thread {
+public class StockUpdater implements Callable<Boolean> {
 
     private final Stock stock;
 
     private final QuoteDownloader downloader;
 
-    private boolean isFinished = false;
-
-    private boolean isUpdated = false;
-
     /**
      * Constructor.
      *
      * @param stock
-     *                           The stock.
-     * @param httpPageReader
-     *                           The {@link HttpPageReader} (possibly shared).
+     *                       The stock.
+     * @param downloader
+     *                       The (shared) quote downloader.
      */
-    public StockUpdater(Stock stock, HttpPageReader httpPageReader) {
+    public StockUpdater(Stock stock, QuoteDownloader downloader) {
         this.stock = stock;
-
-        // TODO: Automatic failover to other quote downloaders.
-        downloader = new YahooFinanceQuoteDownloader();
+        this.downloader = downloader;
     }
 
-    /**
-     * Returns wheher the update operation has finished.
-     *
-     * @return {@code true} if finished, otherwise {@code false}.
-     */
-    public boolean isFinished() {
-        return isFinished;
+    public Stock getStock() {
+        return stock;
     }
 
     /**
-     * Returns whether the stock was updated (based on it's current price).
+     * Updates the stock.
+     *
+     * @return {@code true} if the stock was updated (price changed), otherwise {@code false}.
      *
-     * @return {@code true} if updated, otherwise {@code false}.
+     * @throws Exception
+     *                       If the quote could not be retrieved.
      */
-    public boolean isUpdated() {
-        return isUpdated;
-    }
-
     @Override
-    public void run() {
-        isUpdated = downloader.updateStock(stock);
-        isFinished = true;
+    public Boolean call() throws Exception {
+        return downloader.update(stock, downloader.fetchQuote(stock));
     }
 }
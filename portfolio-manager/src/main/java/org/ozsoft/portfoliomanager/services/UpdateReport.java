@@ -0,0 +1,91 @@
+// This file is part of the 'portfolio-manager' (Portfolio Manager)
+// project, an open source stock portfolio manager application
+// written in Java.
+//
+// Copyright 2015 Oscar Stigter
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.ozsoft.portfoliomanager.services;
+
+import java.util.Collections;
+import java.util.Set;
+
+/**
+ * Report of a stock price update sweep.
+ *
+ * @author Oscar Stigter
+ */
+public class UpdateReport {
+
+    private final int noOfStocks;
+
+    private final int noOfUpdatedStocks;
+
+    private final Set<String> failedSymbols;
+
+    private final long duration;
+
+    /**
+     * Constructor.
+     *
+     * @param noOfStocks
+     *            The number of stocks to update.
+     * @param noOfUpdatedStocks
+     *            The number of updated stocks (price changed).
+     * @param failedSymbols
+     *            The symbols of the stocks that could not be updated, sorted.
+     * @param duration
+     *            The duration in milliseconds.
+     */
+    public UpdateReport(int noOfStocks, int noOfUpdatedStocks, Set<String> failedSymbols, long duration) {
+        this.noOfStocks = noOfStocks;
+        this.noOfUpdatedStocks = noOfUpdatedStocks;
+        this.failedSymbols = Collections.unmodifiableSet(failedSymbols);
+        this.duration = duration;
+    }
+
+    public int getNoOfStocks() {
+        return noOfStocks;
+    }
+
+    public int getNoOfUpdatedStocks() {
+        return noOfUpdatedStocks;
+    }
+
+    public Set<String> getFailedSymbols() {
+        return failedSymbols;
+    }
+
+    public long getDuration() {
+        return duration;
+    }
+
+    /**
+     * Returns a short, human-readable summary (e.g. for the status bar).
+     *
+     * @return The summary.
+     */
+    public String getMessage() {
+        if (failedSymbols.isEmpty()) {
+            return String.format("%d stocks updated.", noOfUpdatedStocks);
+        } else {
+            return String.format("%d stocks updated, %d failed: %s", noOfUpdatedStocks, failedSymbols.size(), String.join(", ", failedSymbols));
+        }
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d of %d stocks updated, %d failed (%,d ms)", noOfUpdatedStocks, noOfStocks, failedSymbols.size(), duration);
+    }
+}
@@ -0,0 +1,131 @@
+// This file is part of the 'portfolio-manager' (Portfolio Manager)
+// project, an open source stock portfolio manager application
+// written in Java.
+//
+// Copyright 2015 Oscar Stigter
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.ozsoft.portfoliomanager.services;
+
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.ozsoft.portfoliomanager.domain.Configuration;
+import org.ozsoft.portfoliomanager.domain.Stock;
+
+/**
+ * Scheduler periodically updating the prices of stale stocks only (see {@link StalenessPolicy}). <br />
+ * <br />
+ *
+ * Outside market hours, virtually no stock is stale, so hardly any requests are sent.
+ *
+ * @author Oscar Stigter
+ */
+public class UpdateScheduler {
+
+    /** Default interval between staleness checks in milliseconds. */
+    private static final long DEFAULT_CHECK_INTERVAL = 60L * 1000L; // 1 minute
+
+    private static final Logger LOGGER = LogManager.getLogger(UpdateScheduler.class);
+
+    private final Configuration config = Configuration.getInstance();
+
+    private final UpdateService updateService;
+
+    private final long checkInterval;
+
+    private ScheduledExecutorService executor;
+
+    /**
+     * Constructor with the default check interval.
+     *
+     * @param updateService
+     *            The update service.
+     */
+    public UpdateScheduler(UpdateService updateService) {
+        this(updateService, DEFAULT_CHECK_INTERVAL);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param updateService
+     *            The update service.
+     * @param checkInterval
+     *            The interval between staleness checks in milliseconds.
+     */
+    public UpdateScheduler(UpdateService updateService, long checkInterval) {
+        this.updateService = updateService;
+        this.checkInterval = checkInterval;
+    }
+
+    /**
+     * Starts the scheduler.
+     */
+    public synchronized void start() {
+        if (executor == null) {
+            executor = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+                @Override
+                public Thread newThread(Runnable r) {
+                    Thread thread = new Thread(r, "UpdateScheduler");
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+            executor.scheduleWithFixedDelay(new Runnable() {
+                @Override
+                public void run() {
+                    updateStaleStocks();
+                }
+            }, 0L, checkInterval, TimeUnit.MILLISECONDS);
+            LOGGER.info(String.format("Update scheduler started (checking every %,d ms)", checkInterval));
+        }
+    }
+
+    /**
+     * Stops the scheduler.
+     */
+    public synchronized void stop() {
+        if (executor != null) {
+            executor.shutdownNow();
+            executor = null;
+            LOGGER.info("Update scheduler stopped");
+        }
+    }
+
+    /**
+     * Updates the prices of all stale stocks.
+     *
+     * @return The update report, or {@code null} if no stock was stale.
+     */
+    public UpdateReport updateStaleStocks() {
+        try {
+            Set<Stock> staleStocks = updateService.getStalenessPolicy().getStaleStocks(config.getStocks(), System.currentTimeMillis());
+            if (staleStocks.isEmpty()) {
+                LOGGER.trace("No stale stocks");
+                return null;
+            }
+            return updateService.updatePrices(staleStocks);
+        } catch (RuntimeException e) {
+            // Keep the scheduler running.
+            LOGGER.error("Failed to update stale stocks", e);
+            return null;
+        }
+    }
+}
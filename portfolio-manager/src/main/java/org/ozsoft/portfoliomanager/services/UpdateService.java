@@ -18,29 +18,27 @@
 
 package org.ozsoft.portfoliomanager.services;
 
-import java.io.BufferedOutputStream;
 import java.io.File;
-import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.InputStream;
-import java.io.OutputStream;
-import java.math.BigDecimal;
-import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
-import org.apache.commons.io.IOUtils;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
-import org.apache.poi.EncryptedDocumentException;
-import org.apache.poi.openxml4j.exceptions.InvalidFormatException;
-import org.apache.poi.ss.usermodel.Cell;
-import org.apache.poi.ss.usermodel.Row;
-import org.apache.poi.ss.usermodel.Sheet;
-import org.apache.poi.ss.usermodel.Workbook;
-import org.apache.poi.ss.usermodel.WorkbookFactory;
-import org.apache.poi.ss.util.CellReference;
 import org.ozsoft.portfoliomanager.domain.Configuration;
+import org.ozsoft.portfoliomanager.domain.DividendStatistics;
 import org.ozsoft.portfoliomanager.domain.Stock;
+import org.ozsoft.portfoliomanager.metrics.MetricsRegistry;
+import org.ozsoft.portfoliomanager.services.downloader.CompositeQuoteDownloader;
+import org.ozsoft.portfoliomanager.services.downloader.QuoteDownloader;
+import org.ozsoft.portfoliomanager.services.downloader.YahooFinanceQuoteDownloader;
+import org.ozsoft.portfoliomanager.services.screening.ScreeningService;
 import org.ozsoft.portfoliomanager.util.HttpPageReader;
 
 /**
@@ -52,36 +50,59 @@ public class UpdateService {
 
     private static final String CCC_LIST_URI = "https://www.dripinvesting.org/Tools/U.S.DividendChampions.xlsx";
 
-    private static final String SHEET_NAME = "All CCC";
+    /** Maximum number of threads to update stock prices with (actual concurrency is limited by the quote source's throttle). */
+    private static final int MAX_THREADS = 16;
 
-    private static final int HEADER_ROWS = 5;
-
-    private static final int SYMBOL_COLUMN_INDEX = CellReference.convertColStringToIndex("B");
-
-    private static final int YEARS_GROWTH_COLUMN_INDEX = CellReference.convertColStringToIndex("E");
+    private static final Logger LOGGER = LogManager.getLogger(UpdateService.class);
 
-    private static final int DIV_RATE_COLUMN_INDEX = CellReference.convertColStringToIndex("M");
+    /** Quote downloader with failover, shared by all instances so the providers' throttles apply to all requests. */
+    private static final QuoteDownloader DOWNLOADER = new CompositeQuoteDownloader(true,
+            new YahooFinanceQuoteDownloader(HttpPageReader.getDefault()));
 
-    private static final int DIV_GROWTH_1Y_COLUMN_INDEX = CellReference.convertColStringToIndex("S");
+    private final Configuration config = Configuration.getInstance();
 
-    private static final int DIV_GROWTH_3Y_COLUMN_INDEX = CellReference.convertColStringToIndex("T");
+    private final HttpPageReader httpPageReader = HttpPageReader.getDefault();
 
-    private static final int DIV_GROWTH_5Y_COLUMN_INDEX = CellReference.convertColStringToIndex("U");
+    private final CCCListIndex cccListIndex = new CCCListIndex(config.getCCCIndexFile());
 
-    private static final BigDecimal MINUS_ONE = new BigDecimal("-1.0");
+    private final StalenessPolicy stalenessPolicy = new StalenessPolicy();
 
-    private static final Logger LOGGER = LogManager.getLogger(UpdateService.class);
+    /**
+     * Returns the shared quote downloader, used by all instances.
+     *
+     * @return The shared quote downloader.
+     */
+    public static QuoteDownloader getDefaultQuoteDownloader() {
+        return DOWNLOADER;
+    }
 
-    private final Configuration config = Configuration.getInstance();
+    /**
+     * Returns the (shared) quote downloader.
+     *
+     * @return The quote downloader.
+     */
+    public QuoteDownloader getQuoteDownloader() {
+        return DOWNLOADER;
+    }
 
-    private final HttpPageReader httpPageReader = new HttpPageReader();
+    /**
+     * Returns the staleness policy determining which stock prices need to be updated.
+     *
+     * @return The staleness policy.
+     */
+    public StalenessPolicy getStalenessPolicy() {
+        return stalenessPolicy;
+    }
 
     /**
-     * Updates all stock data.
+     * Updates all stock data. <br />
+     * <br />
+     *
+     * Only the prices of stale stocks are updated, based on the staleness policy.
      *
-     * @return The number of updated stocks.
+     * @return The update report.
      */
-    public int updateAllStockData() {
+    public UpdateReport updateAllStockData() {
         updateStatistics();
         return updateAllPrices();
     }
@@ -95,18 +116,7 @@ public class UpdateService {
      * @return True if the stock was updated (price changed), otherwise false.
      */
     public boolean updatePrice(Stock stock) {
-        boolean isUpdated = false;
-
-        StockUpdater stockUpdater = new StockUpdater(stock, httpPageReader);
-        stockUpdater.start();
-        try {
-            stockUpdater.join();
-            isUpdated = stockUpdater.isUpdated();
-        } catch (InterruptedException e) {
-            // Safe to ignore.
-        }
-
-        return isUpdated;
+        return DOWNLOADER.updateStock(stock);
     }
 
     /**
@@ -116,151 +126,109 @@ public class UpdateService {
      * Checks for a newer version of the CCC list and updates the stocks only if present. <br />
      * <br />
      *
-     * Uses the Apache POI framework to parse the Excel sheet.
+     * The Excel sheet is parsed with a streaming reader, and the parsed result is cached in a compact index file, so the sheet is only parsed
+     * once per version.
      */
     private void updateStatistics() {
-        // Download CCC list if missing or newer available
+        // Download CCC list if missing or newer available (conditional request)
         File cccListFile = config.getCCCListFile();
-        long localTimestamp = (cccListFile.exists()) ? cccListFile.lastModified() : 0L;
         try {
-            long remoteTimestamp = httpPageReader.getFileLastModified(CCC_LIST_URI);
-            if (remoteTimestamp > localTimestamp) {
-                downloadCCCList(cccListFile);
+            if (httpPageReader.downloadFile(CCC_LIST_URI, cccListFile)) {
+                LOGGER.debug("Downloaded latest version of the CCC list");
             }
+        } catch (IOException e) {
+            LOGGER.error("Failed to download CCC list", e);
+        }
 
-            // Update stock statistics from CCC list
+        // Update stock statistics from CCC list
+        if (cccListFile.isFile()) {
             try {
-                Workbook workbook = WorkbookFactory.create(cccListFile);
-                Sheet sheet = workbook.getSheet(SHEET_NAME);
+                Map<String, DividendStatistics> statistics = cccListIndex.getStatistics(cccListFile);
                 int count = 0;
-                for (Row row : sheet) {
-                    if (row.getRowNum() > HEADER_ROWS) {
-                        Cell cell = row.getCell(SYMBOL_COLUMN_INDEX);
-                        if (cell != null && cell.getCellType() == Cell.CELL_TYPE_STRING) {
-                            String symbol = cell.getStringCellValue();
-                            int yearsDivGrowth = (int) Math.floor(row.getCell(YEARS_GROWTH_COLUMN_INDEX).getNumericCellValue());
-                            BigDecimal divRate = getExcelCellValue(row.getCell(DIV_RATE_COLUMN_INDEX)).setScale(2, BigDecimal.ROUND_HALF_UP);
-                            BigDecimal divGrowth = getExcelCellValue(row.getCell(DIV_GROWTH_5Y_COLUMN_INDEX));
-                            if (divGrowth == MINUS_ONE) {
-                                divGrowth = getExcelCellValue(row.getCell(DIV_GROWTH_3Y_COLUMN_INDEX));
-                                if (divGrowth == MINUS_ONE) {
-                                    divGrowth = getExcelCellValue(row.getCell(DIV_GROWTH_1Y_COLUMN_INDEX));
-                                }
-                            }
-                            divGrowth = divGrowth.setScale(2, BigDecimal.ROUND_HALF_UP);
-                            Stock stock = config.getStock(symbol);
-                            if (stock != null) {
-                                stock.setYearsDivGrowth(yearsDivGrowth);
-                                stock.setDivRate(divRate);
-                                stock.setDivGrowth(divGrowth);
-                                count++;
-                            }
-                        }
+                for (Stock stock : config.getStocks()) {
+                    DividendStatistics stats = statistics.get(stock.getSymbol());
+                    if (stats != null) {
+                        stats.apply(stock);
+                        count++;
                     }
                 }
                 LOGGER.info(String.format("Statistics updated for %d stocks", count));
 
-            } catch (EncryptedDocumentException | InvalidFormatException | IOException e) {
+            } catch (IOException e) {
                 LOGGER.error("Failed to process CCC list", e);
             }
-        } catch (IOException e) {
-            LOGGER.error("Failed to download CCC list", e);
-        }
-    }
-
-    /**
-     * Returns the numerical value of an Excel sheet cell, or -1.0 if not a valid number (e.g. "n/a").
-     *
-     * @param cell
-     *                 The cell.
-     *
-     * @return The numerical value.
-     */
-    private static BigDecimal getExcelCellValue(Cell cell) {
-        BigDecimal value = MINUS_ONE;
-
-        if (cell != null) {
-            try {
-                if (cell.getCellType() == Cell.CELL_TYPE_NUMERIC || cell.getCellType() == Cell.CELL_TYPE_FORMULA) {
-                    return new BigDecimal(cell.getNumericCellValue());
-                }
-            } catch (Exception e) {
-                // Interpret as "n/a"
-            }
-        }
-
-        return value;
-    }
-
-    /**
-     * Downloads the latest version of David Fish' CCC list (Excel sheet).
-     *
-     * @param file
-     *                 The local CCC list file.
-     */
-    private void downloadCCCList(File file) {
-        LOGGER.debug("Downloading latest version of the CCC list");
-        InputStream is = null;
-        OutputStream os = null;
-        try {
-            is = httpPageReader.downloadFile(CCC_LIST_URI);
-            os = new BufferedOutputStream(new FileOutputStream(file));
-            IOUtils.copy(is, os);
-            IOUtils.closeQuietly(os);
-            IOUtils.closeQuietly(is);
-        } catch (IOException e) {
-            LOGGER.error("Failed to download CCC list", e);
-            file.delete();
-        } finally {
-            IOUtils.closeQuietly(os);
-            IOUtils.closeQuietly(is);
         }
     }
 
     /**
-     * Updates all stock prices.
+     * Updates the prices of all stale stocks.
      *
-     * @return The number of updated stocks.
+     * @return The update report.
      */
-    private int updateAllPrices() {
-        return updatePrices(config.getStocks());
+    private UpdateReport updateAllPrices() {
+        Set<Stock> stocks = config.getStocks();
+        Set<Stock> staleStocks = stalenessPolicy.getStaleStocks(stocks, System.currentTimeMillis());
+        LOGGER.debug(String.format("%d of %d stocks are stale", staleStocks.size(), stocks.size()));
+        return updatePrices(staleStocks);
     }
 
     /**
      * Updates real-time prices for the specified stocks. <br />
      * <br />
-     * Every stock is updated by its own {@see StockUpdater} thread for maximum performance (less total duration, at the cost of a large CPU and
-     * network I/O burst).
+     *
+     * The stocks are updated by a bounded thread pool, with the request rate and concurrency adaptively throttled by the quote downloader, so
+     * throughput is maximized without tripping the quote source's rate limiting. Failed requests are retried with exponential backoff.
      *
      * @param stocks
      *                   The stocks to update.
      *
-     * @return The number of updated stocks.
+     * @return The update report, including the symbols of the stocks that could not be updated.
      */
-    public int updatePrices(Set<Stock> stocks) {
+    public UpdateReport updatePrices(Set<Stock> stocks) {
         LOGGER.debug(String.format("Updating %d stock prices", stocks.size()));
+        long startTime = System.currentTimeMillis();
 
-        Set<StockUpdater> updaters = new HashSet<StockUpdater>();
-        for (Stock stock : stocks) {
-            StockUpdater updater = new StockUpdater(stock, httpPageReader);
-            updaters.add(updater);
-            updater.start();
+        Map<Stock, Future<Boolean>> results = new LinkedHashMap<Stock, Future<Boolean>>();
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, Math.min(MAX_THREADS, stocks.size())));
+        try {
+            for (Stock stock : stocks) {
+                results.put(stock, executor.submit(new StockUpdater(stock, DOWNLOADER)));
+            }
+        } finally {
+            executor.shutdown();
         }
 
         int updatedCount = 0;
-        for (StockUpdater updater : updaters) {
+        Set<String> failedSymbols = new TreeSet<String>();
+        for (Map.Entry<Stock, Future<Boolean>> result : results.entrySet()) {
+            Stock stock = result.getKey();
             try {
-                updater.join();
-                if (updater.isUpdated()) {
+                if (result.getValue().get()) {
                     updatedCount++;
                 }
+            } catch (ExecutionException e) {
+                LOGGER.warn(String.format("Failed to update %s: %s", stock, e.getCause().getMessage()));
+                failedSymbols.add(stock.getSymbol());
             } catch (InterruptedException e) {
-                // Safe to ignore.
+                executor.shutdownNow();
+                Thread.currentThread().interrupt();
+                failedSymbols.add(stock.getSymbol());
             }
         }
 
-        LOGGER.info(String.format("%s stocks updated", updatedCount));
+        ScreeningService.getInstance().refresh(config.getStocks());
+
+        long duration = System.currentTimeMillis() - startTime;
+        MetricsRegistry metrics = MetricsRegistry.getInstance();
+        metrics.getHistogram("update.duration").record(duration * 1000000L);
+        metrics.getCounter("update.stocks.updated").add(updatedCount);
+        metrics.getCounter("update.stocks.failed").add(failedSymbols.size());
+        UpdateReport report = new UpdateReport(stocks.size(), updatedCount, failedSymbols, duration);
+        LOGGER.info(report);
+        if (!failedSymbols.isEmpty()) {
+            LOGGER.warn("Failed to update stocks: " + String.join(", ", failedSymbols));
+        }
 
-        return updatedCount;
+        return report;
     }
 }
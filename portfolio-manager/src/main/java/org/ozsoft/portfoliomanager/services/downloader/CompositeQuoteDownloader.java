@@ -0,0 +1,391 @@
+// This file is part of the 'portfolio-manager' (Portfolio Manager)
+// project, an open source stock portfolio manager application
+// written in Java.
+//
+// Copyright 2015 Oscar Stigter
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.ozsoft.portfoliomanager.services.downloader;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.ozsoft.portfoliomanager.domain.Quote;
+import org.ozsoft.portfoliomanager.domain.Stock;
+
+/**
+ * Quote downloader delegating to multiple providers (other quote downloaders), with automatic failover. <br />
+ * <br />
+ *
+ * A health score (exponentially weighted success rate) and the latencies of the most recent successful requests are kept per provider.
+ * Requests are sent to the healthiest provider first, and fail over to the next provider if it fails. <br />
+ * <br />
+ *
+ * Optionally, requests are hedged: if the first provider has not responded within its 95th percentile latency, the same request is also
+ * sent to the next provider, and the first successful response is used. This cuts the tail latency caused by a few slow requests, at the cost
+ * of a small number of extra requests.
+ *
+ * @author Oscar Stigter
+ */
+public class CompositeQuoteDownloader extends QuoteDownloader {
+
+    /** Weight of the latest result in the health score. */
+    private static final double HEALTH_WEIGHT = 0.2;
+
+    /** Number of latency samples kept per provider. */
+    private static final int LATENCY_SAMPLES = 128;
+
+    /** Minimum number of latency samples before requests are hedged. */
+    private static final int MIN_HEDGE_SAMPLES = 20;
+
+    /** Latency percentile after which requests are hedged. */
+    private static final double HEDGE_PERCENTILE = 0.95;
+
+    private static final Logger LOGGER = LogManager.getLogger(CompositeQuoteDownloader.class);
+
+    private final List<Provider> providers;
+
+    private final boolean isHedging;
+
+    private final ExecutorService executor;
+
+    /**
+     * Constructor.
+     *
+     * @param isHedging
+     *            Whether to send hedged requests.
+     * @param downloaders
+     *            The providers, in order of preference (in case of equal health).
+     */
+    public CompositeQuoteDownloader(boolean isHedging, QuoteDownloader... downloaders) {
+        super(null);
+        if (downloaders.length == 0) {
+            throw new IllegalArgumentException("No providers");
+        }
+        providers = new ArrayList<Provider>(downloaders.length);
+        for (QuoteDownloader downloader : downloaders) {
+            providers.add(new Provider(downloader));
+        }
+        this.isHedging = isHedging;
+        executor = isHedging ? Executors.newCachedThreadPool(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, "HedgedQuoteRequest");
+                thread.setDaemon(true);
+                return thread;
+            }
+        }) : null;
+    }
+
+    @Override
+    public String getName() {
+        StringBuilder sb = new StringBuilder();
+        for (Provider provider : providers) {
+            if (sb.length() > 0) {
+                sb.append('|');
+            }
+            sb.append(provider.downloader.getName());
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Returns the health score of a provider.
+     *
+     * @param downloader
+     *            The provider.
+     *
+     * @return The health score, between 0.0 (always failing) and 1.0 (always successful).
+     */
+    public double getHealth(QuoteDownloader downloader) {
+        return getProvider(downloader).getHealth();
+    }
+
+    /**
+     * Returns a latency percentile of a provider, based on its most recent successful requests.
+     *
+     * @param downloader
+     *            The provider.
+     * @param percentile
+     *            The percentile (between 0.0 and 1.0).
+     *
+     * @return The latency in milliseconds, or -1 if no requests were successful yet.
+     */
+    public long getLatency(QuoteDownloader downloader, double percentile) {
+        return getProvider(downloader).getLatency(percentile);
+    }
+
+    @Override
+    protected LiveQuote getQuote(String symbol) throws IOException {
+        return fetchQuote(new Stock(symbol, symbol));
+    }
+
+    /**
+     * Retrieves the current quote of a stock from the healthiest provider, failing over to the other providers. <br />
+     * <br />
+     *
+     * Throttling and retries are handled by the providers themselves.
+     */
+    @Override
+    public LiveQuote fetchQuote(Stock stock) throws IOException {
+        Set<Provider> triedProviders = new HashSet<Provider>();
+        IOException lastException = null;
+        List<Provider> rankedProviders = getRankedProviders();
+        for (int i = 0; i < rankedProviders.size(); i++) {
+            Provider provider = rankedProviders.get(i);
+            if (triedProviders.add(provider)) {
+                Provider hedgeProvider = (isHedging && i + 1 < rankedProviders.size()) ? rankedProviders.get(i + 1) : null;
+                try {
+                    if (hedgeProvider != null && provider.getNoOfLatencySamples() >= MIN_HEDGE_SAMPLES) {
+                        return fetchHedged(stock, provider, hedgeProvider, provider.getLatency(HEDGE_PERCENTILE), triedProviders);
+                    } else {
+                        return provider.fetchQuote(stock);
+                    }
+                } catch (InterruptedIOException e) {
+                    throw e;
+                } catch (IOException e) {
+                    LOGGER.debug(String.format("Failed to retrieve quote for %s from %s: %s", stock, provider.downloader.getName(),
+                            e.getMessage()));
+                    lastException = e;
+                }
+            }
+        }
+        throw lastException;
+    }
+
+    @Override
+    public List<Quote> getHistoricPrices(Stock stock) {
+        for (Provider provider : getRankedProviders()) {
+            List<Quote> prices = provider.downloader.getHistoricPrices(stock);
+            if (prices != null && !prices.isEmpty()) {
+                return prices;
+            }
+        }
+        return new ArrayList<Quote>();
+    }
+
+    @Override
+    public List<Quote> getDividendPayouts(Stock stock) {
+        for (Provider provider : getRankedProviders()) {
+            List<Quote> divs = provider.downloader.getDividendPayouts(stock);
+            if (divs != null && !divs.isEmpty()) {
+                return divs;
+            }
+        }
+        return new ArrayList<Quote>();
+    }
+
+    /**
+     * Retrieves a quote from a provider, hedged by a second provider if the first one does not respond in time.
+     *
+     * @param stock
+     *            The stock.
+     * @param provider
+     *            The first provider.
+     * @param hedgeProvider
+     *            The second provider.
+     * @param hedgeDelay
+     *            The time to wait for the first provider before sending the hedged request, in milliseconds.
+     * @param triedProviders
+     *            The providers tried so far (the second provider is added if the hedged request is sent).
+     *
+     * @return The first successful quote.
+     *
+     * @throws IOException
+     *             If all sent requests failed.
+     */
+    private LiveQuote fetchHedged(Stock stock, Provider provider, Provider hedgeProvider, long hedgeDelay, Set<Provider> triedProviders)
+            throws IOException {
+        CompletionService<LiveQuote> completionService = new ExecutorCompletionService<LiveQuote>(executor);
+        List<Future<LiveQuote>> futures = new ArrayList<Future<LiveQuote>>(2);
+        try {
+            futures.add(completionService.submit(provider.newTask(stock)));
+            Future<LiveQuote> future = completionService.poll(hedgeDelay, TimeUnit.MILLISECONDS);
+            if (future != null) {
+                return getResult(future);
+            }
+
+            LOGGER.debug(String.format("Hedging quote request for %s to %s after %,d ms", stock, hedgeProvider.downloader.getName(), hedgeDelay));
+            triedProviders.add(hedgeProvider);
+            futures.add(completionService.submit(hedgeProvider.newTask(stock)));
+            IOException lastException = null;
+            for (int i = 0; i < futures.size(); i++) {
+                try {
+                    return getResult(completionService.take());
+                } catch (InterruptedIOException e) {
+                    throw e;
+                } catch (IOException e) {
+                    lastException = e;
+                }
+            }
+            throw lastException;
+
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for quote of " + stock.getSymbol());
+        } finally {
+            for (Future<LiveQuote> future : futures) {
+                future.cancel(true);
+            }
+        }
+    }
+
+    private Provider getProvider(QuoteDownloader downloader) {
+        for (Provider provider : providers) {
+            if (provider.downloader == downloader) {
+                return provider;
+            }
+        }
+        throw new IllegalArgumentException("Unknown provider: " + downloader.getName());
+    }
+
+    /**
+     * Returns the providers sorted by health (descending), and otherwise by preference.
+     *
+     * @return The ranked providers.
+     */
+    private List<Provider> getRankedProviders() {
+        List<Provider> rankedProviders = new ArrayList<Provider>(providers);
+        final double[] health = new double[providers.size()];
+        for (int i = 0; i < health.length; i++) {
+            health[i] = providers.get(i).getHealth();
+        }
+        Collections.sort(rankedProviders, new Comparator<Provider>() {
+            @Override
+            public int compare(Provider p1, Provider p2) {
+                return Double.compare(health[providers.indexOf(p2)], health[providers.indexOf(p1)]);
+            }
+        });
+        return rankedProviders;
+    }
+
+    /**
+     * Returns the result of a completed quote request.
+     *
+     * @param future
+     *            The completed quote request.
+     *
+     * @return The quote.
+     *
+     * @throws IOException
+     *             If the request failed.
+     */
+    private static LiveQuote getResult(Future<LiveQuote> future) throws IOException, InterruptedException {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            } else {
+                throw new IOException("Failed to retrieve quote", cause);
+            }
+        }
+    }
+
+    /**
+     * Quote provider with its health statistics.
+     *
+     * @author Oscar Stigter
+     */
+    private static class Provider {
+
+        private final QuoteDownloader downloader;
+
+        private final long[] latencies = new long[LATENCY_SAMPLES];
+
+        private int noOfLatencies;
+
+        private int latencyIndex;
+
+        private double health = 1.0;
+
+        public Provider(QuoteDownloader downloader) {
+            this.downloader = downloader;
+        }
+
+        public LiveQuote fetchQuote(Stock stock) throws IOException {
+            long startTime = System.currentTimeMillis();
+            try {
+                LiveQuote quote = downloader.fetchQuote(stock);
+                onSuccess(System.currentTimeMillis() - startTime);
+                return quote;
+            } catch (InterruptedIOException e) {
+                // Cancelled (e.g. hedged request lost); does not affect the health.
+                throw e;
+            } catch (IOException e) {
+                onFailure();
+                throw e;
+            }
+        }
+
+        public Callable<LiveQuote> newTask(final Stock stock) {
+            return new Callable<LiveQuote>() {
+                @Override
+                public LiveQuote call() throws IOException {
+                    return fetchQuote(stock);
+                }
+            };
+        }
+
+        public synchronized double getHealth() {
+            return health;
+        }
+
+        public synchronized int getNoOfLatencySamples() {
+            return noOfLatencies;
+        }
+
+        public synchronized long getLatency(double percentile) {
+            if (noOfLatencies == 0) {
+                return -1L;
+            }
+            long[] sorted = Arrays.copyOf(latencies, noOfLatencies);
+            Arrays.sort(sorted);
+            int index = (int) Math.ceil(percentile * noOfLatencies) - 1;
+            return sorted[Math.max(0, Math.min(noOfLatencies - 1, index))];
+        }
+
+        private synchronized void onSuccess(long latency) {
+            latencies[latencyIndex] = latency;
+            latencyIndex = (latencyIndex + 1) % LATENCY_SAMPLES;
+            if (noOfLatencies < LATENCY_SAMPLES) {
+                noOfLatencies++;
+            }
+            health = (1.0 - HEALTH_WEIGHT) * health + HEALTH_WEIGHT;
+        }
+
+        private synchronized void onFailure() {
+            health = (1.0 - HEALTH_WEIGHT) * health;
+        }
+    }
+}
@@ -0,0 +1,77 @@
+// This file is part of the 'portfolio-manager' (Portfolio Manager)
+// project, an open source stock portfolio manager application
+// written in Java.
+//
+// Copyright 2015 Oscar Stigter
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.ozsoft.portfoliomanager.services.downloader;
+
+import java.math.BigDecimal;
+
+/**
+ * Real-time (or last closing) quote of a stock, as retrieved by a {@link QuoteDownloader}.
+ *
+ * @author Oscar Stigter
+ */
+public class LiveQuote {
+
+    private final String symbol;
+
+    private final BigDecimal price;
+
+    private final BigDecimal changePerc;
+
+    private final long timestamp;
+
+    /**
+     * Constructor.
+     *
+     * @param symbol
+     *            The stock's symbol.
+     * @param price
+     *            The current price.
+     * @param changePerc
+     *            The day's price change in percentage, or {@code null} if not known.
+     * @param timestamp
+     *            The time the quote was retrieved.
+     */
+    public LiveQuote(String symbol, BigDecimal price, BigDecimal changePerc, long timestamp) {
+        this.symbol = symbol;
+        this.price = price;
+        this.changePerc = changePerc;
+        this.timestamp = timestamp;
+    }
+
+    public String getSymbol() {
+        return symbol;
+    }
+
+    public BigDecimal getPrice() {
+        return price;
+    }
+
+    public BigDecimal getChangePerc() {
+        return changePerc;
+    }
+
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s: $ %,.2f", symbol, price);
+    }
+}
@@ -18,29 +18,343 @@
 
 package org.ozsoft.portfoliomanager.services.downloader;
 
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
 
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
 import org.ozsoft.portfoliomanager.domain.Quote;
 import org.ozsoft.portfoliomanager.domain.Stock;
+import org.ozsoft.portfoliomanager.metrics.MetricsRegistry;
 import org.ozsoft.portfoliomanager.util.HttpPageReader;
 
 /**
- * Abstract base class for all quote downloaders.
+ * Abstract base class for all quote downloaders. <br />
+ * <br />
+ *
+ * Quote requests are throttled per downloader (quote source) and retried with exponential backoff on transient errors. <br />
+ * <br />
+ *
+ * Quotes of specific stocks can also be subscribed to, in which case they are pushed to a {@link QuoteListener} whenever the price changes.
+ * Downloaders supporting a streaming connection override {@link #startStreaming()} and {@link #stopStreaming()}; by default, the subscribed
+ * stocks are polled periodically as fallback, and only changed quotes are pushed. The number of quotes polled per cycle is bounded; if more
+ * stocks are subscribed, they are polled in turns over multiple cycles. <br />
+ * <br />
+ *
+ * The latency and outcome of each quote request are recorded per quote source in the {@link MetricsRegistry} (metrics
+ * 'quotes.&lt;name&gt;.*').
  *
  * @author Oscar Stigter
  */
 public abstract class QuoteDownloader {
 
+    /** Default maximum request rate (requests per second). */
+    private static final double DEFAULT_MAX_RATE = 10.0;
+
+    /** Default maximum number of concurrent requests. */
+    private static final int DEFAULT_MAX_CONCURRENCY = 8;
+
+    /** Default interval between polls for subscribed quotes, in milliseconds. */
+    private static final long DEFAULT_POLL_INTERVAL = 60000L; // 1 minute
+
+    /** Default maximum number of subscribed quotes to poll per cycle. */
+    private static final int DEFAULT_MAX_POLLS_PER_CYCLE = 25;
+
+    private static final Logger LOGGER = LogManager.getLogger(QuoteDownloader.class);
+
     protected final HttpPageReader httpPageReader;
 
+    private final MetricsRegistry metrics = MetricsRegistry.getInstance();
+
+    private final RequestThrottle throttle;
+
+    private final ConcurrentMap<String, Set<QuoteListener>> subscriptions = new ConcurrentHashMap<String, Set<QuoteListener>>();
+
+    private final Map<String, BigDecimal> polledPrices = new ConcurrentHashMap<String, BigDecimal>();
+
+    private RetryPolicy retryPolicy = RetryPolicy.DEFAULT;
+
+    private long pollInterval = DEFAULT_POLL_INTERVAL;
+
+    private int maxPollsPerCycle = DEFAULT_MAX_POLLS_PER_CYCLE;
+
+    /** Index of the next subscribed stock to poll (round robin). */
+    private int pollIndex;
+
+    private boolean isStreaming = false;
+
+    private ScheduledExecutorService poller;
+
     /**
-     * Constructor.
+     * Constructor with the default throttling.
      *
      * @param httpPageReader
      *                           The HTTP page reader.
      */
     public QuoteDownloader(HttpPageReader httpPageReader) {
+        this(httpPageReader, new RequestThrottle(DEFAULT_MAX_RATE, DEFAULT_MAX_CONCURRENCY));
+    }
+
+    /**
+     * Constructor with custom throttling.
+     *
+     * @param httpPageReader
+     *                           The HTTP page reader.
+     * @param throttle
+     *                           The request throttle.
+     */
+    public QuoteDownloader(HttpPageReader httpPageReader, RequestThrottle throttle) {
         this.httpPageReader = httpPageReader;
+        this.throttle = throttle;
+    }
+
+    /**
+     * Returns the name of the quote source.
+     *
+     * @return The name.
+     */
+    public String getName() {
+        return getClass().getSimpleName();
+    }
+
+    public RequestThrottle getThrottle() {
+        return throttle;
+    }
+
+    public RetryPolicy getRetryPolicy() {
+        return retryPolicy;
+    }
+
+    public void setRetryPolicy(RetryPolicy retryPolicy) {
+        this.retryPolicy = retryPolicy;
+    }
+
+    public void setPollInterval(long pollInterval) {
+        this.pollInterval = pollInterval;
+    }
+
+    public void setMaxPollsPerCycle(int maxPollsPerCycle) {
+        this.maxPollsPerCycle = maxPollsPerCycle;
+    }
+
+    /**
+     * Subscribes to the quotes of a stock. <br />
+     * <br />
+     *
+     * Streaming is started with the first subscription.
+     *
+     * @param symbol
+     *                     The stock's symbol.
+     * @param listener
+     *                     The listener to push the quotes to.
+     */
+    public synchronized void subscribe(String symbol, QuoteListener listener) {
+        Set<QuoteListener> listeners = subscriptions.get(symbol);
+        if (listeners == null) {
+            listeners = new CopyOnWriteArraySet<QuoteListener>();
+            subscriptions.put(symbol, listeners);
+        }
+        listeners.add(listener);
+        if (!isStreaming) {
+            isStreaming = true;
+            startStreaming();
+        }
+    }
+
+    /**
+     * Unsubscribes from the quotes of a stock. <br />
+     * <br />
+     *
+     * Streaming is stopped when the last subscription is removed.
+     *
+     * @param symbol
+     *                     The stock's symbol.
+     * @param listener
+     *                     The listener.
+     */
+    public synchronized void unsubscribe(String symbol, QuoteListener listener) {
+        Set<QuoteListener> listeners = subscriptions.get(symbol);
+        if (listeners != null) {
+            listeners.remove(listener);
+            if (listeners.isEmpty()) {
+                subscriptions.remove(symbol);
+                polledPrices.remove(symbol);
+            }
+        }
+        if (isStreaming && subscriptions.isEmpty()) {
+            isStreaming = false;
+            stopStreaming();
+        }
+    }
+
+    /**
+     * Returns the symbols of the subscribed stocks.
+     *
+     * @return The subscribed symbols.
+     */
+    public Set<String> getSubscribedSymbols() {
+        return Collections.unmodifiableSet(subscriptions.keySet());
+    }
+
+    /**
+     * Pushes a quote to the listeners subscribed to its stock.
+     *
+     * @param quote
+     *                  The quote.
+     */
+    protected void publish(LiveQuote quote) {
+        Set<QuoteListener> listeners = subscriptions.get(quote.getSymbol());
+        if (listeners != null) {
+            for (QuoteListener listener : listeners) {
+                listener.quoteReceived(quote);
+            }
+        }
+    }
+
+    /**
+     * Starts streaming quotes of the subscribed stocks (called with the first subscription). <br />
+     * <br />
+     *
+     * The default implementation periodically polls the subscribed stocks, pushing only changed quotes.
+     */
+    protected void startStreaming() {
+        poller = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, getName() + "-Poller");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        poller.scheduleWithFixedDelay(new Runnable() {
+            @Override
+            public void run() {
+                poll();
+            }
+        }, 0L, pollInterval, TimeUnit.MILLISECONDS);
+        LOGGER.debug(String.format("Started polling quotes from %s every %,d ms", getName(), pollInterval));
+    }
+
+    /**
+     * Stops streaming quotes (called when the last subscription is removed).
+     */
+    protected void stopStreaming() {
+        poller.shutdownNow();
+        poller = null;
+        polledPrices.clear();
+        LOGGER.debug(String.format("Stopped polling quotes from %s", getName()));
+    }
+
+    /**
+     * Polls the quotes of the next subscribed stocks once (at most the maximum number per cycle, in turns), pushing only changed quotes.
+     */
+    private void poll() {
+        List<String> symbols = new ArrayList<String>(subscriptions.keySet());
+        int noOfSymbols = symbols.size();
+        int noOfPolls = Math.min(noOfSymbols, maxPollsPerCycle);
+        int firstIndex = (noOfSymbols > 0) ? pollIndex % noOfSymbols : 0;
+        pollIndex = firstIndex + noOfPolls;
+        for (int i = 0; i < noOfPolls; i++) {
+            String symbol = symbols.get((firstIndex + i) % noOfSymbols);
+            if (Thread.currentThread().isInterrupted()) {
+                break;
+            }
+            try {
+                LiveQuote quote = fetchQuote(new Stock(symbol, symbol));
+                BigDecimal lastPrice = polledPrices.put(symbol, quote.getPrice());
+                if (lastPrice == null || lastPrice.compareTo(quote.getPrice()) != 0) {
+                    publish(quote);
+                }
+            } catch (InterruptedIOException e) {
+                break;
+            } catch (IOException e) {
+                LOGGER.debug(String.format("Failed to poll quote for %s from %s: %s", symbol, getName(), e.getMessage()));
+            }
+        }
+    }
+
+    /**
+     * Retrieves the current quote of a stock (single request, without throttling or retries).
+     *
+     * @param symbol
+     *                   The stock's symbol.
+     *
+     * @return The quote.
+     *
+     * @throws IOException
+     *                         If the quote could not be retrieved.
+     */
+    protected abstract LiveQuote getQuote(String symbol) throws IOException;
+
+    /**
+     * Retrieves the current quote of a stock, throttled and with retries.
+     *
+     * @param stock
+     *                  The stock.
+     *
+     * @return The quote.
+     *
+     * @throws IOException
+     *                         If the quote could not be retrieved after all attempts.
+     */
+    public LiveQuote fetchQuote(Stock stock) throws IOException {
+        String symbol = stock.getSymbol();
+        for (int attempt = 0;; attempt++) {
+            try {
+                throttle.acquire();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while waiting to retrieve quote for " + symbol);
+            }
+
+            String metricPrefix = "quotes." + getName();
+            long startTime = System.nanoTime();
+            try {
+                LiveQuote quote = getQuote(symbol);
+                metrics.getHistogram(metricPrefix + ".latency").recordSince(startTime);
+                metrics.getCounter(metricPrefix + ".success").increment();
+                throttle.onSuccess();
+                return quote;
+            } catch (IOException e) {
+                metrics.getHistogram(metricPrefix + ".latency").recordSince(startTime);
+                if (RequestThrottle.isThrottled(e)) {
+                    metrics.getCounter(metricPrefix + ".throttled").increment();
+                    throttle.onThrottled();
+                } else {
+                    metrics.getCounter(metricPrefix + ".failure").increment();
+                    throttle.onFailure();
+                }
+                if (attempt + 1 >= retryPolicy.getMaxAttempts() || !retryPolicy.isRetryable(e)) {
+                    throw e;
+                }
+                long delay = retryPolicy.getDelay(attempt);
+                LOGGER.debug(String.format("Retrying quote for %s from %s in %,d ms (attempt %d failed: %s)", symbol, getName(), delay,
+                        attempt + 1, e.getMessage()));
+                try {
+                    Thread.sleep(delay);
+                } catch (InterruptedException e2) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException("Interrupted while waiting to retry quote for " + symbol);
+                }
+            } catch (RuntimeException e) {
+                metrics.getCounter(metricPrefix + ".failure").increment();
+                throttle.onFailure();
+                throw new IOException(String.format("Failed to retrieve quote for %s from %s", symbol, getName()), e);
+            }
+        }
     }
 
     /**
@@ -54,7 +368,39 @@ public abstract class QuoteDownloader {
      *
      * @return {@code true} if the stock was updated, otherwise {@code false}.
      */
-    public abstract boolean updateStock(Stock stock);
+    public boolean updateStock(Stock stock) {
+        try {
+            return update(stock, fetchQuote(stock));
+        } catch (IOException e) {
+            LOGGER.error(String.format("Failed to retrieve quote for %s: %s", stock, e.getMessage()));
+            return false;
+        }
+    }
+
+    /**
+     * Updates a stock with a retrieved quote.
+     *
+     * @param stock
+     *                  The stock.
+     * @param quote
+     *                  The quote.
+     *
+     * @return {@code true} if the stock was updated (price changed), otherwise {@code false}.
+     */
+    public boolean update(Stock stock, LiveQuote quote) {
+        stock.setLastUpdated(quote.getTimestamp());
+        BigDecimal price = quote.getPrice();
+        if (price.compareTo(stock.getPrice()) != 0) {
+            stock.setPrice(price);
+            if (quote.getChangePerc() != null) {
+                stock.setChangePerc(quote.getChangePerc());
+            }
+            LOGGER.debug(String.format("Updated %s: $ %,.2f (%+.2f %%)", stock, price, stock.getChangePerc()));
+            return true;
+        } else {
+            return false;
+        }
+    }
 
     /**
      * Retrieves a stock's historic closing prices.
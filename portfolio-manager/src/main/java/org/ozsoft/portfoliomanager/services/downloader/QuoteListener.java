@@ -0,0 +1,38 @@
+// This file is part of the 'portfolio-manager' (Portfolio Manager)
+// project, an open source stock portfolio manager application
+// written in Java.
+//
+// Copyright 2015 Oscar Stigter
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.ozsoft.portfoliomanager.services.downloader;
+
+/**
+ * Listener for quotes of subscribed stocks (see {@link QuoteDownloader#subscribe(String, QuoteListener)}).
+ *
+ * @author Oscar Stigter
+ */
+public interface QuoteListener {
+
+    /**
+     * Handles a received quote. <br />
+     * <br />
+     *
+     * Called from the quote downloader's own thread, so implementations must return quickly and be thread-safe.
+     *
+     * @param quote
+     *            The quote.
+     */
+    void quoteReceived(LiveQuote quote);
+}
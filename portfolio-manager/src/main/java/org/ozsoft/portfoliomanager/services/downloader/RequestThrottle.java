@@ -0,0 +1,197 @@
+// This file is part of the 'portfolio-manager' (Portfolio Manager)
+// project, an open source stock portfolio manager application
+// written in Java.
+//
+// Copyright 2015 Oscar Stigter
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.ozsoft.portfoliomanager.services.downloader;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.ozsoft.portfoliomanager.util.HttpStatusException;
+
+/**
+ * Adaptive request throttle for a single quote source. <br />
+ * <br />
+ *
+ * Combines a token bucket (limiting the request rate) with an AIMD (additive increase, multiplicative decrease) limit on the number of
+ * concurrent requests. Every successful request slowly increases both the concurrency limit and the request rate, until the configured
+ * maximum is reached. A throttled request (HTTP status 429) or server error (HTTP status 5xx) halves both, and drains the token bucket. This
+ * keeps the throughput close to the highest level the source accepts, without continuously tripping its rate limiting. <br />
+ * <br />
+ *
+ * Usage: call {@link #acquire()} before each request, followed by exactly one call to {@link #onSuccess()}, {@link #onThrottled()} or
+ * {@link #onFailure()}.
+ *
+ * @author Oscar Stigter
+ */
+public class RequestThrottle {
+
+    /** Initial concurrency limit. */
+    private static final double INITIAL_CONCURRENCY = 4.0;
+
+    /** Minimum request rate (requests per second). */
+    private static final double MIN_RATE = 0.5;
+
+    private final double maxRate;
+
+    private final int maxConcurrency;
+
+    private double rate;
+
+    private double tokens;
+
+    private long lastRefillTime;
+
+    private double concurrencyLimit;
+
+    private int activeRequests;
+
+    /**
+     * Constructor.
+     *
+     * @param maxRate
+     *            The maximum request rate (requests per second).
+     * @param maxConcurrency
+     *            The maximum number of concurrent requests.
+     */
+    public RequestThrottle(double maxRate, int maxConcurrency) {
+        if (maxRate < MIN_RATE) {
+            throw new IllegalArgumentException("Invalid maxRate: " + maxRate);
+        }
+        if (maxConcurrency < 1) {
+            throw new IllegalArgumentException("Invalid maxConcurrency: " + maxConcurrency);
+        }
+        this.maxRate = maxRate;
+        this.maxConcurrency = maxConcurrency;
+        rate = maxRate;
+        tokens = 1.0;
+        lastRefillTime = System.nanoTime();
+        concurrencyLimit = Math.min(INITIAL_CONCURRENCY, maxConcurrency);
+    }
+
+    /**
+     * Waits until a request may be sent, based on the current concurrency limit and request rate.
+     *
+     * @throws InterruptedException
+     *             If interrupted while waiting.
+     */
+    public synchronized void acquire() throws InterruptedException {
+        while (activeRequests >= (int) concurrencyLimit) {
+            wait();
+        }
+        activeRequests++;
+        try {
+            refill();
+            while (tokens < 1.0) {
+                long waitTime = (long) Math.ceil((1.0 - tokens) / rate * 1000.0);
+                wait(Math.max(1L, waitTime));
+                refill();
+            }
+            tokens -= 1.0;
+        } catch (InterruptedException e) {
+            activeRequests--;
+            notifyAll();
+            throw e;
+        }
+    }
+
+    /**
+     * Signals a successful request (additive increase).
+     */
+    public synchronized void onSuccess() {
+        activeRequests--;
+        concurrencyLimit = Math.min(maxConcurrency, concurrencyLimit + 1.0 / concurrencyLimit);
+        rate = Math.min(maxRate, rate + maxRate / 20.0);
+        notifyAll();
+    }
+
+    /**
+     * Signals a throttled request or server error (multiplicative decrease).
+     */
+    public synchronized void onThrottled() {
+        activeRequests--;
+        concurrencyLimit = Math.max(1.0, concurrencyLimit / 2.0);
+        rate = Math.max(MIN_RATE, rate / 2.0);
+        tokens = 0.0;
+        notifyAll();
+    }
+
+    /**
+     * Signals a request that failed for another reason (e.g. unknown symbol or network error); does not affect the limits.
+     */
+    public synchronized void onFailure() {
+        activeRequests--;
+        notifyAll();
+    }
+
+    /**
+     * Returns the current concurrency limit.
+     *
+     * @return The concurrency limit.
+     */
+    public synchronized int getConcurrencyLimit() {
+        return (int) concurrencyLimit;
+    }
+
+    /**
+     * Returns the current request rate.
+     *
+     * @return The request rate (requests per second).
+     */
+    public synchronized double getRate() {
+        return rate;
+    }
+
+    /**
+     * Returns whether a request failed because it was throttled (HTTP status 429) or because of a server error (HTTP status 5xx).
+     *
+     * @param e
+     *            The exception of the failed request.
+     *
+     * @return True if throttled, otherwise false.
+     */
+    public static boolean isThrottled(IOException e) {
+        int statusCode = getStatusCode(e);
+        return statusCode == 429 || statusCode >= 500;
+    }
+
+    /**
+     * Returns the HTTP status code of a failed request (see {@link HttpStatusException}).
+     *
+     * @param e
+     *            The exception of the failed request.
+     *
+     * @return The HTTP status code, or -1 if not known.
+     */
+    public static int getStatusCode(IOException e) {
+        if (e instanceof HttpStatusException) {
+            return ((HttpStatusException) e).getStatusCode();
+        } else {
+            return -1;
+        }
+    }
+
+    /**
+     * Refills the token bucket based on the elapsed time, up to a burst of one second's worth of requests.
+     */
+    private void refill() {
+        long now = System.nanoTime();
+        double elapsed = (now - lastRefillTime) / (double) TimeUnit.SECONDS.toNanos(1L);
+        tokens = Math.min(Math.max(1.0, rate), tokens + elapsed * rate);
+        lastRefillTime = now;
+    }
+}
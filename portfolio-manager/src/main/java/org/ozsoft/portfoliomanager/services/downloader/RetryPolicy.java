@@ -0,0 +1,107 @@
+// This file is part of the 'portfolio-manager' (Portfolio Manager)
+// project, an open source stock portfolio manager application
+// written in Java.
+//
+// Copyright 2015 Oscar Stigter
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.ozsoft.portfoliomanager.services.downloader;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Retry policy with exponential backoff and random jitter. <br />
+ * <br />
+ *
+ * The delay before retry attempt <i>n</i> is drawn uniformly between half and the full value of {@code min(maxDelay, baseDelay * 2^n)},
+ * so concurrent clients that failed at the same time do not retry in lockstep.
+ *
+ * @author Oscar Stigter
+ */
+public class RetryPolicy {
+
+    /** Default policy: 4 attempts, starting at 0.5 seconds, with a maximum delay of 10 seconds. */
+    public static final RetryPolicy DEFAULT = new RetryPolicy(4, 500L, 10000L);
+
+    /** Policy without retries. */
+    public static final RetryPolicy NONE = new RetryPolicy(1, 0L, 0L);
+
+    private final int maxAttempts;
+
+    private final long baseDelay;
+
+    private final long maxDelay;
+
+    /**
+     * Constructor.
+     *
+     * @param maxAttempts
+     *            The maximum number of attempts (including the first one).
+     * @param baseDelay
+     *            The base delay in milliseconds.
+     * @param maxDelay
+     *            The maximum delay in milliseconds.
+     */
+    public RetryPolicy(int maxAttempts, long baseDelay, long maxDelay) {
+        if (maxAttempts < 1) {
+            throw new IllegalArgumentException("Invalid maxAttempts: " + maxAttempts);
+        }
+        this.maxAttempts = maxAttempts;
+        this.baseDelay = baseDelay;
+        this.maxDelay = maxDelay;
+    }
+
+    public int getMaxAttempts() {
+        return maxAttempts;
+    }
+
+    /**
+     * Returns the (randomized) delay before a retry.
+     *
+     * @param attempt
+     *            The number of the failed attempt (0-based).
+     *
+     * @return The delay in milliseconds.
+     */
+    public long getDelay(int attempt) {
+        long delay = Math.min(maxDelay, baseDelay << Math.min(attempt, 30));
+        if (delay <= 0L) {
+            return 0L;
+        }
+        long halfDelay = delay / 2L;
+        return halfDelay + ThreadLocalRandom.current().nextLong(delay - halfDelay + 1L);
+    }
+
+    /**
+     * Returns whether a failed request should be retried. <br />
+     * <br />
+     *
+     * Network errors, throttled requests (HTTP status 429) and server errors (HTTP status 5xx) are retried; other client errors (e.g. an
+     * unknown stock symbol) are not.
+     *
+     * @param e
+     *            The exception of the failed request.
+     *
+     * @return True if the request should be retried, otherwise false.
+     */
+    public boolean isRetryable(IOException e) {
+        if (e instanceof FileNotFoundException) {
+            return false;
+        }
+        int statusCode = RequestThrottle.getStatusCode(e);
+        return statusCode < 0 || RequestThrottle.isThrottled(e);
+    }
+}
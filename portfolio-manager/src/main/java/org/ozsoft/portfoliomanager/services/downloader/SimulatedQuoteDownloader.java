@@ -0,0 +1,158 @@
+// This file is part of the 'portfolio-manager' (Portfolio Manager)
+// project, an open source stock portfolio manager application
+// written in Java.
+//
+// Copyright 2015 Oscar Stigter
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.ozsoft.portfoliomanager.services.downloader;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import org.ozsoft.portfoliomanager.domain.Quote;
+import org.ozsoft.portfoliomanager.domain.Stock;
+
+/**
+ * Local, simulated quote feed for offline testing. <br />
+ * <br />
+ *
+ * Prices follow a random walk (geometric Brownian motion without drift), starting at the prices set with
+ * {@link #setPrice(String, BigDecimal)}. Quotes of subscribed stocks are streamed (pushed) at a fixed tick rate, for a random subset of the
+ * subscribed stocks per tick. No historic prices or dividend payouts are available.
+ *
+ * @author Oscar Stigter
+ */
+public class SimulatedQuoteDownloader extends QuoteDownloader {
+
+    /** Interval between ticks in milliseconds. */
+    private static final long TICK_INTERVAL = 250L;
+
+    /** Fraction of the subscribed stocks with a new quote per tick. */
+    private static final double TICK_FRACTION = 0.1;
+
+    /** Standard deviation of the relative price change per quote. */
+    private static final double VOLATILITY = 0.002;
+
+    private final Map<String, double[]> prices = new HashMap<String, double[]>();
+
+    private final Random random = new Random();
+
+    private ScheduledExecutorService feed;
+
+    /**
+     * Constructor.
+     */
+    public SimulatedQuoteDownloader() {
+        super(null, new RequestThrottle(1000.0, 100));
+        setRetryPolicy(RetryPolicy.NONE);
+    }
+
+    /**
+     * Sets the (opening) price of a stock.
+     *
+     * @param symbol
+     *            The stock's symbol.
+     * @param price
+     *            The price.
+     */
+    public synchronized void setPrice(String symbol, BigDecimal price) {
+        double value = price.doubleValue();
+        if (value > 0.0) {
+            prices.put(symbol, new double[] { value, value });
+        }
+    }
+
+    @Override
+    protected LiveQuote getQuote(String symbol) {
+        return nextQuote(symbol);
+    }
+
+    @Override
+    public List<Quote> getHistoricPrices(Stock stock) {
+        return new ArrayList<Quote>();
+    }
+
+    @Override
+    public List<Quote> getDividendPayouts(Stock stock) {
+        return new ArrayList<Quote>();
+    }
+
+    @Override
+    protected void startStreaming() {
+        feed = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, "SimulatedQuoteFeed");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        feed.scheduleAtFixedRate(new Runnable() {
+            @Override
+            public void run() {
+                tick();
+            }
+        }, TICK_INTERVAL, TICK_INTERVAL, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    protected void stopStreaming() {
+        feed.shutdownNow();
+        feed = null;
+    }
+
+    /**
+     * Pushes new quotes for a random subset of the subscribed stocks.
+     */
+    private void tick() {
+        List<String> symbols = new ArrayList<String>(getSubscribedSymbols());
+        int noOfSymbols = symbols.size();
+        if (noOfSymbols > 0) {
+            int count = Math.max(1, (int) (noOfSymbols * TICK_FRACTION));
+            for (int i = 0; i < count; i++) {
+                publish(nextQuote(symbols.get(random.nextInt(noOfSymbols))));
+            }
+        }
+    }
+
+    /**
+     * Returns the next quote of a stock, following a random walk.
+     *
+     * @param symbol
+     *            The stock's symbol.
+     *
+     * @return The quote.
+     */
+    private synchronized LiveQuote nextQuote(String symbol) {
+        double[] state = prices.get(symbol);
+        if (state == null) {
+            double openPrice = 10.0 + random.nextDouble() * 90.0;
+            state = new double[] { openPrice, openPrice };
+            prices.put(symbol, state);
+        }
+        state[1] *= Math.exp(VOLATILITY * random.nextGaussian());
+        BigDecimal price = new BigDecimal(state[1]).setScale(2, BigDecimal.ROUND_HALF_UP);
+        BigDecimal changePerc = new BigDecimal((state[1] / state[0] - 1.0) * 100.0).setScale(2, BigDecimal.ROUND_HALF_UP);
+        return new LiveQuote(symbol, price, changePerc, System.currentTimeMillis());
+    }
+}
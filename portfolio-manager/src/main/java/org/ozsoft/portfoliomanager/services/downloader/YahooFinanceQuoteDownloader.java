@@ -18,17 +18,22 @@
 
 package org.ozsoft.portfoliomanager.services.downloader;
 
+import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.math.BigDecimal;
 import java.util.ArrayList;
 import java.util.Calendar;
 import java.util.Collections;
 import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.ozsoft.portfoliomanager.domain.Quote;
 import org.ozsoft.portfoliomanager.domain.Stock;
+import org.ozsoft.portfoliomanager.util.HttpPageReader;
+import org.ozsoft.portfoliomanager.util.HttpStatusException;
 
 import yahoofinance.YahooFinance;
 import yahoofinance.histquotes.HistoricalQuote;
@@ -57,40 +62,60 @@ public class YahooFinanceQuoteDownloader extends QuoteDownloader {
 
     private static final Logger LOGGER = LogManager.getLogger(YahooFinanceQuoteDownloader.class);
 
+    /**
+     * Pattern to extract the HTTP status code from the message of a failed request of the Yahoo Finance library (which uses
+     * {@link java.net.HttpURLConnection}).
+     */
+    private static final Pattern STATUS_CODE_PATTERN = Pattern.compile("HTTP response code: (\\d{3})");
+
     /**
      * Constructor.
      *
      * @param httpPageReader
      *                           The HTTP page reader.
      */
-    public YahooFinanceQuoteDownloader() {
-        super(null);
+    public YahooFinanceQuoteDownloader(HttpPageReader httpPageReader) {
+        super(httpPageReader);
     }
 
     @Override
-    public boolean updateStock(Stock stock) {
-        boolean isUpdated = false;
-
+    protected LiveQuote getQuote(String symbol) throws IOException {
+        long startTime = System.currentTimeMillis();
+        yahoofinance.Stock yahooStock;
         try {
-            long startTime = System.currentTimeMillis();
-            StockQuote quote = YahooFinance.get(stock.getSymbol()).getQuote();
-            long duration = System.currentTimeMillis() - startTime;
-            BigDecimal price = quote.getPrice();
-            if (price != null) {
-                BigDecimal oldPrice = stock.getPrice();
-                if (price.compareTo(oldPrice) != 0) {
-                    // Update price and timestamp.
-                    stock.setPrice(price);
-                    stock.setChangePerc(quote.getChangeInPercent());
-                    isUpdated = true;
-                    LOGGER.debug(String.format("Updated %s: $ %,.2f (%+.2f %%) (%,d ms)", stock, price, stock.getChangePerc(), duration));
-                }
-            }
+            yahooStock = YahooFinance.get(symbol);
+        } catch (FileNotFoundException e) {
+            throw e;
         } catch (IOException e) {
-            LOGGER.error(String.format("Failed to retrieve quote for %s: %s", stock, e.getMessage()));
+            throw toHttpStatusException(e);
         }
+        StockQuote quote = (yahooStock != null) ? yahooStock.getQuote() : null;
+        if (quote == null || quote.getPrice() == null) {
+            throw new FileNotFoundException("No quote found for " + symbol);
+        }
+        long duration = System.currentTimeMillis() - startTime;
+        LOGGER.trace(String.format("Retrieved quote for %s in %,d ms", symbol, duration));
+        return new LiveQuote(symbol, quote.getPrice(), quote.getChangeInPercent(), startTime + duration);
+    }
 
-        return isUpdated;
+    /**
+     * Converts a failed request of the Yahoo Finance library to an {@link HttpStatusException} with the HTTP status code, so throttled
+     * requests and server errors are recognized (see {@link RequestThrottle#isThrottled(IOException)}).
+     *
+     * @param e
+     *            The exception thrown by the library.
+     *
+     * @return The HTTP status exception, or the original exception if it has no HTTP status code.
+     */
+    static IOException toHttpStatusException(IOException e) {
+        String message = e.getMessage();
+        if (message != null) {
+            Matcher m = STATUS_CODE_PATTERN.matcher(message);
+            if (m.find()) {
+                return new HttpStatusException(message, Integer.parseInt(m.group(1)), e);
+            }
+        }
+        return e;
     }
 
     @Override
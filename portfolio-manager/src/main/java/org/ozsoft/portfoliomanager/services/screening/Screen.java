@@ -0,0 +1,220 @@
+// This file is part of the 'portfolio-manager' (Portfolio Manager)
+// project, an open source stock portfolio manager application
+// written in Java.
+//
+// Copyright 2015 Oscar Stigter
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.ozsoft.portfoliomanager.services.screening;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * Stock screen, compiled from an expression such as "yield > 3 and dgr > 7 and ydg >= 10 and rating >= A-". <br />
+ * <br />
+ *
+ * An expression consists of comparisons of a {@link ScreenField} with a constant value (using the operators &lt;, &lt;=, &gt;, &gt;=, = or
+ * !=), combined with 'and', 'or', 'not' and parentheses. The comparisons are evaluated column-wise over a {@link StockUniverse}, and
+ * combined as bit sets.
+ *
+ * @author Oscar Stigter
+ */
+public class Screen {
+
+    private final String name;
+
+    private final String expression;
+
+    private final ScreenPredicate predicate;
+
+    /**
+     * Constructor; compiles the expression.
+     *
+     * @param name
+     *            The screen's name.
+     * @param expression
+     *            The expression.
+     *
+     * @throws IllegalArgumentException
+     *             If the expression is invalid.
+     */
+    public Screen(String name, String expression) {
+        this.name = name;
+        this.expression = expression;
+        this.predicate = new Parser(expression).parse();
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getExpression() {
+        return expression;
+    }
+
+    /**
+     * Evaluates this screen for all stocks.
+     *
+     * @param universe
+     *            The stock universe.
+     *
+     * @return The rows of the matching stocks.
+     */
+    public BitSet evaluate(StockUniverse universe) {
+        return predicate.evaluate(universe);
+    }
+
+    /**
+     * Evaluates this screen for a single stock.
+     *
+     * @param universe
+     *            The stock universe.
+     * @param row
+     *            The stock's row.
+     *
+     * @return True if the stock matches, otherwise false.
+     */
+    public boolean matches(StockUniverse universe, int row) {
+        return predicate.matches(universe, row);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s: %s", name, predicate);
+    }
+
+    /**
+     * Recursive descent parser for screen expressions.
+     */
+    private static class Parser {
+
+        private final String expression;
+
+        private final List<String> tokens;
+
+        private int position;
+
+        Parser(String expression) {
+            this.expression = expression;
+            this.tokens = tokenize(expression);
+        }
+
+        ScreenPredicate parse() {
+            ScreenPredicate predicate = parseOr();
+            if (position < tokens.size()) {
+                throw error("Unexpected '" + tokens.get(position) + "'");
+            }
+            return predicate;
+        }
+
+        private ScreenPredicate parseOr() {
+            ScreenPredicate predicate = parseAnd();
+            while (accept("or")) {
+                predicate = new ScreenPredicate.Or(predicate, parseAnd());
+            }
+            return predicate;
+        }
+
+        private ScreenPredicate parseAnd() {
+            ScreenPredicate predicate = parseNot();
+            while (accept("and")) {
+                predicate = new ScreenPredicate.And(predicate, parseNot());
+            }
+            return predicate;
+        }
+
+        private ScreenPredicate parseNot() {
+            if (accept("not")) {
+                return new ScreenPredicate.Not(parseNot());
+            } else if (accept("(")) {
+                ScreenPredicate predicate = parseOr();
+                if (!accept(")")) {
+                    throw error("Missing ')'");
+                }
+                return predicate;
+            } else {
+                return parseComparison();
+            }
+        }
+
+        private ScreenPredicate parseComparison() {
+            String fieldName = next("field");
+            ScreenField field = ScreenField.parse(fieldName);
+            if (field == null) {
+                throw error("Unknown field '" + fieldName + "'");
+            }
+            String operatorText = next("operator");
+            ScreenPredicate.Operator operator = ScreenPredicate.Operator.parse(operatorText);
+            if (operator == null) {
+                throw error("Unknown operator '" + operatorText + "'");
+            }
+            double value = field.parseValue(next("value"));
+            return new ScreenPredicate.Comparison(field, operator, value);
+        }
+
+        private boolean accept(String token) {
+            if (position < tokens.size() && tokens.get(position).equalsIgnoreCase(token)) {
+                position++;
+                return true;
+            } else {
+                return false;
+            }
+        }
+
+        private String next(String expected) {
+            if (position < tokens.size()) {
+                return tokens.get(position++);
+            } else {
+                throw error("Missing " + expected);
+            }
+        }
+
+        private IllegalArgumentException error(String message) {
+            return new IllegalArgumentException(String.format("Invalid screen '%s': %s", expression, message));
+        }
+
+        private static List<String> tokenize(String expression) {
+            List<String> tokens = new ArrayList<String>();
+            int length = expression.length();
+            int i = 0;
+            while (i < length) {
+                char c = expression.charAt(i);
+                if (Character.isWhitespace(c)) {
+                    i++;
+                } else if (c == '(' || c == ')') {
+                    tokens.add(String.valueOf(c));
+                    i++;
+                } else {
+                    boolean isOperator = isOperatorChar(c);
+                    int start = i;
+                    while (i < length) {
+                        c = expression.charAt(i);
+                        if (Character.isWhitespace(c) || c == '(' || c == ')' || isOperatorChar(c) != isOperator) {
+                            break;
+                        }
+                        i++;
+                    }
+                    tokens.add(expression.substring(start, i));
+                }
+            }
+            return tokens;
+        }
+
+        private static boolean isOperatorChar(char c) {
+            return c == '<' || c == '>' || c == '=' || c == '!';
+        }
+    }
+}
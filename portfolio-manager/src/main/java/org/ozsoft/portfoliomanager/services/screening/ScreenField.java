@@ -0,0 +1,161 @@
+// This file is part of the 'portfolio-manager' (Portfolio Manager)
+// project, an open source stock portfolio manager application
+// written in Java.
+//
+// Copyright 2015 Oscar Stigter
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.ozsoft.portfoliomanager.services.screening;
+
+import java.math.BigDecimal;
+
+import org.ozsoft.portfoliomanager.domain.CreditRating;
+import org.ozsoft.portfoliomanager.domain.Stock;
+
+/**
+ * Stock field that can be used in screens.
+ *
+ * @author Oscar Stigter
+ */
+public enum ScreenField {
+
+    /** Current price. */
+    PRICE("price"),
+
+    /** Current price change percentage. */
+    CHANGE("change"),
+
+    /** Current dividend yield. */
+    YIELD("yield"),
+
+    /** Dividend growth rate (DGR). */
+    DIV_GROWTH("dgr", "divGrowth"),
+
+    /** Years of consecutive dividend growth (YDG). */
+    YEARS_DIV_GROWTH("ydg", "yearsDivGrowth"),
+
+    /** Credit rating (as score, with AAA the highest and not rated the lowest). */
+    CREDIT_RATING("rating", "creditRating"),
+
+    /** Target price index (TPI). */
+    TARGET_PRICE_INDEX("tpi", "targetPriceIndex"),
+
+    ;
+
+    private final String[] names;
+
+    private ScreenField(String... names) {
+        this.names = names;
+    }
+
+    /**
+     * Returns the field with a specific name (case insensitive).
+     *
+     * @param name
+     *            The name.
+     *
+     * @return The field, or {@code null} if not found.
+     */
+    public static ScreenField parse(String name) {
+        for (ScreenField field : values()) {
+            for (String fieldName : field.names) {
+                if (fieldName.equalsIgnoreCase(name)) {
+                    return field;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns the value of this field for a stock.
+     *
+     * @param stock
+     *            The stock.
+     *
+     * @return The value, or {@link Double#NaN} if not set.
+     */
+    public double getValue(Stock stock) {
+        switch (this) {
+            case PRICE:
+                return toDouble(stock.getPrice());
+            case CHANGE:
+                return toDouble(stock.getChangePerc());
+            case YIELD:
+                return stock.getYield();
+            case DIV_GROWTH:
+                return toDouble(stock.getDivGrowth());
+            case YEARS_DIV_GROWTH:
+                return stock.getYearsDivGrowth();
+            case CREDIT_RATING:
+                return getScore(stock.getCreditRating());
+            case TARGET_PRICE_INDEX:
+                return toDouble(stock.getTargetPriceIndex());
+            default:
+                throw new IllegalStateException("Unsupported field: " + this);
+        }
+    }
+
+    /**
+     * Parses a literal value for this field (a number, or a credit rating such as 'A-').
+     *
+     * @param text
+     *            The literal value.
+     *
+     * @return The value.
+     *
+     * @throws IllegalArgumentException
+     *             If the value is invalid.
+     */
+    public double parseValue(String text) {
+        if (this == CREDIT_RATING) {
+            CreditRating creditRating = CreditRating.parse(text.toUpperCase());
+            if (creditRating == null) {
+                throw new IllegalArgumentException("Invalid credit rating: " + text);
+            }
+            return getScore(creditRating);
+        } else {
+            try {
+                return Double.parseDouble(text);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException(String.format("Invalid value for %s: %s", names[0], text));
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return names[0];
+    }
+
+    /**
+     * Returns the score of a credit rating, from 0 (not rated) to 19 (AAA).
+     *
+     * @param creditRating
+     *            The credit rating.
+     *
+     * @return The score.
+     */
+    private static double getScore(CreditRating creditRating) {
+        if (creditRating == null || creditRating == CreditRating.NA) {
+            return 0.0;
+        } else {
+            return CreditRating.values().length - 1 - creditRating.ordinal();
+        }
+    }
+
+    private static double toDouble(BigDecimal value) {
+        return (value != null) ? value.doubleValue() : Double.NaN;
+    }
+}
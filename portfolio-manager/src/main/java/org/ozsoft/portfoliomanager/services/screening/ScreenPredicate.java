@@ -0,0 +1,279 @@
+// This file is part of the 'portfolio-manager' (Portfolio Manager)
+// project, an open source stock portfolio manager application
+// written in Java.
+//
+// Copyright 2015 Oscar Stigter
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.ozsoft.portfoliomanager.services.screening;
+
+import java.util.BitSet;
+
+/**
+ * Compiled (part of a) screen, evaluated against a {@link StockUniverse}.
+ *
+ * @author Oscar Stigter
+ */
+abstract class ScreenPredicate {
+
+    /**
+     * Evaluates this predicate for all stocks (column-wise).
+     *
+     * @param universe
+     *            The stock universe.
+     *
+     * @return The rows of the matching stocks.
+     */
+    public abstract BitSet evaluate(StockUniverse universe);
+
+    /**
+     * Evaluates this predicate for a single stock.
+     *
+     * @param universe
+     *            The stock universe.
+     * @param row
+     *            The stock's row.
+     *
+     * @return True if the stock matches, otherwise false.
+     */
+    public abstract boolean matches(StockUniverse universe, int row);
+
+    /**
+     * Comparison operator.
+     */
+    enum Operator {
+
+        LT("<"),
+
+        LE("<="),
+
+        GT(">"),
+
+        GE(">="),
+
+        EQ("="),
+
+        NE("!="),
+
+        ;
+
+        private final String text;
+
+        private Operator(String text) {
+            this.text = text;
+        }
+
+        static Operator parse(String text) {
+            if (text.equals("==")) {
+                return EQ;
+            }
+            for (Operator operator : values()) {
+                if (operator.text.equals(text)) {
+                    return operator;
+                }
+            }
+            return null;
+        }
+
+        boolean test(double left, double right) {
+            switch (this) {
+                case LT:
+                    return left < right;
+                case LE:
+                    return left <= right;
+                case GT:
+                    return left > right;
+                case GE:
+                    return left >= right;
+                case EQ:
+                    return left == right;
+                default:
+                    return left != right;
+            }
+        }
+
+        @Override
+        public String toString() {
+            return text;
+        }
+    }
+
+    /**
+     * Comparison of a field with a constant value.
+     */
+    static class Comparison extends ScreenPredicate {
+
+        private final ScreenField field;
+
+        private final Operator operator;
+
+        private final double value;
+
+        Comparison(ScreenField field, Operator operator, double value) {
+            this.field = field;
+            this.operator = operator;
+            this.value = value;
+        }
+
+        @Override
+        public BitSet evaluate(StockUniverse universe) {
+            double[] column = universe.getColumn(field);
+            int size = universe.size();
+            BitSet result = new BitSet(size);
+            // One tight loop per operator.
+            switch (operator) {
+                case LT:
+                    for (int i = 0; i < size; i++) {
+                        if (column[i] < value) {
+                            result.set(i);
+                        }
+                    }
+                    break;
+                case LE:
+                    for (int i = 0; i < size; i++) {
+                        if (column[i] <= value) {
+                            result.set(i);
+                        }
+                    }
+                    break;
+                case GT:
+                    for (int i = 0; i < size; i++) {
+                        if (column[i] > value) {
+                            result.set(i);
+                        }
+                    }
+                    break;
+                case GE:
+                    for (int i = 0; i < size; i++) {
+                        if (column[i] >= value) {
+                            result.set(i);
+                        }
+                    }
+                    break;
+                default:
+                    for (int i = 0; i < size; i++) {
+                        if (operator.test(column[i], value)) {
+                            result.set(i);
+                        }
+                    }
+            }
+            return result;
+        }
+
+        @Override
+        public boolean matches(StockUniverse universe, int row) {
+            return operator.test(universe.getColumn(field)[row], value);
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s %s %s", field, operator, value);
+        }
+    }
+
+    /**
+     * Conjunction (AND) of two predicates.
+     */
+    static class And extends ScreenPredicate {
+
+        private final ScreenPredicate left;
+
+        private final ScreenPredicate right;
+
+        And(ScreenPredicate left, ScreenPredicate right) {
+            this.left = left;
+            this.right = right;
+        }
+
+        @Override
+        public BitSet evaluate(StockUniverse universe) {
+            BitSet result = left.evaluate(universe);
+            if (!result.isEmpty()) {
+                result.and(right.evaluate(universe));
+            }
+            return result;
+        }
+
+        @Override
+        public boolean matches(StockUniverse universe, int row) {
+            return left.matches(universe, row) && right.matches(universe, row);
+        }
+
+        @Override
+        public String toString() {
+            return String.format("(%s and %s)", left, right);
+        }
+    }
+
+    /**
+     * Disjunction (OR) of two predicates.
+     */
+    static class Or extends ScreenPredicate {
+
+        private final ScreenPredicate left;
+
+        private final ScreenPredicate right;
+
+        Or(ScreenPredicate left, ScreenPredicate right) {
+            this.left = left;
+            this.right = right;
+        }
+
+        @Override
+        public BitSet evaluate(StockUniverse universe) {
+            BitSet result = left.evaluate(universe);
+            result.or(right.evaluate(universe));
+            return result;
+        }
+
+        @Override
+        public boolean matches(StockUniverse universe, int row) {
+            return left.matches(universe, row) || right.matches(universe, row);
+        }
+
+        @Override
+        public String toString() {
+            return String.format("(%s or %s)", left, right);
+        }
+    }
+
+    /**
+     * Negation (NOT) of a predicate.
+     */
+    static class Not extends ScreenPredicate {
+
+        private final ScreenPredicate predicate;
+
+        Not(ScreenPredicate predicate) {
+            this.predicate = predicate;
+        }
+
+        @Override
+        public BitSet evaluate(StockUniverse universe) {
+            BitSet result = predicate.evaluate(universe);
+            result.flip(0, universe.size());
+            return result;
+        }
+
+        @Override
+        public boolean matches(StockUniverse universe, int row) {
+            return !predicate.matches(universe, row);
+        }
+
+        @Override
+        public String toString() {
+            return String.format("not %s", predicate);
+        }
+    }
+}
@@ -0,0 +1,192 @@
+// This file is part of the 'portfolio-manager' (Portfolio Manager)
+// project, an open source stock portfolio manager application
+// written in Java.
+//
+// Copyright 2015 Oscar Stigter
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.ozsoft.portfoliomanager.services.screening;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.ozsoft.portfoliomanager.domain.Configuration;
+import org.ozsoft.portfoliomanager.domain.Stock;
+
+/**
+ * Service for screening stocks. <br />
+ * <br />
+ *
+ * Keeps the screenable values of all stocks in a {@link StockUniverse}, and the results of the saved screens (stored in the configuration).
+ * When a single stock changes (e.g. on a price tick), only that stock is re-evaluated against the saved screens.
+ *
+ * @author Oscar Stigter
+ */
+public class ScreeningService {
+
+    private static final Logger LOGGER = LogManager.getLogger(ScreeningService.class);
+
+    private static ScreeningService instance;
+
+    private final Map<String, Screen> screens = new TreeMap<String, Screen>();
+
+    private final Map<String, BitSet> results = new TreeMap<String, BitSet>();
+
+    private StockUniverse universe;
+
+    /**
+     * Constructor.
+     *
+     * @param stocks
+     *            The stocks to screen.
+     * @param savedScreens
+     *            The saved screens (expressions by name).
+     */
+    public ScreeningService(Collection<Stock> stocks, Map<String, String> savedScreens) {
+        universe = new StockUniverse(stocks);
+        for (Map.Entry<String, String> savedScreen : savedScreens.entrySet()) {
+            try {
+                addScreen(new Screen(savedScreen.getKey(), savedScreen.getValue()));
+            } catch (IllegalArgumentException e) {
+                LOGGER.warn(e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Returns the shared instance, screening the configured stocks with the saved screens.
+     *
+     * @return The shared instance.
+     */
+    public static synchronized ScreeningService getInstance() {
+        if (instance == null) {
+            Configuration config = Configuration.getInstance();
+            instance = new ScreeningService(config.getStocks(), config.getScreens());
+        }
+        return instance;
+    }
+
+    /**
+     * Screens the stocks with an ad-hoc expression.
+     *
+     * @param expression
+     *            The screen expression.
+     *
+     * @return The matching stocks.
+     *
+     * @throws IllegalArgumentException
+     *             If the expression is invalid.
+     */
+    public synchronized List<Stock> screen(String expression) {
+        return getStocks(new Screen(null, expression).evaluate(universe));
+    }
+
+    /**
+     * Saves a screen (replacing any existing screen with the same name) in the configuration.
+     *
+     * @param name
+     *            The screen's name.
+     * @param expression
+     *            The screen expression.
+     *
+     * @throws IllegalArgumentException
+     *             If the expression is invalid.
+     */
+    public synchronized void saveScreen(String name, String expression) {
+        addScreen(new Screen(name, expression));
+        Configuration.getInstance().setScreen(name, expression);
+    }
+
+    /**
+     * Deletes a saved screen.
+     *
+     * @param name
+     *            The screen's name.
+     */
+    public synchronized void deleteScreen(String name) {
+        screens.remove(name);
+        results.remove(name);
+        Configuration.getInstance().deleteScreen(name);
+    }
+
+    /**
+     * Returns the names of the saved screens.
+     *
+     * @return The names.
+     */
+    public synchronized Set<String> getScreenNames() {
+        return new TreeSet<String>(screens.keySet());
+    }
+
+    /**
+     * Returns the stocks currently matching a saved screen.
+     *
+     * @param name
+     *            The screen's name.
+     *
+     * @return The matching stocks, or {@code null} if the screen does not exist.
+     */
+    public synchronized List<Stock> getMatches(String name) {
+        BitSet result = results.get(name);
+        return (result != null) ? getStocks(result) : null;
+    }
+
+    /**
+     * Updates a (new or changed) stock, re-evaluating only this stock against the saved screens.
+     *
+     * @param stock
+     *            The stock.
+     */
+    public synchronized void stockUpdated(Stock stock) {
+        int row = universe.update(stock);
+        for (Screen screen : screens.values()) {
+            results.get(screen.getName()).set(row, screen.matches(universe, row));
+        }
+    }
+
+    /**
+     * Rebuilds the universe from a (changed) set of stocks and re-evaluates all saved screens, e.g. after a bulk update or after stocks have
+     * been deleted.
+     *
+     * @param stocks
+     *            The stocks.
+     */
+    public synchronized void refresh(Collection<Stock> stocks) {
+        universe = new StockUniverse(stocks);
+        for (Screen screen : screens.values()) {
+            results.put(screen.getName(), screen.evaluate(universe));
+        }
+    }
+
+    private void addScreen(Screen screen) {
+        screens.put(screen.getName(), screen);
+        results.put(screen.getName(), screen.evaluate(universe));
+    }
+
+    private List<Stock> getStocks(BitSet rows) {
+        List<Stock> stocks = new ArrayList<Stock>(rows.cardinality());
+        for (int row = rows.nextSetBit(0); row >= 0; row = rows.nextSetBit(row + 1)) {
+            stocks.add(universe.getStock(row));
+        }
+        return stocks;
+    }
+}
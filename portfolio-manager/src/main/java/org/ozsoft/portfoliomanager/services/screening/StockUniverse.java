@@ -0,0 +1,141 @@
+// This file is part of the 'portfolio-manager' (Portfolio Manager)
+// project, an open source stock portfolio manager application
+// written in Java.
+//
+// Copyright 2015 Oscar Stigter
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.ozsoft.portfoliomanager.services.screening;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.ozsoft.portfoliomanager.domain.Stock;
+
+/**
+ * Column store with the screenable field values of a set of stocks. <br />
+ * <br />
+ *
+ * Each stock has a fixed row, and each {@link ScreenField} a column with a primitive array of values, so screens can be evaluated per
+ * column in tight loops. Not thread-safe.
+ *
+ * @author Oscar Stigter
+ */
+public class StockUniverse {
+
+    private static final int INITIAL_CAPACITY = 64;
+
+    private final Map<String, Integer> rows = new HashMap<String, Integer>();
+
+    private final double[][] columns = new double[ScreenField.values().length][INITIAL_CAPACITY];
+
+    private Stock[] stocks = new Stock[INITIAL_CAPACITY];
+
+    private int size;
+
+    /**
+     * Constructor for an empty universe.
+     */
+    public StockUniverse() {
+        // Empty implementation.
+    }
+
+    /**
+     * Constructor with an initial set of stocks.
+     *
+     * @param stocks
+     *            The stocks.
+     */
+    public StockUniverse(Collection<Stock> stocks) {
+        for (Stock stock : stocks) {
+            update(stock);
+        }
+    }
+
+    /**
+     * Returns the number of stocks (rows).
+     *
+     * @return The number of stocks.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the stock of a row.
+     *
+     * @param row
+     *            The row.
+     *
+     * @return The stock.
+     */
+    public Stock getStock(int row) {
+        return stocks[row];
+    }
+
+    /**
+     * Returns the row of a stock.
+     *
+     * @param symbol
+     *            The stock's symbol.
+     *
+     * @return The row, or -1 if not present.
+     */
+    public int getRow(String symbol) {
+        Integer row = rows.get(symbol);
+        return (row != null) ? row : -1;
+    }
+
+    /**
+     * Returns the values of a field (indexed by row; only the first {@link #size()} values are valid).
+     *
+     * @param field
+     *            The field.
+     *
+     * @return The values.
+     */
+    public double[] getColumn(ScreenField field) {
+        return columns[field.ordinal()];
+    }
+
+    /**
+     * Adds a stock, or updates its values if already present.
+     *
+     * @param stock
+     *            The stock.
+     *
+     * @return The stock's row.
+     */
+    public int update(Stock stock) {
+        int row = getRow(stock.getSymbol());
+        if (row < 0) {
+            row = size++;
+            if (row == stocks.length) {
+                int capacity = row * 2;
+                stocks = Arrays.copyOf(stocks, capacity);
+                for (int i = 0; i < columns.length; i++) {
+                    columns[i] = Arrays.copyOf(columns[i], capacity);
+                }
+            }
+            rows.put(stock.getSymbol(), row);
+        }
+        stocks[row] = stock;
+        for (ScreenField field : ScreenField.values()) {
+            columns[field.ordinal()][row] = field.getValue(stock);
+        }
+        return row;
+    }
+}
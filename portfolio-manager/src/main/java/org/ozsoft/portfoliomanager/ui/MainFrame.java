@@ -24,6 +24,8 @@ import java.awt.event.ActionListener;
 import java.awt.event.WindowAdapter;
 import java.awt.event.WindowEvent;
 import java.lang.reflect.InvocationTargetException;
+import java.util.Set;
+import java.util.TreeSet;
 
 import javax.swing.JButton;
 import javax.swing.JFrame;
@@ -31,16 +33,25 @@ import javax.swing.JLabel;
 import javax.swing.JOptionPane;
 import javax.swing.JScrollPane;
 import javax.swing.JTabbedPane;
+import javax.swing.JToggleButton;
 import javax.swing.JToolBar;
 import javax.swing.SwingUtilities;
 import javax.swing.border.EtchedBorder;
+import javax.swing.event.ChangeEvent;
+import javax.swing.event.ChangeListener;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.ozsoft.datatable.DataTable;
 import org.ozsoft.portfoliomanager.domain.Configuration;
+import org.ozsoft.portfoliomanager.domain.Stock;
+import org.ozsoft.portfoliomanager.domain.StockLevel;
 import org.ozsoft.portfoliomanager.services.AnalyzeService;
+import org.ozsoft.portfoliomanager.services.QuoteStreamService;
+import org.ozsoft.portfoliomanager.services.UpdateReport;
 import org.ozsoft.portfoliomanager.services.UpdateService;
+import org.ozsoft.portfoliomanager.services.downloader.QuoteDownloader;
+import org.ozsoft.portfoliomanager.services.downloader.SimulatedQuoteDownloader;
 import org.ozsoft.portfoliomanager.ui.table.BenchTable;
 import org.ozsoft.portfoliomanager.ui.table.GoalTable;
 import org.ozsoft.portfoliomanager.ui.table.StockTable;
@@ -61,6 +72,12 @@ public class MainFrame extends JFrame {
 
     private static final int DEFAULT_HEIGHT = 600;
 
+    /** System property to use the simulated quote feed for live quotes (for offline testing). */
+    private static final String SIMULATED_QUOTES_PROPERTY = "portfoliomanager.simulatedQuotes";
+
+    /** Stock level shown per tab ({@code null} for all stocks). */
+    private static final StockLevel[] TAB_LEVELS = { StockLevel.OWNED, StockLevel.GOAL, StockLevel.WATCH, StockLevel.BENCH, null };
+
     private static final Logger LOGGER = LogManager.getLogger(MainFrame.class);
 
     private final Configuration config;
@@ -69,6 +86,8 @@ public class MainFrame extends JFrame {
 
     private final AnalyzeService analyzeService = new AnalyzeService();
 
+    private QuoteStreamService quoteStreamService;
+
     private JTabbedPane tabbedPane;
 
     private OwnedPanel ownedPanel;
@@ -140,6 +159,16 @@ public class MainFrame extends JFrame {
         });
         toolBar.add(button);
 
+        final JToggleButton liveButton = new JToggleButton("Live Quotes");
+        liveButton.setToolTipText("Stream real-time quotes for the owned stocks and the stocks on the selected tab");
+        liveButton.addActionListener(new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                toggleLiveQuotes(liveButton.isSelected());
+            }
+        });
+        toolBar.add(liveButton);
+
         button = new JButton("Add Stock");
         button.setToolTipText("Add a new stock to the watch list");
         button.addActionListener(new ActionListener() {
@@ -175,6 +204,14 @@ public class MainFrame extends JFrame {
         tabbedPane.setToolTipTextAt(2, "Watch list of potential stocks to own");
         tabbedPane.setToolTipTextAt(3, "Stocks currently on the bench (disqualified)");
         tabbedPane.setToolTipTextAt(4, "All stocks being tracked");
+        tabbedPane.addChangeListener(new ChangeListener() {
+            @Override
+            public void stateChanged(ChangeEvent e) {
+                if (quoteStreamService != null && quoteStreamService.isRunning()) {
+                    startLiveQuotes();
+                }
+            }
+        });
 
         getContentPane().add(tabbedPane, BorderLayout.CENTER);
 
@@ -205,15 +242,22 @@ public class MainFrame extends JFrame {
         SwingUtilities.invokeLater(new Runnable() {
             @Override
             public void run() {
-                ownedPanel.update();
-                goalTable.update();
-                watchTable.update();
-                benchTable.update();
-                allTable.update();
+                refreshTables();
             }
         });
     }
 
+    /**
+     * Refreshes all stock tables (must be called from the Event Dispatch Thread).
+     */
+    private void refreshTables() {
+        ownedPanel.update();
+        goalTable.update();
+        watchTable.update();
+        benchTable.update();
+        allTable.update();
+    }
+
     /**
      * Updates the Owned panel (UI refresh).
      */
@@ -249,10 +293,10 @@ public class MainFrame extends JFrame {
         SwingUtilities.invokeLater(new Runnable() {
             @Override
             public void run() {
-                int updatedStocks = updateService.updateAllStockData();
+                UpdateReport report = updateService.updateAllStockData();
                 updateTables();
                 closeMessageDialog();
-                setStatus(String.format("%d stocks updated.", updatedStocks));
+                setStatus(report.getMessage());
             }
         });
     }
@@ -276,6 +320,55 @@ public class MainFrame extends JFrame {
         }
     }
 
+    /**
+     * Starts or stops streaming real-time quotes for the owned and visible stocks.
+     *
+     * @param isEnabled
+     *            Whether to stream quotes.
+     */
+    private void toggleLiveQuotes(boolean isEnabled) {
+        if (isEnabled) {
+            if (quoteStreamService == null) {
+                QuoteDownloader downloader;
+                if (Boolean.getBoolean(SIMULATED_QUOTES_PROPERTY)) {
+                    SimulatedQuoteDownloader simulatedDownloader = new SimulatedQuoteDownloader();
+                    for (Stock stock : config.getStocks()) {
+                        simulatedDownloader.setPrice(stock.getSymbol(), stock.getPrice());
+                    }
+                    downloader = simulatedDownloader;
+                } else {
+                    downloader = updateService.getQuoteDownloader();
+                }
+                quoteStreamService = new QuoteStreamService(downloader, new Runnable() {
+                    @Override
+                    public void run() {
+                        refreshTables();
+                    }
+                });
+            }
+            startLiveQuotes();
+        } else if (quoteStreamService != null) {
+            quoteStreamService.stop();
+            setStatus("Live quotes stopped.");
+        }
+    }
+
+    /**
+     * (Re)starts streaming real-time quotes for the owned stocks and the stocks on the selected tab.
+     */
+    private void startLiveQuotes() {
+        Set<Stock> stocks = new TreeSet<Stock>();
+        StockLevel tabLevel = TAB_LEVELS[tabbedPane.getSelectedIndex()];
+        for (Stock stock : config.getStocks()) {
+            StockLevel level = stock.getLevel();
+            if (level == StockLevel.OWNED || tabLevel == null || level == tabLevel) {
+                stocks.add(stock);
+            }
+        }
+        quoteStreamService.start(stocks);
+        setStatus(String.format("Streaming live quotes for %d stocks.", stocks.size()));
+    }
+
     /**
      * Handles a click of the 'Add Stock' button. <br />
      * <br />
@@ -294,6 +387,9 @@ public class MainFrame extends JFrame {
      * Closes the application.
      */
     private void close() {
+        if (quoteStreamService != null) {
+            quoteStreamService.stop();
+        }
         Configuration.save();
         LOGGER.info("Application closed");
     }
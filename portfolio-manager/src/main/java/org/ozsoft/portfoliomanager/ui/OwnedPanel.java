@@ -30,6 +30,7 @@ import javax.swing.JScrollPane;
 import javax.swing.SwingUtilities;
 
 import org.ozsoft.portfoliomanager.domain.Configuration;
+import org.ozsoft.portfoliomanager.services.UpdateReport;
 import org.ozsoft.portfoliomanager.services.UpdateService;
 import org.ozsoft.portfoliomanager.ui.table.OwnedTable;
 
@@ -101,6 +102,16 @@ public class OwnedPanel extends JPanel {
         });
         buttonPanel.add(button);
 
+        button = new JButton("Rebalance");
+        button.setToolTipText("Calculates the owned and goal stocks to buy with new cash to reach their target weights");
+        button.addActionListener(new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                new RebalanceFrame(mainFrame);
+            }
+        });
+        buttonPanel.add(button);
+
         showClosedPositionsCheck = new JCheckBox("Show closed positions");
         showClosedPositionsCheck.setToolTipText("Toggles showing only open positions or also the closed positions");
         showClosedPositionsCheck.setSelected(config.getShowClosedPositions());
@@ -145,10 +156,10 @@ public class OwnedPanel extends JPanel {
         SwingUtilities.invokeLater(new Runnable() {
             @Override
             public void run() {
-                int updatedStocks = updateService.updatePrices(config.getOwnedStocks());
+                UpdateReport report = updateService.updatePrices(config.getOwnedStocks());
                 mainFrame.updateTables();
                 mainFrame.closeMessageDialog();
-                mainFrame.setStatus(String.format("%d stock prices updated.", updatedStocks));
+                mainFrame.setStatus(report.getMessage());
             }
         });
     }
@@ -0,0 +1,370 @@
+// This file is part of the 'portfolio-manager' (Portfolio Manager)
+// project, an open source stock portfolio manager application
+// written in Java.
+//
+// Copyright 2015 Oscar Stigter
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.ozsoft.portfoliomanager.ui;
+
+import java.awt.BasicStroke;
+import java.awt.Color;
+import java.awt.Dimension;
+import java.awt.FontMetrics;
+import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.awt.event.MouseWheelEvent;
+import java.text.DateFormat;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Locale;
+
+import javax.swing.JPanel;
+
+import org.ozsoft.portfoliomanager.domain.OhlcSeries;
+import org.ozsoft.portfoliomanager.domain.PricePyramid;
+import org.ozsoft.portfoliomanager.domain.PriceResolution;
+import org.ozsoft.portfoliomanager.domain.PriceSeries;
+
+/**
+ * Panel rendering a stock's historic prices and dividend payouts as a line chart, from locally stored series. <br />
+ * <br />
+ *
+ * The prices are read from the coarsest level of the stock's price pyramid with bars no longer than a pixel column, and downsampled to the
+ * lowest and highest price per pixel column, so even the full daily history of a stock renders in milliseconds without losing its peaks
+ * and troughs. Dividend payouts are drawn as markers along the bottom of the chart.
+ * <br />
+ * <br />
+ *
+ * Zoom with the mouse wheel (around the mouse cursor), pan by dragging, and double-click to show the full history.
+ *
+ * @author Oscar Stigter
+ */
+public class PriceChartPanel extends JPanel {
+
+    private static final long serialVersionUID = 6164218254426617035L;
+
+    private static final int MARGIN_LEFT = 60;
+
+    private static final int MARGIN_RIGHT = 10;
+
+    private static final int MARGIN_TOP = 10;
+
+    private static final int MARGIN_BOTTOM = 25;
+
+    private static final int DIVIDEND_MARKER_SIZE = 4;
+
+    /** Minimum visible time range in milliseconds. */
+    private static final long MIN_RANGE = 7L * 24L * 60L * 60L * 1000L; // 1 week
+
+    private static final double ZOOM_FACTOR = 1.25;
+
+    private static final Color PRICE_COLOR = new Color(0, 80, 160);
+
+    private static final Color DIVIDEND_COLOR = UIConstants.DARK_GREEN;
+
+    private static final Color GRID_COLOR = new Color(230, 230, 230);
+
+    private static final DateFormat DATE_FORMAT = new SimpleDateFormat("dd-MMM-yyyy", Locale.US);
+
+    private PricePyramid prices = new PricePyramid();
+
+    private PriceSeries dividends = PriceSeries.EMPTY;
+
+    private long fromTime;
+
+    private long toTime;
+
+    /** Per pixel column: the minimum, maximum, first and last price (reused between paints). */
+    private double[] columnMin = new double[0];
+
+    private double[] columnMax = new double[0];
+
+    private double[] columnFirst = new double[0];
+
+    private double[] columnLast = new double[0];
+
+    /**
+     * Constructor.
+     */
+    public PriceChartPanel() {
+        setBackground(Color.WHITE);
+        setPreferredSize(new Dimension(800, 400));
+
+        MouseAdapter mouseHandler = new MouseAdapter() {
+
+            private int dragX;
+
+            @Override
+            public void mousePressed(MouseEvent e) {
+                dragX = e.getX();
+            }
+
+            @Override
+            public void mouseDragged(MouseEvent e) {
+                int dx = e.getX() - dragX;
+                dragX = e.getX();
+                pan(-dx * getTimePerPixel());
+            }
+
+            @Override
+            public void mouseClicked(MouseEvent e) {
+                if (e.getClickCount() == 2) {
+                    showAll();
+                }
+            }
+
+            @Override
+            public void mouseWheelMoved(MouseWheelEvent e) {
+                double factor = Math.pow(ZOOM_FACTOR, e.getPreciseWheelRotation());
+                zoom(factor, getTime(e.getX()));
+            }
+        };
+        addMouseListener(mouseHandler);
+        addMouseMotionListener(mouseHandler);
+        addMouseWheelListener(mouseHandler);
+    }
+
+    /**
+     * Sets the series to show, showing the full history.
+     *
+     * @param prices
+     *            The historic prices.
+     * @param dividends
+     *            The historic dividend payouts.
+     */
+    public void setSeries(PricePyramid prices, PriceSeries dividends) {
+        this.prices = prices;
+        this.dividends = dividends;
+        showAll();
+    }
+
+    /**
+     * Shows the full history.
+     */
+    public void showAll() {
+        OhlcSeries bars = prices.getLevel(PriceResolution.DAILY);
+        if (bars.isEmpty()) {
+            setVisibleRange(0L, 0L);
+        } else {
+            setVisibleRange(bars.getTimestamp(0), bars.getTimestamp(bars.size() - 1));
+        }
+    }
+
+    /**
+     * Shows the history from a specific date up to the last price.
+     *
+     * @param fromDate
+     *            The start date.
+     */
+    public void showFrom(Date fromDate) {
+        OhlcSeries bars = prices.getLevel(PriceResolution.DAILY);
+        if (!bars.isEmpty()) {
+            setVisibleRange(fromDate.getTime(), bars.getTimestamp(bars.size() - 1));
+        }
+    }
+
+    /**
+     * Sets the visible time range, limited to the series' time range.
+     *
+     * @param fromTime
+     *            The start of the range.
+     * @param toTime
+     *            The end of the range.
+     */
+    public void setVisibleRange(long fromTime, long toTime) {
+        OhlcSeries bars = prices.getLevel(PriceResolution.DAILY);
+        if (!bars.isEmpty()) {
+            long firstTime = bars.getTimestamp(0);
+            long lastTime = bars.getTimestamp(bars.size() - 1);
+            long range = Math.min(Math.max(toTime - fromTime, MIN_RANGE), Math.max(lastTime - firstTime, MIN_RANGE));
+            fromTime = Math.max(firstTime, Math.min(fromTime, lastTime - range));
+            toTime = fromTime + range;
+        }
+        this.fromTime = fromTime;
+        this.toTime = toTime;
+        repaint();
+    }
+
+    /**
+     * Zooms in or out around a specific time.
+     *
+     * @param factor
+     *            The zoom factor (less than 1 to zoom in, more than 1 to zoom out).
+     * @param centerTime
+     *            The time to zoom around.
+     */
+    public void zoom(double factor, long centerTime) {
+        long newFromTime = centerTime - (long) ((centerTime - fromTime) * factor);
+        long newToTime = centerTime + (long) ((toTime - centerTime) * factor);
+        setVisibleRange(newFromTime, newToTime);
+    }
+
+    /**
+     * Pans the visible time range.
+     *
+     * @param delta
+     *            The time to pan (negative to pan to the past).
+     */
+    public void pan(long delta) {
+        setVisibleRange(fromTime + delta, toTime + delta);
+    }
+
+    @Override
+    protected void paintComponent(Graphics g) {
+        super.paintComponent(g);
+
+        Graphics2D g2 = (Graphics2D) g;
+        g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        FontMetrics fm = g2.getFontMetrics();
+
+        int chartWidth = getWidth() - MARGIN_LEFT - MARGIN_RIGHT;
+        int chartHeight = getHeight() - MARGIN_TOP - MARGIN_BOTTOM;
+        if (chartWidth <= 0 || chartHeight <= 0) {
+            return;
+        }
+
+        g2.setColor(Color.GRAY);
+        g2.drawRect(MARGIN_LEFT, MARGIN_TOP, chartWidth, chartHeight);
+
+        int columns = downsample(chartWidth);
+        if (columns == 0) {
+            String message = "No price history available";
+            g2.drawString(message, MARGIN_LEFT + (chartWidth - fm.stringWidth(message)) / 2, MARGIN_TOP + chartHeight / 2);
+            return;
+        }
+
+        // Determine the price scale.
+        double minPrice = Double.MAX_VALUE;
+        double maxPrice = -Double.MAX_VALUE;
+        for (int x = 0; x < chartWidth; x++) {
+            if (!Double.isNaN(columnMin[x])) {
+                minPrice = Math.min(minPrice, columnMin[x]);
+                maxPrice = Math.max(maxPrice, columnMax[x]);
+            }
+        }
+        if (maxPrice - minPrice < 0.01) {
+            minPrice -= 0.5;
+            maxPrice += 0.5;
+        }
+        double pixelsPerDollar = chartHeight / (maxPrice - minPrice);
+        int bottom = MARGIN_TOP + chartHeight;
+
+        // Draw the grid with price and date labels.
+        for (int i = 0; i <= 4; i++) {
+            double price = minPrice + i * (maxPrice - minPrice) / 4.0;
+            int y = bottom - (int) Math.round((price - minPrice) * pixelsPerDollar);
+            g2.setColor(GRID_COLOR);
+            g2.drawLine(MARGIN_LEFT + 1, y, MARGIN_LEFT + chartWidth - 1, y);
+            g2.setColor(Color.BLACK);
+            String label = String.format("$ %,.2f", price);
+            g2.drawString(label, MARGIN_LEFT - fm.stringWidth(label) - 5, y + fm.getAscent() / 2);
+        }
+        String fromLabel = DATE_FORMAT.format(new Date(fromTime));
+        String toLabel = DATE_FORMAT.format(new Date(toTime));
+        g2.drawString(fromLabel, MARGIN_LEFT, bottom + fm.getAscent() + 5);
+        g2.drawString(toLabel, MARGIN_LEFT + chartWidth - fm.stringWidth(toLabel), bottom + fm.getAscent() + 5);
+
+        // Draw the prices: a vertical line per column between its minimum and maximum price, connected to the previous column.
+        g2.setColor(PRICE_COLOR);
+        g2.setStroke(new BasicStroke(1.0f));
+        int prevY = -1;
+        int prevX = -1;
+        for (int x = 0; x < chartWidth; x++) {
+            if (Double.isNaN(columnMin[x])) {
+                continue;
+            }
+            int px = MARGIN_LEFT + x;
+            int yMin = bottom - (int) Math.round((columnMin[x] - minPrice) * pixelsPerDollar);
+            int yMax = bottom - (int) Math.round((columnMax[x] - minPrice) * pixelsPerDollar);
+            int yFirst = bottom - (int) Math.round((columnFirst[x] - minPrice) * pixelsPerDollar);
+            if (prevX >= 0) {
+                g2.drawLine(prevX, prevY, px, yFirst);
+            }
+            if (yMin != yMax) {
+                g2.drawLine(px, yMin, px, yMax);
+            }
+            prevX = px;
+            prevY = bottom - (int) Math.round((columnLast[x] - minPrice) * pixelsPerDollar);
+        }
+
+        // Draw the dividend payouts.
+        g2.setColor(DIVIDEND_COLOR);
+        long range = toTime - fromTime;
+        for (int i = dividends.indexOf(fromTime); i < dividends.size() && dividends.getTimestamp(i) <= toTime; i++) {
+            int x = MARGIN_LEFT + (int) ((dividends.getTimestamp(i) - fromTime) * chartWidth / range);
+            g2.fillOval(x - DIVIDEND_MARKER_SIZE / 2, bottom - DIVIDEND_MARKER_SIZE - 2, DIVIDEND_MARKER_SIZE, DIVIDEND_MARKER_SIZE);
+        }
+    }
+
+    /**
+     * Downsamples the visible price bars to the lowest, highest, first and last price per pixel column.
+     *
+     * @param width
+     *            The number of columns.
+     *
+     * @return The number of columns with at least one price.
+     */
+    private int downsample(int width) {
+        if (columnMin.length != width) {
+            columnMin = new double[width];
+            columnMax = new double[width];
+            columnFirst = new double[width];
+            columnLast = new double[width];
+        }
+        for (int x = 0; x < width; x++) {
+            columnMin[x] = Double.NaN;
+        }
+
+        long range = toTime - fromTime;
+        if (range <= 0L) {
+            return 0;
+        }
+        OhlcSeries bars = prices.getLevel(range / width);
+        int count = bars.size();
+        int columns = 0;
+        for (int i = bars.indexOf(fromTime); i < count; i++) {
+            long time = bars.getTimestamp(i);
+            if (time > toTime) {
+                break;
+            }
+            int x = (int) Math.min((time - fromTime) * width / range, width - 1);
+            if (Double.isNaN(columnMin[x])) {
+                columnMin[x] = bars.getLow(i);
+                columnMax[x] = bars.getHigh(i);
+                columnFirst[x] = bars.getOpen(i);
+                columns++;
+            } else {
+                columnMin[x] = Math.min(columnMin[x], bars.getLow(i));
+                columnMax[x] = Math.max(columnMax[x], bars.getHigh(i));
+            }
+            columnLast[x] = bars.getClose(i);
+        }
+        return columns;
+    }
+
+    private long getTimePerPixel() {
+        int chartWidth = Math.max(getWidth() - MARGIN_LEFT - MARGIN_RIGHT, 1);
+        return Math.max((toTime - fromTime) / chartWidth, 1L);
+    }
+
+    private long getTime(int x) {
+        int chartWidth = Math.max(getWidth() - MARGIN_LEFT - MARGIN_RIGHT, 1);
+        int offset = Math.max(0, Math.min(x - MARGIN_LEFT, chartWidth));
+        return fromTime + (toTime - fromTime) * offset / chartWidth;
+    }
+}
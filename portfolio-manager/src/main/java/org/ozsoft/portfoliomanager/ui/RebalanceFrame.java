@@ -0,0 +1,132 @@
+// This file is part of the 'portfolio-manager' (Portfolio Manager)
+// project, an open source stock portfolio manager application
+// written in Java.
+//
+// Copyright 2015 Oscar Stigter
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.ozsoft.portfoliomanager.ui;
+
+import java.awt.BorderLayout;
+import java.awt.Dimension;
+import java.awt.FlowLayout;
+import java.awt.Font;
+import java.awt.Toolkit;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+
+import javax.swing.JButton;
+import javax.swing.JComboBox;
+import javax.swing.JDialog;
+import javax.swing.JLabel;
+import javax.swing.JOptionPane;
+import javax.swing.JPanel;
+import javax.swing.JScrollPane;
+import javax.swing.JTextArea;
+import javax.swing.JTextField;
+
+import org.ozsoft.portfoliomanager.domain.RebalancePlan;
+import org.ozsoft.portfoliomanager.domain.WeightRule;
+import org.ozsoft.portfoliomanager.services.RebalanceService;
+
+/**
+ * Modal window to calculate the stocks to buy to rebalance the portfolio (owned and goal stocks) with new cash. <br />
+ * <br />
+ *
+ * The plan is calculated by the {@link RebalanceService}.
+ *
+ * @author Oscar Stigter
+ */
+public class RebalanceFrame extends JDialog {
+
+    private static final long serialVersionUID = -2203870463516413467L;
+
+    private final RebalanceService rebalanceService = new RebalanceService();
+
+    private final JTextField cashText;
+
+    private final JComboBox<WeightRule> ruleComboBox;
+
+    private final JTextArea textArea;
+
+    /**
+     * Constructor.
+     *
+     * @param mainFrame
+     *            The application's main window.
+     */
+    public RebalanceFrame(MainFrame mainFrame) {
+        super(mainFrame, "Rebalance portfolio", true);
+
+        setLayout(new BorderLayout());
+
+        JPanel inputPanel = new JPanel(new FlowLayout(FlowLayout.LEFT, 10, 10));
+        inputPanel.add(new JLabel("Cash to invest:"));
+        cashText = new JTextField("1000", 10);
+        inputPanel.add(cashText);
+        inputPanel.add(new JLabel("Target weights:"));
+        ruleComboBox = new JComboBox<WeightRule>(WeightRule.values());
+        inputPanel.add(ruleComboBox);
+        JButton button = new JButton("Calculate");
+        button.setToolTipText("Calculates the stocks to buy, based on the current prices");
+        button.addActionListener(new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                showPlan();
+            }
+        });
+        inputPanel.add(button);
+        add(inputPanel, BorderLayout.NORTH);
+
+        textArea = new JTextArea();
+        textArea.setFont(new Font(Font.MONOSPACED, Font.PLAIN, 12));
+        textArea.setEditable(false);
+        add(new JScrollPane(textArea), BorderLayout.CENTER);
+
+        Dimension screenSize = Toolkit.getDefaultToolkit().getScreenSize();
+        int width = (int) (0.5 * screenSize.getWidth());
+        int height = (int) (0.6 * screenSize.getHeight());
+        setSize(width, height);
+        setLocationRelativeTo(mainFrame);
+
+        showPlan();
+
+        setVisible(true);
+    }
+
+    /**
+     * Shows the stocks to buy.
+     */
+    private void showPlan() {
+        double cash;
+        try {
+            cash = Double.parseDouble(cashText.getText().trim());
+        } catch (NumberFormatException e) {
+            JOptionPane.showMessageDialog(this, "Invalid cash amount.", "Error", JOptionPane.ERROR_MESSAGE);
+            return;
+        }
+
+        RebalancePlan plan = rebalanceService.plan((WeightRule) ruleComboBox.getSelectedItem(), cash);
+        textArea.setText(null);
+        textArea.append(String.format("%-8s %8s %10s %12s %8s %8s\n", "Symbol", "Shares", "Price", "Amount", "Target", "New"));
+        double total = 0.0;
+        for (int i = 0; i < plan.getNoOfStocks(); i++) {
+            textArea.append(String.format("%-8s %8d %10.2f %12.2f %6.2f %% %6.2f %%\n", plan.getSymbol(i), plan.getShares(i), plan.getPrice(i),
+                    plan.getAmount(i), plan.getTargetWeight(i), plan.getNewWeight(i)));
+            total += plan.getAmount(i);
+        }
+        textArea.append(String.format("\nTotal to invest: $%,.2f (%d buy transactions), remaining cash: $%,.2f\n", total,
+                plan.getTransactions(System.currentTimeMillis()).size(), plan.getRemainingCash()));
+    }
+}
@@ -18,27 +18,33 @@
 
 package org.ozsoft.portfoliomanager.ui;
 
+import java.awt.BorderLayout;
+import java.awt.FlowLayout;
 import java.awt.Font;
-import java.awt.GridBagConstraints;
-import java.awt.GridBagLayout;
-import java.awt.Insets;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
-import java.io.IOException;
+import java.util.concurrent.ExecutionException;
 
 import javax.swing.JButton;
 import javax.swing.JFrame;
 import javax.swing.JLabel;
+import javax.swing.JPanel;
+import javax.swing.SwingConstants;
+import javax.swing.SwingWorker;
 
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
 import org.ozsoft.portfoliomanager.domain.Stock;
+import org.ozsoft.portfoliomanager.domain.StockHistory;
+import org.ozsoft.portfoliomanager.domain.TimeRange;
+import org.ozsoft.portfoliomanager.services.HistoryCache;
 import org.ozsoft.portfoliomanager.services.UpdateService;
-import org.ozsoft.portfoliomanager.util.HttpPageReader;
 
 /**
- * Window showing the current share price and graphs for a specific stock. <br />
+ * Window showing the current share price and a price chart for a specific stock. <br />
  * <br />
  *
- * Uses the Yahoo Finance chart API (delayed).
+ * The chart is rendered locally from the (cached) historic prices and dividend payouts, so zooming and panning do not need network access.
  *
  * @author Oscar Stigter
  */
@@ -46,99 +52,68 @@ public class StockPriceFrame extends JFrame {
 
     private static final long serialVersionUID = -7868161566551066062L;
 
-    private static final String PRICE_GRAPH_URI = "https://chart.finance.yahoo.com/z?s=%s&t=%s&l=off&p=v";
+    private static final Logger LOGGER = LogManager.getLogger(StockPriceFrame.class);
 
     private final Stock stock;
 
-    private final HttpPageReader httpPageReader;
-
     private final UpdateService updateService;
 
-    private final JLabel priceLabel;
-
-    private final ImagePanel fullHistoryGraphPanel;
+    private final HistoryCache historyCache;
 
-    private final ImagePanel fiveYearGraphPanel;
+    private final JLabel priceLabel;
 
-    private final ImagePanel oneYearGraphPanel;
+    private final PriceChartPanel chartPanel;
 
-    private final ImagePanel sevenDaysGraphPanel;
+    private final JButton updateButton;
 
     /**
      * Private constructor.
      *
      * @param stock
-     *            The stock to show the price and graphs for.
+     *            The stock to show the price and chart for.
      */
     private StockPriceFrame(Stock stock) {
         super(stock.getSymbol() + " - Price");
 
         this.stock = stock;
 
-        httpPageReader = new HttpPageReader();
         updateService = new UpdateService();
+        historyCache = HistoryCache.getInstance();
 
         setDefaultCloseOperation(JFrame.DISPOSE_ON_CLOSE);
-        getContentPane().setLayout(new GridBagLayout());
-        GridBagConstraints gbc = new GridBagConstraints();
+        getContentPane().setLayout(new BorderLayout());
 
-        priceLabel = new JLabel();
+        priceLabel = new JLabel(" ", SwingConstants.CENTER);
         priceLabel.setFont(new Font("Proportional", Font.BOLD, 20));
-        gbc.gridx = 0;
-        gbc.gridy = 0;
-        gbc.gridwidth = 2;
-        gbc.gridheight = 1;
-        gbc.anchor = GridBagConstraints.CENTER;
-        gbc.fill = GridBagConstraints.NONE;
-        gbc.weightx = 0.0;
-        gbc.weighty = 0.0;
-        gbc.insets = new Insets(10, 10, 10, 10);
-        getContentPane().add(priceLabel, gbc);
-
-        fullHistoryGraphPanel = new ImagePanel();
-        gbc.gridx = 0;
-        gbc.gridy = 1;
-        gbc.gridwidth = 1;
-        gbc.gridheight = 1;
-        gbc.anchor = GridBagConstraints.CENTER;
-        gbc.fill = GridBagConstraints.NONE;
-        gbc.weightx = 0.0;
-        gbc.weighty = 0.0;
-        gbc.insets = new Insets(5, 5, 5, 5);
-        getContentPane().add(fullHistoryGraphPanel, gbc);
-
-        fiveYearGraphPanel = new ImagePanel();
-        gbc.gridx = 1;
-        gbc.gridy = 1;
-        getContentPane().add(fiveYearGraphPanel, gbc);
-
-        oneYearGraphPanel = new ImagePanel();
-        gbc.gridx = 0;
-        gbc.gridy = 2;
-        getContentPane().add(oneYearGraphPanel, gbc);
-
-        sevenDaysGraphPanel = new ImagePanel();
-        gbc.gridx = 1;
-        gbc.gridy = 2;
-        getContentPane().add(sevenDaysGraphPanel, gbc);
-
-        JButton updateButton = new JButton("Update");
+        priceLabel.setBorder(UIConstants.SPACER_BORDER);
+        getContentPane().add(priceLabel, BorderLayout.NORTH);
+
+        chartPanel = new PriceChartPanel();
+        getContentPane().add(chartPanel, BorderLayout.CENTER);
+
+        JPanel buttonPanel = new JPanel(new FlowLayout(FlowLayout.RIGHT));
+
+        JButton maxButton = new JButton("Max");
+        maxButton.addActionListener(new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                chartPanel.showAll();
+            }
+        });
+        buttonPanel.add(maxButton);
+        buttonPanel.add(createRangeButton("10Y", TimeRange.TEN_YEAR));
+        buttonPanel.add(createRangeButton("5Y", TimeRange.FIVE_YEAR));
+        buttonPanel.add(createRangeButton("1Y", TimeRange.ONE_YEAR));
+        buttonPanel.add(createRangeButton("1M", TimeRange.ONE_MONTH));
+
+        updateButton = new JButton("Update");
         updateButton.addActionListener(new ActionListener() {
             @Override
             public void actionPerformed(ActionEvent arg0) {
                 update();
             }
         });
-        gbc.gridx = 0;
-        gbc.gridy = 3;
-        gbc.gridwidth = 1;
-        gbc.gridheight = 1;
-        gbc.anchor = GridBagConstraints.EAST;
-        gbc.fill = GridBagConstraints.NONE;
-        gbc.weightx = 1.0;
-        gbc.weighty = 0.0;
-        gbc.insets = new Insets(10, 10, 10, 10);
-        getContentPane().add(updateButton, gbc);
+        buttonPanel.add(updateButton);
 
         JButton analyzeButton = new JButton("Analyze");
         analyzeButton.addActionListener(new ActionListener() {
@@ -147,16 +122,12 @@ public class StockPriceFrame extends JFrame {
                 analyze();
             }
         });
-        gbc.gridx = 1;
-        gbc.gridy = 3;
-        gbc.gridwidth = 1;
-        gbc.gridheight = 1;
-        gbc.anchor = GridBagConstraints.EAST;
-        gbc.fill = GridBagConstraints.NONE;
-        gbc.weightx = 0.0;
-        gbc.weighty = 0.0;
-        gbc.insets = new Insets(10, 10, 10, 10);
-        getContentPane().add(analyzeButton, gbc);
+        buttonPanel.add(analyzeButton);
+
+        getContentPane().add(buttonPanel, BorderLayout.SOUTH);
+
+        pack();
+        setLocationRelativeTo(null);
     }
 
     /**
@@ -167,38 +138,48 @@ public class StockPriceFrame extends JFrame {
      */
     public static void show(Stock stock) {
         StockPriceFrame frame = new StockPriceFrame(stock);
-        frame.setResizable(false);
+        frame.setVisible(true);
 
         frame.update();
     }
 
     /**
-     * Updates the stock's current price and graphs.
+     * Updates the stock's current price and chart in the background.
      */
     private void update() {
-        String symbol = stock.getSymbol();
-
-        updateService.updatePrice(stock);
-        priceLabel.setText(String.format("Current price: $%.2f", stock.getPrice()));
-
-        try {
-            fullHistoryGraphPanel.setImage(httpPageReader.downloadFile(String.format(PRICE_GRAPH_URI, symbol, "9y")));
-            fiveYearGraphPanel.setImage(httpPageReader.downloadFile(String.format(PRICE_GRAPH_URI, symbol, "1y")));
-            oneYearGraphPanel.setImage(httpPageReader.downloadFile(String.format(PRICE_GRAPH_URI, symbol, "10d")));
-            sevenDaysGraphPanel.setImage(httpPageReader.downloadFile(String.format(PRICE_GRAPH_URI, symbol, "1d")));
+        updateButton.setEnabled(false);
+        priceLabel.setText("Updating...");
 
-            pack();
-            setLocationRelativeTo(null);
-
-            setVisible(true);
+        new SwingWorker<StockHistory, Void>() {
+            @Override
+            protected StockHistory doInBackground() {
+                updateService.updatePrice(stock);
+                return historyCache.getHistory(stock);
+            }
 
-            repaint();
-            revalidate();
+            @Override
+            protected void done() {
+                priceLabel.setText(String.format("Current price: $%.2f", stock.getPrice()));
+                try {
+                    StockHistory history = get();
+                    chartPanel.setSeries(history.getPyramid(), history.getDividends());
+                } catch (InterruptedException | ExecutionException e) {
+                    LOGGER.error(String.format("Could not retrieve price history for %s", stock), e);
+                }
+                updateButton.setEnabled(true);
+            }
+        }.execute();
+    }
 
-        } catch (IOException e) {
-            System.err.format("ERROR: Could not retrieve price graph for %s\n", stock);
-            e.printStackTrace(System.err);
-        }
+    private JButton createRangeButton(String text, final TimeRange timeRange) {
+        JButton button = new JButton(text);
+        button.addActionListener(new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                chartPanel.showFrom(timeRange.getFromDate());
+            }
+        });
+        return button;
     }
 
     private void analyze() {
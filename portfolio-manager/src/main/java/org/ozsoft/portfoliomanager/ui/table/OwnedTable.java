@@ -39,6 +39,7 @@ import org.ozsoft.portfoliomanager.domain.Configuration;
 import org.ozsoft.portfoliomanager.domain.Portfolio;
 import org.ozsoft.portfoliomanager.domain.Position;
 import org.ozsoft.portfoliomanager.domain.Stock;
+import org.ozsoft.portfoliomanager.metrics.MetricsRegistry;
 import org.ozsoft.portfoliomanager.ui.Dialog;
 import org.ozsoft.portfoliomanager.ui.EditStockDialog;
 import org.ozsoft.portfoliomanager.ui.MainFrame;
@@ -101,8 +102,18 @@ public class OwnedTable extends DataTable {
      * Initializes the table columns.
      */
     protected void initColumns() {
-        boolean roundTotals = Configuration.getInstance().isRoundTotals();
+        setColumns(createColumns(Configuration.getInstance().isRoundTotals()));
+    }
 
+    /**
+     * Creates the table columns.
+     *
+     * @param roundTotals
+     *                        Whether to round the totals to whole dollars.
+     *
+     * @return The table columns.
+     */
+    public static List<Column> createColumns(boolean roundTotals) {
         ColumnRenderer numberColumnRenderer = new DefaultColumnRenderer(SwingConstants.RIGHT);
         ColumnRenderer centeredColumnRenderer = new DefaultColumnRenderer(SwingConstants.CENTER);
         ColumnRenderer percChangeColumnRenderer = new PercChangeColumnRenderer();
@@ -137,8 +148,7 @@ public class OwnedTable extends DataTable {
         columns.add(new Column("RR", "Total realized result from sales", resultColumnRenderer));
         columns.add(new Column("TR", "Total return (result plus income)", resultColumnRenderer));
         columns.add(new Column("Notes", "Notes about this stock"));
-
-        setColumns(columns);
+        return columns;
     }
 
     /**
@@ -172,19 +182,42 @@ public class OwnedTable extends DataTable {
 
     @Override
     public final void update() {
-        clear();
+        long startTime = System.nanoTime();
+
+        populate(this, config.getPortfolio(), config.getShowClosedPositions());
+
+        super.update();
+        MetricsRegistry.getInstance().getHistogram("table." + getClass().getSimpleName()).recordSince(startTime);
+
+        // Force table's footer row to repaint (appearently needed because of a Swing bug)
+        repaint();
+        revalidate();
+    }
 
-        boolean showClosedPositions = config.getShowClosedPositions();
+    /**
+     * Populates a table with the columns of this table with the portfolio's positions and totals. <br />
+     * <br />
+     *
+     * The table is cleared first, but not updated.
+     *
+     * @param table
+     *                                The table.
+     * @param portfolio
+     *                                The portfolio.
+     * @param showClosedPositions
+     *                                Whether to include the closed positions.
+     */
+    public static void populate(DataTable table, Portfolio portfolio, boolean showClosedPositions) {
+        table.clear();
 
         // Populate table with portfolio positions (owned stocks).
-        Portfolio portfolio = config.getPortfolio();
         BigDecimal currentPortfolioCost = portfolio.getCurrentCost();
         BigDecimal currentPortfolioValue = portfolio.getCurrentValue();
         for (Position p : portfolio.getPositions()) {
             if (p.getNoOfShares().intValue() > 0 || showClosedPositions) {
                 Stock s = p.getStock();
                 BigDecimal weight = MathUtils.perc(p.getCurrentValue(), currentPortfolioValue);
-                addRow(s.getName(), s.getSymbol(), s.getPrice(), s.getChangePerc(), s.getYield(), s.getDivGrowth().doubleValue(),
+                table.addRow(s.getName(), s.getSymbol(), s.getPrice(), s.getChangePerc(), s.getYield(), s.getDivGrowth().doubleValue(),
                         s.getYearsDivGrowth(), s.getCreditRating(), p.getNoOfShares().intValue(), p.getCurrentCost(), p.getCostPerShare(),
                         p.getCurrentValue(), weight, p.getCurrentResult(), p.getCurrentResultPercentage(), p.getAnnualIncome(), p.getYieldOnCost(),
                         p.getTotalIncome(), p.getRealizedResult(), p.getTotalReturn(), "  " + s.getComment());
@@ -192,15 +225,9 @@ public class OwnedTable extends DataTable {
         }
 
         // Populate footer row with totals.
-        setFooterRow(null, null, null, null, null, null, null, null, null, currentPortfolioCost, null, portfolio.getCurrentValue(), null,
-                portfolio.getCurrentResult(), portfolio.getCurrentResultPercentage(), portfolio.getAnnualIncome(), portfolio.getYieldOnCost(),
-                portfolio.getTotalIncome(), portfolio.getRealizedResult(), portfolio.getTotalReturn(), null);
-
-        super.update();
-
-        // Force table's footer row to repaint (appearently needed because of a Swing bug)
-        repaint();
-        revalidate();
+        table.setFooterRow(null, null, null, null, null, null, null, null, null, currentPortfolioCost, null, portfolio.getCurrentValue(),
+                null, portfolio.getCurrentResult(), portfolio.getCurrentResultPercentage(), portfolio.getAnnualIncome(),
+                portfolio.getYieldOnCost(), portfolio.getTotalIncome(), portfolio.getRealizedResult(), portfolio.getTotalReturn(), null);
     }
 
     /**
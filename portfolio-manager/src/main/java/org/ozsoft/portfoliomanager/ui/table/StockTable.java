@@ -38,6 +38,7 @@ import org.ozsoft.datatable.DefaultColumnRenderer;
 import org.ozsoft.portfoliomanager.domain.Configuration;
 import org.ozsoft.portfoliomanager.domain.Stock;
 import org.ozsoft.portfoliomanager.domain.StockLevel;
+import org.ozsoft.portfoliomanager.metrics.MetricsRegistry;
 import org.ozsoft.portfoliomanager.ui.Dialog;
 import org.ozsoft.portfoliomanager.ui.EditStockDialog;
 import org.ozsoft.portfoliomanager.ui.MainFrame;
@@ -193,12 +194,14 @@ public class StockTable extends DataTable {
 
     @Override
     public final void update() {
+        long startTime = System.nanoTime();
         clear();
         for (Stock s : getStocks()) {
             addRow(s.getName(), s.getSymbol(), s.getPrice(), s.getChangePerc(), s.getTargetPrice(), s.getTargetPriceIndex().doubleValue(),
                     s.getDivRate(), s.getYield(), s.getDivGrowth().doubleValue(), s.getYearsDivGrowth(), s.getCreditRating(), s.getComment());
         }
         super.update();
+        MetricsRegistry.getInstance().getHistogram("table." + getClass().getSimpleName()).recordSince(startTime);
     }
 
     /**
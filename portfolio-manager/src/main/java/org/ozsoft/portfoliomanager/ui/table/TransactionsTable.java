@@ -40,6 +40,8 @@ import org.ozsoft.portfoliomanager.domain.Configuration;
 import org.ozsoft.portfoliomanager.domain.Stock;
 import org.ozsoft.portfoliomanager.domain.Transaction;
 import org.ozsoft.portfoliomanager.domain.TransactionType;
+import org.ozsoft.portfoliomanager.metrics.MetricsRegistry;
+import org.ozsoft.portfoliomanager.services.IncomeForecastService;
 import org.ozsoft.portfoliomanager.ui.Dialog;
 import org.ozsoft.portfoliomanager.ui.EditTransactionDialog;
 import org.ozsoft.portfoliomanager.ui.MainFrame;
@@ -153,6 +155,7 @@ public class TransactionsTable extends DataTable {
 
     @Override
     public final void update() {
+        long startTime = System.nanoTime();
         clear();
         for (Transaction t : config.getTransactions()) {
             String symbol = t.getSymbol();
@@ -172,6 +175,7 @@ public class TransactionsTable extends DataTable {
             addRow(t.getId(), t.getDate(), stockName, symbol, type, noOfShares.intValue(), price, cost, total);
         }
         super.update();
+        MetricsRegistry.getInstance().getHistogram("table." + getClass().getSimpleName()).recordSince(startTime);
     }
 
     /**
@@ -179,7 +183,9 @@ public class TransactionsTable extends DataTable {
      */
     public void addTransaction() {
         if (editTransactionDialog.show() == Dialog.OK) {
-            config.addTransaction(editTransactionDialog.getTransaction());
+            Transaction transaction = editTransactionDialog.getTransaction();
+            config.addTransaction(transaction);
+            IncomeForecastService.getInstance().transactionAdded(transaction);
             update();
             mainFrame.updateOwnedPanel();
         }
@@ -191,7 +197,9 @@ public class TransactionsTable extends DataTable {
     private void editTransaction() {
         Transaction transaction = getSelectedTransaction();
         if (transaction != null) {
+            String symbol = transaction.getSymbol();
             if (editTransactionDialog.show(transaction) == Dialog.OK) {
+                IncomeForecastService.getInstance().transactionChanged(transaction, symbol);
                 update();
                 mainFrame.updateOwnedPanel();
             }
@@ -207,6 +215,7 @@ public class TransactionsTable extends DataTable {
             if (JOptionPane.showConfirmDialog(null, "Permanently delete transaction?", "Warning", JOptionPane.WARNING_MESSAGE,
                     JOptionPane.OK_CANCEL_OPTION) == JOptionPane.OK_OPTION) {
                 config.deleteTransaction(transaction);
+                IncomeForecastService.getInstance().transactionRemoved(transaction);
                 update();
                 mainFrame.updateOwnedPanel();
             }
@@ -0,0 +1,69 @@
+// This file is part of the 'portfolio-manager' (Portfolio Manager)
+// project, an open source stock portfolio manager application
+// written in Java.
+//
+// Copyright 2015 Oscar Stigter
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.ozsoft.portfoliomanager.util;
+
+import java.util.TimeZone;
+
+/**
+ * Date utilities. <br />
+ * <br />
+ *
+ * Dates are represented as day numbers (the number of days since 1970-01-01 in the local time zone), which makes them suitable as indexes in
+ * primitive arrays.
+ *
+ * @author Oscar Stigter
+ */
+public abstract class DateUtils {
+
+    /** Number of milliseconds in a day. */
+    public static final long MILLISECONDS_PER_DAY = 24L * 60L * 60L * 1000L;
+
+    /**
+     * Private constructor to deny instantiation.
+     */
+    private DateUtils() {
+        // Empty.
+    }
+
+    /**
+     * Returns the day number of a timestamp.
+     *
+     * @param timestamp
+     *            The timestamp in milliseconds.
+     *
+     * @return The day number.
+     */
+    public static int toDay(long timestamp) {
+        long localTime = timestamp + TimeZone.getDefault().getOffset(timestamp);
+        return (int) Math.floorDiv(localTime, MILLISECONDS_PER_DAY);
+    }
+
+    /**
+     * Returns the timestamp of a day number, at midnight (00:00) local time.
+     *
+     * @param day
+     *            The day number.
+     *
+     * @return The timestamp in milliseconds.
+     */
+    public static long toTimestamp(int day) {
+        long utcTime = day * MILLISECONDS_PER_DAY;
+        return utcTime - TimeZone.getDefault().getOffset(utcTime);
+    }
+}
@@ -0,0 +1,202 @@
+// This file is part of the 'portfolio-manager' (Portfolio Manager)
+// project, an open source stock portfolio manager application
+// written in Java.
+//
+// Copyright 2015 Oscar Stigter
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.ozsoft.portfoliomanager.util;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Properties;
+
+import org.apache.commons.io.IOUtils;
+
+/**
+ * Disk-based cache of HTTP responses, storing the response body and its validators (ETag and Last-Modified) per URI. <br />
+ * <br />
+ *
+ * Used by the {@link HttpPageReader} to send conditional requests, so unchanged resources are served from disk after a '304 Not Modified'
+ * response without transferring the response body again.
+ *
+ * @author Oscar Stigter
+ */
+public class HttpCache {
+
+    private static final String BODY_FILE_EXTENSION = ".body";
+
+    private static final String META_FILE_EXTENSION = ".meta";
+
+    private static final String URI_PROPERTY = "uri";
+
+    private static final String ETAG_PROPERTY = "etag";
+
+    private static final String LAST_MODIFIED_PROPERTY = "lastModified";
+
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+    private final File cacheDir;
+
+    /**
+     * Constructor.
+     *
+     * @param cacheDir
+     *            The directory to store the cached responses in (created if not existing).
+     */
+    public HttpCache(File cacheDir) {
+        this.cacheDir = cacheDir;
+        if (!cacheDir.exists()) {
+            cacheDir.mkdirs();
+        }
+    }
+
+    /**
+     * Returns the file with the cached response body of a URI (which may not exist).
+     *
+     * @param uri
+     *            The URI.
+     *
+     * @return The response body file.
+     */
+    public File getBodyFile(String uri) {
+        return new File(cacheDir, getKey(uri) + BODY_FILE_EXTENSION);
+    }
+
+    /**
+     * Returns the cached ETag of a URI.
+     *
+     * @param uri
+     *            The URI.
+     *
+     * @return The ETag, or {@code null} if not cached.
+     */
+    public String getETag(String uri) {
+        return readMetadata(uri).getProperty(ETAG_PROPERTY);
+    }
+
+    /**
+     * Returns the cached last modified timestamp of a URI.
+     *
+     * @param uri
+     *            The URI.
+     *
+     * @return The last modified timestamp, or 0L if not cached.
+     */
+    public long getLastModified(String uri) {
+        String value = readMetadata(uri).getProperty(LAST_MODIFIED_PROPERTY);
+        return (value != null) ? Long.parseLong(value) : 0L;
+    }
+
+    /**
+     * Stores the validators of a URI, after its response body has been stored in the body file.
+     *
+     * @param uri
+     *            The URI.
+     * @param eTag
+     *            The ETag, or {@code null} if not set.
+     * @param lastModified
+     *            The last modified timestamp, or 0L if not set.
+     */
+    public synchronized void store(String uri, String eTag, long lastModified) {
+        Properties metadata = new Properties();
+        metadata.setProperty(URI_PROPERTY, uri);
+        if (eTag != null) {
+            metadata.setProperty(ETAG_PROPERTY, eTag);
+        }
+        if (lastModified > 0L) {
+            metadata.setProperty(LAST_MODIFIED_PROPERTY, String.valueOf(lastModified));
+        }
+        OutputStream os = null;
+        try {
+            os = new FileOutputStream(getMetaFile(uri));
+            metadata.store(os, null);
+        } catch (IOException e) {
+            // Not cached; the next request will simply be unconditional.
+            getMetaFile(uri).delete();
+        } finally {
+            IOUtils.closeQuietly(os);
+        }
+    }
+
+    /**
+     * Removes a URI from the cache.
+     *
+     * @param uri
+     *            The URI.
+     */
+    public synchronized void remove(String uri) {
+        getMetaFile(uri).delete();
+        getBodyFile(uri).delete();
+    }
+
+    /**
+     * Reads the cached metadata of a URI.
+     *
+     * @param uri
+     *            The URI.
+     *
+     * @return The metadata (empty if not cached).
+     */
+    private synchronized Properties readMetadata(String uri) {
+        Properties metadata = new Properties();
+        File metaFile = getMetaFile(uri);
+        if (metaFile.isFile()) {
+            InputStream is = null;
+            try {
+                is = new FileInputStream(metaFile);
+                metadata.load(is);
+            } catch (IOException e) {
+                metadata.clear();
+            } finally {
+                IOUtils.closeQuietly(is);
+            }
+        }
+        return metadata;
+    }
+
+    private File getMetaFile(String uri) {
+        return new File(cacheDir, getKey(uri) + META_FILE_EXTENSION);
+    }
+
+    /**
+     * Returns the cache key of a URI (hex encoded SHA-1 hash, safe to use as file name).
+     *
+     * @param uri
+     *            The URI.
+     *
+     * @return The cache key.
+     */
+    private static String getKey(String uri) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-1").digest(uri.getBytes(StandardCharsets.UTF_8));
+            char[] chars = new char[hash.length * 2];
+            for (int i = 0; i < hash.length; i++) {
+                chars[i * 2] = HEX_DIGITS[(hash[i] >> 4) & 0x0f];
+                chars[i * 2 + 1] = HEX_DIGITS[hash[i] & 0x0f];
+            }
+            return new String(chars);
+        } catch (NoSuchAlgorithmException e) {
+            // Every Java platform is required to support SHA-1.
+            throw new IllegalStateException("SHA-1 not supported", e);
+        }
+    }
+}
@@ -18,21 +18,50 @@
 
 package org.ozsoft.portfoliomanager.util;
 
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.FilterInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InterruptedIOException;
 import java.net.Authenticator;
 import java.net.HttpURLConnection;
+import java.net.InetSocketAddress;
 import java.net.PasswordAuthentication;
+import java.net.Proxy;
 import java.net.URL;
-import java.text.DateFormat;
-import java.text.ParseException;
-import java.text.SimpleDateFormat;
-import java.util.Locale;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Base64;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Semaphore;
+import java.util.zip.GZIPInputStream;
 
 import org.apache.commons.io.IOUtils;
 
 /**
- * Retrieves HTTP pages from an URL, with support for a HTTP proxy with optional authentication.
+ * Retrieves HTTP pages from an URL, with support for a HTTP proxy with optional authentication. <br />
+ * <br />
+ *
+ * If an {@link HttpCache} is set, responses are cached on disk and requested conditionally (using the 'If-None-Match' and
+ * 'If-Modified-Since' headers), so unchanged resources are not transferred again. <br />
+ * <br />
+ *
+ * This class is thread-safe and intended to be shared (see {@link #getDefault()}). The number of concurrent connections per host is
+ * limited, and response bodies are always fully consumed and closed, so the underlying connections are kept alive and reused. Responses are
+ * requested gzip compressed. <br />
+ * <br />
+ *
+ * The proxy applies to this instance only. The proxy credentials are sent preemptively with plain HTTP requests, and are provided through
+ * the default {@link Authenticator} for HTTPS requests (the CONNECT request of the tunnel does not carry the request headers). Note that
+ * since Java 8u111, Basic authentication for HTTPS tunnels is disabled by default; it must be enabled with the system property
+ * {@code -Djdk.http.auth.tunneling.disabledSchemes=""} on the command line.
  *
  * @author Oscar Stigter
  */
@@ -47,7 +76,20 @@ public class HttpPageReader {
     /** HTTP read timeout in milliseconds. */
     private static final int READ_TIMEOUT = 60000; // 1 minute
 
-    private static final DateFormat DATE_FORMAT = new SimpleDateFormat("dd MMM yyyy", Locale.US);
+    /** Maximum number of bytes to transfer from the network to a file at once. */
+    private static final long TRANSFER_SIZE = 1024L * 1024L; // 1 MB
+
+    /** Maximum number of concurrent connections per host (equal to the JVM's default keep-alive cache size per destination). */
+    private static final int MAX_CONNECTIONS_PER_HOST = 5;
+
+    /** Prefix of temporary files for downloads in progress. */
+    private static final String TEMP_FILE_PREFIX = "download-";
+
+    private static HttpPageReader defaultInstance;
+
+    private final HttpCache cache;
+
+    private final ConcurrentMap<String, Semaphore> hostPermits = new ConcurrentHashMap<String, Semaphore>();
 
     private boolean useProxy = false;
     private String proxyHost = "";
@@ -55,24 +97,72 @@ public class HttpPageReader {
     private String proxyUsername = "";
     private String proxyPassword = "";
 
-    public void setUseProxy(boolean useProxy) {
+    private volatile Proxy proxy = Proxy.NO_PROXY;
+
+    private volatile String proxyAuthorization;
+
+    /**
+     * Constructor without a response cache.
+     */
+    public HttpPageReader() {
+        this(null);
+    }
+
+    /**
+     * Constructor with a response cache.
+     *
+     * @param cache
+     *            The response cache, or {@code null} for none.
+     */
+    public HttpPageReader(HttpCache cache) {
+        this.cache = cache;
+    }
+
+    /**
+     * Returns the shared instance.
+     *
+     * @return The shared instance (without response cache, unless set with {@link #setDefault(HttpPageReader)}).
+     */
+    public static synchronized HttpPageReader getDefault() {
+        if (defaultInstance == null) {
+            defaultInstance = new HttpPageReader();
+        }
+        return defaultInstance;
+    }
+
+    /**
+     * Sets the shared instance.
+     *
+     * @param httpPageReader
+     *            The shared instance.
+     */
+    public static synchronized void setDefault(HttpPageReader httpPageReader) {
+        defaultInstance = httpPageReader;
+    }
+
+    public synchronized void setUseProxy(boolean useProxy) {
         this.useProxy = useProxy;
+        updateProxySettings();
     }
 
-    public void setProxyHost(String proxyHost) {
+    public synchronized void setProxyHost(String proxyHost) {
         this.proxyHost = proxyHost;
+        updateProxySettings();
     }
 
-    public void setProxyPort(int proxyPort) {
+    public synchronized void setProxyPort(int proxyPort) {
         this.proxyPort = proxyPort;
+        updateProxySettings();
     }
 
-    public void setProxyUsername(String proxyUsername) {
+    public synchronized void setProxyUsername(String proxyUsername) {
         this.proxyUsername = proxyUsername;
+        updateProxySettings();
     }
 
-    public void setProxyPassword(String proxyPassword) {
+    public synchronized void setProxyPassword(String proxyPassword) {
         this.proxyPassword = proxyPassword;
+        updateProxySettings();
     }
 
     /**
@@ -84,13 +174,12 @@ public class HttpPageReader {
      * @return The response content body.
      */
     public String read(String uri) throws IOException {
-        updateProxySettings();
-        URL url = new URL(uri);
-        HttpURLConnection connection = (HttpURLConnection) url.openConnection();
-        connection.setRequestProperty("User-Agent", USER_AGENT);
-        connection.setConnectTimeout(CONNECT_TIMEOUT);
-        connection.setReadTimeout(READ_TIMEOUT);
-        return IOUtils.toString(connection.getInputStream());
+        InputStream is = downloadFile(uri);
+        try {
+            return IOUtils.toString(is);
+        } finally {
+            IOUtils.closeQuietly(is);
+        }
     }
 
     /**
@@ -107,36 +196,36 @@ public class HttpPageReader {
     public long getFileLastModified(String uri) throws IOException {
         long timestamp = -1L;
 
-        updateProxySettings();
         URL url = new URL(uri);
-        HttpURLConnection connection = (HttpURLConnection) url.openConnection();
-        connection.setUseCaches(false);
-        connection.setRequestMethod("HEAD");
-        connection.setConnectTimeout(CONNECT_TIMEOUT);
-        connection.setReadTimeout(READ_TIMEOUT);
-
-        int statusCode = connection.getResponseCode();
-        if (statusCode == HttpURLConnection.HTTP_OK) {
-            String dateString = connection.getHeaderField("Last-Modified");
-            if (dateString != null && dateString.length() > 16) {
-                dateString = dateString.substring(5, 16);
-                try {
-                    timestamp = DATE_FORMAT.parse(dateString).getTime();
-                } catch (ParseException e) {
-                    System.err.format("ERROR: Invalid Last-Modified date '%s' from HEAD request to '%s'\n", dateString, url);
+        Semaphore permits = acquire(url);
+        try {
+            HttpURLConnection connection = openConnection(url);
+            connection.setUseCaches(false);
+            connection.setRequestMethod("HEAD");
+            int statusCode = connection.getResponseCode();
+            discard(connection);
+            if (statusCode == HttpURLConnection.HTTP_OK) {
+                long lastModified = connection.getLastModified();
+                if (lastModified > 0L) {
+                    timestamp = lastModified;
+                } else {
+                    System.err.format("ERROR: No Last-Modified header from HEAD request to '%s'\n", url);
                 }
             } else {
-                System.err.format("ERROR: No Last-Modified header from HEAD request to '%s'\n", url);
+                System.err.format("ERROR: Failed HEAD request to '%s' (HTTP status code: %d)\n", url, statusCode);
             }
-        } else {
-            System.err.format("ERROR: Failed HEAD request to '%s' (HTTP status code: %d)\n", url, statusCode);
+        } finally {
+            permits.release();
         }
 
         return timestamp;
     }
 
     /**
-     * Retrieves (downloads) a remote file over HTTP.
+     * Retrieves (downloads) a remote file over HTTP. <br />
+     * <br />
+     *
+     * The returned stream must be closed by the caller, in order to release the connection.
      *
      * @param uri
      *                The URI of the remote file.
@@ -147,44 +236,274 @@ public class HttpPageReader {
      *                         If the file could not be found or retrieved.
      */
     public InputStream downloadFile(String uri) throws IOException {
-        updateProxySettings();
+        if (cache != null) {
+            return new FileInputStream(getCachedFile(uri));
+        }
+
+        URL url = new URL(uri);
+        final Semaphore permits = acquire(url);
+        try {
+            HttpURLConnection connection = openConnection(url);
+            int statusCode = connection.getResponseCode();
+            if (statusCode != HttpURLConnection.HTTP_OK) {
+                discard(connection);
+                throw new HttpStatusException(String.format("Failed GET request to '%s' (HTTP status code: %d)", url, statusCode), statusCode);
+            }
+            return new FilterInputStream(getInputStream(connection)) {
+
+                private boolean isClosed = false;
+
+                @Override
+                public void close() throws IOException {
+                    if (!isClosed) {
+                        isClosed = true;
+                        try {
+                            super.close();
+                        } finally {
+                            permits.release();
+                        }
+                    }
+                }
+            };
+        } catch (IOException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Downloads a remote file over HTTP to a local file, but only if the remote file has changed. <br />
+     * <br />
+     *
+     * If the local file exists, the request is made conditional based on its last modified date and the cached ETag (if any). The response
+     * body is streamed directly to disk, and the local file is only replaced after a successful download. The last modified date of the local
+     * file is set to the one of the remote file (if known).
+     *
+     * @param uri
+     *            The URI of the remote file.
+     * @param file
+     *            The local file.
+     *
+     * @return True if the file was downloaded, or false if the local file is still up-to-date.
+     *
+     * @throws IOException
+     *             If the remote file could not be found or retrieved.
+     */
+    public boolean downloadFile(String uri, File file) throws IOException {
         URL url = new URL(uri);
-        HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+        Semaphore permits = acquire(url);
+        try {
+            HttpURLConnection connection = openConnection(url);
+            if (file.isFile()) {
+                String eTag = (cache != null) ? cache.getETag(uri) : null;
+                if (eTag != null) {
+                    connection.setRequestProperty("If-None-Match", eTag);
+                }
+                connection.setIfModifiedSince(file.lastModified());
+            }
+
+            int statusCode = connection.getResponseCode();
+            if (statusCode == HttpURLConnection.HTTP_NOT_MODIFIED) {
+                discard(connection);
+                return false;
+            } else if (statusCode != HttpURLConnection.HTTP_OK) {
+                discard(connection);
+                throw new HttpStatusException(String.format("Failed GET request to '%s' (HTTP status code: %d)", url, statusCode), statusCode);
+            }
+
+            // Unique temporary file in the same directory, so concurrent downloads of the same URI never write to the same file.
+            File tempFile = File.createTempFile(TEMP_FILE_PREFIX, ".tmp", file.getAbsoluteFile().getParentFile());
+            try {
+                try (ReadableByteChannel source = Channels.newChannel(getInputStream(connection));
+                        FileChannel target = new FileOutputStream(tempFile).getChannel()) {
+                    long position = 0L;
+                    long count;
+                    while ((count = target.transferFrom(source, position, TRANSFER_SIZE)) > 0L) {
+                        position += count;
+                    }
+                }
+                Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            } finally {
+                tempFile.delete();
+            }
+
+            long lastModified = connection.getLastModified();
+            if (lastModified > 0L) {
+                file.setLastModified(lastModified);
+            }
+            if (cache != null) {
+                cache.store(uri, connection.getHeaderField("ETag"), lastModified);
+            }
+
+            return true;
+
+        } finally {
+            permits.release();
+        }
+    }
+
+    /**
+     * Returns the cached response body of a URI, after (conditionally) refreshing it.
+     *
+     * @param uri
+     *            The URI.
+     *
+     * @return The file with the response body.
+     *
+     * @throws IOException
+     *             If the resource could not be retrieved.
+     */
+    private File getCachedFile(String uri) throws IOException {
+        File file = cache.getBodyFile(uri);
+        downloadFile(uri, file);
+        return file;
+    }
+
+    /**
+     * Opens a connection to an URL, using this instance's proxy settings.
+     *
+     * @param url
+     *            The URL.
+     *
+     * @return The (not yet connected) connection.
+     *
+     * @throws IOException
+     *             If the connection could not be opened.
+     */
+    private HttpURLConnection openConnection(URL url) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) url.openConnection(proxy);
+        connection.setRequestProperty("User-Agent", USER_AGENT);
+        connection.setRequestProperty("Accept-Encoding", "gzip");
+        String authorization = proxyAuthorization;
+        if (authorization != null) {
+            connection.setRequestProperty("Proxy-Authorization", authorization);
+        }
         connection.setConnectTimeout(CONNECT_TIMEOUT);
         connection.setReadTimeout(READ_TIMEOUT);
-        return connection.getInputStream();
+        return connection;
+    }
+
+    /**
+     * Returns the response body of a connection, decoded if gzip compressed.
+     *
+     * @param connection
+     *            The connection.
+     *
+     * @return The response body.
+     *
+     * @throws IOException
+     *             If the response body could not be read.
+     */
+    private static InputStream getInputStream(HttpURLConnection connection) throws IOException {
+        InputStream is = connection.getInputStream();
+        if ("gzip".equalsIgnoreCase(connection.getContentEncoding())) {
+            is = new GZIPInputStream(is);
+        }
+        return is;
     }
 
     /**
-     * Updates the HTTP proxy settings (if used).
+     * Reads and discards the (remaining) response body of a connection, so the connection can be reused.
+     *
+     * @param connection
+     *            The connection.
+     */
+    private static void discard(HttpURLConnection connection) {
+        InputStream is = connection.getErrorStream();
+        try {
+            if (is == null) {
+                is = connection.getInputStream();
+            }
+            IOUtils.skip(is, Long.MAX_VALUE);
+        } catch (IOException e) {
+            // Connection will not be reused; safe to ignore.
+        } finally {
+            IOUtils.closeQuietly(is);
+        }
+    }
+
+    /**
+     * Acquires a connection permit for the host of an URL, waiting if the maximum number of concurrent connections is reached.
+     *
+     * @param url
+     *            The URL.
+     *
+     * @return The host's permits (to release after the request).
+     *
+     * @throws InterruptedIOException
+     *             If interrupted while waiting.
+     */
+    private Semaphore acquire(URL url) throws InterruptedIOException {
+        String host = url.getHost().toLowerCase();
+        Semaphore permits = hostPermits.get(host);
+        if (permits == null) {
+            Semaphore newPermits = new Semaphore(MAX_CONNECTIONS_PER_HOST, true);
+            permits = hostPermits.putIfAbsent(host, newPermits);
+            if (permits == null) {
+                permits = newPermits;
+            }
+        }
+        try {
+            permits.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for connection to " + host);
+        }
+        return permits;
+    }
+
+    /**
+     * Updates this instance's HTTP proxy settings. <br />
+     * <br />
+     *
+     * Unlike system properties, the proxy is not global for the JVM; the default {@link Authenticator} is only set to provide the proxy
+     * credentials for HTTPS tunnels, and only answers requests from the configured proxy.
      */
     private void updateProxySettings() {
-        if (useProxy) {
-            System.setProperty("http.proxyHost", proxyHost);
-            System.setProperty("http.proxyPort", String.valueOf(proxyPort));
-            Authenticator.setDefault(new SimpleAuthenticator(proxyUsername, proxyPassword));
+        if (useProxy && proxyHost != null && !proxyHost.isEmpty()) {
+            proxy = new Proxy(Proxy.Type.HTTP, InetSocketAddress.createUnresolved(proxyHost, proxyPort));
+            if (proxyUsername != null && !proxyUsername.isEmpty()) {
+                String credentials = proxyUsername + ":" + proxyPassword;
+                proxyAuthorization = "Basic " + Base64.getEncoder().encodeToString(credentials.getBytes(StandardCharsets.UTF_8));
+                Authenticator.setDefault(new ProxyAuthenticator(proxyHost, proxyPort, proxyUsername, proxyPassword));
+            } else {
+                proxyAuthorization = null;
+            }
+        } else {
+            proxy = Proxy.NO_PROXY;
+            proxyAuthorization = null;
         }
     }
 
     /**
-     * Simple HTTP authenticator with a username and password.
+     * HTTP authenticator providing the username and password for a specific proxy only.
      *
      * @author Oscar Stigter
      */
-    private static class SimpleAuthenticator extends Authenticator {
+    private static class ProxyAuthenticator extends Authenticator {
+
+        private final String host;
+
+        private final int port;
 
         private final String username;
 
         private final String password;
 
-        public SimpleAuthenticator(String username, String password) {
+        public ProxyAuthenticator(String host, int port, String username, String password) {
+            this.host = host;
+            this.port = port;
             this.username = username;
             this.password = password;
         }
 
         @Override
         protected PasswordAuthentication getPasswordAuthentication() {
-            return new PasswordAuthentication(username, password.toCharArray());
+            if (getRequestorType() == RequestorType.PROXY && host.equalsIgnoreCase(getRequestingHost()) && port == getRequestingPort()) {
+                return new PasswordAuthentication(username, password.toCharArray());
+            } else {
+                return null;
+            }
         }
     }
 }
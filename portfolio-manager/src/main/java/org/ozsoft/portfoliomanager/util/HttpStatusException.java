@@ -0,0 +1,70 @@
+// This file is part of the 'portfolio-manager' (Portfolio Manager)
+// project, an open source stock portfolio manager application
+// written in Java.
+//
+// Copyright 2015 Oscar Stigter
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.ozsoft.portfoliomanager.util;
+
+import java.io.IOException;
+
+/**
+ * Exception for an HTTP request that failed with an unexpected HTTP status code.
+ *
+ * @author Oscar Stigter
+ */
+public class HttpStatusException extends IOException {
+
+    private static final long serialVersionUID = -3310484375284930411L;
+
+    private final int statusCode;
+
+    /**
+     * Constructor.
+     *
+     * @param message
+     *            The message.
+     * @param statusCode
+     *            The HTTP status code.
+     */
+    public HttpStatusException(String message, int statusCode) {
+        super(message);
+        this.statusCode = statusCode;
+    }
+
+    /**
+     * Constructor with a cause (e.g. the original exception of a third-party library).
+     *
+     * @param message
+     *            The message.
+     * @param statusCode
+     *            The HTTP status code.
+     * @param cause
+     *            The cause.
+     */
+    public HttpStatusException(String message, int statusCode, Throwable cause) {
+        super(message, cause);
+        this.statusCode = statusCode;
+    }
+
+    /**
+     * Returns the HTTP status code.
+     *
+     * @return The HTTP status code.
+     */
+    public int getStatusCode() {
+        return statusCode;
+    }
+}
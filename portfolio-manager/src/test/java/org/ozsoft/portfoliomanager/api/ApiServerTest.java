@@ -0,0 +1,173 @@
+package org.ozsoft.portfoliomanager.api;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.util.concurrent.Executor;
+import java.util.zip.GZIPInputStream;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.ozsoft.portfoliomanager.domain.Configuration;
+import org.ozsoft.portfoliomanager.domain.Stock;
+
+/**
+ * JUnit test suite for the {@link ApiServer} class.
+ *
+ * @author Oscar Stigter
+ */
+public class ApiServerTest {
+
+    private static final int NO_OF_STOCKS = 50;
+
+    private ApiServer server;
+
+    @Before
+    public void setUp() throws IOException {
+        // Enough stocks for the stocks resource to be compressed.
+        Configuration config = Configuration.getInstance();
+        for (int i = 0; i < NO_OF_STOCKS; i++) {
+            config.addStock(new Stock(String.format("API%02d", i), String.format("API Test Stock %d", i)));
+        }
+
+        // Build the snapshots on the request thread; the configuration is not modified during the test.
+        server = new ApiServer(new InetSocketAddress("127.0.0.1", 0), new Executor() {
+            @Override
+            public void execute(Runnable task) {
+                task.run();
+            }
+        });
+        server.start();
+    }
+
+    @After
+    public void tearDown() {
+        server.stop();
+    }
+
+    /**
+     * Tests a plain GET request.
+     */
+    @Test
+    public void get() throws IOException {
+        HttpURLConnection conn = open("stocks/API01", "GET");
+        Assert.assertEquals(200, conn.getResponseCode());
+        Assert.assertEquals("application/json; charset=utf-8", conn.getContentType());
+        Assert.assertNull(conn.getContentEncoding());
+        Assert.assertNotNull(conn.getHeaderField("ETag"));
+        String body = new String(read(conn.getInputStream()), "UTF-8");
+        Assert.assertTrue(body, body.contains("\"API01\""));
+    }
+
+    /**
+     * Tests a conditional GET request with the ETag of the previous response.
+     */
+    @Test
+    public void notModified() throws IOException {
+        HttpURLConnection conn = open("portfolio", "GET");
+        Assert.assertEquals(200, conn.getResponseCode());
+        String eTag = conn.getHeaderField("ETag");
+        read(conn.getInputStream());
+
+        conn = open("portfolio", "GET");
+        conn.setRequestProperty("If-None-Match", eTag);
+        Assert.assertEquals(304, conn.getResponseCode());
+        Assert.assertEquals(eTag, conn.getHeaderField("ETag"));
+
+        conn = open("portfolio", "GET");
+        conn.setRequestProperty("If-None-Match", "\"0-00000000\"");
+        Assert.assertEquals(200, conn.getResponseCode());
+        read(conn.getInputStream());
+    }
+
+    /**
+     * Tests a HEAD request.
+     */
+    @Test
+    public void head() throws IOException {
+        HttpURLConnection conn = open("stocks", "GET");
+        int length = read(conn.getInputStream()).length;
+
+        conn = open("stocks", "HEAD");
+        Assert.assertEquals(200, conn.getResponseCode());
+        Assert.assertEquals(String.valueOf(length), conn.getHeaderField("Content-Length"));
+        Assert.assertEquals(0, read(conn.getInputStream()).length);
+    }
+
+    /**
+     * Tests requests for unknown resources.
+     */
+    @Test
+    public void notFound() throws IOException {
+        HttpURLConnection conn = open("unknown", "GET");
+        Assert.assertEquals(404, conn.getResponseCode());
+        read(conn.getErrorStream());
+
+        conn = open("stocks/UNKNOWN", "GET");
+        Assert.assertEquals(404, conn.getResponseCode());
+        read(conn.getErrorStream());
+    }
+
+    /**
+     * Tests gzip compression, with its own ETag.
+     */
+    @Test
+    public void gzip() throws IOException {
+        HttpURLConnection conn = open("stocks", "GET");
+        Assert.assertEquals(200, conn.getResponseCode());
+        String eTag = conn.getHeaderField("ETag");
+        byte[] body = read(conn.getInputStream());
+        Assert.assertTrue(body.length >= 1024);
+
+        conn = open("stocks", "GET");
+        conn.setRequestProperty("Accept-Encoding", "gzip, deflate");
+        Assert.assertEquals(200, conn.getResponseCode());
+        Assert.assertEquals("gzip", conn.getContentEncoding());
+        Assert.assertEquals("Accept-Encoding", conn.getHeaderField("Vary"));
+        String gzippedETag = conn.getHeaderField("ETag");
+        Assert.assertNotEquals(eTag, gzippedETag);
+        Assert.assertTrue(gzippedETag.endsWith("-gz\""));
+        byte[] gzippedBody = read(conn.getInputStream());
+        Assert.assertTrue(gzippedBody.length < body.length);
+        Assert.assertArrayEquals(body, read(new GZIPInputStream(new ByteArrayInputStream(gzippedBody))));
+
+        // Both representations have the same content.
+        conn = open("stocks", "GET");
+        conn.setRequestProperty("Accept-Encoding", "gzip");
+        conn.setRequestProperty("If-None-Match", gzippedETag);
+        Assert.assertEquals(304, conn.getResponseCode());
+        Assert.assertEquals(gzippedETag, conn.getHeaderField("ETag"));
+        conn = open("stocks", "GET");
+        conn.setRequestProperty("If-None-Match", gzippedETag);
+        Assert.assertEquals(304, conn.getResponseCode());
+        Assert.assertEquals(eTag, conn.getHeaderField("ETag"));
+    }
+
+    private HttpURLConnection open(String path, String method) throws IOException {
+        URL url = new URL(String.format("http://127.0.0.1:%d/api/%s", server.getPort(), path));
+        HttpURLConnection conn = (HttpURLConnection) url.openConnection();
+        conn.setRequestMethod(method);
+        conn.setUseCaches(false);
+        return conn;
+    }
+
+    private static byte[] read(InputStream is) throws IOException {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        try {
+            byte[] buffer = new byte[4096];
+            int length;
+            while ((length = is.read(buffer)) != -1) {
+                baos.write(buffer, 0, length);
+            }
+        } finally {
+            is.close();
+        }
+        return baos.toByteArray();
+    }
+}
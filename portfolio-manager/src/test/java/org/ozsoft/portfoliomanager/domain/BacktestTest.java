@@ -0,0 +1,89 @@
+package org.ozsoft.portfoliomanager.domain;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.ozsoft.portfoliomanager.test.TestUtils;
+import org.ozsoft.portfoliomanager.util.DateUtils;
+
+/**
+ * JUnit test suite for the {@link Backtest} class.
+ *
+ * @author Oscar Stigter
+ */
+public class BacktestTest {
+
+    private static final double INCOME_TAX_RATE = 0.15;
+
+    /**
+     * Performs the actual test.
+     */
+    @Test
+    public void test() {
+        Map<String, PriceSeries> prices = new HashMap<String, PriceSeries>();
+
+        // No transactions.
+        Backtest backtest = Backtest.run(new ArrayList<Transaction>(), prices, INCOME_TAX_RATE, TestUtils.date(0));
+        Assert.assertEquals(0, backtest.getNoOfDays());
+        TestUtils.assertEquals(0.00, backtest.getValue(TestUtils.DAY));
+
+        // Historic prices for TST1 only (the price before the first transaction is ignored).
+        prices.put("TST1", new PriceSeries(new long[] { TestUtils.date(-5), TestUtils.date(1), TestUtils.date(3) },
+                new double[] { 18.00, 21.00, 22.00 }));
+
+        // Transactions up to day 4, and one after the end date (ignored).
+        List<Transaction> transactions = TestUtils.createTransactions();
+
+        backtest = Backtest.run(transactions, prices, INCOME_TAX_RATE, TestUtils.date(5));
+        Assert.assertEquals(TestUtils.DAY, backtest.getFirstDay());
+        Assert.assertEquals(TestUtils.DAY + 5, backtest.getLastDay());
+        Assert.assertEquals(6, backtest.getNoOfDays());
+
+        // Market value (TST1 at historic prices, TST2 at its transaction prices).
+        TestUtils.assertEquals(0.00, backtest.getValue(TestUtils.DAY - 1));
+        TestUtils.assertEquals(2000.00, backtest.getValue(TestUtils.DAY));
+        TestUtils.assertEquals(2100.00, backtest.getValue(TestUtils.DAY + 1));
+        TestUtils.assertEquals(3100.00, backtest.getValue(TestUtils.DAY + 2));
+        TestUtils.assertEquals(3200.00, backtest.getValue(TestUtils.DAY + 3));
+        TestUtils.assertEquals(2950.00, backtest.getValue(TestUtils.DAY + 4));
+        TestUtils.assertEquals(2950.00, backtest.getValue(TestUtils.DAY + 5));
+
+        // Cash flows and income.
+        TestUtils.assertEquals(2005.00, backtest.getCashFlow(TestUtils.DAY));
+        TestUtils.assertEquals(0.00, backtest.getCashFlow(TestUtils.DAY + 1));
+        TestUtils.assertEquals(1001.00, backtest.getCashFlow(TestUtils.DAY + 2));
+        TestUtils.assertEquals(-748.00, backtest.getCashFlow(TestUtils.DAY + 4));
+        TestUtils.assertEquals(85.00, backtest.getIncome(TestUtils.DAY + 3));
+        TestUtils.assertEquals(0.00, backtest.getNetInvestment(TestUtils.DAY - 1));
+        TestUtils.assertEquals(3006.00, backtest.getNetInvestment(TestUtils.DAY + 3));
+        TestUtils.assertEquals(2258.00, backtest.getNetInvestment(TestUtils.DAY + 100));
+        TestUtils.assertEquals(85.00, backtest.getTotalIncome(TestUtils.DAY - 100, TestUtils.DAY + 100));
+        TestUtils.assertEquals(0.00, backtest.getTotalIncome(TestUtils.DAY + 4, TestUtils.DAY + 5));
+
+        // Time-weighted returns (excluding the cash flows).
+        TestUtils.assertEquals(5.00, backtest.getTimeWeightedReturn(TestUtils.DAY + 1, TestUtils.DAY + 1));
+        TestUtils.assertEquals(5.97, backtest.getTimeWeightedReturn(TestUtils.DAY + 3, TestUtils.DAY + 3));
+        TestUtils.assertEquals(15.56, backtest.getTimeWeightedReturn(TestUtils.DAY + 4, TestUtils.DAY + 100));
+        TestUtils.assertEquals(28.22, backtest.getTimeWeightedReturn(TestUtils.DAY - 100, TestUtils.DAY + 100));
+        TestUtils.assertEquals(28.22, backtest.getAnnualizedTimeWeightedReturn());
+        TestUtils.assertEquals(0.00, backtest.getTimeWeightedReturn(TestUtils.DAY + 5, TestUtils.DAY + 4));
+
+        PriceSeries values = backtest.getValueSeries();
+        Assert.assertEquals(6, values.size());
+        Assert.assertEquals(TestUtils.DAY + 4, DateUtils.toDay(values.getTimestamp(4)));
+        TestUtils.assertEquals(2950.00, values.getValue(4));
+
+        // Sell more shares than owned.
+        transactions.add(TestUtils.createTransaction(6, TestUtils.date(5), TransactionType.SELL, "TST2", 51, 15.00, 0.00));
+        try {
+            Backtest.run(transactions, prices, INCOME_TAX_RATE, TestUtils.date(5));
+            Assert.fail("IllegalArgumentException not thrown");
+        } catch (IllegalArgumentException e) {
+            // OK.
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package org.ozsoft.portfoliomanager.domain;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.ozsoft.portfoliomanager.test.TestUtils;
+
+/**
+ * JUnit test suite for the {@link CashFlows} class.
+ *
+ * @author Oscar Stigter
+ */
+public class CashFlowsTest {
+
+    private static final long DAY = 24L * 60L * 60L * 1000L;
+
+    /** Arbitrary start date (2016-01-01). */
+    private static final long START = 16801L * DAY;
+
+    /**
+     * Performs the actual test.
+     */
+    @Test
+    public void test() {
+        CashFlows cashFlows = new CashFlows();
+        Assert.assertEquals(0, cashFlows.size());
+        Assert.assertTrue(Double.isNaN(cashFlows.getXirr(START, 0.0)));
+
+        // Invest $1,000, worth $1,100 after a year.
+        cashFlows.add(START, -1000.00);
+        TestUtils.assertEquals(10.00, cashFlows.getXirr(START + 365L * DAY, 1100.00));
+
+        // Worth $900 after two years.
+        TestUtils.assertEquals(-5.13, cashFlows.getXirr(START + 730L * DAY, 900.00));
+
+        // Only investments.
+        Assert.assertTrue(Double.isNaN(cashFlows.getXirr(START + 365L * DAY, 0.0)));
+
+        // Additional $1,000 invested after a year, $100 income after half a year (added out of date order).
+        cashFlows.add(START + 365L * DAY, -1000.00);
+        cashFlows.add(START + 182L * DAY, 100.00);
+        Assert.assertEquals(3, cashFlows.size());
+        Assert.assertEquals(START + 182L * DAY, cashFlows.getDate(1));
+        TestUtils.assertEquals(-1900.00, cashFlows.getTotal());
+        // Break-even including the income: slightly positive.
+        TestUtils.assertEquals(3.47, cashFlows.getXirr(START + 730L * DAY, 2000.00));
+
+        // Merge with other cash flows.
+        CashFlows other = new CashFlows();
+        other.add(START + 100L * DAY, -500.00);
+        other.add(START + 1000L * DAY, 600.00);
+        cashFlows.addAll(other);
+        Assert.assertEquals(5, cashFlows.size());
+        for (int i = 1; i < cashFlows.size(); i++) {
+            Assert.assertTrue(cashFlows.getDate(i - 1) <= cashFlows.getDate(i));
+        }
+        TestUtils.assertEquals(-1800.00, cashFlows.getTotal());
+
+        // Extreme loss (bisection fallback).
+        cashFlows = new CashFlows();
+        cashFlows.add(START, -1000.00);
+        TestUtils.assertEquals(-99.00, cashFlows.getXirr(START + 365L * DAY, 10.00));
+    }
+}
@@ -0,0 +1,52 @@
+package org.ozsoft.portfoliomanager.domain;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.ozsoft.portfoliomanager.test.TestUtils;
+import org.ozsoft.portfoliomanager.util.DateUtils;
+
+/**
+ * JUnit test suite for the {@link CostBasisSeries} class.
+ *
+ * @author Oscar Stigter
+ */
+public class CostBasisSeriesTest {
+
+    /**
+     * Performs the actual test.
+     */
+    @Test
+    public void test() {
+        // Empty series.
+        CostBasisSeries series = CostBasisSeries.build(new ArrayList<Transaction>(), DateUtils.toTimestamp(TestUtils.DAY));
+        Assert.assertEquals(0, series.getNoOfDays());
+        TestUtils.assertEquals(0.00, series.getAverageCost());
+
+        // Transactions up to day 4 (the dividend has no effect on the costbase), and one after the end date (ignored).
+        List<Transaction> transactions = TestUtils.createTransactions();
+
+        series = CostBasisSeries.build(transactions, TestUtils.date(5));
+        Assert.assertEquals(TestUtils.DAY, series.getFirstDay());
+        Assert.assertEquals(TestUtils.DAY + 5, series.getLastDay());
+        Assert.assertEquals(6, series.getNoOfDays());
+        TestUtils.assertEquals(0.00, series.getCost(TestUtils.DAY - 1));
+        TestUtils.assertEquals(2005.00, series.getCost(TestUtils.DAY));
+        TestUtils.assertEquals(2005.00, series.getCost(TestUtils.DAY + 1));
+        TestUtils.assertEquals(3006.00, series.getCost(TestUtils.DAY + 2));
+        TestUtils.assertEquals(3006.00, series.getCost(TestUtils.DAY + 3));
+        TestUtils.assertEquals(2505.50, series.getCost(TestUtils.DAY + 4));
+        TestUtils.assertEquals(2505.50, series.getCost(TestUtils.DAY + 5));
+        TestUtils.assertEquals(2505.50, series.getCost(TestUtils.DAY + 100));
+
+        TestUtils.assertEquals(4010.00, series.getTotalCost(TestUtils.DAY, TestUtils.DAY + 1));
+        TestUtils.assertEquals(2005.00, series.getAverageCost(TestUtils.DAY, TestUtils.DAY + 1));
+        TestUtils.assertEquals(8517.50 / 3, series.getAverageCost(TestUtils.DAY + 2, TestUtils.DAY + 4));
+        TestUtils.assertEquals(2505.50, series.getAverageCost(TestUtils.DAY + 4, TestUtils.DAY + 100));
+        TestUtils.assertEquals(2005.00, series.getAverageCost(TestUtils.DAY - 100, TestUtils.DAY));
+        TestUtils.assertEquals(0.00, series.getAverageCost(TestUtils.DAY + 6, TestUtils.DAY + 100));
+        TestUtils.assertEquals(15033.00 / 6, series.getAverageCost());
+    }
+}
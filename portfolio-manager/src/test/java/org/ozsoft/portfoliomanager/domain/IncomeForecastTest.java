@@ -0,0 +1,95 @@
+package org.ozsoft.portfoliomanager.domain;
+
+import java.time.LocalDate;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.ozsoft.portfoliomanager.test.TestUtils;
+
+/**
+ * JUnit test suite for the {@link IncomeForecast} and {@link DividendSchedule} classes.
+ *
+ * @author Oscar Stigter
+ */
+public class IncomeForecastTest {
+
+    private static final String[] EX_DIVIDEND_DATES = { "2025-03-10", "2025-06-10", "2025-09-10", "2025-12-10" };
+
+    private static final String[] PAYMENT_DATES = { "2025-03-30", "2025-06-30", "2025-09-30", "2025-12-30" };
+
+    private static final double AMOUNT = 0.50;
+
+    /**
+     * Tests inferring the schedule of a quarterly dividend payer.
+     */
+    @Test
+    public void inferSchedule() {
+        DividendSchedule schedule = new DividendSchedule();
+        Assert.assertEquals(0, schedule.getFrequency());
+        Assert.assertEquals(Integer.MIN_VALUE, schedule.getLastPayoutDay());
+
+        DividendSchedule paidOnly = new DividendSchedule();
+        for (String date : PAYMENT_DATES) {
+            paidOnly.addPayment(day(date), AMOUNT);
+        }
+        Assert.assertEquals(4, paidOnly.getFrequency());
+
+        schedule = createSchedule();
+        Assert.assertEquals(4, schedule.getFrequency());
+        Assert.assertEquals(20, schedule.getPaymentDelay());
+        Assert.assertEquals(day("2025-12-10"), schedule.getLastPayoutDay());
+    }
+
+    /**
+     * Tests the monthly income forecast, including incremental updates.
+     */
+    @Test
+    public void forecast() {
+        IncomeForecast forecast = new IncomeForecast(day("2026-01-01"), 12);
+        Assert.assertEquals(12, forecast.getNoOfMonths());
+        Assert.assertEquals(2026, forecast.getMonth(0).getYear());
+        Assert.assertEquals(1, forecast.getMonth(0).getMonthValue());
+        Assert.assertEquals(12, forecast.getMonth(11).getMonthValue());
+
+        // Quarterly payments in March, June, September and December (5 % growth after a year).
+        forecast.update("TST1", 100.0, createSchedule(), 2.00, 5.0, 0.0);
+        double[] expected = { 0.00, 0.00, 50.00, 0.00, 0.00, 50.00, 0.00, 0.00, 50.00, 0.00, 0.00, 52.50 };
+        for (int i = 0; i < expected.length; i++) {
+            TestUtils.assertEquals(expected[i], forecast.getIncome("TST1", i));
+            TestUtils.assertEquals(forecast.getIncome("TST1", i), expected[i]);
+        }
+        TestUtils.assertEquals(202.50, forecast.getTotalIncome());
+        TestUtils.assertEquals(forecast.getTotalIncome(), 202.50);
+
+        // Unknown schedule; annual dividend spread evenly.
+        forecast.update("TST2", 10.0, null, 2.40, 0.0, 0.0);
+        TestUtils.assertEquals(2.00, forecast.getIncome("TST2", 0));
+        TestUtils.assertEquals(forecast.getIncome("TST2", 0), 2.00);
+        TestUtils.assertEquals(52.00, forecast.getIncome(2));
+        TestUtils.assertEquals(forecast.getIncome(2), 52.00);
+        TestUtils.assertEquals(226.50, forecast.getTotalIncome());
+        TestUtils.assertEquals(forecast.getTotalIncome(), 226.50);
+
+        // Position closed; only its own row is replaced.
+        forecast.update("TST1", 0.0, createSchedule(), 2.00, 5.0, 0.0);
+        TestUtils.assertEquals(2.00, forecast.getIncome(2));
+        TestUtils.assertEquals(forecast.getIncome(2), 2.00);
+        TestUtils.assertEquals(24.00, forecast.getTotalIncome());
+        TestUtils.assertEquals(forecast.getTotalIncome(), 24.00);
+    }
+
+    private static DividendSchedule createSchedule() {
+        DividendSchedule schedule = new DividendSchedule();
+        for (String date : EX_DIVIDEND_DATES) {
+            schedule.addPayout(day(date), AMOUNT);
+        }
+        for (String date : PAYMENT_DATES) {
+            schedule.addPayment(day(date), AMOUNT);
+        }
+        return schedule;
+    }
+
+    private static int day(String date) {
+        return (int) LocalDate.parse(date).toEpochDay();
+    }
+}
@@ -0,0 +1,73 @@
+package org.ozsoft.portfoliomanager.domain;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.ozsoft.portfoliomanager.test.TestUtils;
+
+/**
+ * JUnit test suite for the {@link IncomeProjection} class.
+ *
+ * @author Oscar Stigter
+ */
+public class IncomeProjectionTest {
+
+    private static final long SEED = 42L;
+
+    /**
+     * Tests a projection without volatility (deterministic).
+     */
+    @Test
+    public void deterministic() {
+        double[] values = { 1000.00, 500.00 };
+        double[] incomes = { 40.00, 10.00 };
+        double[] divGrowths = { 5.00, 10.00 };
+        double[] volatilities = { 0.00, 0.00 };
+
+        IncomeProjection projection = IncomeProjection.run(values, incomes, divGrowths, volatilities, false, 2, 100, SEED);
+        Assert.assertEquals(2, projection.getNoOfYears());
+        Assert.assertEquals(100, projection.getNoOfPaths());
+        for (int p = 0; p < IncomeProjection.getNoOfPercentiles(); p++) {
+            TestUtils.assertEquals(1500.00, projection.getValue(p, 0));
+            TestUtils.assertEquals(50.00, projection.getIncome(p, 0));
+            TestUtils.assertEquals(1600.00, projection.getValue(p, 1));
+            TestUtils.assertEquals(50.00, projection.getIncome(p, 1));
+            TestUtils.assertEquals(1707.50, projection.getValue(p, 2));
+            TestUtils.assertEquals(53.00, projection.getIncome(p, 2));
+        }
+
+        // Reinvested dividends buy additional shares (at the end of the year).
+        projection = IncomeProjection.run(values, incomes, divGrowths, volatilities, true, 2, 100, SEED);
+        TestUtils.assertEquals(1650.00, projection.getValue(2, 1));
+        TestUtils.assertEquals(50.00, projection.getIncome(2, 1));
+        TestUtils.assertEquals(42.00 * (1.0 + 40.0 / 1050.0) + 11.00 * (1.0 + 10.0 / 550.0), projection.getIncome(2, 2));
+    }
+
+    /**
+     * Tests a projection with volatility.
+     */
+    @Test
+    public void withVolatility() {
+        double[] values = { 1000.00, 1000.00 };
+        double[] incomes = { 30.00, 30.00 };
+        double[] divGrowths = { 5.00, 5.00 };
+        double[] volatilities = { 20.00, 30.00 };
+
+        IncomeProjection projection = IncomeProjection.run(values, incomes, divGrowths, volatilities, true, 30, 10000, SEED);
+        Assert.assertEquals(50.0, IncomeProjection.getPercentile(2), 0.0);
+        for (int year = 1; year <= 30; year++) {
+            for (int p = 1; p < IncomeProjection.getNoOfPercentiles(); p++) {
+                Assert.assertTrue(projection.getValue(p, year) >= projection.getValue(p - 1, year));
+                Assert.assertTrue(projection.getIncome(p, year) >= projection.getIncome(p - 1, year));
+            }
+        }
+        Assert.assertTrue(projection.getValue(0, 30) < projection.getValue(4, 30));
+        Assert.assertTrue(projection.getIncome(2, 30) > projection.getIncome(2, 1));
+
+        // Reproducible with the same seed.
+        IncomeProjection other = IncomeProjection.run(values, incomes, divGrowths, volatilities, true, 30, 10000, SEED);
+        for (int p = 0; p < IncomeProjection.getNoOfPercentiles(); p++) {
+            Assert.assertEquals(projection.getValue(p, 30), other.getValue(p, 30), 0.0);
+            Assert.assertEquals(projection.getIncome(p, 30), other.getIncome(p, 30), 0.0);
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package org.ozsoft.portfoliomanager.domain;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * JUnit test suite for the {@link MarketCalendar} class.
+ *
+ * @author Oscar Stigter
+ */
+public class MarketCalendarTest {
+
+    private static final MarketCalendar CALENDAR = MarketCalendar.US;
+
+    /**
+     * Tests the trading days and holidays.
+     */
+    @Test
+    public void tradingDays() {
+        Assert.assertTrue(CALENDAR.isTradingDay(LocalDate.of(2024, 7, 3)));
+        Assert.assertFalse(CALENDAR.isTradingDay(LocalDate.of(2024, 7, 4))); // Independence Day
+        Assert.assertFalse(CALENDAR.isTradingDay(LocalDate.of(2024, 7, 6))); // Saturday
+        Assert.assertFalse(CALENDAR.isTradingDay(LocalDate.of(2024, 3, 29))); // Good Friday
+        Assert.assertFalse(CALENDAR.isTradingDay(LocalDate.of(2024, 11, 28))); // Thanksgiving
+        Assert.assertFalse(CALENDAR.isTradingDay(LocalDate.of(2022, 12, 26))); // Christmas (observed)
+        Assert.assertFalse(CALENDAR.isTradingDay(LocalDate.of(2024, 6, 19))); // Juneteenth
+        Assert.assertTrue(CALENDAR.isTradingDay(LocalDate.of(2021, 6, 18)));
+        Assert.assertTrue(CALENDAR.isTradingDay(LocalDate.of(2021, 12, 31))); // New Year's Day on Saturday not observed
+    }
+
+    /**
+     * Tests the regular and early close times.
+     */
+    @Test
+    public void closeTimes() {
+        Assert.assertEquals(LocalTime.of(16, 0), CALENDAR.getCloseTime(LocalDate.of(2024, 11, 27)));
+        Assert.assertEquals(LocalTime.of(13, 0), CALENDAR.getCloseTime(LocalDate.of(2024, 11, 29)));
+        Assert.assertEquals(LocalTime.of(13, 0), CALENDAR.getCloseTime(LocalDate.of(2024, 12, 24)));
+    }
+
+    /**
+     * Tests the market hours.
+     */
+    @Test
+    public void marketHours() {
+        Assert.assertFalse(CALENDAR.isOpen(timestamp(2024, 6, 3, 9, 29)));
+        Assert.assertTrue(CALENDAR.isOpen(timestamp(2024, 6, 3, 9, 30)));
+        Assert.assertTrue(CALENDAR.isOpen(timestamp(2024, 6, 3, 15, 59)));
+        Assert.assertFalse(CALENDAR.isOpen(timestamp(2024, 6, 3, 16, 0)));
+        Assert.assertFalse(CALENDAR.isOpen(timestamp(2024, 11, 29, 13, 30)));
+
+        // Monday morning; last close on Friday, next open on Monday.
+        long now = timestamp(2024, 6, 3, 8, 0);
+        Assert.assertEquals(timestamp(2024, 5, 31, 16, 0), CALENDAR.getLastClose(now));
+        Assert.assertEquals(timestamp(2024, 6, 3, 9, 30), CALENDAR.getNextOpen(now));
+
+        // Wednesday evening before Independence Day; next open on Friday.
+        now = timestamp(2024, 7, 3, 18, 0);
+        Assert.assertEquals(timestamp(2024, 7, 3, 13, 0), CALENDAR.getLastClose(now));
+        Assert.assertEquals(timestamp(2024, 7, 5, 9, 30), CALENDAR.getNextOpen(now));
+    }
+
+    private static long timestamp(int year, int month, int day, int hour, int minute) {
+        return LocalDateTime.of(year, month, day, hour, minute).atZone(CALENDAR.getZone()).toInstant().toEpochMilli();
+    }
+}
@@ -0,0 +1,84 @@
+package org.ozsoft.portfoliomanager.domain;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.ozsoft.portfoliomanager.test.TestUtils;
+
+/**
+ * JUnit test suite for the {@link PricePyramid} class.
+ *
+ * @author Oscar Stigter
+ */
+public class PricePyramidTest {
+
+    private static final ZoneId ZONE = ZoneOffset.UTC;
+
+    /**
+     * Tests the incremental aggregation of prices into daily, weekly and monthly bars.
+     */
+    @Test
+    public void aggregation() {
+        PricePyramid pyramid = new PricePyramid(ZONE);
+
+        // Wednesday 28 Feb 2024 up to Tuesday 5 Mar 2024 (weekdays only).
+        pyramid.add(timestamp(2024, 2, 28), 10.0);
+        pyramid.add(timestamp(2024, 2, 29), 12.0);
+        pyramid.add(timestamp(2024, 3, 1), 11.0);
+        pyramid.add(timestamp(2024, 3, 4), 9.0);
+        pyramid.add(timestamp(2024, 3, 5), 13.0);
+
+        Assert.assertEquals(5, pyramid.getLevel(PriceResolution.DAILY).size());
+
+        OhlcSeries weekly = pyramid.getLevel(PriceResolution.WEEKLY);
+        Assert.assertEquals(2, weekly.size());
+        assertBar(weekly, 0, 10.0, 12.0, 10.0, 11.0);
+        assertBar(weekly, 1, 9.0, 13.0, 9.0, 13.0);
+        Assert.assertEquals(timestamp(2024, 3, 1), weekly.getTimestamp(0));
+
+        OhlcSeries monthly = pyramid.getLevel(PriceResolution.MONTHLY);
+        Assert.assertEquals(2, monthly.size());
+        assertBar(monthly, 0, 10.0, 12.0, 10.0, 12.0);
+        assertBar(monthly, 1, 11.0, 13.0, 9.0, 13.0);
+
+        // Intraday price updates the current bars.
+        long now = timestamp(2024, 3, 5) + 60L * 60L * 1000L;
+        pyramid.add(now, 14.0);
+        Assert.assertEquals(5, pyramid.getLevel(PriceResolution.DAILY).size());
+        assertBar(monthly, 1, 11.0, 14.0, 9.0, 14.0);
+        Assert.assertEquals(now, monthly.getTimestamp(1));
+
+        PriceSeries closes = monthly.getCloses();
+        Assert.assertEquals(2, closes.size());
+        TestUtils.assertEquals(14.0, closes.getValue(1));
+
+        // Coarsest level with bars no longer than the requested duration.
+        Assert.assertSame(pyramid.getLevel(PriceResolution.DAILY), pyramid.getLevel(1000L));
+        Assert.assertSame(weekly, pyramid.getLevel(PriceResolution.WEEKLY.getDuration()));
+        Assert.assertSame(monthly, pyramid.getLevel(Long.MAX_VALUE));
+    }
+
+    /**
+     * Tests that older prices are rejected.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void olderPrice() {
+        PricePyramid pyramid = new PricePyramid(ZONE);
+        pyramid.add(timestamp(2024, 3, 5), 10.0);
+        pyramid.add(timestamp(2024, 3, 4), 10.0);
+    }
+
+    private static void assertBar(OhlcSeries bars, int index, double open, double high, double low, double close) {
+        TestUtils.assertEquals(open, bars.getOpen(index));
+        TestUtils.assertEquals(high, bars.getHigh(index));
+        TestUtils.assertEquals(low, bars.getLow(index));
+        TestUtils.assertEquals(close, bars.getClose(index));
+    }
+
+    private static long timestamp(int year, int month, int day) {
+        return LocalDate.of(year, month, day).atStartOfDay(ZONE).toInstant().toEpochMilli();
+    }
+}
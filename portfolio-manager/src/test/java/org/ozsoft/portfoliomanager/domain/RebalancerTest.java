@@ -0,0 +1,81 @@
+package org.ozsoft.portfoliomanager.domain;
+
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.ozsoft.portfoliomanager.test.TestUtils;
+
+/**
+ * JUnit test suite for the {@link Rebalancer} class.
+ *
+ * @author Oscar Stigter
+ */
+public class RebalancerTest {
+
+    private static final String[] SYMBOLS = { "TST1", "TST2", "TST3", "TST4" };
+
+    /** Equal weights, except TST4 (not to be bought). */
+    private static final double[] WEIGHTS = { 1.0, 1.0, 1.0, 0.0 };
+
+    private static final double[] PRICES = { 10.00, 20.00, 50.00, 5.00 };
+
+    private static final double[] VALUES = { 1000.00, 0.00, 500.00, 0.00 };
+
+    /**
+     * Tests deploying exactly the cash needed to reach the target weights.
+     */
+    @Test
+    public void exact() {
+        Rebalancer rebalancer = new Rebalancer(SYMBOLS, WEIGHTS, 1);
+        RebalancePlan plan = rebalancer.solve(PRICES, VALUES, 1500.00);
+        Assert.assertEquals(0, plan.getShares(0));
+        Assert.assertEquals(50, plan.getShares(1));
+        Assert.assertEquals(10, plan.getShares(2));
+        Assert.assertEquals(0, plan.getShares(3));
+        TestUtils.assertEquals(0.00, plan.getRemainingCash());
+        TestUtils.assertEquals(33.33, plan.getTargetWeight(1));
+        TestUtils.assertEquals(33.33, plan.getNewWeight(1));
+
+        // Only the stocks to buy.
+        List<Transaction> transactions = plan.getTransactions(1L);
+        Assert.assertEquals(2, transactions.size());
+        Transaction tx = transactions.get(0);
+        Assert.assertEquals("TST2", tx.getSymbol());
+        Assert.assertEquals(TransactionType.BUY, tx.getType());
+        TestUtils.assertEquals(50, tx.getNoOfShares());
+        TestUtils.assertEquals(20.00, tx.getPrice());
+    }
+
+    /**
+     * Tests deploying less cash than needed, with rounding to whole shares and lots.
+     */
+    @Test
+    public void partial() {
+        // The most underweight stocks are bought down to the same shortfall ($83.33), rounded down to whole shares.
+        Rebalancer rebalancer = new Rebalancer(SYMBOLS, WEIGHTS, 1);
+        RebalancePlan plan = rebalancer.solve(PRICES, VALUES, 1000.00);
+        Assert.assertEquals(0, plan.getShares(0));
+        Assert.assertEquals(37, plan.getShares(1));
+        Assert.assertEquals(5, plan.getShares(2));
+        TestUtils.assertEquals(10.00, plan.getRemainingCash());
+
+        // Lots of 10 shares; the remaining cash buys another lot of TST2.
+        rebalancer = new Rebalancer(SYMBOLS, WEIGHTS, 10);
+        plan = rebalancer.solve(PRICES, VALUES, 1000.00);
+        Assert.assertEquals(0, plan.getShares(0));
+        Assert.assertEquals(40, plan.getShares(1));
+        Assert.assertEquals(0, plan.getShares(2));
+        TestUtils.assertEquals(200.00, plan.getRemainingCash());
+
+        // Re-solve with new prices (TST2 without price is not bought, and TST3 only up to its target).
+        plan = rebalancer.solve(new double[] { 10.00, 0.00, 25.00, 5.00 }, VALUES, 1000.00);
+        Assert.assertEquals(0, plan.getShares(1));
+        Assert.assertEquals(10, plan.getShares(2));
+        TestUtils.assertEquals(750.00, plan.getRemainingCash());
+
+        // No cash.
+        plan = rebalancer.solve(PRICES, VALUES, 0.00);
+        Assert.assertTrue(plan.getTransactions(1L).isEmpty());
+    }
+}
@@ -0,0 +1,71 @@
+package org.ozsoft.portfoliomanager.domain;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.ozsoft.portfoliomanager.test.TestUtils;
+import org.ozsoft.portfoliomanager.util.DateUtils;
+
+/**
+ * JUnit test suite for the {@link RiskAnalysis} class.
+ *
+ * @author Oscar Stigter
+ */
+public class RiskAnalysisTest {
+
+    /** Arbitrary first day (2016-01-01). */
+    private static final int DAY = 16801;
+
+    private static final double CONFIDENCE = 0.95;
+
+    /**
+     * Performs the actual test.
+     */
+    @Test
+    public void test() {
+        // Returns: TST1 +10 %, -10 %, +10 %; TST3 without prices.
+        Map<String, PriceSeries> prices = new HashMap<String, PriceSeries>();
+        prices.put("TST1", new PriceSeries(new long[] { date(0), date(1), date(2), date(3) }, new double[] { 100.00, 110.00, 99.00, 108.90 }));
+        // Missing price on day 3 (forward filled), so returns -10 %, +10 %, 0 %.
+        prices.put("TST2", new PriceSeries(new long[] { date(0), date(1), date(2) }, new double[] { 100.00, 90.00, 99.00 }));
+
+        // Single position.
+        String[] symbols = { "TST1", "TST2", "TST3" };
+        RiskAnalysis risk = new RiskAnalysis(symbols, new double[] { 1000.00, 0.00, 0.00 }, prices, date(0), date(10), CONFIDENCE);
+        Assert.assertEquals(3, risk.getNoOfStocks());
+        Assert.assertEquals(3, risk.getNoOfReturns());
+        TestUtils.assertEquals(1.00, risk.getWeight(0));
+        TestUtils.assertEquals(183.30, risk.getVolatility());
+        TestUtils.assertEquals(183.30, risk.getVolatility(0));
+        TestUtils.assertEquals(0.00, risk.getVolatility(2));
+        TestUtils.assertEquals(100.00, risk.getRiskContribution(0));
+        TestUtils.assertEquals(10.00, risk.getHistoricalVar());
+        TestUtils.assertEquals(10.00, risk.getHistoricalCvar());
+        TestUtils.assertEquals(15.66, risk.getParametricVar());
+        TestUtils.assertEquals(20.48, risk.getParametricCvar());
+
+        // Covariance and correlation.
+        TestUtils.assertEquals(-0.01, risk.getCovariance(0, 1));
+        TestUtils.assertEquals(risk.getCovariance(0, 1), risk.getCovariance(1, 0));
+        TestUtils.assertEquals(1.00, risk.getCorrelation(0, 0));
+        TestUtils.assertEquals(-0.87, risk.getCorrelation(0, 1));
+        TestUtils.assertEquals(0.00, risk.getCorrelation(0, 2));
+
+        // Diversified: the negatively correlated positions reduce the risk.
+        risk = new RiskAnalysis(symbols, new double[] { 500.00, 500.00, 0.00 }, prices, date(0), date(10), CONFIDENCE);
+        Assert.assertTrue(risk.getVolatility() < risk.getVolatility(0) / 2.0);
+        TestUtils.assertEquals(100.00, risk.getRiskContribution(0) + risk.getRiskContribution(1));
+        TestUtils.assertEquals(0.00, risk.getHistoricalVar());
+
+        // Inverse normal distribution.
+        TestUtils.assertEquals(1.64, RiskAnalysis.inverseNormal(0.95));
+        TestUtils.assertEquals(-2.33, RiskAnalysis.inverseNormal(0.01));
+        TestUtils.assertEquals(3.09, RiskAnalysis.inverseNormal(0.999));
+    }
+
+    private static long date(int dayOffset) {
+        return DateUtils.toTimestamp(DAY + dayOffset) + 12L * 60L * 60L * 1000L;
+    }
+}
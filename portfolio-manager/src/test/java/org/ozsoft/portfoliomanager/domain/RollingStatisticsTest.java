@@ -0,0 +1,94 @@
+package org.ozsoft.portfoliomanager.domain;
+
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * JUnit test suite for the {@link RollingStatistics} class.
+ *
+ * @author Oscar Stigter
+ */
+public class RollingStatisticsTest {
+
+    private static final long DAY = 24L * 60L * 60L * 1000L;
+
+    private static final long WINDOW = 365L * DAY;
+
+    private static final double DELTA = 1e-6;
+
+    /**
+     * Compares the rolling statistics with a brute force calculation per window.
+     */
+    @Test
+    public void rollingWindow() {
+        int count = 2000;
+        long[] timestamps = new long[count];
+        double[] prices = new double[count];
+        Random random = new Random(42L);
+        long timestamp = 0L;
+        double price = 50.0;
+        for (int i = 0; i < count; i++) {
+            // Skip weekends and the occasional holiday.
+            timestamp += (i % 5 == 0) ? 3L * DAY : (random.nextInt(50) == 0) ? 2L * DAY : DAY;
+            price *= 1.0 + random.nextGaussian() * 0.02;
+            timestamps[i] = timestamp;
+            prices[i] = price;
+        }
+
+        RollingStatistics stats = new RollingStatistics(WINDOW);
+        double maxDrawdown = 0.0;
+        for (int i = 0; i < count; i++) {
+            stats.add(timestamps[i], prices[i]);
+
+            int start = i;
+            while (start > 0 && timestamps[start - 1] > timestamps[i] - WINDOW) {
+                start--;
+            }
+            double sum = 0.0;
+            double high = 0.0;
+            double low = Double.MAX_VALUE;
+            for (int j = start; j <= i; j++) {
+                sum += prices[j];
+                high = Math.max(high, prices[j]);
+                low = Math.min(low, prices[j]);
+            }
+            int n = i - start;
+            double mean = 0.0;
+            for (int j = start + 1; j <= i; j++) {
+                mean += prices[j] / prices[j - 1] - 1.0;
+            }
+            mean = (n > 0) ? mean / n : 0.0;
+            double m2 = 0.0;
+            for (int j = start + 1; j <= i; j++) {
+                double r = prices[j] / prices[j - 1] - 1.0;
+                m2 += (r - mean) * (r - mean);
+            }
+            double stdDev = (n > 1) ? Math.sqrt(m2 / (n - 1)) * 100.0 : 0.0;
+            double drawdown = (1.0 - prices[i] / high) * 100.0;
+            maxDrawdown = Math.max(maxDrawdown, drawdown);
+            double years = (timestamps[i] - timestamps[start]) / (365.0 * DAY);
+            double cagr = (years > 0.0) ? (Math.pow(prices[i] / prices[start], 1.0 / years) - 1.0) * 100.0 : 0.0;
+
+            Assert.assertEquals(i - start + 1, stats.getCount());
+            Assert.assertEquals(sum / (i - start + 1), stats.getMean(), DELTA);
+            Assert.assertEquals(stdDev, stats.getStdDev(), DELTA);
+            Assert.assertEquals(high, stats.getHigh(), 0.0);
+            Assert.assertEquals(low, stats.getLow(), 0.0);
+            Assert.assertEquals(drawdown, stats.getDrawdown(), DELTA);
+            Assert.assertEquals(maxDrawdown, stats.getMaxDrawdown(), DELTA);
+            Assert.assertEquals(cagr, stats.getCagr(), DELTA);
+        }
+    }
+
+    /**
+     * Tests that older prices are rejected.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void olderPrice() {
+        RollingStatistics stats = new RollingStatistics(WINDOW);
+        stats.add(2L * DAY, 10.0);
+        stats.add(DAY, 10.0);
+    }
+}
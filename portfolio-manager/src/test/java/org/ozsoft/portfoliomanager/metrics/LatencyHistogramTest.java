@@ -0,0 +1,68 @@
+package org.ozsoft.portfoliomanager.metrics;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * JUnit test suite for the {@link LatencyHistogram} class.
+ *
+ * @author Oscar Stigter
+ */
+public class LatencyHistogramTest {
+
+    /** Maximum relative error of a recorded value. */
+    private static final double PRECISION = 1.0 / 32.0;
+
+    /**
+     * Tests that every value is mapped to a bucket whose middle value is within the precision.
+     */
+    @Test
+    public void buckets() {
+        long[] values = { 0L, 1L, 31L, 32L, 33L, 63L, 64L, 1000L, 123456789L, 1L << 40, Long.MAX_VALUE };
+        int lastIndex = -1;
+        for (long value : values) {
+            int index = LatencyHistogram.getIndex(value);
+            Assert.assertTrue(index > lastIndex);
+            lastIndex = index;
+            long midValue = LatencyHistogram.getMidValue(index);
+            Assert.assertTrue(Math.abs((double) midValue - value) <= value * PRECISION);
+        }
+    }
+
+    /**
+     * Compares the percentiles with the exact percentiles of the recorded values.
+     */
+    @Test
+    public void percentiles() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        Assert.assertEquals(0L, histogram.getCount());
+        Assert.assertEquals(0.0, histogram.get99thPercentile(), 0.0);
+
+        // Log-normal distributed latencies around 50 ms.
+        Random random = new Random(42L);
+        int count = 10000;
+        long[] values = new long[count];
+        double sum = 0.0;
+        for (int i = 0; i < count; i++) {
+            values[i] = (long) (50000000.0 * Math.exp(random.nextGaussian() * 0.5));
+            histogram.record(values[i]);
+            sum += values[i];
+        }
+        Arrays.sort(values);
+
+        Assert.assertEquals(count, histogram.getCount());
+        Assert.assertEquals(sum / count / 1e6, histogram.getMean(), 1e-6);
+        Assert.assertEquals(values[count - 1] / 1e6, histogram.getMax(), 1e-6);
+        for (double p : new double[] { 50.0, 95.0, 99.0, 100.0 }) {
+            double expected = values[(int) Math.ceil(p / 100.0 * count) - 1] / 1e6;
+            Assert.assertEquals(expected, histogram.getPercentile(p), expected * PRECISION);
+        }
+
+        histogram.reset();
+        Assert.assertEquals(0L, histogram.getCount());
+        Assert.assertEquals(0.0, histogram.getMax(), 0.0);
+    }
+}
@@ -0,0 +1,62 @@
+package org.ozsoft.portfoliomanager.services;
+
+import java.io.StringReader;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.ozsoft.portfoliomanager.domain.Configuration;
+import org.ozsoft.portfoliomanager.domain.Quote;
+import org.ozsoft.portfoliomanager.domain.Stock;
+import org.ozsoft.portfoliomanager.domain.StockAnalysis;
+import org.ozsoft.portfoliomanager.services.downloader.StubQuoteDownloader;
+
+/**
+ * JUnit test suite for the {@link AnalyzeService} class.
+ *
+ * @author Oscar Stigter
+ */
+public class AnalyzeServiceTest {
+
+    /** Number of months with historic prices, all within the last 10 years. */
+    private static final int NO_OF_MONTHS = 108;
+
+    /**
+     * Tests the 10-year performance, based on the monthly closing prices of the historic prices only.
+     */
+    @Test
+    public void tenYearPerformance() {
+        Configuration config = Configuration.fromJson(new StringReader("{}"));
+        Stock stock = new Stock("TST1", "Test Stock 1");
+        config.addStock(stock);
+
+        // One price per month (up to last month), rising 0.5 % per month.
+        Calendar cal = Calendar.getInstance();
+        cal.set(Calendar.DAY_OF_MONTH, 15);
+        cal.set(Calendar.HOUR_OF_DAY, 12);
+        cal.add(Calendar.MONTH, -NO_OF_MONTHS);
+        List<Quote> prices = new ArrayList<Quote>();
+        for (int i = 0; i < NO_OF_MONTHS; i++) {
+            prices.add(new Quote(cal.getTime(), new BigDecimal(100.0 * Math.pow(1.005, i))));
+            cal.add(Calendar.MONTH, 1);
+        }
+        StubQuoteDownloader downloader = new StubQuoteDownloader("Stub", 10.0);
+        downloader.setHistoricPrices(prices);
+        HistoryCache historyCache = new HistoryCache(downloader, Long.MAX_VALUE, Long.MAX_VALUE);
+        AnalyzeService service = new AnalyzeService(config, historyCache);
+
+        // The CAGR depends slightly on the lengths of the months in the range.
+        StockAnalysis analysis = service.analyzeStock(stock);
+        Assert.assertEquals(6.16, analysis.getCagr10yr(), 0.01);
+        Assert.assertEquals(2.159, analysis.getVolatility(), 0.001);
+
+        // Live prices are ignored.
+        historyCache.addPrice("TST1", System.currentTimeMillis(), 1000.0);
+        analysis = service.analyzeStock(stock);
+        Assert.assertEquals(6.16, analysis.getCagr10yr(), 0.01);
+        Assert.assertEquals(2.159, analysis.getVolatility(), 0.001);
+    }
+}
@@ -0,0 +1,101 @@
+package org.ozsoft.portfoliomanager.services;
+
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Map;
+
+import org.apache.poi.xssf.usermodel.XSSFRow;
+import org.apache.poi.xssf.usermodel.XSSFSheet;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.ozsoft.portfoliomanager.domain.DividendStatistics;
+import org.ozsoft.portfoliomanager.test.TestUtils;
+
+/**
+ * JUnit test suite for the {@link CCCListIndex} and {@link CCCListParser} classes.
+ *
+ * @author Oscar Stigter
+ */
+public class CCCListIndexTest {
+
+    @Rule
+    public TemporaryFolder tempFolder = new TemporaryFolder();
+
+    /**
+     * Performs the actual test.
+     */
+    @Test
+    public void test() throws IOException {
+        File cccListFile = tempFolder.newFile("CCC_list.xlsx");
+        File indexFile = new File(tempFolder.getRoot(), "CCC_list.idx");
+        createCCCList(cccListFile);
+
+        // Parse CCC list and create index.
+        CCCListIndex index = new CCCListIndex(indexFile);
+        Map<String, DividendStatistics> statistics = index.getStatistics(cccListFile);
+        Assert.assertTrue(indexFile.isFile());
+        assertStatistics(statistics);
+
+        // Unchanged CCC list; same (in-memory) statistics.
+        Assert.assertSame(statistics, index.getStatistics(cccListFile));
+
+        // Read statistics from index, without parsing the CCC list.
+        Assert.assertTrue(cccListFile.delete());
+        Assert.assertTrue(tempFolder.newFile("CCC_list.xlsx").setLastModified(indexedTimestamp(indexFile)));
+        assertStatistics(new CCCListIndex(indexFile).getStatistics(cccListFile));
+    }
+
+    private static void assertStatistics(Map<String, DividendStatistics> statistics) {
+        Assert.assertEquals(2, statistics.size());
+
+        DividendStatistics stats = statistics.get("KO");
+        Assert.assertEquals(54, stats.getYearsDivGrowth());
+        TestUtils.assertEquals(1.76, stats.getDivRate());
+        TestUtils.assertEquals(4.50, stats.getDivGrowth1y());
+        TestUtils.assertEquals(5.10, stats.getDivGrowth3y());
+        TestUtils.assertEquals(-1.00, stats.getDivGrowth5y());
+        TestUtils.assertEquals(5.10, stats.getDivGrowth());
+
+        stats = statistics.get("MMM");
+        Assert.assertEquals(60, stats.getYearsDivGrowth());
+        TestUtils.assertEquals(5.96, stats.getDivRate());
+        TestUtils.assertEquals(7.25, stats.getDivGrowth());
+    }
+
+    private static long indexedTimestamp(File indexFile) throws IOException {
+        try (DataInputStream dis = new DataInputStream(new FileInputStream(indexFile))) {
+            dis.readInt();
+            return dis.readLong();
+        }
+    }
+
+    private static void createCCCList(File file) throws IOException {
+        try (XSSFWorkbook workbook = new XSSFWorkbook(); OutputStream os = new FileOutputStream(file)) {
+            workbook.createSheet("Introduction").createRow(0).createCell(1).setCellValue("Ignored");
+            XSSFSheet sheet = workbook.createSheet("All CCC");
+            for (int i = 0; i < 6; i++) {
+                sheet.createRow(i).createCell(1).setCellValue("Header");
+            }
+            XSSFRow row = sheet.createRow(6);
+            row.createCell(1).setCellValue("KO");
+            row.createCell(4).setCellValue(54.0);
+            row.createCell(12).setCellValue(1.76);
+            row.createCell(18).setCellValue(4.5);
+            row.createCell(19).setCellValue(5.1);
+            row.createCell(20).setCellValue("n/a");
+            row = sheet.createRow(7);
+            row.createCell(1).setCellValue("MMM");
+            row.createCell(4).setCellValue(60.0);
+            row.createCell(12).setCellValue(5.96);
+            row.createCell(20).setCellValue(7.25);
+            workbook.write(os);
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package org.ozsoft.portfoliomanager.services;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.ozsoft.portfoliomanager.domain.Quote;
+import org.ozsoft.portfoliomanager.domain.Stock;
+import org.ozsoft.portfoliomanager.domain.StockHistory;
+import org.ozsoft.portfoliomanager.services.downloader.StubQuoteDownloader;
+
+/**
+ * JUnit test suite for the {@link HistoryCache} class.
+ *
+ * @author Oscar Stigter
+ */
+public class HistoryCacheTest {
+
+    private static final long DAY = 24L * 60L * 60L * 1000L;
+
+    private static final long START_TIME = 1420070400000L; // 2015-01-01
+
+    private static final int NO_OF_DAYS = 100;
+
+    private static final long NO_TTL = Long.MAX_VALUE;
+
+    private static final Stock STOCK_A = new Stock("TST1", "Test Stock 1");
+
+    private static final Stock STOCK_B = new Stock("TST2", "Test Stock 2");
+
+    private static final Stock STOCK_C = new Stock("TST3", "Test Stock 3");
+
+    /**
+     * Tests evicting the least recently used histories once the maximum size is exceeded.
+     */
+    @Test
+    public void eviction() {
+        long historySize = getHistorySize();
+        HistoryDownloader downloader = new HistoryDownloader();
+        HistoryCache cache = new HistoryCache(downloader, 2L * historySize + historySize / 2L, NO_TTL);
+
+        cache.getHistory(STOCK_A);
+        cache.getHistory(STOCK_B);
+        Assert.assertEquals(2, cache.getCount());
+        Assert.assertEquals(2L * historySize, cache.getSize());
+
+        // Touch A, so B is the least recently used.
+        cache.getHistory(STOCK_A);
+        Assert.assertEquals(2, downloader.getNoOfDownloads());
+
+        cache.getHistory(STOCK_C);
+        Assert.assertEquals(3, downloader.getNoOfDownloads());
+        Assert.assertEquals(2, cache.getCount());
+        Assert.assertEquals(2L * historySize, cache.getSize());
+
+        cache.getHistory(STOCK_A);
+        Assert.assertEquals(3, downloader.getNoOfDownloads());
+        cache.getHistory(STOCK_B);
+        Assert.assertEquals(4, downloader.getNoOfDownloads());
+    }
+
+    /**
+     * Tests downloading an expired history again.
+     */
+    @Test
+    public void ttl() throws InterruptedException {
+        long historySize = getHistorySize();
+        HistoryDownloader downloader = new HistoryDownloader();
+        HistoryCache cache = new HistoryCache(downloader, Long.MAX_VALUE, 100L);
+
+        cache.getHistory(STOCK_A);
+        cache.getHistory(STOCK_A);
+        Assert.assertEquals(1, downloader.getNoOfDownloads());
+
+        Thread.sleep(200L);
+        cache.getHistory(STOCK_A);
+        Assert.assertEquals(2, downloader.getNoOfDownloads());
+        Assert.assertEquals(1, cache.getCount());
+        Assert.assertEquals(historySize, cache.getSize());
+    }
+
+    /**
+     * Tests invalidating a history, and the size accounting of live prices added to a cached history.
+     */
+    @Test
+    public void invalidate() {
+        long historySize = getHistorySize();
+        HistoryDownloader downloader = new HistoryDownloader();
+        HistoryCache cache = new HistoryCache(downloader, Long.MAX_VALUE, NO_TTL);
+
+        cache.getHistory(STOCK_A);
+        StockHistory history = cache.getHistory(STOCK_B);
+        long timestamp = START_TIME + NO_OF_DAYS * DAY;
+        for (int i = 0; i < 1000; i++) {
+            cache.addPrice(STOCK_B.getSymbol(), timestamp, 10.0 + i % 10);
+            timestamp += DAY;
+        }
+        Assert.assertTrue(history.getMemorySize() > historySize);
+        Assert.assertEquals(historySize + history.getMemorySize(), cache.getSize());
+
+        cache.invalidate(STOCK_B.getSymbol());
+        Assert.assertEquals(1, cache.getCount());
+        Assert.assertEquals(historySize, cache.getSize());
+        cache.invalidate(STOCK_B.getSymbol());
+        Assert.assertEquals(historySize, cache.getSize());
+
+        cache.invalidate(STOCK_A.getSymbol());
+        Assert.assertEquals(0, cache.getCount());
+        Assert.assertEquals(0L, cache.getSize());
+
+        cache.getHistory(STOCK_A);
+        Assert.assertEquals(3, downloader.getNoOfDownloads());
+    }
+
+    /**
+     * Returns the size of a single (downloaded) history.
+     */
+    private static long getHistorySize() {
+        HistoryCache cache = new HistoryCache(new HistoryDownloader(), Long.MAX_VALUE, NO_TTL);
+        cache.getHistory(STOCK_A);
+        return cache.getSize();
+    }
+
+    /**
+     * Stub quote downloader with a daily price history, counting the downloads.
+     */
+    private static class HistoryDownloader extends StubQuoteDownloader {
+
+        private final AtomicInteger noOfDownloads = new AtomicInteger();
+
+        public HistoryDownloader() {
+            super("History", 10.0);
+        }
+
+        public int getNoOfDownloads() {
+            return noOfDownloads.get();
+        }
+
+        @Override
+        public List<Quote> getHistoricPrices(Stock stock) {
+            noOfDownloads.incrementAndGet();
+            List<Quote> quotes = new ArrayList<Quote>();
+            for (int i = 0; i < NO_OF_DAYS; i++) {
+                quotes.add(new Quote(new Date(START_TIME + i * DAY), new BigDecimal(10 + i % 5)));
+            }
+            return quotes;
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package org.ozsoft.portfoliomanager.services;
+
+import java.io.StringReader;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+import org.ozsoft.portfoliomanager.domain.Configuration;
+import org.ozsoft.portfoliomanager.domain.Stock;
+import org.ozsoft.portfoliomanager.domain.Transaction;
+import org.ozsoft.portfoliomanager.domain.TransactionType;
+import org.ozsoft.portfoliomanager.services.downloader.StubQuoteDownloader;
+import org.ozsoft.portfoliomanager.test.TestUtils;
+import org.ozsoft.portfoliomanager.util.DateUtils;
+
+/**
+ * JUnit test suite for the {@link IncomeForecastService} class.
+ *
+ * @author Oscar Stigter
+ */
+public class IncomeForecastServiceTest {
+
+    /** Days of the received quarterly dividends, relative to today. */
+    private static final int[] PAYMENT_DAYS = { -300, -210, -120, -30 };
+
+    /**
+     * Tests updating the forecast after adding, changing and deleting transactions.
+     */
+    @Test
+    public void transactions() {
+        Configuration config = Configuration.fromJson(new StringReader("{}"));
+        config.addStock(new Stock("TST1", "Test Stock 1"));
+        HistoryCache historyCache = new HistoryCache(new StubQuoteDownloader("Stub", 10.0), Long.MAX_VALUE, Long.MAX_VALUE);
+        IncomeForecastService service = new IncomeForecastService(config, historyCache);
+
+        // 100 shares with quarterly dividends of $0.50 per share.
+        List<Transaction> transactions = new ArrayList<Transaction>();
+        transactions.add(TestUtils.createTransaction(1, date(-400), TransactionType.BUY, "TST1", 100, 20.00, 0.00));
+        for (int i = 0; i < PAYMENT_DAYS.length; i++) {
+            transactions.add(TestUtils.createTransaction(i + 2, date(PAYMENT_DAYS[i]), TransactionType.DIVIDEND, "TST1", 100, 0.50, 0.00));
+        }
+        for (Transaction tx : transactions) {
+            config.addTransaction(tx);
+        }
+        assertTotalIncome(200.00, service);
+
+        // Dividend raised to $1.00 per share.
+        Transaction lastDividend = transactions.get(transactions.size() - 1);
+        lastDividend.setPrice(new BigDecimal("1.00"));
+        service.transactionChanged(lastDividend, "TST1");
+        assertTotalIncome(400.00, service);
+
+        // New stock, added after the first forecast.
+        config.addStock(new Stock("TST2", "Test Stock 2"));
+        Transaction buy = TestUtils.createTransaction(6, date(-200), TransactionType.BUY, "TST2", 10, 50.00, 0.00);
+        config.addTransaction(buy);
+        service.transactionAdded(buy);
+        Transaction dividend = TestUtils.createTransaction(7, date(-130), TransactionType.DIVIDEND, "TST2", 10, 2.00, 0.00);
+        config.addTransaction(dividend);
+        service.transactionAdded(dividend);
+        dividend = TestUtils.createTransaction(8, date(-40), TransactionType.DIVIDEND, "TST2", 10, 2.00, 0.00);
+        config.addTransaction(dividend);
+        service.transactionAdded(dividend);
+        assertTotalIncome(480.00, service);
+
+        // Position closed by deleting all of its transactions.
+        for (Transaction tx : transactions) {
+            config.deleteTransaction(tx);
+            service.transactionRemoved(tx);
+        }
+        assertTotalIncome(80.00, service);
+    }
+
+    private static void assertTotalIncome(double expected, IncomeForecastService service) {
+        double actual = service.getForecast().getTotalIncome();
+        TestUtils.assertEquals(expected, actual);
+        TestUtils.assertEquals(actual, expected);
+    }
+
+    private static long date(int dayOffset) {
+        return DateUtils.toTimestamp(DateUtils.toDay(System.currentTimeMillis()) + dayOffset) + 12L * 60L * 60L * 1000L;
+    }
+}
@@ -0,0 +1,82 @@
+package org.ozsoft.portfoliomanager.services.downloader;
+
+import java.io.IOException;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.ozsoft.portfoliomanager.domain.Stock;
+import org.ozsoft.portfoliomanager.test.TestUtils;
+
+/**
+ * JUnit test suite for the {@link CompositeQuoteDownloader} class.
+ *
+ * @author Oscar Stigter
+ */
+public class CompositeQuoteDownloaderTest {
+
+    private static final Stock STOCK = new Stock("TST1", "Test Stock 1");
+
+    /**
+     * Tests the automatic failover.
+     */
+    @Test
+    public void failover() throws IOException {
+        StubQuoteDownloader primary = new StubQuoteDownloader("Primary", 10.00);
+        StubQuoteDownloader secondary = new StubQuoteDownloader("Secondary", 20.00);
+        CompositeQuoteDownloader downloader = new CompositeQuoteDownloader(false, primary, secondary);
+
+        // Healthy primary provider.
+        TestUtils.assertEquals(10.00, downloader.fetchQuote(STOCK).getPrice());
+        Assert.assertEquals(1, primary.getNoOfRequests());
+        Assert.assertEquals(0, secondary.getNoOfRequests());
+
+        // Failing primary provider; fail over to secondary provider.
+        primary.setFailing(true);
+        TestUtils.assertEquals(20.00, downloader.fetchQuote(STOCK).getPrice());
+        Assert.assertEquals(2, primary.getNoOfRequests());
+        Assert.assertEquals(1, secondary.getNoOfRequests());
+        Assert.assertTrue(downloader.getHealth(primary) < downloader.getHealth(secondary));
+
+        // Less healthy primary provider is tried last.
+        TestUtils.assertEquals(20.00, downloader.fetchQuote(STOCK).getPrice());
+        Assert.assertEquals(2, primary.getNoOfRequests());
+        Assert.assertEquals(2, secondary.getNoOfRequests());
+
+        // All providers failing.
+        secondary.setFailing(true);
+        try {
+            downloader.fetchQuote(STOCK);
+            Assert.fail("IOException not thrown");
+        } catch (IOException e) {
+            // Expected.
+        }
+        Assert.assertFalse(downloader.updateStock(STOCK));
+    }
+
+    /**
+     * Tests hedged requests.
+     */
+    @Test
+    public void hedging() throws IOException {
+        StubQuoteDownloader primary = new StubQuoteDownloader("Primary", 10.00);
+        StubQuoteDownloader secondary = new StubQuoteDownloader("Secondary", 20.00);
+        CompositeQuoteDownloader downloader = new CompositeQuoteDownloader(true, primary, secondary);
+
+        // Build up latency statistics of the primary provider.
+        primary.setLatency(5L);
+        for (int i = 0; i < 20; i++) {
+            TestUtils.assertEquals(10.00, downloader.fetchQuote(STOCK).getPrice());
+        }
+        Assert.assertEquals(0, secondary.getNoOfRequests());
+        long p95 = downloader.getLatency(primary, 0.95);
+        Assert.assertTrue(p95 >= 5L);
+
+        // Slow primary provider; hedged request to secondary provider wins.
+        primary.setLatency(2000L);
+        long startTime = System.currentTimeMillis();
+        TestUtils.assertEquals(20.00, downloader.fetchQuote(STOCK).getPrice());
+        long duration = System.currentTimeMillis() - startTime;
+        Assert.assertEquals(1, secondary.getNoOfRequests());
+        Assert.assertTrue("Hedged request too slow: " + duration, duration < 1000L);
+    }
+}
@@ -0,0 +1,131 @@
+package org.ozsoft.portfoliomanager.services.downloader;
+
+import java.io.IOException;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.ozsoft.portfoliomanager.util.HttpStatusException;
+
+/**
+ * JUnit test suite for the {@link RequestThrottle} class.
+ *
+ * @author Oscar Stigter
+ */
+public class RequestThrottleTest {
+
+    /**
+     * Tests the AIMD concurrency limit and request rate.
+     */
+    @Test
+    public void aimd() throws InterruptedException {
+        RequestThrottle throttle = new RequestThrottle(1000.0, 8);
+        Assert.assertEquals(4, throttle.getConcurrencyLimit());
+        Assert.assertEquals(1000.0, throttle.getRate(), 1e-9);
+
+        // Multiplicative decrease.
+        throttle.acquire();
+        throttle.onThrottled();
+        Assert.assertEquals(2, throttle.getConcurrencyLimit());
+        Assert.assertEquals(500.0, throttle.getRate(), 1e-9);
+        throttle.acquire();
+        throttle.onThrottled();
+        Assert.assertEquals(1, throttle.getConcurrencyLimit());
+        Assert.assertEquals(250.0, throttle.getRate(), 1e-9);
+        throttle.acquire();
+        throttle.onThrottled();
+        Assert.assertEquals(1, throttle.getConcurrencyLimit());
+        Assert.assertEquals(125.0, throttle.getRate(), 1e-9);
+
+        // Other failures do not affect the limits.
+        throttle.acquire();
+        throttle.onFailure();
+        Assert.assertEquals(1, throttle.getConcurrencyLimit());
+        Assert.assertEquals(125.0, throttle.getRate(), 1e-9);
+
+        // Additive increase.
+        throttle.acquire();
+        throttle.onSuccess();
+        Assert.assertEquals(2, throttle.getConcurrencyLimit());
+        Assert.assertEquals(175.0, throttle.getRate(), 1e-9);
+        for (int i = 0; i < 100; i++) {
+            throttle.acquire();
+            throttle.onSuccess();
+        }
+        Assert.assertEquals(8, throttle.getConcurrencyLimit());
+        Assert.assertEquals(1000.0, throttle.getRate(), 1e-9);
+    }
+
+    /**
+     * Tests that requests wait for a free slot when the concurrency limit is reached.
+     */
+    @Test
+    public void concurrency() throws InterruptedException {
+        final RequestThrottle throttle = new RequestThrottle(1000.0, 1);
+        throttle.acquire();
+        Thread thread = new Thread() {
+            @Override
+            public void run() {
+                try {
+                    throttle.acquire();
+                    throttle.onSuccess();
+                } catch (InterruptedException e) {
+                    // Test fails on the assertion below.
+                }
+            }
+        };
+        thread.start();
+        thread.join(100L);
+        Assert.assertTrue(thread.isAlive());
+        throttle.onSuccess();
+        thread.join(5000L);
+        Assert.assertFalse(thread.isAlive());
+    }
+
+    /**
+     * Tests that the token bucket limits the request rate.
+     */
+    @Test
+    public void rate() throws InterruptedException {
+        RequestThrottle throttle = new RequestThrottle(20.0, 1);
+        long startTime = System.nanoTime();
+        // The first request is sent immediately, every next request 50 ms later.
+        for (int i = 0; i < 11; i++) {
+            throttle.acquire();
+            throttle.onSuccess();
+        }
+        long duration = (System.nanoTime() - startTime) / 1000000L;
+        Assert.assertTrue("Too fast: " + duration + " ms", duration >= 450L);
+        Assert.assertTrue("Too slow: " + duration + " ms", duration < 5000L);
+    }
+
+    /**
+     * Tests recognizing throttled requests and server errors.
+     */
+    @Test
+    public void statusCodes() {
+        Assert.assertEquals(429, RequestThrottle.getStatusCode(new HttpStatusException("Too many requests", 429)));
+        Assert.assertEquals(-1, RequestThrottle.getStatusCode(new IOException("Connection reset")));
+        Assert.assertTrue(RequestThrottle.isThrottled(new HttpStatusException("Too many requests", 429)));
+        Assert.assertTrue(RequestThrottle.isThrottled(new HttpStatusException("Service unavailable", 503)));
+        Assert.assertFalse(RequestThrottle.isThrottled(new HttpStatusException("Not found", 404)));
+        Assert.assertFalse(RequestThrottle.isThrottled(new IOException("Connection reset")));
+    }
+
+    /**
+     * Tests recognizing throttled requests and server errors of the Yahoo Finance library (plain IOExceptions).
+     */
+    @Test
+    public void yahooStatusCodes() {
+        IOException e = YahooFinanceQuoteDownloader.toHttpStatusException(
+                new IOException("Server returned HTTP response code: 429 for URL: https://query1.finance.yahoo.com/v7/finance/quote"));
+        Assert.assertEquals(429, RequestThrottle.getStatusCode(e));
+        Assert.assertTrue(RequestThrottle.isThrottled(e));
+        e = YahooFinanceQuoteDownloader.toHttpStatusException(
+                new IOException("Server returned HTTP response code: 503 for URL: https://query1.finance.yahoo.com/v7/finance/quote"));
+        Assert.assertEquals(503, RequestThrottle.getStatusCode(e));
+        Assert.assertTrue(RequestThrottle.isThrottled(e));
+        e = YahooFinanceQuoteDownloader.toHttpStatusException(new IOException("Connection reset"));
+        Assert.assertEquals(-1, RequestThrottle.getStatusCode(e));
+        Assert.assertFalse(RequestThrottle.isThrottled(e));
+    }
+}
@@ -0,0 +1,56 @@
+package org.ozsoft.portfoliomanager.services.downloader;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.ozsoft.portfoliomanager.util.HttpStatusException;
+
+/**
+ * JUnit test suite for the {@link RetryPolicy} class.
+ *
+ * @author Oscar Stigter
+ */
+public class RetryPolicyTest {
+
+    private static final int SAMPLES = 1000;
+
+    /**
+     * Tests the exponential backoff with jitter.
+     */
+    @Test
+    public void delays() {
+        RetryPolicy policy = new RetryPolicy(5, 100L, 1000L);
+        Assert.assertEquals(5, policy.getMaxAttempts());
+        long[] maxDelays = { 100L, 200L, 400L, 800L, 1000L, 1000L };
+        for (int attempt = 0; attempt < maxDelays.length; attempt++) {
+            long maxDelay = maxDelays[attempt];
+            long minDelay = Long.MAX_VALUE;
+            long highestDelay = 0L;
+            for (int i = 0; i < SAMPLES; i++) {
+                long delay = policy.getDelay(attempt);
+                Assert.assertTrue(delay >= maxDelay / 2L && delay <= maxDelay);
+                minDelay = Math.min(minDelay, delay);
+                highestDelay = Math.max(highestDelay, delay);
+            }
+            // Jitter spreads the delays over the full range.
+            Assert.assertTrue(highestDelay - minDelay > maxDelay / 4L);
+        }
+
+        Assert.assertEquals(0L, RetryPolicy.NONE.getDelay(0));
+    }
+
+    /**
+     * Tests which failed requests are retried.
+     */
+    @Test
+    public void retryable() {
+        RetryPolicy policy = RetryPolicy.DEFAULT;
+        Assert.assertTrue(policy.isRetryable(new IOException("Connection reset")));
+        Assert.assertTrue(policy.isRetryable(new HttpStatusException("Too many requests", 429)));
+        Assert.assertTrue(policy.isRetryable(new HttpStatusException("Bad gateway", 502)));
+        Assert.assertFalse(policy.isRetryable(new HttpStatusException("Not found", 404)));
+        Assert.assertFalse(policy.isRetryable(new FileNotFoundException("Unknown symbol")));
+    }
+}
@@ -0,0 +1,86 @@
+package org.ozsoft.portfoliomanager.services.downloader;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.ozsoft.portfoliomanager.domain.Quote;
+import org.ozsoft.portfoliomanager.domain.Stock;
+import org.ozsoft.portfoliomanager.util.HttpStatusException;
+
+/**
+ * Local stub quote provider for tests, with a fixed price, configurable latency and failures, and optional historic prices.
+ *
+ * @author Oscar Stigter
+ */
+public class StubQuoteDownloader extends QuoteDownloader {
+
+    private final String name;
+
+    private final BigDecimal price;
+
+    private final AtomicInteger noOfRequests = new AtomicInteger();
+
+    private volatile long latency;
+
+    private volatile boolean isFailing;
+
+    private volatile List<Quote> historicPrices = new ArrayList<Quote>();
+
+    public StubQuoteDownloader(String name, double price) {
+        super(null, new RequestThrottle(1000.0, 100));
+        this.name = name;
+        this.price = new BigDecimal(price);
+        setRetryPolicy(RetryPolicy.NONE);
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    public void setLatency(long latency) {
+        this.latency = latency;
+    }
+
+    public void setFailing(boolean isFailing) {
+        this.isFailing = isFailing;
+    }
+
+    public void setHistoricPrices(List<Quote> historicPrices) {
+        this.historicPrices = historicPrices;
+    }
+
+    public int getNoOfRequests() {
+        return noOfRequests.get();
+    }
+
+    @Override
+    protected LiveQuote getQuote(String symbol) throws IOException {
+        noOfRequests.incrementAndGet();
+        if (latency > 0L) {
+            try {
+                Thread.sleep(latency);
+            } catch (InterruptedException e) {
+                throw new InterruptedIOException("Interrupted");
+            }
+        }
+        if (isFailing) {
+            throw new HttpStatusException("Failed GET request to 'stub://" + name + "' (HTTP status code: 503)", 503);
+        }
+        return new LiveQuote(symbol, price, BigDecimal.ZERO, System.currentTimeMillis());
+    }
+
+    @Override
+    public List<Quote> getHistoricPrices(Stock stock) {
+        return new ArrayList<Quote>(historicPrices);
+    }
+
+    @Override
+    public List<Quote> getDividendPayouts(Stock stock) {
+        return new ArrayList<Quote>();
+    }
+}
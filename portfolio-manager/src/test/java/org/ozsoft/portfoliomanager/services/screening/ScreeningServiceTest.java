@@ -0,0 +1,112 @@
+package org.ozsoft.portfoliomanager.services.screening;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.ozsoft.portfoliomanager.domain.CreditRating;
+import org.ozsoft.portfoliomanager.domain.Stock;
+
+/**
+ * JUnit test suite for the stock screening classes.
+ *
+ * @author Oscar Stigter
+ */
+public class ScreeningServiceTest {
+
+    private static final String DIVIDEND_GROWTH_SCREEN = "yield > 3 and DGR > 7 and YDG >= 10 and rating >= A-";
+
+    /**
+     * Tests ad-hoc screens.
+     */
+    @Test
+    public void screen() {
+        List<Stock> stocks = createStocks();
+        ScreeningService service = new ScreeningService(stocks, Collections.<String, String> emptyMap());
+
+        assertMatches(service.screen(DIVIDEND_GROWTH_SCREEN), "AAA");
+        assertMatches(service.screen("yield>3"), "AAA", "BBB", "CCC");
+        assertMatches(service.screen("rating = N/R or (ydg < 10 and not price >= 50)"), "CCC", "DDD");
+        assertMatches(service.screen("tpi <= 90"), "BBB");
+        assertMatches(service.screen("rating > aaa"));
+    }
+
+    /**
+     * Tests the incremental re-evaluation of saved screens.
+     */
+    @Test
+    public void savedScreens() {
+        List<Stock> stocks = createStocks();
+        ScreeningService service = new ScreeningService(stocks, Collections.singletonMap("DGI", DIVIDEND_GROWTH_SCREEN));
+        assertMatches(service.getMatches("DGI"), "AAA");
+        Assert.assertNull(service.getMatches("Unknown"));
+
+        // Price drop raises the yield.
+        Stock stock = stocks.get(1);
+        stock.setPrice(new BigDecimal("80.00"));
+        stock.setCreditRating(CreditRating.A_MINUS);
+        service.stockUpdated(stock);
+        assertMatches(service.getMatches("DGI"), "AAA", "BBB");
+
+        // New stock.
+        Stock newStock = createStock("EEE", 10.0, 0.5, 8.0, 25, CreditRating.AA);
+        service.stockUpdated(newStock);
+        assertMatches(service.getMatches("DGI"), "AAA", "BBB", "EEE");
+
+        // Deleted stock.
+        service.refresh(stocks);
+        assertMatches(service.getMatches("DGI"), "AAA", "BBB");
+    }
+
+    /**
+     * Tests invalid expressions.
+     */
+    @Test
+    public void invalidExpressions() {
+        String[] expressions = { "", "yield", "yield >", "foo > 3", "yield ~ 3", "yield > abc", "rating > Z", "(yield > 3", "yield > 3 dgr" };
+        for (String expression : expressions) {
+            try {
+                new Screen("Invalid", expression);
+                Assert.fail("Invalid expression accepted: " + expression);
+            } catch (IllegalArgumentException e) {
+                // OK
+            }
+        }
+    }
+
+    private static List<Stock> createStocks() {
+        List<Stock> stocks = new ArrayList<Stock>();
+        stocks.add(createStock("AAA", 100.0, 4.0, 8.0, 25, CreditRating.AA_MINUS));
+        stocks.add(createStock("BBB", 100.0, 3.5, 10.0, 12, CreditRating.BBB_PLUS));
+        stocks.add(createStock("CCC", 40.0, 2.0, 5.0, 5, CreditRating.NA));
+        stocks.add(createStock("DDD", 20.0, 0.2, 10.0, 3, CreditRating.A));
+        stocks.get(1).setTargetPrice(new BigDecimal("85.00"));
+        return stocks;
+    }
+
+    private static Stock createStock(String symbol, double price, double divRate, double divGrowth, int yearsDivGrowth,
+            CreditRating creditRating) {
+        Stock stock = new Stock(symbol, symbol);
+        stock.setPrice(BigDecimal.valueOf(price));
+        stock.setTargetPrice(BigDecimal.valueOf(price));
+        stock.setDivRate(BigDecimal.valueOf(divRate));
+        stock.setDivGrowth(BigDecimal.valueOf(divGrowth));
+        stock.setYearsDivGrowth(yearsDivGrowth);
+        stock.setCreditRating(creditRating);
+        return stock;
+    }
+
+    private static void assertMatches(List<Stock> stocks, String... symbols) {
+        List<String> actualSymbols = new ArrayList<String>();
+        for (Stock stock : stocks) {
+            actualSymbols.add(stock.getSymbol());
+        }
+        Collections.sort(actualSymbols);
+        List<String> expectedSymbols = new ArrayList<String>();
+        Collections.addAll(expectedSymbols, symbols);
+        Assert.assertEquals(expectedSymbols, actualSymbols);
+    }
+}
@@ -1,13 +1,19 @@
 package org.ozsoft.portfoliomanager.test;
 
 import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
 
 import org.junit.Assert;
 import org.ozsoft.portfoliomanager.domain.Transaction;
 import org.ozsoft.portfoliomanager.domain.TransactionType;
+import org.ozsoft.portfoliomanager.util.DateUtils;
 
 public abstract class TestUtils {
 
+    /** Arbitrary first day of the test transactions (2016-01-01). */
+    public static final int DAY = 16801;
+
     /** Comparison delta for monetary values. */
     private static final BigDecimal DELTA = new BigDecimal("0.01");
 
@@ -47,4 +53,36 @@ public abstract class TestUtils {
         tx.setCost(new BigDecimal(cost));
         return tx;
     }
+
+    /**
+     * Returns the timestamp of a day relative to {@link #DAY} (at noon).
+     *
+     * @param dayOffset
+     *            The number of days after {@link #DAY}.
+     *
+     * @return The timestamp in milliseconds.
+     */
+    public static long date(int dayOffset) {
+        return DateUtils.toTimestamp(DAY + dayOffset) + 12L * 60L * 60L * 1000L;
+    }
+
+    /**
+     * Returns a set of test transactions of two stocks, relative to {@link #DAY}.
+     *
+     * @return The transactions, sorted by date.
+     */
+    public static List<Transaction> createTransactions() {
+        List<Transaction> transactions = new ArrayList<Transaction>();
+        // Day 0: BUY 100 TST1 @ $20 ($5 costs)
+        transactions.add(createTransaction(1, date(0), TransactionType.BUY, "TST1", 100, 20.00, 5.00));
+        // Day 2: BUY 100 TST2 @ $10 ($1 costs)
+        transactions.add(createTransaction(2, date(2), TransactionType.BUY, "TST2", 100, 10.00, 1.00));
+        // Day 3: DIVIDEND 100 TST1 @ $1
+        transactions.add(createTransaction(3, date(3), TransactionType.DIVIDEND, "TST1", 100, 1.00, 0.00));
+        // Day 4: SELL 50 TST2 @ $15 ($2 costs)
+        transactions.add(createTransaction(4, date(4), TransactionType.SELL, "TST2", 50, 15.00, 2.00));
+        // Day 10: BUY 100 TST1 @ $30
+        transactions.add(createTransaction(5, date(10), TransactionType.BUY, "TST1", 100, 30.00, 0.00));
+        return transactions;
+    }
 }